@@ -40,6 +40,7 @@ import net.foxopen.fox.module.serialiser.HtmlDoctype;
 import net.foxopen.fox.spatial.SpatialEngine;
 import net.foxopen.fox.sql.SQLManager;
 import net.foxopen.fox.track.Track;
+import net.foxopen.fox.util.SingleFlightLoader;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -56,6 +57,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
 public class App {
@@ -115,6 +117,9 @@ public class App {
    */
   private final Set<String> mComponentNameSet;
 
+  /** Ensures only one thread loads a given component into the component cache at a time. */
+  private final SingleFlightLoader<String, FoxComponent> mComponentLoader = new SingleFlightLoader<>();
+
   /**
    * Create an App performing any set up processing required on it.
    *
@@ -646,11 +651,8 @@ public class App {
       lFullComponentPath = mDefaultModuleName;
     }
 
-    UCon lUCon = null;
     Track.pushInfo("GetComponent", pComponentPath);
     try {
-      UConStatementResult lRow = null;
-
       // Attempt to find a valid component name from the component path
       String lComponentName = getComponentName(lFullComponentPath);
       // If lComponentName is not null then it was found in the app component name set
@@ -662,26 +664,15 @@ public class App {
           if (lFoxComponent != null) {
             return lFoxComponent;
           }
-        }
-
-        lUCon = ConnectionAgent.getConnection(mConnectionPoolName, "Get component");
-        lRow = getComponentRowFromResourceTables(lComponentName, lUCon);
-      }
-
-      if (lRow != null) {
-        lFoxComponent = createFoxComponentFromRow(lRow);
 
-        if(pUseCache) {
-          //Put it in the app specific cache if it wasn't there already
-          FoxCache<String, FoxComponent> lFoxCache = CacheManager.getMemberCache(BuiltInCacheDefinition.APP_COMPONENTS, mAppMnem);
-          lFoxCache.put(lRow.getString("NAME"), lFoxComponent);
+          lFoxComponent = loadComponentIntoCache(lComponentName);
+        }
+        else {
+          lFoxComponent = loadComponent(lComponentName);
         }
       }
     }
     finally {
-      if(lUCon != null) {
-        lUCon.closeForRecycle();
-      }
       Track.pop("GetComponent");
     }
 
@@ -693,6 +684,72 @@ public class App {
     throw new ExUserRequest("Service '" + pComponentPath + "' not known, please check URL.");
   }
 
+  /**
+   * Loads a component from the resource tables and adds it to the component cache. If another thread is already loading
+   * the same component, this waits for that load to complete and returns its result, so the component is only
+   * constructed once.
+   *
+   * @param pComponentName Name of component to load.
+   * @return The loaded component, or null if it does not exist in the resource tables.
+   */
+  private FoxComponent loadComponentIntoCache(String pComponentName)
+  throws ExServiceUnavailable, ExModule, ExApp {
+    try {
+      return mComponentLoader.load(pComponentName, () -> {
+        //Another thread may have finished loading the component between the cache check and this load starting
+        FoxComponent lFoxComponent = getComponentFromCache(pComponentName);
+        if(lFoxComponent == null) {
+          lFoxComponent = loadComponent(pComponentName);
+          if(lFoxComponent != null) {
+            //Put it in the app specific cache if it wasn't there already
+            FoxCache<String, FoxComponent> lFoxCache = CacheManager.getMemberCache(BuiltInCacheDefinition.APP_COMPONENTS, mAppMnem);
+            lFoxCache.put(pComponentName, lFoxComponent);
+          }
+        }
+        return lFoxComponent;
+      });
+    }
+    catch (ExecutionException e) {
+      Throwable lCause = e.getCause();
+      if(lCause instanceof ExServiceUnavailable) {
+        throw (ExServiceUnavailable) lCause;
+      }
+      else if(lCause instanceof ExModule) {
+        throw (ExModule) lCause;
+      }
+      else if(lCause instanceof ExApp) {
+        throw (ExApp) lCause;
+      }
+      else if(lCause instanceof RuntimeException) {
+        throw (RuntimeException) lCause;
+      }
+      else if(lCause instanceof Error) {
+        throw (Error) lCause;
+      }
+      else {
+        throw new ExInternal("Failed to load component " + pComponentName, lCause);
+      }
+    }
+  }
+
+  /**
+   * Loads and constructs a component from the resource tables, without consulting the component cache.
+   *
+   * @param pComponentName Name of component to load.
+   * @return The new component, or null if it does not exist in the resource tables.
+   */
+  private FoxComponent loadComponent(String pComponentName)
+  throws ExServiceUnavailable, ExModule, ExApp {
+    UCon lUCon = ConnectionAgent.getConnection(mConnectionPoolName, "Get component");
+    try {
+      UConStatementResult lRow = getComponentRowFromResourceTables(pComponentName, lUCon);
+      return lRow != null ? createFoxComponentFromRow(lRow) : null;
+    }
+    finally {
+      lUCon.closeForRecycle();
+    }
+  }
+
   /**
    * Get a component specific to this App and throw ExInternal if the resulting component is not a Module
    *
@@ -387,6 +387,14 @@ public class ContextUCon implements FxpContextUCon<UCon> {
     return getTopConnection().mConnectionName;
   }
 
+  /**
+   * Gets the name of the connection pool this ContextUCon retrieves new UCons from.
+   * @return Pool name.
+   */
+  public String getPoolName() {
+    return mPoolName;
+  }
+
   /**
    * Tests if transaction control (i.e. from FOX markup) is permitted on the current connection.
    * @return
@@ -7,6 +7,7 @@ import net.foxopen.fox.dom.DOMList;
 import net.foxopen.fox.dom.DocControl;
 import net.foxopen.fox.dom.handler.AbortableDOMHandler;
 import net.foxopen.fox.dom.handler.DOMHandler;
+import net.foxopen.fox.dom.xpath.ContextFreeXPathResultMemo;
 import net.foxopen.fox.dom.xpath.ContextualityLevel;
 import net.foxopen.fox.dom.xpath.FoxXPathResultType;
 import net.foxopen.fox.dom.xpath.XPathResult;
@@ -28,6 +29,7 @@ import java.util.Comparator;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -67,6 +69,28 @@ public class ContextUElem {
    */
   public static final String ATTACH = ContextLabel.ATTACH.asString();
 
+  /** Maximum number of element FOXID to document label mappings retained for routing FOXID lookups. */
+  private static final int ELEM_REF_OWNER_CACHE_MAX_SIZE = 5000;
+
+  /**
+   * Access ordered map of element FOXIDs to document labels which discards its least recently used entries once it
+   * exceeds {@link #ELEM_REF_OWNER_CACHE_MAX_SIZE}.
+   */
+  private static class ElemRefOwnerCache
+  extends LinkedHashMap<String, String> {
+
+    private static final long serialVersionUID = 1L;
+
+    private ElemRefOwnerCache() {
+      super(16, 0.75f, true);
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, String> pEldest) {
+      return size() > ELEM_REF_OWNER_CACHE_MAX_SIZE;
+    }
+  }
+
   /**
    * Internal class for managing the mapping between a context label and its associated DOM element. Also maintains
    * some stateful information to allow just in time loading/reloading and serialisation logic.
@@ -94,6 +118,11 @@ public class ContextUElem {
      * Document label of this element's containing document. Can be null if the containing document has not been loaded yet.
      */
     String mDocumentLabelName;
+    /**
+     * Optional action to run before the label is resolved, allowing the labelled DOM to be brought up to date on demand.
+     * Can be null.
+     */
+    Runnable mBeforeResolveAction;
 
     private LabelEntry(String pLabelName, DOM pDOM, ContextualityLevel pContextualityLevel) {
       mLabelName = pLabelName;
@@ -207,6 +236,20 @@ public class ContextUElem {
    */
   private final Map<String, String> mRefToDocumentLabelMap = new HashMap<>();
 
+  /**
+   * Map of element FOXIDs to the labels of the documents which own them, used to route {@link #getElemByRefOrNull}
+   * lookups directly to the correct document. Entries are added when a lookup succeeds outside the attach document, and
+   * are discarded if the element is no longer found in the owning document. The map is limited to the most recently used
+   * entries to avoid memory leaks - lookups for evicted FOXIDs fall back to searching all documents.
+   */
+  private final Map<String, String> mElemRefToDocumentLabelMap = new ElemRefOwnerCache();
+
+  /**
+   * FOXID to document label map supplied by a consumer which is about to resolve a large number of FOXIDs. Consulted
+   * before {@link #mElemRefToDocumentLabelMap} and never modified by this object. Null if not set.
+   */
+  private Map<String, String> mRegisteredElemRefOwners = null;
+
   /**
    * Stack of loaded labels mapped to their respective DOMs and ContextualityLevels. A label is only loaded after it
    * is requested or points to an child element in a document which is loaded. The stack is required to support
@@ -220,6 +263,16 @@ public class ContextUElem {
    */
   private final Deque<String> mLocalisedPurposeStack = new ArrayDeque<>();
 
+  /**
+   * Memoised results of context-free XPaths, or null if results are not currently being memoised.
+   */
+  private ContextFreeXPathResultMemo mContextFreeXPathResultMemo = null;
+
+  /**
+   * Number of nested calls to {@link #startContextFreeXPathMemoisation} which have not yet been ended.
+   */
+  private int mContextFreeXPathMemoisationDepth = 0;
+
   /**
    * Initialises the label entry stack.
    */
@@ -281,6 +334,7 @@ public class ContextUElem {
     setupPurposeStack();
     mLabelToDOMHandler.clear();
     mRefToDocumentLabelMap.clear();
+    mElemRefToDocumentLabelMap.clear();
   }
 
   /**
@@ -352,6 +406,9 @@ public class ContextUElem {
   private DOM getDOMForLabel(String pLabel) {
     LabelEntry lEntry = mLabelEntryStack.getFirst().get(pLabel);
     if (lEntry != null) {
+      if (lEntry.mBeforeResolveAction != null) {
+        lEntry.mBeforeResolveAction.run();
+      }
       return lEntry.getDOM();
     }
     else {
@@ -899,6 +956,21 @@ public class ContextUElem {
     setUElemInternal(null, pLabel, pContextualityLevel, pUElem, true, true, null, false);
   }
 
+  /**
+   * Sets a label to UElem mapping for the current localisation level, as per {@link #setUElem(String, ContextualityLevel, DOM)}.
+   * pBeforeResolveAction is run every time the label is resolved, so the contents of pUElem only need to be populated
+   * if something actually references the label.
+   *
+   * @param pLabel               The label String to set.
+   * @param pContextualityLevel  The ContextualityLevel of this label definition. See {@link ContextualityLevel}.
+   * @param pUElem               The DOM node to map to the label.
+   * @param pBeforeResolveAction Action to run before the label is resolved.
+   */
+  public final void setUElem(String pLabel, ContextualityLevel pContextualityLevel, DOM pUElem, Runnable pBeforeResolveAction) {
+    setUElemInternal(null, pLabel, pContextualityLevel, pUElem, true, true, null, false);
+    mLabelEntryStack.getFirst().get(pLabel).mBeforeResolveAction = pBeforeResolveAction;
+  }
+
   /**
    * Sets a label to UElem mapping across the localisation stack. This effectively ignores any current context localisation.
    * If the mapping already exists it is repointed. The proposed label name is validated to ensure it is allowed to be set.
@@ -1291,6 +1363,43 @@ public class ContextUElem {
     }
   }
 
+  /**
+   * Starts memoising the results of context-free XPaths evaluated against this ContextUElem, i.e. XPaths such as
+   * "string(:{theme}/MODE) = 'EDIT'" which do not depend on their context node. This should be used for phases which
+   * evaluate the same XPaths repeatedly for different context nodes, such as output generation. Memoised results are
+   * discarded if a referenced label is remapped or its document is modified. Calls may be nested - every call must be
+   * matched by a call to {@link #endContextFreeXPathMemoisation} in a finally block.
+   */
+  public void startContextFreeXPathMemoisation() {
+    if(mContextFreeXPathMemoisationDepth++ == 0) {
+      mContextFreeXPathResultMemo = new ContextFreeXPathResultMemo();
+    }
+  }
+
+  /**
+   * Ends a phase started by {@link #startContextFreeXPathMemoisation}. Memoised results are discarded when the outermost
+   * phase ends.
+   */
+  public void endContextFreeXPathMemoisation() {
+    if(mContextFreeXPathMemoisationDepth == 0) {
+      throw new ExInternal("endContextFreeXPathMemoisation called without a matching start call");
+    }
+
+    if(--mContextFreeXPathMemoisationDepth == 0) {
+      Track.info("ContextFreeXPathMemo", "Memoised XPath results used " + mContextFreeXPathResultMemo.getHitCount() + " times, " +
+        mContextFreeXPathResultMemo.getMissCount() + " evaluated");
+      mContextFreeXPathResultMemo = null;
+    }
+  }
+
+  /**
+   * Gets the memo for context-free XPath results, if memoisation is currently enabled.
+   * @return Current memo, or null.
+   */
+  public ContextFreeXPathResultMemo getContextFreeXPathResultMemoOrNull() {
+    return mContextFreeXPathResultMemo;
+  }
+
   /**
    * Evaluates an XPath expression as a String, or returns a constant String.
    * <br/><br/>
@@ -1513,6 +1622,22 @@ public class ContextUElem {
   public DOM getElemByRefOrNull(String pRef) {
     DOM lRefElem = null;
 
+    //Go straight to the owning document if it is known - probing other documents first can cause their ref indexes to be rebuilt
+    String lOwnerDocumentLabel = mRegisteredElemRefOwners != null ? mRegisteredElemRefOwners.get(pRef) : null;
+    if(lOwnerDocumentLabel == null) {
+      lOwnerDocumentLabel = mElemRefToDocumentLabelMap.get(pRef);
+    }
+    if(lOwnerDocumentLabel != null) {
+      if(mLabelToDOMHandler.containsKey(lOwnerDocumentLabel)) {
+        lRefElem = getUElem(lOwnerDocumentLabel).getDocControl().getElemByRefOrNull(pRef);
+        if(lRefElem != null) {
+          return lRefElem;
+        }
+      }
+      //Element has moved or the document is no longer available, so fall back to a search
+      mElemRefToDocumentLabelMap.remove(pRef);
+    }
+
     //Search attach DOM first, then loaded documents, before finally loading unloaded documents as a last resort
 
     //Check attach DOM first
@@ -1528,6 +1653,7 @@ public class ContextUElem {
       if (lControl != lDataDocControl) {
         lRefElem = lControl.getElemByRefOrNull(pRef);
         if (lRefElem != null) {
+          recordElemRefOwner(pRef, lRefElem);
           return lRefElem;
         }
       }
@@ -1541,6 +1667,7 @@ public class ContextUElem {
         DOM lDOM = getUElem(lContextLabel);
         lRefElem = lDOM.getDocControl().getElemByRefOrNull(pRef);
         if(lRefElem != null) {
+          recordElemRefOwner(pRef, lRefElem);
           return lRefElem;
         }
       }
@@ -1550,6 +1677,38 @@ public class ContextUElem {
     return null;
   }
 
+  /**
+   * Records the document label of the given element so subsequent lookups for its FOXID can go straight to its document.
+   * Elements in documents which are not labelled in this ContextUElem are not recorded.
+   * @param pRef FOXID of the element.
+   * @param pElem Element which was resolved for the FOXID.
+   */
+  private void recordElemRefOwner(String pRef, DOM pElem) {
+    String lDocumentLabel = mRefToDocumentLabelMap.get(pElem.getRootElement().getRef());
+    if(lDocumentLabel != null) {
+      mElemRefToDocumentLabelMap.put(pRef, lDocumentLabel);
+    }
+  }
+
+  /**
+   * Registers the labels of the documents which are expected to contain the elements with the given FOXIDs, so
+   * {@link #getElemByRefOrNull} can go straight to the right document without searching others. Consumers which are about
+   * to resolve a large number of FOXIDs should register their owners in advance, and must call
+   * {@link #clearRegisteredElemRefOwners} when they are done. The map is used as-is and is not copied or capped. If an
+   * element is not found in its registered document when it is looked up, all documents are searched as normal.
+   * @param pRefToDocumentLabelMap Map of element FOXIDs to the labels of the documents which own them.
+   */
+  public void setRegisteredElemRefOwners(Map<String, String> pRefToDocumentLabelMap) {
+    mRegisteredElemRefOwners = pRefToDocumentLabelMap;
+  }
+
+  /**
+   * Clears the map set by {@link #setRegisteredElemRefOwners}.
+   */
+  public void clearRegisteredElemRefOwners() {
+    mRegisteredElemRefOwners = null;
+  }
+
   /**
    * Sets the :{baseself} label of this ContextUElem to point to pDOM, if the :{baseself} label is used.
    * @param pDOM Node to set as baseself.
@@ -4,12 +4,16 @@ import net.foxopen.fox.StringUtil;
 import net.foxopen.fox.XFUtil;
 import net.foxopen.fox.auth.loginbehaviours.LoginBehaviour;
 import net.foxopen.fox.auth.loginbehaviours.ResumeLoginBehaviour;
+import net.foxopen.fox.cache.BuiltInCacheDefinition;
+import net.foxopen.fox.cache.CacheManager;
+import net.foxopen.fox.cache.FoxCache;
 import net.foxopen.fox.database.UCon;
 import net.foxopen.fox.database.UConBindMap;
 import net.foxopen.fox.database.UConStatementResult;
 import net.foxopen.fox.database.sql.bind.BindSQLType;
 import net.foxopen.fox.dom.DOM;
 import net.foxopen.fox.dom.handler.DOMHandler;
+import net.foxopen.fox.entrypoint.FoxGlobals;
 import net.foxopen.fox.ex.ExDB;
 import net.foxopen.fox.ex.ExInternal;
 import net.foxopen.fox.sql.SQLManager;
@@ -19,7 +23,11 @@ import net.foxopen.fox.thread.stack.ModuleCallStack;
 import net.foxopen.fox.track.Track;
 import net.foxopen.fox.track.TrackProperty;
 
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  *  AuthenticationConext which uses the legacy database session manager to provide authentication details. Session data
@@ -28,7 +36,11 @@ import java.util.Set;
  *
  *  Note: this implementation assumes verifySession is called at the start of every churn. If it is not, the user DOM
  *  may not be correctly refreshed, as the refresh behaviour depends on the call to verifySession.
- *  Note: objects of this class are serialised by XStream.
+ *  Note: if session-verify-cache-seconds is set in the authentication properties, a successful verification is shared
+ *  between all contexts for the same session, client info and app info for that many seconds, so churns within the
+ *  window do not call the verify API. The latest known user DOM change number is tracked on the shared result, so a context holding an older
+ *  user DOM still refreshes it.
+ *  Note: objects of this class are serialised by Kryo (or XStream for legacy data) - only the session ID is persisted.
  */
 public class StandardAuthenticationContext
 implements AuthenticationContext {
@@ -106,6 +118,20 @@ implements AuthenticationContext {
       return new AuthenticationResult(AuthenticationResult.Code.GUEST, "Guest Access Authorised", null);
     }
 
+    //Skip trip to database if the session was recently verified by another churn
+    int lVerifyCacheSeconds = getSessionVerifyCacheSeconds();
+    if(lVerifyCacheSeconds > 0) {
+      VerifiedSession lVerifiedSession = verifiedSessionCache().get(new VerifiedSessionKey(mSessionId, pClientInfo, pAppInfo));
+      if(lVerifiedSession != null && lVerifiedSession.isWithinWindow(lVerifyCacheSeconds)) {
+        Track.info("SessionVerifyCached", "Session verified " + lVerifiedSession.getAgeMs() + "ms ago");
+        mSessionTimeoutMins = lVerifiedSession.mSessionTimeoutMins;
+        //Our user DOM is only current if it matches the latest change number seen for the session
+        mHasLatestUserDOM = mLatestUserDOMChangeNumber != null && mLatestUserDOMChangeNumber.equals(lVerifiedSession.mUserDOMChangeNumber);
+
+        return new AuthenticationResult(lVerifiedSession.mResultCode, lVerifiedSession.mMessage, mSessionId);
+      }
+    }
+
     UConBindMap lBindMap = new UConBindMap()
       .defineBind(":client_info", pClientInfo)
       .defineBind(":app_display_name", pAppInfo)
@@ -145,6 +171,12 @@ implements AuthenticationContext {
       //See if we have the latest user DOM - if we do we can skip the refresh
       mHasLatestUserDOM = "true".equals(lAPIResult.getString(":user_dom_current"));
 
+      if(lVerifyCacheSeconds > 0) {
+        //Replace any existing entry for the original session ID in case the API returned a different one
+        verifiedSessionCache().remove(new VerifiedSessionKey(mSessionId, pClientInfo, pAppInfo));
+        verifiedSessionCache().put(new VerifiedSessionKey(lSessionID, pClientInfo, pAppInfo), new VerifiedSession(lAuthResultCode, lMessage, lTimeoutMins, mHasLatestUserDOM ? mLatestUserDOMChangeNumber : null));
+      }
+
       //Refresh the session ID - is this necessary? Probably not but was legacy behaviour
       setSessionId(lSessionID);
 
@@ -152,6 +184,7 @@ implements AuthenticationContext {
     }
     else {
       //No way to differentiate invalid session and timeout - TODO PN XTHREAD enhance (needs DB change)
+      removeVerifiedSessions(verifiedSessionCache(), mSessionId);
       invalidate();
 
       //Refresh user DOM to reflect logout
@@ -198,6 +231,7 @@ implements AuthenticationContext {
       AuthenticationResult.Code lCode = AuthenticationResult.Code.fromString(lCodeString);
 
       //Regardless of result of the API call, accept the logout
+      removeVerifiedSessions(verifiedSessionCache(), mSessionId);
       invalidate();
 
       //Refresh user DOM to reflect logout
@@ -214,6 +248,29 @@ implements AuthenticationContext {
     }
   }
 
+  private static int getSessionVerifyCacheSeconds() {
+    return FoxGlobals.getInstance().getFoxEnvironment().getAuthenticationProperties().getSessionVerifyCacheSeconds();
+  }
+
+  private static FoxCache<VerifiedSessionKey, VerifiedSession> verifiedSessionCache() {
+    return CacheManager.getCache(BuiltInCacheDefinition.VERIFIED_AUTH_SESSIONS);
+  }
+
+  /**
+   * Removes all verified session entries for the given session ID, regardless of the client info and app info they were
+   * verified with.
+   * @param pCache Cache to remove entries from.
+   * @param pSessionId Session ID to remove entries for.
+   */
+  static void removeVerifiedSessions(Map<VerifiedSessionKey, VerifiedSession> pCache, String pSessionId) {
+    //Copy the keys as FoxCache key sets are not live
+    for(VerifiedSessionKey lKey : new ArrayList<>(pCache.keySet())) {
+      if(lKey.mSessionId.equals(pSessionId)) {
+        pCache.remove(lKey);
+      }
+    }
+  }
+
   private void invalidate(){
     setSessionId(null);
     mSessionTimeoutMins = 0;
@@ -276,6 +333,15 @@ implements AuthenticationContext {
         mLatestUserDOMChangeNumber = lAPIResult.getString(":latest_change_number");
         mLastSecurityScope = pSecurityScope;
 
+        //Record the latest change number against the verified session so other contexts know to refresh their user DOM
+        if(mSessionId != null) {
+          for(Map.Entry<VerifiedSessionKey, VerifiedSession> lEntry : verifiedSessionCache().entrySet()) {
+            if(lEntry.getKey().mSessionId.equals(mSessionId)) {
+              lEntry.getValue().mUserDOMChangeNumber = mLatestUserDOMChangeNumber;
+            }
+          }
+        }
+
         //If the returned DOM was null, a refresh is required
         if (lUserDOM != null) {
           Track.info("NewUserDOM", "Change number " + mLatestUserDOMChangeNumber);
@@ -346,4 +412,71 @@ implements AuthenticationContext {
   public int getSessionTimeoutMins() {
     return mSessionTimeoutMins;
   }
+
+  /**
+   * Result of a successful session verify API call, shared between contexts for the same session.
+   */
+  /**
+   * Key for a verified session. A verification is only shared with contexts verifying the same session with the same
+   * client info and app info, as these are passed to the verify API and may affect its result.
+   */
+  static class VerifiedSessionKey {
+
+    private final String mSessionId;
+    private final String mClientInfo;
+    private final String mAppInfo;
+
+    VerifiedSessionKey(String pSessionId, String pClientInfo, String pAppInfo) {
+      mSessionId = pSessionId;
+      mClientInfo = pClientInfo;
+      mAppInfo = pAppInfo;
+    }
+
+    @Override
+    public boolean equals(Object pOther) {
+      if(this == pOther) {
+        return true;
+      }
+      if(!(pOther instanceof VerifiedSessionKey)) {
+        return false;
+      }
+      VerifiedSessionKey lOther = (VerifiedSessionKey) pOther;
+      return mSessionId.equals(lOther.mSessionId) && Objects.equals(mClientInfo, lOther.mClientInfo) && Objects.equals(mAppInfo, lOther.mAppInfo);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(mSessionId, mClientInfo, mAppInfo);
+    }
+
+    @Override
+    public String toString() {
+      return mSessionId + " (" + mClientInfo + ", " + mAppInfo + ")";
+    }
+  }
+
+  static class VerifiedSession {
+
+    private final long mVerifiedTimeMs = System.currentTimeMillis();
+    private final AuthenticationResult.Code mResultCode;
+    private final String mMessage;
+    private final int mSessionTimeoutMins;
+    /** Latest user DOM change number seen for the session, or null if not known */
+    private volatile String mUserDOMChangeNumber;
+
+    VerifiedSession(AuthenticationResult.Code pResultCode, String pMessage, int pSessionTimeoutMins, String pUserDOMChangeNumber) {
+      mResultCode = pResultCode;
+      mMessage = pMessage;
+      mSessionTimeoutMins = pSessionTimeoutMins;
+      mUserDOMChangeNumber = pUserDOMChangeNumber;
+    }
+
+    private long getAgeMs() {
+      return System.currentTimeMillis() - mVerifiedTimeMs;
+    }
+
+    private boolean isWithinWindow(int pWindowSeconds) {
+      return getAgeMs() < TimeUnit.SECONDS.toMillis(pWindowSeconds);
+    }
+  }
 }
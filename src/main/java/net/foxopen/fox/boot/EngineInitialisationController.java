@@ -3,6 +3,7 @@ package net.foxopen.fox.boot;
 import net.foxopen.fox.ContextUCon;
 import net.foxopen.fox.cache.CacheManager;
 import net.foxopen.fox.configuration.FoxConfigHelper;
+import net.foxopen.fox.configuration.resourcemaster.model.ModuleWarmUpProperties;
 import net.foxopen.fox.configuration.resourcemaster.model.UnconfiguredFoxEnvironment;
 import net.foxopen.fox.database.ConnectionAgent;
 import net.foxopen.fox.database.UCon;
@@ -37,6 +38,9 @@ public class EngineInitialisationController {
   /** Last time an init was attempted (successful or failed) */
   private static long gLastInitAttemptTime;
 
+  /** Most recent module warm-up, or null if warm-up has not been run. Requests are refused while this is in progress. */
+  private static volatile ModuleWarmUp gLastModuleWarmUp;
+
   private EngineInitialisationController() { }
 
   /**
@@ -47,6 +51,10 @@ public class EngineInitialisationController {
   public static InitialisationResult checkAndInitialise() {
 
     if (gEngineInitialised) {
+      ModuleWarmUp lModuleWarmUp = gLastModuleWarmUp;
+      if (lModuleWarmUp != null && lModuleWarmUp.isInProgress()) {
+        return InitialisationResult.failedInitialisation("engine is warming up (" + lModuleWarmUp.getCompletedCount() + " of " + lModuleWarmUp.getModuleCount() + " modules parsed)", null);
+      }
       return InitialisationResult.successfulInitialisation();
     }
     else {
@@ -115,6 +123,9 @@ public class EngineInitialisationController {
           // Scan plugin directory and load configured plugins now we're configured
           PluginManager.instance().scanAndLoadPlugins();
 
+          // Parse modules now that plugin commands are available - the engine is not reported as initialised until this completes
+          warmUpModules();
+
           //Null out the last init error as we have successfully initialised and it should not be needed any more
           gLastInitError = null;
 
@@ -143,6 +154,25 @@ public class EngineInitialisationController {
     }
   }
 
+  /**
+   * Parses the modules specified by the environment's warm-up configuration, blocking until they are parsed or the
+   * warm-up times out. Failures are logged and reported on the status page but do not fail the initialisation.
+   */
+  private static void warmUpModules() {
+    gLastModuleWarmUp = null;
+    try {
+      ModuleWarmUpProperties lWarmUpProperties = FoxGlobals.getInstance().getFoxEnvironment().getModuleWarmUpProperties();
+      if (lWarmUpProperties.isWarmUpEnabled()) {
+        ModuleWarmUp lModuleWarmUp = ModuleWarmUp.create(lWarmUpProperties);
+        gLastModuleWarmUp = lModuleWarmUp;
+        lModuleWarmUp.run();
+      }
+    }
+    catch (Throwable th) {
+      FoxLogger.getLogger().error("Module warm-up failed", th);
+    }
+  }
+
   /**
    * Attempts to gracefully shut the engine down, e.g. by closing connection pools and deregistering from the database.
    * This method may throw exceptions.
@@ -197,6 +227,13 @@ public class EngineInitialisationController {
     return gLastInitError;
   }
 
+  /**
+   * @return The most recent module warm-up, or null if warm-up was not enabled for the last initialisation.
+   */
+  static ModuleWarmUp getLastModuleWarmUp() {
+    return gLastModuleWarmUp;
+  }
+
   /**
    * @return Last time an init was attempted (regardless of success/failure).
    */
@@ -0,0 +1,241 @@
+package net.foxopen.fox.boot;
+
+import net.foxopen.fox.App;
+import net.foxopen.fox.ContextUCon;
+import net.foxopen.fox.configuration.resourcemaster.model.FoxEnvironment;
+import net.foxopen.fox.configuration.resourcemaster.model.ModuleWarmUpProperties;
+import net.foxopen.fox.configuration.resourcemaster.model.ModuleWarmUpProperties.WarmUpModule;
+import net.foxopen.fox.database.UCon;
+import net.foxopen.fox.database.UConBindMap;
+import net.foxopen.fox.database.UConStatementResult;
+import net.foxopen.fox.enginestatus.EngineStatus;
+import net.foxopen.fox.enginestatus.MessageLevel;
+import net.foxopen.fox.enginestatus.StatusDestination;
+import net.foxopen.fox.enginestatus.StatusTable;
+import net.foxopen.fox.entrypoint.FoxGlobals;
+import net.foxopen.fox.ex.ExDB;
+import net.foxopen.fox.ex.ExInternal;
+import net.foxopen.fox.job.BasicFoxJobPool;
+import net.foxopen.fox.job.FoxJobTask;
+import net.foxopen.fox.job.TaskCompletionMessage;
+import net.foxopen.fox.logging.FoxLogger;
+import net.foxopen.fox.sql.SQLManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parses a set of modules in parallel during engine initialisation, so they are already in the component cache when
+ * the first requests arrive. Modules which fail to parse are reported on the status page but do not cause the warm-up
+ * (or the initialisation) to fail.
+ */
+class ModuleWarmUp {
+
+  private static final String RECENT_MODULES_FILENAME = "GetRecentlyCalledModules.sql";
+
+  /** Pool for parsing modules. Its size is set from the configuration each time a warm-up runs. */
+  private static final BasicFoxJobPool gWarmUpJobPool = BasicFoxJobPool.createMultiThreadedPool("Module Warm-Up", 1);
+
+  private final List<WarmUpModule> mModules;
+  private final int mMaxThreads;
+  private final long mTimeoutMs;
+
+  private final AtomicInteger mParsedCount = new AtomicInteger();
+  /** Module descriptions to the error encountered when parsing them */
+  private final Map<String, String> mFailedModules = new ConcurrentSkipListMap<>();
+
+  private final long mStartTime = System.currentTimeMillis();
+  private volatile long mEndTime = 0;
+  /** Set if the timeout elapsed before all modules were parsed - any modules not yet started will be skipped */
+  private volatile boolean mTimedOut = false;
+
+  /**
+   * Creates a warm-up for the modules specified in the given properties, or the most recently called modules if no
+   * modules are explicitly listed.
+   * @param pProperties Warm-up configuration for the current environment.
+   * @return New warm-up, which has not yet been run.
+   */
+  static ModuleWarmUp create(ModuleWarmUpProperties pProperties) {
+    List<WarmUpModule> lModules = pProperties.getModuleList();
+    if(lModules.isEmpty()) {
+      lModules = getRecentlyCalledModules(pProperties.getRecentModuleCount(), pProperties.getRecentDays());
+    }
+
+    return new ModuleWarmUp(lModules, pProperties.getMaxThreads(), TimeUnit.SECONDS.toMillis(pProperties.getTimeoutSeconds()));
+  }
+
+  private static List<WarmUpModule> getRecentlyCalledModules(int pModuleCount, int pRecentDays) {
+
+    ContextUCon lContextUCon = ContextUCon.createContextUCon(FoxGlobals.getInstance().getEngineConnectionPoolName(), "Module warm-up");
+    lContextUCon.pushConnection("ModuleWarmUp");
+    try {
+      UCon lUCon = lContextUCon.getUCon("Get recently called modules");
+      try {
+        UConBindMap lBindMap = new UConBindMap()
+          .defineBind(":recent_days", pRecentDays)
+          .defineBind(":module_count", pModuleCount);
+
+        List<UConStatementResult> lRows = lUCon.queryMultipleRows(SQLManager.instance().getStatement(RECENT_MODULES_FILENAME, ModuleWarmUp.class), lBindMap);
+
+        List<WarmUpModule> lModules = new ArrayList<>(lRows.size());
+        for(UConStatementResult lRow : lRows) {
+          lModules.add(new WarmUpModule(lRow.getString("APP_MNEM"), lRow.getString("MODULE_NAME")));
+        }
+        return lModules;
+      }
+      catch (ExDB e) {
+        throw new ExInternal("Failed to query recently called modules for warm-up", e);
+      }
+      finally {
+        lContextUCon.returnUCon(lUCon, "Get recently called modules");
+      }
+    }
+    finally {
+      lContextUCon.rollbackAndCloseAll(true);
+    }
+  }
+
+  private ModuleWarmUp(List<WarmUpModule> pModules, int pMaxThreads, long pTimeoutMs) {
+    mModules = Collections.unmodifiableList(new ArrayList<>(pModules));
+    mMaxThreads = pMaxThreads;
+    mTimeoutMs = pTimeoutMs;
+  }
+
+  /**
+   * Parses all the modules for this warm-up, blocking until they have been parsed or the timeout elapses.
+   */
+  void run() {
+
+    FoxLogger.getLogger().info("Module warm-up starting for {} modules on {} threads", mModules.size(), mMaxThreads);
+
+    gWarmUpJobPool.setMaxThreads(Math.max(1, Math.min(mMaxThreads, mModules.size())));
+
+    CountDownLatch lRemainingModules = new CountDownLatch(mModules.size());
+    try {
+      for(WarmUpModule lModule : mModules) {
+        gWarmUpJobPool.submitTask(new WarmUpTask(lModule, lRemainingModules));
+      }
+
+      if(!lRemainingModules.await(mTimeoutMs, TimeUnit.MILLISECONDS)) {
+        mTimedOut = true;
+        FoxLogger.getLogger().warn("Module warm-up timed out after {} ms with {} modules outstanding", mTimeoutMs, lRemainingModules.getCount());
+      }
+    }
+    catch (InterruptedException e) {
+      mTimedOut = true;
+      Thread.currentThread().interrupt();
+    }
+    finally {
+      //Parses in progress are left to complete in the background - interrupting them could fail a request thread waiting on the same load
+      mEndTime = System.currentTimeMillis();
+    }
+
+    FoxLogger.getLogger().info("Module warm-up finished in {} ms: {} parsed, {} failed", mEndTime - mStartTime, mParsedCount.get(), mFailedModules.size());
+  }
+
+  private static String getModuleDescription(WarmUpModule pModule) {
+    return (pModule.getAppMnem() == null ? "(default app)" : pModule.getAppMnem()) + "/" + pModule.getModuleName();
+  }
+
+  private void warmUpModule(WarmUpModule pModule) {
+    String lModuleDescription = getModuleDescription(pModule);
+    try {
+      FoxEnvironment lFoxEnvironment = FoxGlobals.getInstance().getFoxEnvironment();
+      App lApp = pModule.getAppMnem() == null ? lFoxEnvironment.getDefaultApp() : lFoxEnvironment.getAppByMnem(pModule.getAppMnem());
+
+      //Module is cached in the app's component cache as a side effect of retrieving it
+      lApp.getMod(pModule.getModuleName());
+
+      mParsedCount.incrementAndGet();
+    }
+    catch (Throwable th) {
+      mFailedModules.put(lModuleDescription, String.valueOf(th.getMessage()));
+      FoxLogger.getLogger().warn("Module warm-up failed to parse " + lModuleDescription, th);
+    }
+  }
+
+  /**
+   * Parses a single module on the warm-up job pool.
+   */
+  private class WarmUpTask
+  implements FoxJobTask {
+
+    private final WarmUpModule mModule;
+    private final CountDownLatch mRemainingModules;
+
+    private WarmUpTask(WarmUpModule pModule, CountDownLatch pRemainingModules) {
+      mModule = pModule;
+      mRemainingModules = pRemainingModules;
+    }
+
+    @Override
+    public String getTaskDescription() {
+      return "Warm up " + getModuleDescription(mModule);
+    }
+
+    @Override
+    public TaskCompletionMessage executeTask() {
+      try {
+        //Skip modules which have not started by the time the warm-up has timed out
+        if(mTimedOut) {
+          return new TaskCompletionMessage(this, "Skipped as warm-up timed out");
+        }
+
+        warmUpModule(mModule);
+        return new TaskCompletionMessage(this, "Complete");
+      }
+      finally {
+        mRemainingModules.countDown();
+      }
+    }
+  }
+
+  /**
+   * @return True if the warm-up has not finished parsing its modules and has not timed out.
+   */
+  boolean isInProgress() {
+    return mEndTime == 0;
+  }
+
+  int getModuleCount() {
+    return mModules.size();
+  }
+
+  int getCompletedCount() {
+    return mParsedCount.get() + mFailedModules.size();
+  }
+
+  void refreshStatus(StatusDestination pDestination) {
+
+    String lState;
+    if(isInProgress()) {
+      lState = "In progress";
+    }
+    else if(mTimedOut) {
+      lState = "Timed out";
+    }
+    else {
+      lState = "Complete";
+    }
+
+    pDestination.addMessage("State", lState, mTimedOut ? MessageLevel.WARNING : MessageLevel.INFO);
+    pDestination.addMessage("Start Time", EngineStatus.formatDate(new Date(mStartTime)));
+    pDestination.addMessage("Time Taken (ms)", Long.toString((isInProgress() ? System.currentTimeMillis() : mEndTime) - mStartTime));
+    pDestination.addMessage("Threads", Integer.toString(mMaxThreads));
+    pDestination.addMessage("Modules", Integer.toString(mModules.size()));
+    pDestination.addMessage("Parsed", Integer.toString(mParsedCount.get()));
+    pDestination.addMessage("Failed", Integer.toString(mFailedModules.size()), mFailedModules.isEmpty() ? MessageLevel.INFO : MessageLevel.WARNING);
+
+    if(!mFailedModules.isEmpty()) {
+      StatusTable lTable = pDestination.addTable("Failed Modules", "Module", "Error");
+      lTable.setRowProvider(pRowDestination -> mFailedModules.forEach((pModule, pError) -> pRowDestination.addRow().setColumn(pModule).setColumn(pError)));
+    }
+  }
+}
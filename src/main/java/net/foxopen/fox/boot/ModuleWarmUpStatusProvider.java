@@ -0,0 +1,34 @@
+package net.foxopen.fox.boot;
+
+import net.foxopen.fox.enginestatus.StatusDestination;
+import net.foxopen.fox.enginestatus.StatusProvider;
+
+public class ModuleWarmUpStatusProvider
+implements StatusProvider {
+
+  @Override
+  public void refreshStatus(StatusDestination pDestination) {
+    ModuleWarmUp lModuleWarmUp = EngineInitialisationController.getLastModuleWarmUp();
+    if(lModuleWarmUp != null) {
+      lModuleWarmUp.refreshStatus(pDestination);
+    }
+    else {
+      pDestination.addMessage("State", "Not run - enable module warm-up in the environment configuration");
+    }
+  }
+
+  @Override
+  public String getCategoryTitle() {
+    return "Module Warm-Up";
+  }
+
+  @Override
+  public String getCategoryMnemonic() {
+    return "moduleWarmUp";
+  }
+
+  @Override
+  public boolean isCategoryExpandedByDefault() {
+    return false;
+  }
+}
@@ -100,6 +100,13 @@ public enum BuiltInCacheDefinition {
     lCacheBuilder.setConcurrencyLevel(5);
     return lCacheBuilder;
   }),
+  APP_PARSED_LIBRARIES("APP_PARSED_LIBRARIES", () -> {
+    FoxLRUCacheBuilder lCacheBuilder = new FoxLRUCacheBuilder();
+    lCacheBuilder.setPurpose("Parsed Module Libraries");
+    lCacheBuilder.setMaxCapacity(200);
+    lCacheBuilder.setConcurrencyLevel(5);
+    return lCacheBuilder;
+  }),
   RECENT_TRACK_IDS_FOR_SESSION_ID("SESSION_ID_TO_TRACK_ID", () -> {
     FoxTTLCacheBuilder lCacheBuilder = new FoxTTLCacheBuilder();
     lCacheBuilder.setPurpose("Recent Session Track IDs");
@@ -109,6 +116,15 @@ public enum BuiltInCacheDefinition {
     lCacheBuilder.setConcurrencyLevel(5);
     return lCacheBuilder;
   }),
+  VERIFIED_AUTH_SESSIONS("VERIFIED_AUTH_SESSIONS", () -> {
+    FoxTTLCacheBuilder lCacheBuilder = new FoxTTLCacheBuilder();
+    lCacheBuilder.setPurpose("Verified Authentication Sessions");
+    lCacheBuilder.setMaxCapacity(1000);
+    //Entries are only used within the configured verification window - this TTL just stops stale entries accumulating
+    lCacheBuilder.setTimeToLiveMs((int) TimeUnit.MINUTES.toMillis(5));
+    lCacheBuilder.setConcurrencyLevel(5);
+    return lCacheBuilder;
+  }),
   SESSION_COOKIES("SESSION_COOKIES", () -> {
     FoxTTLCacheBuilder lCacheBuilder = new FoxTTLCacheBuilder();
     lCacheBuilder.setPurpose("Session Cookies");
@@ -139,6 +155,13 @@ public enum BuiltInCacheDefinition {
     lCacheBuilder.setMaxCapacity(10);
     lCacheBuilder.setConcurrencyLevel(5);
     return lCacheBuilder;
+  }),
+  PDF_CSS_FILES("PDF_CSS_FILES", () -> {
+    FoxLRUCacheBuilder lCacheBuilder = new FoxLRUCacheBuilder();
+    lCacheBuilder.setPurpose("Parsed PDF CSS Files");
+    lCacheBuilder.setMaxCapacity(100);
+    lCacheBuilder.setConcurrencyLevel(5);
+    return lCacheBuilder;
   });
 
   private final String mCacheName;
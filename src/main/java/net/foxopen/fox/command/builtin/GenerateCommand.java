@@ -78,6 +78,7 @@ extends BuiltInCommand {
       switch (lOutputType) {
         case GenerateLegacySpreadsheetCommand.OUTPUT_TYPE_CSV:
         case GenerateLegacySpreadsheetCommand.OUTPUT_TYPE_XLS:
+        case GenerateLegacySpreadsheetCommand.OUTPUT_TYPE_XLSX:
           return new GenerateLegacySpreadsheetCommand(pMarkupDOM);
         default:
           return new GenerateCommand(pMarkupDOM);
@@ -16,6 +16,7 @@ import net.foxopen.fox.ex.ExActionFailed;
 import net.foxopen.fox.ex.ExBadPath;
 import net.foxopen.fox.ex.ExDoSyntax;
 import net.foxopen.fox.ex.ExInternal;
+import net.foxopen.fox.io.XLSXStreamWriter;
 import net.foxopen.fox.module.Mod;
 import net.foxopen.fox.module.datanode.NodeInfo;
 import net.foxopen.fox.thread.ActionRequestContext;
@@ -50,6 +51,9 @@ public class GenerateLegacySpreadsheetCommand extends BuiltInCommand {
 
   public static final String OUTPUT_TYPE_CSV = "CSV";
   public static final String OUTPUT_TYPE_XLS = "XLS";
+  public static final String OUTPUT_TYPE_XLSX = "XLSX";
+
+  private static final String XLSX_CONTENT_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
 
   private final String mOutputType;
   private final GeneratorDestination mGeneratorDestination;
@@ -60,7 +64,16 @@ public class GenerateLegacySpreadsheetCommand extends BuiltInCommand {
 
     mOutputType = pMarkupDOM.getAttrOrNull("output-type");
 
-    String lContentType = ("CSV".equalsIgnoreCase(mOutputType) ? "text/csv" : "application/vnd.ms-excel");
+    String lContentType;
+    if (OUTPUT_TYPE_CSV.equalsIgnoreCase(mOutputType)) {
+      lContentType = "text/csv";
+    }
+    else if (OUTPUT_TYPE_XLSX.equalsIgnoreCase(mOutputType)) {
+      lContentType = XLSX_CONTENT_TYPE;
+    }
+    else {
+      lContentType = "application/vnd.ms-excel";
+    }
     //String popupWindowName = "TODO"; //TODO getUniqueWindowName();
 
     mGeneratorDestination = GeneratorDestinationUtils.getDestinationFromGenerateCommandMarkup(pMarkupDOM, mOutputType.toLowerCase(), lContentType);
@@ -135,8 +148,12 @@ public class GenerateLegacySpreadsheetCommand extends BuiltInCommand {
       OutputStreamGenerator lXLSGenerator = getXLSGenerator(pRequestContext);
       mGeneratorDestination.generateToOutputStream(pRequestContext, lXLSGenerator);
     }
+    else if (OUTPUT_TYPE_XLSX.equalsIgnoreCase(mOutputType)) {
+      OutputStreamGenerator lXLSXGenerator = getXLSXGenerator(pRequestContext);
+      mGeneratorDestination.generateToOutputStream(pRequestContext, lXLSXGenerator);
+    }
     else {
-      throw new ExInternal("Generate legacy spreadsheet must have an output type of CSV or XLS");
+      throw new ExInternal("Generate legacy spreadsheet must have an output type of CSV, XLS or XLSX");
     }
 
     return XDoControlFlowContinue.instance();
@@ -301,6 +318,220 @@ public class GenerateLegacySpreadsheetCommand extends BuiltInCommand {
     };
   }
 
+  /**
+   * Gets a generator which streams the sheets to the output as an XLSX workbook. Rows are written as they are evaluated
+   * so the whole workbook is never held in memory, unlike the HSSF based XLS generator.
+   */
+  private OutputStreamGenerator getXLSXGenerator(final ActionRequestContext pRequestContext) {
+    return new OutputStreamGenerator() {
+
+      @Override
+      public void writeOutput(OutputStream pOutputStream) throws IOException {
+        ContextUElem lContextUElem = pRequestContext.getContextUElem();
+
+        try {
+          XLSXStreamWriter lXLSXWriter = new XLSXStreamWriter(pOutputStream);
+
+          for (int s = 0; s < mSheets.length; s++) {
+            Sheet.Column lColumns[] = mSheets[s].getColumns();
+            boolean lVisibleColumns[] = new boolean[lColumns.length];
+            List<Integer> lColumnWidths = new ArrayList<>(lColumns.length);
+            boolean lShowHeaders;
+            if (XFUtil.isNull(mSheets[s].getShowHeadersExpr())) {
+              //default is hide for XLSXs, consistent with XLS
+              lShowHeaders = false;
+            }
+            else {
+              lShowHeaders = lContextUElem.extendedXPathBoolean(lContextUElem.attachDOM(), mSheets[s].getShowHeadersExpr());
+            }
+
+            //Work out visibilities and widths before any rows are written - column widths have to precede the sheet data
+            //so can only be established from the column definitions
+            for (int c = 0; c < lColumns.length; c++) {
+              Sheet.Column lColumn = lColumns[c];
+              lVisibleColumns[c] = lColumn.getVisibleExpression() == null || lContextUElem.extendedXPathBoolean(lContextUElem.attachDOM(), lColumn.getVisibleExpression());
+              if (lVisibleColumns[c]) {
+                String lDateFormatPattern = getExcelDateFormatPattern(lColumn, lColumn.getType());
+                // 2 char grace, as an exact fit is represented as ###### in Excel
+                lColumnWidths.add(lDateFormatPattern != null ? lDateFormatPattern.length() + 2 : null);
+              }
+            }
+
+            String lSheetName = lContextUElem.extendedStringOrXPathString(lContextUElem.attachDOM(), mSheets[s].getName());
+            lXLSXWriter.startSheet(lSheetName, lColumnWidths.toArray(new Integer[lColumnWidths.size()]));
+
+            // Generate column headers
+            if (lShowHeaders) {
+              lXLSXWriter.startRow();
+              for (int c = 0; c < lColumns.length; c++) {
+                if (lVisibleColumns[c]) {
+                  lXLSXWriter.addStringCell(lContextUElem.extendedStringOrXPathString(lContextUElem.attachDOM(), lColumns[c].getNameExpr()));
+                }
+              }
+              lXLSXWriter.endRow();
+            }
+
+            DOMList lRowElems = lContextUElem.extendedXPathUL(mSheets[s].getRowExpression(), ContextUElem.ATTACH);
+            for (int r = 0; r < lRowElems.getLength(); r++) {
+              DOM lRowElem = lRowElems.item(r);
+              lXLSXWriter.startRow();
+              for (int c = 0; c < lColumns.length; c++) {
+                if (lVisibleColumns[c]) {
+                  XPathResult lCellValue = lContextUElem.extendedXPathResult(lRowElem, lColumns[c].getColumnExpression());
+                  addXLSXCellValue(pRequestContext.getCurrentModule(), lXLSXWriter, lCellValue, lColumns[c]);
+                }
+              }
+              lXLSXWriter.endRow();
+            }
+
+            lXLSXWriter.endSheet();
+          }
+
+          lXLSXWriter.finish();
+        }
+        catch(ExActionFailed | ExBadPath e) {
+          throw new ExInternal("XPath evaluation failed during XLSX generation", e);
+        }
+      }
+    };
+  }
+
+  /**
+   * Resolves the datatype of a column, either from the column definition or from the schema definition of the node the
+   * cell value was taken from.
+   *
+   * @return Resolved datatype (integer, real, boolean, date, time or datetime), or null if it could not be determined.
+   */
+  private String resolveColumnDataType(Mod pModule, XPathResult pCellValue, Sheet.Column pColumn) throws ExBadPath {
+    String lColumnDataType = pColumn.getType();
+
+    if (lColumnDataType == null) {
+      DOM lResultDOM = pCellValue.asResultDOMOrNull();
+      NodeInfo lNodeInfo = lResultDOM != null ? pModule.getNodeInfo(lResultDOM) : null;
+
+      if (lNodeInfo != null) {
+        String lModuleDataType = lNodeInfo.getDataType();
+        int lColonPos = lModuleDataType.indexOf(":");
+        if (lColonPos >= 0) {
+          lModuleDataType = lModuleDataType.substring(lColonPos + 1);
+        }
+
+        if (gSchemaIntegerTypeNamesSet.contains(lModuleDataType)) {
+          lColumnDataType = "integer";
+        }
+        else if (gSchemaRealTypeNamesSet.contains(lModuleDataType)) {
+          lColumnDataType = "real";
+        }
+        else if (gSchemaDateTimeTypeNamesSet.contains(lModuleDataType)) {
+          lColumnDataType = lModuleDataType.toLowerCase(); // Bit of a cheat
+        }
+      }
+    }
+
+    return lColumnDataType;
+  }
+
+  private static boolean isDateTimeDataType(String pColumnDataType) {
+    return "date".equalsIgnoreCase(pColumnDataType) || "time".equalsIgnoreCase(pColumnDataType) || "datetime".equalsIgnoreCase(pColumnDataType);
+  }
+
+  /**
+   * Gets the Excel format pattern for a date/time column, or null if the datatype is not a date or time type.
+   */
+  private static String getExcelDateFormatPattern(Sheet.Column pColumn, String pColumnDataType) {
+    if (!isDateTimeDataType(pColumnDataType)) {
+      return null;
+    }
+    else if (pColumn.getOutputFormatSpecification() != null) {
+      return pColumn.getOutputFormatSpecification();
+    }
+    else if ("time".equalsIgnoreCase(pColumnDataType)) {
+      return "h:mm:ss AM/PM";
+    }
+    else if ("datetime".equalsIgnoreCase(pColumnDataType)) {
+      return "d-mmm-yyyy h:mm:ss AM/PM";
+    }
+    else {
+      return "d-mmm-yyyy";
+    }
+  }
+
+  /**
+   * Gets the Java date format pattern used to parse the incoming value of a date/time column.
+   */
+  private static String getInputDateFormatPattern(Sheet.Column pColumn, String pColumnDataType) {
+    if (pColumn.getInputFormatSpecification() != null) {
+      return pColumn.getInputFormatSpecification();
+    }
+    else if ("time".equalsIgnoreCase(pColumnDataType)) {
+      return "HH:mm:ss";
+    }
+    else if ("datetime".equalsIgnoreCase(pColumnDataType)) {
+      return "yyyy-MM-dd'T'HH:mm:ss";
+    }
+    else {
+      return "yyyy-MM-dd";
+    }
+  }
+
+  /**
+   * Converts a cell value according to its column's datatype and adds it to the current row of the XLSX writer. Values
+   * which cannot be converted are written as strings, consistent with the XLS generator.
+   */
+  private void addXLSXCellValue(Mod pModule, XLSXStreamWriter pXLSXWriter, XPathResult pCellValue, Sheet.Column pColumn)
+  throws ExBadPath, IOException {
+    String lColumnDataType = resolveColumnDataType(pModule, pCellValue, pColumn);
+    String lStringValue = pCellValue.asString();
+
+    if ("integer".equalsIgnoreCase(lColumnDataType) || "real".equalsIgnoreCase(lColumnDataType)) {
+      Number lNumber;
+      try {
+        lNumber = pCellValue.asNumber();
+      }
+      catch (Throwable ignoreTh) {
+        lNumber = null;
+      }
+
+      if (lNumber != null && !Double.isNaN(lNumber.doubleValue())) {
+        String lExcelFormatPattern = XFUtil.nvl(pColumn.getOutputFormatSpecification(), ("real".equalsIgnoreCase(lColumnDataType) ? "0.00" : "0"));
+        pXLSXWriter.addNumberCell(lNumber.doubleValue(), lExcelFormatPattern);
+      }
+      else {
+        pXLSXWriter.addStringCell(lStringValue);
+      }
+    }
+    else if ("boolean".equalsIgnoreCase(lColumnDataType)) {
+      pXLSXWriter.addStringCell(pCellValue.asBoolean() ? "true" : "false");
+    }
+    else if (isDateTimeDataType(lColumnDataType)) {
+      String lExcelFormatPattern = getExcelDateFormatPattern(pColumn, lColumnDataType);
+      if (XFUtil.exists(lStringValue)) {
+        Date lDate;
+        try {
+          lDate = new SimpleDateFormat(getInputDateFormatPattern(pColumn, lColumnDataType)).parse(lStringValue);
+        }
+        catch (Throwable ignoreTh) {
+          lDate = null;
+        }
+
+        if (lDate != null) {
+          pXLSXWriter.addDateCell(lDate, lExcelFormatPattern);
+        }
+        else {
+          pXLSXWriter.addStringCell(lStringValue);
+        }
+      }
+      else {
+        // No value to parse, just set the format on the cell
+        pXLSXWriter.addBlankCell(lExcelFormatPattern);
+      }
+    }
+    else {
+      // set it as a string, by default
+      pXLSXWriter.addStringCell(lStringValue);
+    }
+  }
+
   private String getOrConvertCSVCellValue(Mod pModule, XPathResult cellValue, Sheet.Column column) throws ExBadPath {
     String cellStrValue = cellValue.asString();
     DOM resultDOM = cellValue.asResultDOMOrNull();
@@ -14,13 +14,15 @@ import net.foxopen.fox.ex.ExInternal;
 import net.foxopen.fox.module.Mod;
 import net.foxopen.fox.thread.ActionRequestContext;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.Iterator;
-import java.util.Set;
-import java.util.TreeMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
 
 
 public class OrderCommand
@@ -29,7 +31,7 @@ extends BuiltInCommand {
   private final String BLANK_NUMBER_ALPHA_ASCEND = "blank-number-alpha-ascend";
 
   private DOMList byTags;
-  private ArrayList byLogic = new ArrayList();
+  private List<String> byLogic = new ArrayList<>();
 
   private OrderCommand(Mod module, DOM commandElement) throws ExInternal {
     super(commandElement);
@@ -75,7 +77,6 @@ extends BuiltInCommand {
       return XDoControlFlowContinue.instance();
     }
 
-    TreeMap sortedMap = new TreeMap(new keyComparator(byLogic));
     DOMList orderItems;
     try {
       orderItems = lContextUElem.extendedXPathUL(match, ContextUElem.ATTACH);
@@ -84,163 +85,156 @@ extends BuiltInCommand {
       throw new ExInternal("Failed to evaluate match attribute for fm:order command", e);
     }
 
+    //Group items by parent (in document order), evaluating their sort keys once up front
+    Map<ParentKey, List<SortItem>> lParentToSortItems = new LinkedHashMap<>();
     for (int i=0; i<orderItems.getLength(); i++) {
-      // generate sort keys
       DOM orderItem = orderItems.item(i);
       DOM parent = orderItem.getParentOrNull();
       if (parent == null) {
         // TODO: improve logic here
         continue;
       }
-      ArrayList key = new ArrayList();
-      // key: the parent node
-      key.add(parent);
-      // key: by statements
+
+      SortKey[] lSortKeys = new SortKey[byTags.getLength()];
       for (int j=0; j<byTags.getLength(); j++) {
-        DOM byTag = byTags.item(j);
-        String keyXpath = byTag.getAttr("key");
+        String keyXpath = byTags.item(j).getAttr("key");
+        String keyValue;
         try {
-          DOM keyDOM = lContextUElem.extendedXPath1E(orderItem,keyXpath,false);
-          String keyValue = keyDOM.value(false);
-          key.add(keyValue);
-        } catch (ExActionFailed e) {
-          key.add("");
-        } catch (ExCardinality e) {
-          key.add("");
+          keyValue = lContextUElem.extendedXPath1E(orderItem,keyXpath,false).value(false);
+        }
+        catch (ExActionFailed | ExCardinality e) {
+          keyValue = "";
         }
+        lSortKeys[j] = SortKey.create(keyValue);
       }
-      // key: the current node
-      key.add(orderItem);
-      // enter into a sorted tree map
-      sortedMap.put(key,orderItem);
+
+      lParentToSortItems.computeIfAbsent(new ParentKey(parent), k -> new ArrayList<>()).add(new SortItem(orderItem, lSortKeys));
     }
 
-    Set sortedSet = sortedMap.keySet();
-    Iterator keysItr = sortedSet.iterator();
-    DOM grpParent = null;
-    ArrayList grpArray = new ArrayList();
-    ArrayList grpDomArray = new ArrayList();
-    for (int loop=0; loop<sortedSet.size(); loop++) {
-      ArrayList key = (ArrayList)keysItr.next();
-      DOM parent = (DOM)key.get(0);
-      grpArray.add(key);
-      grpDomArray.add((DOM)sortedMap.get(key));
-      if (grpParent == null) {
-        grpParent = parent;
+    //Stable sort each parent's items, then move them into their new positions in one operation
+    Comparator<SortItem> lComparator = new SortItemComparator(byLogic);
+    for (Map.Entry<ParentKey, List<SortItem>> lParentEntry : lParentToSortItems.entrySet()) {
+      List<SortItem> lSortItems = lParentEntry.getValue();
+      Collections.sort(lSortItems, lComparator);
+
+      List<DOM> lOrderedItems = new ArrayList<>(lSortItems.size());
+      for (SortItem lSortItem : lSortItems) {
+        lOrderedItems.add(lSortItem.mItem);
       }
-      if (!grpParent.equals(parent) || loop==sortedSet.size()-1) {
-        // process group
-        int minIndex = Integer.MAX_VALUE;
-        DOM minIndexDOM = null;
-        for (int count=0; count<grpArray.size(); count++) {
-          ArrayList itemKey = (ArrayList)grpArray.get(count);
-          DOM itemDOM = (DOM)sortedMap.get(itemKey);
-          int index = itemDOM.getSiblingIndex();
-          if (index < minIndex) {
-            minIndex = index;
-            minIndexDOM = itemDOM;
-          }
-        }
+      lParentEntry.getKey().mParent.reorderChildren(lOrderedItems);
+    }
 
-        DOM nextSibling = minIndexDOM;
-        boolean found = false;
-        while ((nextSibling = nextSibling.getNextSiblingOrNull(false))!=null) {
-          if (grpDomArray.contains(nextSibling)) {
-            found = true;
-            break;
-          }
-        }
-        if (!found) {
-          nextSibling = null;
-        }
+    return XDoControlFlowContinue.instance();
+  }
 
-        for (int count=0; count<grpDomArray.size(); count++) {
-          DOM item = (DOM)grpDomArray.get(count);
-          if (nextSibling == null) {
-            item.moveToParent(grpParent);
-          } else {
-            item.moveToParentBefore(grpParent,nextSibling);
-          }
-        }
+  /**
+   * Map key for a parent DOM, based on the wrapped node rather than the DOM object.
+   */
+  private static class ParentKey {
 
-        grpParent = parent;
-        grpArray = new ArrayList();
-        grpDomArray = new ArrayList();
-      }
+    private final DOM mParent;
+
+    private ParentKey(DOM pParent) {
+      mParent = pParent;
     }
 
-    return XDoControlFlowContinue.instance();
+    @Override
+    public boolean equals(Object pOther) {
+      return pOther instanceof ParentKey && mParent.equals(((ParentKey) pOther).mParent);
+    }
+
+    @Override
+    public int hashCode() {
+      return mParent.hashCode();
+    }
   }
 
-  class keyComparator implements Comparator {
+  /**
+   * An item being ordered and its evaluated sort keys.
+   */
+  private static class SortItem {
 
-    ArrayList logicArray;
+    private final DOM mItem;
+    private final SortKey[] mSortKeys;
 
-    public keyComparator(ArrayList pLogicArray) {
-      logicArray = pLogicArray;
+    private SortItem(DOM pItem, SortKey[] pSortKeys) {
+      mItem = pItem;
+      mSortKeys = pSortKeys;
     }
+  }
+
+  /**
+   * A sort key value, typed when the key is evaluated so no parsing is required during the sort. Blank values sort
+   * before numbers, which sort before all other values.
+   */
+  private static class SortKey
+  implements Comparable<SortKey> {
+
+    private static final Pattern NUMBER_PATTERN = Pattern.compile("^[+-]?([0-9]+\\.?[0-9]*|\\.[0-9]+)$");
 
-    public int compare(Object o1, Object o2) {
-      ArrayList array1 = (ArrayList)o1;
-      ArrayList array2 = (ArrayList)o2;
-      Object parent1 = array1.get(0);
-      Object parent2 = array2.get(0);
-      if (parent1.hashCode() > parent2.hashCode()) {
-        return -1;
+    private static final int BLANK = 0;
+    private static final int NUMBER = 1;
+    private static final int ALPHA = 2;
+
+    private final int mType;
+    private final String mValue;
+    private final BigDecimal mNumberValue;
+
+    static SortKey create(String pValue) {
+      String lTrimmedValue = pValue.trim();
+      if (lTrimmedValue.length() == 0) {
+        return new SortKey(BLANK, pValue, null);
       }
-      else if (parent1.hashCode() < parent2.hashCode()) {
-        return 1;
+      else if (NUMBER_PATTERN.matcher(lTrimmedValue).matches()) {
+        return new SortKey(NUMBER, pValue, new BigDecimal(lTrimmedValue));
       }
       else {
-        for (int j=1; j<array1.size()-1; j++) {
-          String a1 = (String)array1.get(j);
-          String a2 = (String)array2.get(j);
-          String logic = (String)logicArray.get(j-1);
-          if (a1 == null) {
-            if (logic.equals(BLANK_NUMBER_ALPHA_ASCEND)) {
-              return -1;
-            }
-            else {
-              return 1;
-            }
-          }
-          else if (a2 == null) {
-            if (logic.equals(BLANK_NUMBER_ALPHA_ASCEND)) {
-              return 1;
-            }
-            else {
-              return -1;
-            }
-          }
-          else {
-            int comp = a1.compareTo(a2);
-            if (comp != 0) {
-              if (logic.equals(BLANK_NUMBER_ALPHA_ASCEND)) {
-                return comp;
-              }
-              else {
-                if (comp<0) {
-                  return 1;
-                }
-                else {
-                  return -1;
-                }
-              }
-            }
-          }
-        }
-        Object element1 = array1.get(array1.size()-1);
-        Object element2 = array2.get(array2.size()-1);
-        if (element1.hashCode() > element2.hashCode()) {
-          return -1;
-        }
-        else if (element1.hashCode() < element2.hashCode()) {
-          return 1;
-        }
-        else {
-          return 0;
+        return new SortKey(ALPHA, pValue, null);
+      }
+    }
+
+    private SortKey(int pType, String pValue, BigDecimal pNumberValue) {
+      mType = pType;
+      mValue = pValue;
+      mNumberValue = pNumberValue;
+    }
+
+    @Override
+    public int compareTo(SortKey pOther) {
+      if (mType != pOther.mType) {
+        return Integer.compare(mType, pOther.mType);
+      }
+      else if (mType == NUMBER) {
+        return mNumberValue.compareTo(pOther.mNumberValue);
+      }
+      else {
+        return mValue.compareTo(pOther.mValue);
+      }
+    }
+  }
+
+  private class SortItemComparator
+  implements Comparator<SortItem> {
+
+    private final boolean[] mAscending;
+
+    private SortItemComparator(List<String> pLogicList) {
+      mAscending = new boolean[pLogicList.size()];
+      for (int i=0; i<mAscending.length; i++) {
+        mAscending[i] = BLANK_NUMBER_ALPHA_ASCEND.equals(pLogicList.get(i));
+      }
+    }
+
+    @Override
+    public int compare(SortItem pItem1, SortItem pItem2) {
+      for (int i=0; i<mAscending.length; i++) {
+        int lComparison = pItem1.mSortKeys[i].compareTo(pItem2.mSortKeys[i]);
+        if (lComparison != 0) {
+          return mAscending[i] ? lComparison : -lComparison;
         }
       }
+      //Items with equal keys keep their existing relative order as the sort is stable
+      return 0;
     }
   }
 
@@ -30,6 +30,7 @@ extends BuiltInCommand {
   /** Zip archive attributes. */
   private final String mZipArchiveName;
   private final String mZipCompressionLevel;
+  private final String mZipPrefetchBudgetMB;
 
   /** Database query attributes. */
   private final String mDbInterface;
@@ -48,6 +49,7 @@ extends BuiltInCommand {
 
     mZipArchiveName = pCommandDOM.getAttrOrNull("zip-archive-name");
     mZipCompressionLevel = pCommandDOM.getAttrOrNull("zip-compression-level");
+    mZipPrefetchBudgetMB = pCommandDOM.getAttrOrNull("zip-prefetch-budget-mb");
 
     mFileName = XFUtil.nvl(pCommandDOM.getAttrOrNull("file-name"), "file");
 
@@ -103,8 +105,22 @@ extends BuiltInCommand {
             }
           }
 
+          //Establish how much LOB data can be read ahead of the zip writer
+          long lPrefetchByteBudget = DownloadManager.DEFAULT_ZIP_PREFETCH_BYTE_BUDGET;
+          if (mZipPrefetchBudgetMB != null) {
+            String lZipPrefetchBudgetPostXPath = lContextUElem.extendedStringOrXPathString(lContextUElem.attachDOM(), mZipPrefetchBudgetMB);
+            if (!XFUtil.isNull(lZipPrefetchBudgetPostXPath)) {
+              try {
+                lPrefetchByteBudget = Long.valueOf(lZipPrefetchBudgetPostXPath) * 1024 * 1024;
+              }
+              catch (NumberFormatException e) {
+                throw new ExInternal("Invalid number for command show-popup on attribute zip-prefetch-budget-mb.\n", e);
+              }
+            }
+          }
+
           //Create a new download parcel for the zip file
-          lNewDownloadParcel = lDownloadManager.addZipQueryDownload(lQueryList, lFileName, lZipCompressionLevel);
+          lNewDownloadParcel = lDownloadManager.addZipQueryDownload(lQueryList, lFileName, lZipCompressionLevel, lPrefetchByteBudget);
         }
         else {
           //Non-zip query; get the row and send it
@@ -12,7 +12,6 @@ import net.foxopen.fox.command.flow.XDoControlFlowContinue;
 import net.foxopen.fox.dom.DOM;
 import net.foxopen.fox.dom.DOMList;
 import net.foxopen.fox.ex.ExActionFailed;
-import net.foxopen.fox.ex.ExBadPath;
 import net.foxopen.fox.ex.ExDoSyntax;
 import net.foxopen.fox.ex.ExInternal;
 import net.foxopen.fox.ex.ExModule;
@@ -31,7 +30,11 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -217,14 +220,16 @@ public class ValidateCommand
    * Tests whether validation should be skipped for this node, based on the result of running its <tt>validate-when</tt>
    * XPath (or that of its parent).
    * @param pNode Node to be evaluated.
+   * @param pNodeAbsolutePath Absolute path of pNode.
+   * @param pNodeDfn NodeInfo for pNode, or null if it is not in the schema.
    * @param pModule Current Mod.
    * @param pContext Current ContextUElem.
    * @return True if validation should be skipped, false otherwise.
    */
-   private static final boolean skipValidationTest(DOM pNode, Mod pModule, ContextUElem pContext){
+   private static final boolean skipValidationTest(DOM pNode, String pNodeAbsolutePath, NodeInfo pNodeDfn, Mod pModule, ContextUElem pContext){
 
-     NodeInfo lNodeDfn = pModule.getNodeInfo(pNode);
-     NodeInfo lParentDfn = pModule.getNodeInfo(pNode.getParentOrSelf());
+     NodeInfo lNodeDfn = pNodeDfn;
+     NodeInfo lParentDfn = pModule.getNodeInfo(parentAbsolutePath(pNodeAbsolutePath));
 
      //Establish the target node for the test - either the node itself or its parent, depending on which has a condition defined on it
      //NodeInfos may be null if nodes are not in the schema
@@ -265,6 +270,17 @@ public class ValidateCommand
      return !lResult;
    }
 
+  /**
+   * Gets the absolute path of a node's parent from the node's own absolute path, avoiding a second walk up the DOM tree.
+   * The path of a root element is returned unchanged, consistent with {@link DOM#getParentOrSelf()}.
+   * @param pAbsolutePath Absolute path of a node, as returned by {@link DOM#absolute()}.
+   * @return Absolute path of the node's parent.
+   */
+  private static String parentAbsolutePath(String pAbsolutePath) {
+    int lLastSlash = pAbsolutePath.lastIndexOf('/');
+    return lLastSlash > 0 ? pAbsolutePath.substring(0, lLastSlash) : pAbsolutePath;
+  }
+
   public XDoControlFlow run(ActionRequestContext pRequestContext) {
     ContextUElem lContextUElem = pRequestContext.getContextUElem();
     ContextUCon lContextUCon = pRequestContext.getContextUCon();
@@ -305,41 +321,38 @@ public class ValidateCommand
       //DOMList checkNodes = errorCtx.mCurrentAttach.xpathUL(mMatch, null); // TODO: remove if new contexts work
       NODE_LOOP:
       for (int loop = 0; loop < checkNodes.getLength(); loop++) {
-        if (checkNodes.item(loop).getName().equals("fox-error")) {
+        DOM lNode = checkNodes.item(loop);
+        if (lNode.getName().equals("fox-error")) {
           // ignore error checking for fox-error nodes
         }
         else {
+          //Resolve the node's path and definition once - they are needed by every check below
+          String lAbsolutePath = lNode.absolute();
+          NodeInfo lNodeDfn = lModule.getNodeInfo(lAbsolutePath);
+
           //If we're using when conditions, check the node's when condition (and its parent) - skip node if necessary
-          if(lUseWhenConditions && (skipValidationTest(checkNodes.item(loop), lModule, lContextUElem))){
+          if(lUseWhenConditions && (skipValidationTest(lNode, lAbsolutePath, lNodeDfn, lModule, lContextUElem))){
             continue NODE_LOOP;
           }
 
           // assuming the xpath doesn't pick the same node twice clear any old errors
           if (mClearOldNodeErrors) {
             // delete all node errors
-            checkNodes.item(loop).xpathUL("fox-error", null).removeFromDOMTree();
+            lNode.getUL("fox-error").removeFromDOMTree();
           }
 
           // Check this node/element for value errors
-          if (mCheckValue) {
-            checkValue(pRequestContext, checkNodes.item(loop), lModule, errorCtx, lContextUElem);
+          if (mCheckValue && lNodeDfn != null) {
+            checkValue(pRequestContext, lNode, lNodeDfn, errorCtx, lContextUElem);
           }
 
-          // Check this node and siblings min / max occurrences
-          if (mCheckCardinality) {
-            checkOccurs(checkNodes.item(loop), lModule, errorCtx);
-          }
-
-          //TODO PN moved here to avoid running the XPath twice - however it seems redundant as it does largely the same as checkOccurs - need to QA and potentially remove
-          if (mCheckCardinality){
-            checkMinOccurs(checkNodes.item(loop), lModule, errorCtx);
+          // Check min / max occurrences of this node and its siblings, and of its counterparts under equivalent parents
+          if (mCheckCardinality && lNodeDfn != null) {
+            checkCardinality(lNode, lAbsolutePath, lNodeDfn, errorCtx);
           }
         }
       }
     }
-    catch (ExBadPath x) {
-      throw new ExInternal("Invalid match clause " + mMatch, x);
-    }
     catch (ExTooManyErrors x) {
       // Fine just log it and get out of here
       Track.debug("Validating and more than " + mErrorLimit + " errors found. Checking stopped early");
@@ -780,173 +793,112 @@ public class ValidateCommand
 
 
    /**
-    *  Checks the minimum occurrences of the model DOM element against the data
-    *  dom element
+    *  Checks the minimum/maximum occurrences of the DOM element under its parent, and under every other element at the
+    *  same absolute path as its parent (so parents which contain no occurrences of the element are also checked). Each
+    *  parent's children are tallied by name in a single pass the first time the parent is visited, so the check is only
+    *  performed once per parent and element name regardless of how many siblings the match clause selects.
     *
-    *@param  pNodeToCheck    Description of the Parameter
-    *@param  pXThread        Description of the Parameter
-    *@param  pErrorCtx       Description of the Parameter
-    *@exception  ExInternal  Description of the Exception
+    *@param  pNodeToCheck      Node being validated
+    *@param  pNodeAbsolutePath Absolute path of pNodeToCheck
+    *@param  pNodeDfn          NodeInfo for pNodeToCheck
+    *@param  pErrorCtx         Current error context
+    *@exception  ExInternal    Description of the Exception
     */
-   private void checkMinOccurs(DOM pNodeToCheck, Mod pModule, ErrorCtx pErrorCtx) throws ExInternal {
-      // TODO: this is a model dom so can I still use nodeinfo?
-      NodeInfo nodeDfn = pModule.getNodeInfo(pNodeToCheck);
-      if (nodeDfn == null)
+   private void checkCardinality(DOM pNodeToCheck, String pNodeAbsolutePath, NodeInfo pNodeDfn, ErrorCtx pErrorCtx) throws ExInternal {
+      DOM lParent = pNodeToCheck.getParentOrNull();
+      if (lParent == null || pErrorCtx.mProcessedNodes.contains(lParent.getRef() + "/" + pNodeToCheck.getName()))
       {
          return;
-         // For now just exit if no node info found
-         // TODO: ask JB if this should be an exception
+         // dont check a node if you have already checked one of its siblings
       }
 
       Integer minOccurs = null;
+      Integer maxOccurs = null;
       try
       {
          try
          {
             // get min occurs
-            minOccurs = getAttrAsInteger("minOccurs", nodeDfn);
+            minOccurs = getAttrAsInteger("minOccurs", pNodeDfn);
+            // get max occurs
+            maxOccurs = getAttrAsInteger("maxOccurs", pNodeDfn);
          }
          catch (NumberFormatException ex)
          {
             throw new ExInternal("Error validating min/max occurs structure", ex);
          }
+
+         String lName = pNodeToCheck.getName();
          // only check cardinality if its specified in the element definition
-         if (minOccurs != null && minOccurs.intValue() > 0)
+         if (minOccurs != null || maxOccurs != null)
          {
-            //grab a node list of all the parent nodes
-            DOMList parentNodes = pErrorCtx.mCurrentAttach.getUL(pNodeToCheck.getParentOrNull().absolute());
-
-            if (parentNodes.getLength() == 0)
+            // Check all parents at the same path in the node's own document - these are found with one simple path
+            // evaluation, and cover parents where the element is missing altogether
+            DOMList lParentNodes = lParent.getUL(parentAbsolutePath(pNodeAbsolutePath));
+            for (int loop = 0; loop < lParentNodes.getLength(); loop++)
             {
-               // create parent nodes as well
-              //PN removed: legacy code which would have never worked - the node already exists, otherwise we wouldn't be checking it now
-              //This also failed because pErrorCtx.mCurrentAttach is always state attach but we may not be validating on that - so nodes were being created in the wrong document
-               //pErrorCtx.mCurrentAttach.create1E(pNodeToCheck.absolute());
+               checkParentOccurs(lParentNodes.item(loop), lName, minOccurs, maxOccurs, pErrorCtx);
             }
-            for (int loop = 0; loop < parentNodes.getLength(); loop++)
-            {
-               if (pErrorCtx.mProcessedNodes.contains(parentNodes.item(loop).getRef() + "/" + pNodeToCheck.getName()))
-               {
-                  // dont check a node if you have already checked one of its siblings
-               }
-               else
-               {
-                  /* OK now we CHEAT
-                   * if we are here then we have not found a single occurrence of this element in the previous pass
-                   * so the item does not exists so flag an error or create it
-                   */
-
-                  // Do we need to create an empty structure
-                  if (mCreateWhenMissing)
-                  {
-                     // add Default structure. Note no defaults or any fancy pants stuff just add a blank node
-
-                     for (int i = 0; i <= minOccurs.intValue(); i++)
-                     {
-                        parentNodes.item(loop).create1E(pNodeToCheck.getName());
-                     }
-                  }
-                  else
-                  {
-                     addError(pNodeToCheck.getParentOrNull(), "You must enter at least " + minOccurs + " " + pNodeToCheck.getName() + " entries ", pErrorCtx);
-                  }
-                  // Avoid processing this node again
-                  pErrorCtx.mProcessedNodes.add(parentNodes.item(loop).getRef() + "/" + pNodeToCheck.getName());
-               }
-
-            }
-
-
+            // The node's own parent should always be in the list above, but make sure it is checked regardless
+            checkParentOccurs(lParent, lName, minOccurs, maxOccurs, pErrorCtx);
+         }
+         else {
+           // its a wrap! so register that we have already processed this node and all its siblings
+           pErrorCtx.mProcessedNodes.add(lParent.getRef() + "/" + lName);
          }
-         // its a wrap register that we have already processed this node and all its siblings
-         pErrorCtx.mProcessedNodes.add(pNodeToCheck.absolute());
       }
       catch (ExInternal ex)
       {
-         throw new ExInternal("Error validating structure for node", pNodeToCheck, ex);
-      }
-      catch (ExTooMany ex)
-      {
-         throw new ExInternal("Error validating structure for node duplicate parents found", pNodeToCheck, ex);
+         throw new ExInternal("Error validating cardinality for node", pNodeToCheck, ex);
       }
    }
 
 
    /**
-    *  Checks the minimum/maximum occurrences of the DOM element
+    *  Checks the number of pChildName elements within pParent against the given min/max occurrences, if the parent has
+    *  not already been checked for this element name. Missing elements are created if required.
     *
-    *@param  pNodeToCheck    Description of the Parameter
-    *@param  pXThread        Description of the Parameter
-    *@param  pErrorCtx       Description of the Parameter
+    *@param  pParent         Parent element to check
+    *@param  pChildName      Name of the child element being counted
+    *@param  pMinOccurs      Minimum occurrences, or null if not specified
+    *@param  pMaxOccurs      Maximum occurrences, or null if not specified
+    *@param  pErrorCtx       Current error context
     *@exception  ExInternal  Description of the Exception
     */
-   private void checkOccurs(DOM pNodeToCheck, Mod pModule, ErrorCtx pErrorCtx) throws ExInternal {
-      if (pErrorCtx.mProcessedNodes.contains(pNodeToCheck.getParentOrNull().getRef() + "/" + pNodeToCheck.getName()))
-      {
-         return;
-         // dont check a node if you have already checked one of its siblings
-      }
-      NodeInfo nodeDfn = pModule.getNodeInfo(pNodeToCheck);
-      if (nodeDfn == null)
+   private void checkParentOccurs(DOM pParent, String pChildName, Integer pMinOccurs, Integer pMaxOccurs, ErrorCtx pErrorCtx) throws ExInternal {
+      String lParentRef = pParent.getRef();
+      if (!pErrorCtx.mProcessedNodes.add(lParentRef + "/" + pChildName))
       {
          return;
-         // For now just exit if no node info found
-         //TODO - Possibly throw an error
+         // already checked this parent for this element
       }
 
-      Integer minOccurs = null;
-      Integer maxOccurs = null;
-      try
+      Map<String, Integer> lChildNameCounts = pErrorCtx.getChildNameCounts(lParentRef, pParent);
+      Integer lCount = lChildNameCounts.get(pChildName);
+      int siblingCount = lCount == null ? 0 : lCount;
+
+      // minimum check
+      if (pMinOccurs != null && siblingCount < pMinOccurs.intValue())
       {
-         try
-         {
-            // get min occurs
-            minOccurs = getAttrAsInteger("minOccurs", nodeDfn);
-            // get max occurs
-            maxOccurs = getAttrAsInteger("maxOccurs", nodeDfn);
-         }
-         catch (NumberFormatException ex)
-         {
-            throw new ExInternal("Error validating min/max occurs structure", ex);
-         }
-         // only check cardinality if its specified in the element definition
-         if (minOccurs != null || maxOccurs != null)
+         // Do we need to create an empty structure
+         if (mCreateWhenMissing)
          {
-            // find exact number of elements
-            int siblingCount = pNodeToCheck.getParentOrNull().getUL(pNodeToCheck.getName()).getLength();
-            // TODO: above check is inefficient. May need to create a getSiblingCount method but
-            // have a chat to JB first about the other todo's
-
-            // minimum check
-            if (minOccurs != null && siblingCount < minOccurs.intValue())
+            // add Default structure. Note no defaults or any fancy pants stuff just add a blank node
+            for (int i = siblingCount; i < pMinOccurs.intValue(); i++)
             {
-               // Do we need to create an empty structure
-               if (mCreateWhenMissing)
-               {
-                  // add Default structure. Note no defaults or any fancy pants stuff just add a blank node
-                  // todo: ask Jason if he wants this to recurse to the nth degree, what about defaults etc?
-                  for (int i = siblingCount; i <= minOccurs.intValue(); i++)
-                  {
-                     pNodeToCheck.getParentOrNull().addElem(pNodeToCheck.getName());
-                  }
-               }
-               else
-               {
-                  addError(pNodeToCheck.getParentOrNull(), "You must enter at least " + minOccurs + " entries ", pErrorCtx);
-               }
-            }
-            // maximum check
-            if (maxOccurs != null && siblingCount > maxOccurs.intValue())
-            {
-               addError(pNodeToCheck.getParentOrNull(), "You must enter no more than " + maxOccurs + " entries ", pErrorCtx);
+               pParent.addElem(pChildName);
             }
+            lChildNameCounts.put(pChildName, pMinOccurs);
+         }
+         else
+         {
+            addError(pParent, "You must enter at least " + pMinOccurs + " entries ", pErrorCtx);
          }
-         // its a wrap! so register that we have already processed this node and all its siblings
-         pErrorCtx.mProcessedNodes.add(pNodeToCheck.getParentOrNull().getRef() + "/" + pNodeToCheck.getName());
       }
-      catch (ExInternal ex)
+      // maximum check
+      if (pMaxOccurs != null && siblingCount > pMaxOccurs.intValue())
       {
-         throw new ExInternal("Error validating cardinality for node", pNodeToCheck, ex);
+         addError(pParent, "You must enter no more than " + pMaxOccurs + " entries ", pErrorCtx);
       }
    }
 
@@ -955,24 +907,17 @@ public class ValidateCommand
     *  Validates the given UELEM data value against its attribute directives
     *
     *@param  pDataToCheck    Dom containing the data to validate
-    *@param  pXThread        Description of the Parameter
+    *@param  dataDfn         NodeInfo for the data being validated
     *@param  pErrorCtx       Description of the Parameter
     *@exception  ExInternal  Description of the Exception
     */
-   private void checkValue(ActionRequestContext pRequestContext, DOM pDataToCheck, Mod pModule, ErrorCtx pErrorCtx, ContextUElem pContextUElem)
+   private void checkValue(ActionRequestContext pRequestContext, DOM pDataToCheck, NodeInfo dataDfn, ErrorCtx pErrorCtx, ContextUElem pContextUElem)
    throws ExActionFailed
    {
-      // TODO think about adding a "check if already processed" here like in checkOccurs
+      // TODO think about adding a "check if already processed" here like in checkCardinality
       // however it may actually be more processing work than not doing anything
 
       String dataVal = pDataToCheck.value();
-      NodeInfo dataDfn = pModule.getNodeInfo(pDataToCheck);
-      if (dataDfn == null)
-      {
-         return;
-         // For now just exit if no node info found
-         // TODO: ask JB if this should be an exception
-      }
       String attrVal = null;
 
       // Validate the element first
@@ -1269,11 +1214,15 @@ public class ValidateCommand
        *  All errors found during the validate used mainly for debugging
        *  Purposes
        */
-      ArrayList mErrorsFound = new ArrayList();
+      List<StoreErrors> mErrorsFound = new ArrayList<>();
       /**
-       *  Stores processed nodes to avoid re-validating validated nodes
+       *  Stores processed parent ref/element name pairs to avoid re-validating validated nodes
        */
-      ArrayList mProcessedNodes = new ArrayList();
+      Set<String> mProcessedNodes = new HashSet<>();
+      /**
+       *  Counts of child elements by name for each parent checked for cardinality, keyed by parent ref
+       */
+      Map<String, Map<String, Integer>> mParentChildNameCounts = new HashMap<>();
 
 
       /**
@@ -1299,6 +1248,27 @@ public class ValidateCommand
          return mErrorsFound.size();
       }
 
+
+      /**
+       *  Gets the counts of the given parent's child elements by name, tallying them in one pass on first request.
+       *
+       *@param  pParentRef  Ref of pParent
+       *@param  pParent     Parent element
+       *@return    Mutable map of child element names to counts
+       */
+      Map<String, Integer> getChildNameCounts(String pParentRef, DOM pParent) {
+         Map<String, Integer> lCounts = mParentChildNameCounts.get(pParentRef);
+         if (lCounts == null) {
+            lCounts = new HashMap<>();
+            DOMList lChildren = pParent.getChildElements();
+            for (int i = 0; i < lChildren.getLength(); i++) {
+               lCounts.merge(lChildren.item(i).getName(), 1, Integer::sum);
+            }
+            mParentChildNameCounts.put(pParentRef, lCounts);
+         }
+         return lCounts;
+      }
+
    }
 
    /**
@@ -14,6 +14,9 @@ import net.foxopen.fox.dom.xpath.ContextualityLevel;
  * in setout.
  *
  * There are two types of for loop: DOM loops and number loops.
+ *
+ * The iterator-status DOM is only written when its context label is resolved, so loops which never reference their
+ * status do not pay for updating it on every iteration.
  */
 public class ForEachIterator {
 
@@ -67,11 +70,8 @@ public class ForEachIterator {
     }
 
     Status lIteratorStatus = new Status();
-    DOM statusDOM = DOM.createDocument("iterator-status");
     pContextUElem.localise("fm:for-each/" + mItemContextName);
     try {
-      pContextUElem.setUElem(mStatusContextName, ContextualityLevel.LOCALISED, statusDOM);
-
       lIteratorStatus.begin       = XFUtil.nvl(mNumRangeFrom, 0d);
       lIteratorStatus.end         = XFUtil.nvl(mNumRangeTo, (double) pIterationDOMList.getLength()-1);
       lIteratorStatus.step        = XFUtil.nvl(mNumRangeStep, 1d);
@@ -89,12 +89,18 @@ public class ForEachIterator {
         lIteratorStatus.end   = temp;
       }
 
+      //Status DOM is populated on demand when the label is resolved
+      pContextUElem.setUElem(mStatusContextName, ContextualityLevel.LOCALISED, lIteratorStatus.mStatusDOM, lIteratorStatus::refreshStatusDOM);
+
       int numberOfIterations = (mIsDOMLoop ? pIterationDOMList.getLength() : Math.abs((int) ((lIteratorStatus.end - lIteratorStatus.begin) / lIteratorStatus.step))+1);
 
       boolean lContinueAllowed = true;
       for (int n=0; n < numberOfIterations && lContinueAllowed; n++) {
 
-        updateStatusDOMFromIteratorStatus(statusDOM, lIteratorStatus);
+        //Keep the DOM in step if it has been read before - consumers may be holding references to its elements
+        if (lIteratorStatus.mStatusDOMMaterialised) {
+          lIteratorStatus.refreshStatusDOM();
+        }
 
         DOM lCurrentItem = null;
         if (pIterationDOMList.getLength() > n) {
@@ -110,6 +116,7 @@ public class ForEachIterator {
         lIteratorStatus.currentStep += lIteratorStatus.step;
         lIteratorStatus.isFirst = false;
         lIteratorStatus.isLast = (lIteratorStatus.currentStep == lIteratorStatus.end);
+        lIteratorStatus.mStatusDOMCurrent = false;
       }
     }
     finally {
@@ -118,19 +125,6 @@ public class ForEachIterator {
   }
 
 
-  private static void updateStatusDOMFromIteratorStatus(DOM statusDOM, Status status) {
-    final DecimalFormat df = new DecimalFormat("#.##");
-    statusDOM.getCreate1ENoCardinalityEx("index").setText(Integer.toString(status.index));
-    statusDOM.getCreate1ENoCardinalityEx("count").setText(Integer.toString(status.count));
-    statusDOM.getCreate1ENoCardinalityEx("currentStep").setText(df.format(status.currentStep));
-    statusDOM.getCreate1ENoCardinalityEx("isFirst").setText(Boolean.valueOf(status.isFirst).toString());
-    statusDOM.getCreate1ENoCardinalityEx("isLast").setText(Boolean.valueOf(status.isLast).toString());
-    statusDOM.getCreate1ENoCardinalityEx("begin").setText(df.format(status.begin));
-    statusDOM.getCreate1ENoCardinalityEx("end").setText(df.format(status.end));
-    statusDOM.getCreate1ENoCardinalityEx("step").setText(df.format(status.step));
-  }
-
-
   public class Status {
 //    DOM     currentItem;
     private int     index;
@@ -142,6 +136,42 @@ public class ForEachIterator {
     private double  step;
     private double  currentStep;
 
+    private final DOM mStatusDOM = DOM.createDocument("iterator-status");
+    /** True once the status DOM has been written to for the first time */
+    private boolean mStatusDOMMaterialised = false;
+    /** True if the status DOM reflects the current iteration */
+    private boolean mStatusDOMCurrent = false;
+    private DecimalFormat mDecimalFormat;
+
+    /**
+     * Writes the current iteration status to the status DOM, if it is not already up to date.
+     */
+    private void refreshStatusDOM() {
+      if (mStatusDOMCurrent) {
+        return;
+      }
+
+      if (mDecimalFormat == null) {
+        mDecimalFormat = new DecimalFormat("#.##");
+      }
+
+      mStatusDOM.getCreate1ENoCardinalityEx("index").setText(Integer.toString(index));
+      mStatusDOM.getCreate1ENoCardinalityEx("count").setText(Integer.toString(count));
+      mStatusDOM.getCreate1ENoCardinalityEx("currentStep").setText(mDecimalFormat.format(currentStep));
+      mStatusDOM.getCreate1ENoCardinalityEx("isFirst").setText(Boolean.toString(isFirst));
+      mStatusDOM.getCreate1ENoCardinalityEx("isLast").setText(Boolean.toString(isLast));
+
+      //Range values do not change during the loop so only need writing once
+      if (!mStatusDOMMaterialised) {
+        mStatusDOM.getCreate1ENoCardinalityEx("begin").setText(mDecimalFormat.format(begin));
+        mStatusDOM.getCreate1ENoCardinalityEx("end").setText(mDecimalFormat.format(end));
+        mStatusDOM.getCreate1ENoCardinalityEx("step").setText(mDecimalFormat.format(step));
+        mStatusDOMMaterialised = true;
+      }
+
+      mStatusDOMCurrent = true;
+    }
+
     public int getIndex() {
       return index;
     }
@@ -8,13 +8,19 @@ public enum FoxEnvironmentProperty {
   DATABASE_BINARY_XML_READER_STRATEGY("/*/database/binary-xml-reader-strategy", false, false, DatabaseProperties.XML_STRATEGY_BINARY),
   DATABASE_BINARY_XML_WRITER_STRATEGY("/*/database/binary-xml-writer-strategy", false, false, DatabaseProperties.XML_STRATEGY_STANDARD),
   DATABASE_STANDARD_XML_WRITER_METHOD("/*/database/standard-xml-writer-method", false, false, DatabaseProperties.STANDARD_XML_WRITER_METHOD_BYTES),
+  DATABASE_THREAD_PERSISTENCE_MODE("/*/database/thread-persistence-mode", false, false, DatabaseProperties.THREAD_PERSISTENCE_MODE_SYNCHRONOUS),
   ENV_DISPLAY_ATTR_LIST ("/*/env-display-attribute-list", true, false),
   AUTHENTICATION_PROPERTIES("/*/authentication-properties", true, false),
   COOKIE_DOMAIN_METHOD("/*/cookie-domain-method", false, false, "FULL"),
   FILE_OVERALL_CONCURRENCT_CHANNELS("/*/file-properties/file-transfer-service/overall-concurrent-channels", false, false, 10),
   FILE_CONCURRENT_UPLOAD_CHANNELS("/*/file-properties/file-transfer-service/concurrent-upload-channels", false, false, 5),
   FILE_CONCURRENT_DOWNLOAD_CHANNELS("/*/file-properties/file-transfer-service/concurrent-download-channels", false, false, 5),
-  FILE_WORK_SLEEP_TIME_MS("/*/file-properties/file-transfer-service/worker-sleep-time-ms", false, false, 5);
+  FILE_WORK_SLEEP_TIME_MS("/*/file-properties/file-transfer-service/worker-sleep-time-ms", false, false, 5),
+  MODULE_WARM_UP_MODULE_LIST("/*/module-warm-up/module-list", true, false),
+  MODULE_WARM_UP_RECENT_MODULE_COUNT("/*/module-warm-up/recent-module-count", false, false, 0),
+  MODULE_WARM_UP_RECENT_DAYS("/*/module-warm-up/recent-days", false, false, 7),
+  MODULE_WARM_UP_MAX_THREADS("/*/module-warm-up/max-threads", false, false, 4),
+  MODULE_WARM_UP_TIMEOUT_SECONDS("/*/module-warm-up/timeout-seconds", false, false, 300);
 
   private final String mPath;
   private final boolean mIsXML;
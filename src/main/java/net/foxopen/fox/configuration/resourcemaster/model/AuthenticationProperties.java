@@ -20,6 +20,9 @@ public class AuthenticationProperties {
   /** Maps LDAP connection names to a map of attributes associated with that connection */
   private final Map<String, LDAPConfig> mLDAPConnectionMap;
 
+  /** Number of seconds a successful session verification is reused for subsequent churns of the same session. 0 = disabled. */
+  private final int mSessionVerifyCacheSeconds;
+
   public static AuthenticationProperties createAuthenticationProperties(DOM pResourceMasterDOM) throws ExApp {
     AuthenticationProperties lAuthenticationProperties = new AuthenticationProperties(pResourceMasterDOM);
     return lAuthenticationProperties;
@@ -89,12 +92,27 @@ public class AuthenticationProperties {
         lLDAPConnectionMap.put(lConName, lLDAPConfig);
       }
       mLDAPConnectionMap = Collections.unmodifiableMap(lLDAPConnectionMap);
+
+      String lSessionVerifyCacheSeconds = pAuthenticationDOM.get1SNoEx("session-verify-cache-seconds");
+      if(lSessionVerifyCacheSeconds.length() > 0) {
+        try {
+          mSessionVerifyCacheSeconds = Integer.parseInt(lSessionVerifyCacheSeconds);
+        }
+        catch (NumberFormatException eNFE) {
+          throw new ExApp("Bad session-verify-cache-seconds specified on authentication properties", eNFE);
+        }
+      }
+      else {
+        mSessionVerifyCacheSeconds = 0;
+      }
     }
     else {
       mAuthenticationBootstrapUserChange = "";
       mAuthenticationBootstrapMap = Collections.emptyMap();
 
       mLDAPConnectionMap = Collections.emptyMap();
+
+      mSessionVerifyCacheSeconds = 0;
     }
   }
 
@@ -106,6 +124,14 @@ public class AuthenticationProperties {
     return mLDAPConnectionMap;
   }
 
+  /**
+   * @return Number of seconds a successful session verification can be reused for without going back to the database,
+   * or 0 if every churn should verify the session.
+   */
+  public int getSessionVerifyCacheSeconds() {
+    return mSessionVerifyCacheSeconds;
+  }
+
   public Map getAuthenticationBootstrapMap() {
     return mAuthenticationBootstrapMap;
   }
@@ -53,6 +53,7 @@ implements FoxEnvironment {
   private final String mCookieDomainMethod;
   private final DatabaseProperties mDatabaseProperties;
   private final AuthenticationProperties mAuthenticationProperties;
+  private final ModuleWarmUpProperties mModuleWarmUpProperties;
   private final FileServiceProperties mFileServiceProperties;
   private final Map<String, String> mEnvDisplayAttributeList;
 
@@ -84,6 +85,7 @@ implements FoxEnvironment {
       mDefaultApplication = pFoxEnvironmentDefinition.getPropertyAsString(FoxEnvironmentProperty.DEFAULT_APPLICATION);
       mCookieDomainMethod = pFoxEnvironmentDefinition.getPropertyAsString(FoxEnvironmentProperty.COOKIE_DOMAIN_METHOD);
       mAuthenticationProperties = new AuthenticationProperties(pFoxEnvironmentDefinition.getPropertyAsDOM(FoxEnvironmentProperty.AUTHENTICATION_PROPERTIES));
+      mModuleWarmUpProperties = ModuleWarmUpProperties.createModuleWarmUpProperties(pFoxEnvironmentDefinition);
 
       // Load DOM properties
       DOM lDisplayAttrDOM = pFoxEnvironmentDefinition.getPropertyAsDOM(FoxEnvironmentProperty.ENV_DISPLAY_ATTR_LIST);
@@ -255,6 +257,7 @@ implements FoxEnvironment {
 
             //Flush all objects from the App's associated object cache
             CacheManager.flushMemberCache(BuiltInCacheDefinition.APP_COMPONENTS, lAppMnem);
+            CacheManager.flushMemberCache(BuiltInCacheDefinition.APP_PARSED_LIBRARIES, lAppMnem);
           }
 
           mMnemToApp = lAppMap;
@@ -321,4 +324,9 @@ implements FoxEnvironment {
     return mAuthenticationProperties;
   }
 
+  @Override
+  public ModuleWarmUpProperties getModuleWarmUpProperties() {
+    return mModuleWarmUpProperties;
+  }
+
 }
@@ -6,7 +6,7 @@ import net.foxopen.fox.ex.ExApp;
 
 public class DatabaseProperties {
 
-  private static final DatabaseProperties UNCONFIGURED_DEFAULT_INSTANCE = new DatabaseProperties(true, true, true);
+  private static final DatabaseProperties UNCONFIGURED_DEFAULT_INSTANCE = new DatabaseProperties(true, true, true, false);
   public static DatabaseProperties defaultForUnconfiguredEngine() {
     return UNCONFIGURED_DEFAULT_INSTANCE;
   }
@@ -17,9 +17,13 @@ public class DatabaseProperties {
   public static final String STANDARD_XML_WRITER_METHOD_BYTES = "bytes";
   public static final String STANDARD_XML_WRITER_METHOD_CHARACTERS = "characters";
 
+  public static final String THREAD_PERSISTENCE_MODE_SYNCHRONOUS = "synchronous";
+  public static final String THREAD_PERSISTENCE_MODE_WRITE_BEHIND = "write-behind";
+
   private final boolean mUseBinaryXMLReader;
   private final boolean mUseBinaryXMLWriter;
   private final boolean mSendBytesToStandardXMLWriter;
+  private final boolean mThreadWriteBehind;
 
   public static DatabaseProperties createDatabaseProperties(FoxEnvironmentDefinition pFoxEnvironmentDefinition)
   throws ExApp {
@@ -39,13 +43,20 @@ public class DatabaseProperties {
       throw new ExApp("standard-xml-writer-method must be 'characters' or 'bytes'");
     }
 
-    return new DatabaseProperties(XML_STRATEGY_BINARY.equals(lXMLReaderStrategy), XML_STRATEGY_BINARY.equals(lXMLWriterStrategy), STANDARD_XML_WRITER_METHOD_BYTES.equals(lStandardXMLWriterMethod));
+    String lThreadPersistenceMode = pFoxEnvironmentDefinition.getPropertyAsString(FoxEnvironmentProperty.DATABASE_THREAD_PERSISTENCE_MODE);
+    if(!THREAD_PERSISTENCE_MODE_SYNCHRONOUS.equals(lThreadPersistenceMode) && !THREAD_PERSISTENCE_MODE_WRITE_BEHIND.equals(lThreadPersistenceMode)) {
+      throw new ExApp("thread-persistence-mode must be 'synchronous' or 'write-behind'");
+    }
+
+    return new DatabaseProperties(XML_STRATEGY_BINARY.equals(lXMLReaderStrategy), XML_STRATEGY_BINARY.equals(lXMLWriterStrategy), STANDARD_XML_WRITER_METHOD_BYTES.equals(lStandardXMLWriterMethod),
+                                  THREAD_PERSISTENCE_MODE_WRITE_BEHIND.equals(lThreadPersistenceMode));
   }
 
-  private DatabaseProperties(boolean pUseBinaryXMLReader, boolean pUseBinaryXMLWriter, boolean pSendBytesToStandardXMLWriter) {
+  private DatabaseProperties(boolean pUseBinaryXMLReader, boolean pUseBinaryXMLWriter, boolean pSendBytesToStandardXMLWriter, boolean pThreadWriteBehind) {
     mUseBinaryXMLReader = pUseBinaryXMLReader;
     mUseBinaryXMLWriter = pUseBinaryXMLWriter;
     mSendBytesToStandardXMLWriter = pSendBytesToStandardXMLWriter;
+    mThreadWriteBehind = pThreadWriteBehind;
   }
 
   public boolean isUseBinaryXMLReader() {
@@ -59,4 +70,8 @@ public class DatabaseProperties {
   public boolean isSendBytesToStandardXMLWriter() {
     return mSendBytesToStandardXMLWriter;
   }
+
+  public boolean isThreadWriteBehind() {
+    return mThreadWriteBehind;
+  }
 }
@@ -22,6 +22,8 @@ public interface FoxEnvironment {
 
   AuthenticationProperties getAuthenticationProperties();
 
+  ModuleWarmUpProperties getModuleWarmUpProperties();
+
   String getCookieDomainMethod();
 
   String getDefaultAppMnem();
@@ -0,0 +1,118 @@
+package net.foxopen.fox.configuration.resourcemaster.model;
+
+import net.foxopen.fox.XFUtil;
+import net.foxopen.fox.configuration.resourcemaster.definition.FoxEnvironmentDefinition;
+import net.foxopen.fox.configuration.resourcemaster.definition.FoxEnvironmentProperty;
+import net.foxopen.fox.dom.DOM;
+import net.foxopen.fox.ex.ExApp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Settings for parsing modules when the engine is initialised. Modules are either explicitly listed or the most
+ * recently called modules are used.
+ */
+public class ModuleWarmUpProperties {
+
+  private final List<WarmUpModule> mModuleList;
+  private final int mRecentModuleCount;
+  private final int mRecentDays;
+  private final int mMaxThreads;
+  private final int mTimeoutSeconds;
+
+  public static ModuleWarmUpProperties createModuleWarmUpProperties(FoxEnvironmentDefinition pFoxEnvironmentDefinition)
+  throws ExApp {
+
+    List<WarmUpModule> lModuleList = new ArrayList<>();
+    DOM lModuleListDOM = pFoxEnvironmentDefinition.getPropertyAsDOM(FoxEnvironmentProperty.MODULE_WARM_UP_MODULE_LIST);
+    if(lModuleListDOM != null) {
+      for(DOM lModuleDOM : lModuleListDOM.getUL("module")) {
+        String lModuleName = lModuleDOM.value().trim();
+        if(XFUtil.isNull(lModuleName)) {
+          throw new ExApp("module-warm-up module-list contains a module element with no module name");
+        }
+        lModuleList.add(new WarmUpModule(lModuleDOM.getAttrOrNull("app-mnem"), lModuleName));
+      }
+    }
+
+    int lMaxThreads = pFoxEnvironmentDefinition.getPropertyAsInteger(FoxEnvironmentProperty.MODULE_WARM_UP_MAX_THREADS);
+    if(lMaxThreads < 1) {
+      throw new ExApp("module-warm-up max-threads must be at least 1");
+    }
+
+    return new ModuleWarmUpProperties(Collections.unmodifiableList(lModuleList),
+                                      pFoxEnvironmentDefinition.getPropertyAsInteger(FoxEnvironmentProperty.MODULE_WARM_UP_RECENT_MODULE_COUNT),
+                                      pFoxEnvironmentDefinition.getPropertyAsInteger(FoxEnvironmentProperty.MODULE_WARM_UP_RECENT_DAYS),
+                                      lMaxThreads,
+                                      pFoxEnvironmentDefinition.getPropertyAsInteger(FoxEnvironmentProperty.MODULE_WARM_UP_TIMEOUT_SECONDS));
+  }
+
+  private ModuleWarmUpProperties(List<WarmUpModule> pModuleList, int pRecentModuleCount, int pRecentDays, int pMaxThreads, int pTimeoutSeconds) {
+    mModuleList = pModuleList;
+    mRecentModuleCount = pRecentModuleCount;
+    mRecentDays = pRecentDays;
+    mMaxThreads = pMaxThreads;
+    mTimeoutSeconds = pTimeoutSeconds;
+  }
+
+  /**
+   * @return True if any modules should be parsed when the engine is initialised.
+   */
+  public boolean isWarmUpEnabled() {
+    return mModuleList.size() > 0 || mRecentModuleCount > 0;
+  }
+
+  /**
+   * @return Explicitly configured modules to parse. If empty, the most recently called modules should be used.
+   */
+  public List<WarmUpModule> getModuleList() {
+    return mModuleList;
+  }
+
+  public int getRecentModuleCount() {
+    return mRecentModuleCount;
+  }
+
+  public int getRecentDays() {
+    return mRecentDays;
+  }
+
+  public int getMaxThreads() {
+    return mMaxThreads;
+  }
+
+  public int getTimeoutSeconds() {
+    return mTimeoutSeconds;
+  }
+
+  /**
+   * A module to be parsed during warm-up.
+   */
+  public static class WarmUpModule {
+
+    private final String mAppMnem;
+    private final String mModuleName;
+
+    /**
+     * @param pAppMnem App mnem of the module, or null to use the default app.
+     * @param pModuleName Name of the module.
+     */
+    public WarmUpModule(String pAppMnem, String pModuleName) {
+      mAppMnem = pAppMnem;
+      mModuleName = pModuleName;
+    }
+
+    /**
+     * @return App mnem of the module, or null if the default app should be used.
+     */
+    public String getAppMnem() {
+      return mAppMnem;
+    }
+
+    public String getModuleName() {
+      return mModuleName;
+    }
+  }
+}
@@ -39,6 +39,11 @@ public class UnconfiguredFoxEnvironment implements FoxEnvironment {
     throw new ExInternal("Attempted to get AuthenticationProperties from an unconfigured fox environment");
   }
 
+  @Override
+  public ModuleWarmUpProperties getModuleWarmUpProperties() {
+    throw new ExInternal("Attempted to get ModuleWarmUpProperties from an unconfigured fox environment");
+  }
+
   @Override
   public String getCookieDomainMethod() {
     return "";
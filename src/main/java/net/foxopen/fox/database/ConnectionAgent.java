@@ -26,9 +26,12 @@ import javax.management.ObjectName;
 import java.lang.management.ManagementFactory;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collections;
 import java.util.Map;
 import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 /**
@@ -62,15 +65,26 @@ public class ConnectionAgent {
     });
   }
 
+  /** Maximum number of connections which can be recycled at once. Further returned connections queue for a thread. */
+  private static final int MAX_RECYCLE_THREADS = 8;
+
   /**
    * Job pool for recycling returned connections.
    */
-  private static final BasicFoxJobPool RECYCLE_JOB_POOL = BasicFoxJobPool.createSingleThreadedPool("UCon Recycle");
+  private static final BasicFoxJobPool RECYCLE_JOB_POOL = BasicFoxJobPool.createMultiThreadedPool("UCon Recycle", MAX_RECYCLE_THREADS);
+
+  /** Recycle metrics, reported on the status page. Latency is measured from check in to release back to the pool. */
+  private static final AtomicInteger gRecyclesPending = new AtomicInteger();
+  private static final AtomicLong gRecyclesCompleted = new AtomicLong();
+  private static final AtomicLong gRecyclesSkipped = new AtomicLong();
+  private static final AtomicLong gTotalRecycleLatencyMS = new AtomicLong();
+  private static final AtomicLong gMaxRecycleLatencyMS = new AtomicLong();
 
   /**
-   * Weak map between the base connection objects and the amount of times they have been recycled
+   * Weak map between the base connection objects and the amount of times they have been recycled. Synchronized as
+   * connections are recycled by multiple threads.
    */
-  private static final Map<Connection, Integer> CONNECTION_RECYCLE_COUNT_MAP = new WeakHashMap<>();
+  private static final Map<Connection, Integer> CONNECTION_RECYCLE_COUNT_MAP = Collections.synchronizedMap(new WeakHashMap<>());
 
   private static final Map<String, ConnectionPool> CONNECTION_POOLS = new ConcurrentHashMap<>();
 
@@ -221,15 +235,31 @@ public class ConnectionAgent {
    * @param pDatabaseCon Connection to recycle
    */
   public static void checkInForRecycle(UCon pDatabaseCon){
-    // Add the UCon to a queue to be picked up by the recycle thread
+    if(!pDatabaseCon.isUsedSinceCheckout()) {
+      // Nothing can have changed the session state, so the connection can go straight back to the pool without cleanup
+      Track.info("RecycleConnection", "Connection agent is releasing an unused UCon without recycle");
+      gRecyclesSkipped.incrementAndGet();
+      pDatabaseCon.getConnectionPool().releaseConnection(pDatabaseCon.getJDBCConnection());
+      return;
+    }
+
+    // Add the UCon to a queue to be picked up by a recycle thread
     Track.info("RecycleConnection", "Connection agent is queuing a UCon for recycle");
+    gRecyclesPending.incrementAndGet();
     RECYCLE_JOB_POOL.submitTask(new UConRecycleTask(pDatabaseCon));
   }
 
+  private static void recordRecycleLatency(long pLatencyMS) {
+    gRecyclesCompleted.incrementAndGet();
+    gTotalRecycleLatencyMS.addAndGet(pLatencyMS);
+    gMaxRecycleLatencyMS.accumulateAndGet(pLatencyMS, Math::max);
+  }
+
   private static class UConRecycleTask
   implements FoxJobTask {
 
     private final UCon mRecycleUCon;
+    private final long mCheckInTime = System.currentTimeMillis();
 
     private UConRecycleTask(UCon pRecycleUCon) {
       mRecycleUCon = pRecycleUCon;
@@ -237,6 +267,7 @@ public class ConnectionAgent {
 
     @Override
     public TaskCompletionMessage executeTask() {
+      gRecyclesPending.decrementAndGet();
       String lPoolName = mRecycleUCon.getConnectionPool().getConfig().getPoolName();
       try {
         Connection lActualConnection = mRecycleUCon.getJDBCConnection();
@@ -249,12 +280,10 @@ public class ConnectionAgent {
 
         if (lRecycleCount < mRecycleUCon.getConnectionPool().getConfig().getMaximumRecycles()) {
           String lCheckinSQL = mRecycleUCon.getConnectionPool().getConfig().getConnectionCheckinSQL();
+          lRecycleCount++;
           try {
-            // Rollback anything that was previously going on
-            mRecycleUCon.rollback();
-
-            // Execute the recycle SQL
-            mRecycleUCon.executeAPI(lCheckinSQL, "Connection Agent Check In SQL");
+            // Rollback anything that was previously going on, execute the recycle SQL and reset the module info
+            mRecycleUCon.resetForRecycle(lCheckinSQL, "READY Recycled " + lRecycleCount);
           }
           catch (ExDB e) {
             // Forcefully kill the connection if checkin failed
@@ -263,11 +292,11 @@ public class ConnectionAgent {
           }
 
           // Put connection back in the pool
-          CONNECTION_RECYCLE_COUNT_MAP.put(lActualConnection.unwrap(OracleConnection.class), ++lRecycleCount);
-          mRecycleUCon.setModuleInfo("READY Recycled " + lRecycleCount);
+          CONNECTION_RECYCLE_COUNT_MAP.put(lActualConnection.unwrap(OracleConnection.class), lRecycleCount);
 
           // Call general release to pool method for the connection
           mRecycleUCon.getConnectionPool().releaseConnection(lActualConnection);
+          recordRecycleLatency(System.currentTimeMillis() - mCheckInTime);
           return new TaskCompletionMessage(this, "Closed connection returned to pool");
         }
         else {
@@ -293,6 +322,13 @@ public class ConnectionAgent {
     @Override
     public void refreshStatus(StatusDestination pDestination) {
 
+      long lRecyclesCompleted = gRecyclesCompleted.get();
+      pDestination.addMessage("Recycles pending", Integer.toString(gRecyclesPending.get()));
+      pDestination.addMessage("Recycles completed", Long.toString(lRecyclesCompleted));
+      pDestination.addMessage("Recycles skipped (connection unused)", Long.toString(gRecyclesSkipped.get()));
+      pDestination.addMessage("Average recycle latency MS", Long.toString(lRecyclesCompleted == 0 ? 0 : gTotalRecycleLatencyMS.get() / lRecyclesCompleted));
+      pDestination.addMessage("Maximum recycle latency MS", Long.toString(gMaxRecycleLatencyMS.get()));
+
       StatusTable lPoolTable = pDestination.addTable("Pool List", "Pool Name", "Active", "Idle", "Total", "Threads Waiting");
       lPoolTable.setRowProvider(new StatusTable.RowProvider() {
         @Override
@@ -25,6 +25,7 @@ import java.io.Closeable;
 import java.sql.*;
 import java.util.*;
 import java.util.Date;
+import java.util.regex.Pattern;
 
 
 /**
@@ -123,6 +124,12 @@ public class UCon implements FxpUCon<ParsedStatement, UConBindMap>, Closeable {
   public static final String SET_MODULE_INFO_STATEMENT = "BEGIN dbms_application_info.set_module(TO_CHAR(SYSDATE,'MM/DD-HH24MI.SS: ')||:1, :2); END;";
   private static final ParsedStatement SET_MODULE_INFO_PARSED_STATEMENT = StatementParser.parseSafely(SET_MODULE_INFO_STATEMENT, "Set Module Info");
 
+  private static final Pattern ANONYMOUS_BLOCK_PATTERN = Pattern.compile("(BEGIN|DECLARE)\\s.*;", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+  /** Rolls back and sets module info in one call when a connection is recycled. Check in SQL may be nested between the two. */
+  private static final String RECYCLE_BLOCK_START = "BEGIN ROLLBACK; ";
+  private static final String RECYCLE_BLOCK_END = " dbms_application_info.set_module(TO_CHAR(SYSDATE,'MM/DD-HH24MI.SS: ')||?, ?); END;";
+
   private final static ParsedStatement SELECT_DB_NAME_PARSED_STATEMENT = StatementParser.parseSafely("SELECT description FROM database_info", "Get Database Name");
 
   /**
@@ -147,6 +154,9 @@ public class UCon implements FxpUCon<ParsedStatement, UConBindMap>, Closeable {
   private String mTraceEvent;
   private boolean mIsTracing = false;
 
+  /** True if the underlying connection has been used by a consumer since this UCon was checked out of the pool. */
+  private boolean mUsedSinceCheckout = false;
+
   /**
    * Constructs a UCON from a jdbc connection. Ensure methods which make use of the connection pool are not called as these
    * will cause an error. Such as recycle.
@@ -178,6 +188,8 @@ public class UCon implements FxpUCon<ParsedStatement, UConBindMap>, Closeable {
 
     setModuleInfo(pPurpose);
 
+    //Setting the module info above does not count as consumer usage
+    mUsedSinceCheckout = false;
     mOpen = true;
   }
 
@@ -277,7 +289,7 @@ public class UCon implements FxpUCon<ParsedStatement, UConBindMap>, Closeable {
   public SQLXML convertClobToSQLXML(Clob pClob) {
     //TODO make database agnostic
     try {
-      return XMLType.createXML(mDatabaseConnection.unwrap(OracleConnection.class), (CLOB) pClob);
+      return XMLType.createXML(getJDBCConnection().unwrap(OracleConnection.class), (CLOB) pClob);
     }
     catch(SQLException e) {
       throw new ExInternal("XMLType can not be created",e);
@@ -329,7 +341,7 @@ public class UCon implements FxpUCon<ParsedStatement, UConBindMap>, Closeable {
     CallableStatement sel = null;
     try {
       try {
-        sel = mDatabaseConnection.prepareCall(stmt);
+        sel = getJDBCConnection().prepareCall(stmt);
       }
       catch (SQLException e)
       {
@@ -422,7 +434,7 @@ public class UCon implements FxpUCon<ParsedStatement, UConBindMap>, Closeable {
     try {
       Track.pushDebug("Prepare");
       try {
-        sel = mDatabaseConnection.prepareStatement(stmt);
+        sel = getJDBCConnection().prepareStatement(stmt);
       }
       catch (SQLException e) {
         throw new ExDBSyntax(getClass().getName()+"::executeDML preparing: "+stmt, e);
@@ -503,7 +515,7 @@ public class UCon implements FxpUCon<ParsedStatement, UConBindMap>, Closeable {
       // Define cursor
       Track.pushDebug("Prepare");
       try {
-        sel = mDatabaseConnection.prepareStatement(pSQLStatement);
+        sel = getJDBCConnection().prepareStatement(pSQLStatement);
       }
       catch (SQLException e) {
         throw new ExDBSyntax("selectOneRow Error: "+pSQLStatement, e);
@@ -673,7 +685,7 @@ public class UCon implements FxpUCon<ParsedStatement, UConBindMap>, Closeable {
 
     try {
       //Skip the standard statement execution mechanism for this method as it is called from the execute statement code so we'd get an infinite loop
-      PreparedStatement lPrepareStatement = mDatabaseConnection.prepareStatement(SET_CLIENT_INFO_STATEMENT);
+      PreparedStatement lPrepareStatement = getJDBCConnection().prepareStatement(SET_CLIENT_INFO_STATEMENT);
       lPrepareStatement.setString(1, pClientInfo);
       lPrepareStatement.execute();
       lPrepareStatement.close();
@@ -705,7 +717,7 @@ public class UCon implements FxpUCon<ParsedStatement, UConBindMap>, Closeable {
     checkOpen();
     Track.pushInfo("Commit");
     try {
-      mDatabaseConnection.commit();
+      getJDBCConnection().commit();
       mSavepointNamesUsedList.clear();
     }
     catch (SQLException e) {
@@ -725,7 +737,7 @@ public class UCon implements FxpUCon<ParsedStatement, UConBindMap>, Closeable {
     if(mDatabaseConnection != null) {
       Track.pushInfo("Rollback");
       try{
-        mDatabaseConnection.rollback();
+        getJDBCConnection().rollback();
         mSavepointNamesUsedList.clear();
       }
       catch (SQLException e) {
@@ -758,7 +770,7 @@ public class UCon implements FxpUCon<ParsedStatement, UConBindMap>, Closeable {
   public void rollbackTo(Savepoint pSavepoint)
   throws ExDB {
     try {
-      mDatabaseConnection.rollback(pSavepoint);
+      getJDBCConnection().rollback(pSavepoint);
 
       int i = mSavepointNamesUsedList.lastIndexOf(pSavepoint);
       if(i != -1) {
@@ -780,7 +792,7 @@ public class UCon implements FxpUCon<ParsedStatement, UConBindMap>, Closeable {
     checkOpen();
     try {
       //executeAPI("SAVEPOINT "+pSavepoint, "UCon Set Savepoint");
-      Savepoint lSavepoint = mDatabaseConnection.setSavepoint(pSavepoint);
+      Savepoint lSavepoint = getJDBCConnection().setSavepoint(pSavepoint);
       if(mSavepointNamesUsedList.isEmpty() || !mSavepointNamesUsedList.get(mSavepointNamesUsedList.size()-1).equals(pSavepoint)) {
         mSavepointNamesUsedList.add(pSavepoint);
       }
@@ -802,7 +814,7 @@ public class UCon implements FxpUCon<ParsedStatement, UConBindMap>, Closeable {
 
     try {
       lCLOB = CLOB.createTemporary(
-        mDatabaseConnection.unwrap(OracleConnection.class)
+        getJDBCConnection().unwrap(OracleConnection.class)
       , true /*isCached*/
       , CLOB.DURATION_SESSION /* Only duration_session in client side java applications */
       );
@@ -818,7 +830,7 @@ public class UCon implements FxpUCon<ParsedStatement, UConBindMap>, Closeable {
     BLOB lBLOB;
     try {
       lBLOB = BLOB.createTemporary(
-        mDatabaseConnection.unwrap(OracleConnection.class)
+        getJDBCConnection().unwrap(OracleConnection.class)
       , true /*isCached*/
       , BLOB.DURATION_SESSION /* Only duration_session in client side java applications */
       );
@@ -966,13 +978,67 @@ public class UCon implements FxpUCon<ParsedStatement, UConBindMap>, Closeable {
   }
 
   /**
-   * Gets the underlying database connection object which this UCon is wrapping.
+   * Gets the underlying database connection object which this UCon is wrapping. Once this has been called the UCon is
+   * considered to have been used, and will be fully cleaned when it is recycled.
    * @return Database connection
    */
   public final Connection getJDBCConnection() {
+    mUsedSinceCheckout = true;
     return mDatabaseConnection;
   }
 
+  /**
+   * Tests if any statements may have been executed on this UCon's connection since it was checked out of the pool. If not,
+   * the connection's session state is unchanged and it does not need to be cleaned up before being returned to the pool.
+   * @return True if the connection has been used.
+   */
+  boolean isUsedSinceCheckout() {
+    return mUsedSinceCheckout;
+  }
+
+  /**
+   * Prepares this UCon's connection to be returned to its pool by rolling back any transaction, running the pool's check in
+   * SQL and setting the module info. If the check in SQL is a PL/SQL anonymous block it is nested in the rollback and module
+   * info block so the whole reset is one round trip. Otherwise it is executed as a second call.
+   * @param pCheckinSQL Check in SQL for the connection's pool.
+   * @param pModuleInfo Module info to set on the recycled connection.
+   * @throws ExDB If any part of the reset fails.
+   */
+  void resetForRecycle(String pCheckinSQL, String pModuleInfo)
+  throws ExDB {
+    boolean lNestCheckinSQL = isAnonymousBlock(pCheckinSQL);
+    String lRecycleBlock = RECYCLE_BLOCK_START + (lNestCheckinSQL ? pCheckinSQL : "") + RECYCLE_BLOCK_END;
+
+    Track.pushInfo("ResetForRecycle");
+    try (CallableStatement lCall = getJDBCConnection().prepareCall(lRecycleBlock)) {
+      lCall.setString(1, pModuleInfo);
+      lCall.setString(2, gGlobalInfo);
+      lCall.execute();
+    }
+    catch (SQLException e) {
+      throw convertSQLException(e, "Failed to reset connection for recycle");
+    }
+    finally {
+      Track.pop("ResetForRecycle");
+    }
+
+    mSavepointNamesUsedList.clear();
+    mModuleInfo = pModuleInfo;
+
+    if(!lNestCheckinSQL) {
+      executeAPI(pCheckinSQL, "Connection Agent Check In SQL");
+    }
+  }
+
+  /**
+   * Tests if the given SQL is a PL/SQL anonymous block which can be nested within another block.
+   * @param pSQL SQL to test.
+   * @return True if the SQL starts with BEGIN or DECLARE and is terminated with a semicolon.
+   */
+  static boolean isAnonymousBlock(String pSQL) {
+    return ANONYMOUS_BLOCK_PATTERN.matcher(pSQL.trim()).matches();
+  }
+
   /**
    * Get the Binary XML Processor for the connection
    *
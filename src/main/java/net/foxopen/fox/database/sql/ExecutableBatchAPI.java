@@ -69,9 +69,10 @@ extends ExecutableStatement {
    * may also send the batch if the batch size has been reached.
    * @param pUCon UCon being used to execute the statement.
    * @param pBindObjectProvider Bind object provider (this should usually be a UConBindMap).
+   * @return True if the batch was sent to the database by this call, so any resources bound into it can be released.
    * @throws SQLException
    */
-  public void addBatch(UCon pUCon, BindObjectProvider pBindObjectProvider)
+  public boolean addBatch(UCon pUCon, BindObjectProvider pBindObjectProvider)
   throws SQLException {
 
 //    Track2.pushDebug("AddBatch");
@@ -103,7 +104,9 @@ extends ExecutableStatement {
       finally {
         Track.pop("RunBatch");
       }
+      return true;
     }
+    return false;
   }
 
   /**
@@ -112,8 +115,12 @@ extends ExecutableStatement {
    */
   public void finaliseAndClose() throws SQLException {
     if(mPreparedStatement != null) {
-      mPreparedStatement.executeBatch();
-      mPreparedStatement.close();
+      try {
+        mPreparedStatement.executeBatch();
+      }
+      finally {
+        mPreparedStatement.close();
+      }
     }
   }
 
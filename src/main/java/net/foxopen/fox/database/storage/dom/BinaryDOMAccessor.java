@@ -11,6 +11,7 @@ import net.foxopen.fox.track.Track;
 import oracle.xdb.XMLType;
 import org.w3c.dom.Document;
 
+import java.security.MessageDigest;
 import java.sql.SQLException;
 
 
@@ -43,9 +44,11 @@ implements XMLWorkDocDOMAccessor {
   }
 
   @Override
-  public void prepareForDML(UCon pUCon, DOM pDOM) {
+  public boolean prepareForDML(UCon pUCon, DOM pDOM, MessageDigest pContentDigest) {
     //Reads using the standard XML reader introduce extra unwanted whitespace unless this attribute is set
     pDOM.setPreserveWhitespace(true);
+    //The DOM is not serialised until it is bound
+    return false;
   }
 
   @Override
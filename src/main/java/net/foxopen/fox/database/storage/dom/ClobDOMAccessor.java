@@ -9,7 +9,12 @@ import net.foxopen.fox.ex.ExInternal;
 import net.foxopen.fox.track.Track;
 import oracle.sql.CLOB;
 import oracle.xdb.XMLType;
+import org.apache.commons.io.output.WriterOutputStream;
 
+import java.io.OutputStream;
+import java.io.Writer;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
 import java.sql.SQLException;
 
 
@@ -26,7 +31,7 @@ implements XMLWorkDocDOMAccessor {
   }
 
   @Override
-  public void prepareForDML(UCon pUCon, DOM pDOM) {
+  public boolean prepareForDML(UCon pUCon, DOM pDOM, MessageDigest pContentDigest) {
 
     if(mFetchedCLOB == null) {
       mFetchedCLOB = pUCon.getTemporaryClob();
@@ -38,7 +43,8 @@ implements XMLWorkDocDOMAccessor {
       mFetchedCLOB.truncate(0);
       //Write the DOM to a CHARACTER STREAM (not a byte stream). This is because Oracle is not aware at this point that
       //the eventual destination is an XMLtype so no character set interpration is performed on the bytes.
-      pDOM.outputNodeToWriter(mFetchedCLOB.setCharacterStream(0L), false);
+      writeDOM(pDOM, mFetchedCLOB.setCharacterStream(0L), pContentDigest);
+      return pContentDigest != null;
     }
     catch (SQLException e) {
       throw new ExInternal("Could not write DOM to CLOB XMLType", e);
@@ -48,6 +54,20 @@ implements XMLWorkDocDOMAccessor {
     }
   }
 
+  /**
+   * Serialises a DOM to a Writer, optionally passing the serialised bytes through a digest on their way to the Writer.
+   * @param pDOM DOM to serialise.
+   * @param pWriter Destination Writer.
+   * @param pContentDigest Digest to update with the serialised bytes. Can be null.
+   */
+  static void writeDOM(DOM pDOM, Writer pWriter, MessageDigest pContentDigest) {
+    OutputStream lOutputStream = new WriterOutputStream(pWriter, "UTF-8");
+    if(pContentDigest != null) {
+      lOutputStream = new DigestOutputStream(lOutputStream, pContentDigest);
+    }
+    pDOM.outputNodeToOutputStream(lOutputStream, false, false);
+  }
+
   @Override
   public String readChangeNumber(UCon pUCon) {
 
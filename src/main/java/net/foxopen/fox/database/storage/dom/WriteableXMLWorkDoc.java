@@ -1,5 +1,6 @@
 package net.foxopen.fox.database.storage.dom;
 
+import com.google.common.io.ByteStreams;
 import net.foxopen.fox.ContextUCon;
 import net.foxopen.fox.XFUtil;
 import net.foxopen.fox.database.UCon;
@@ -13,6 +14,10 @@ import net.foxopen.fox.thread.storage.StatementType;
 import net.foxopen.fox.thread.storage.WorkingDataDOMStorageLocation;
 import net.foxopen.fox.track.Track;
 
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 import java.util.Iterator;
 
 
@@ -33,6 +38,13 @@ extends XMLWorkDoc {
   /** DOM modify count when the WorkDoc was open, used for tracking if the DOM has changed. */
   private int mDOMModifyCountAtOpen;
 
+  /**
+   * Hash of the DOM's serialised content when it was last written to the database, used to avoid rewriting a DOM
+   * which was modified but has the same content (i.e. a change was reverted). This is only taken when the DOM is written,
+   * so is null until the first write of a newly read DOM. Null if the DOM must be written regardless.
+   */
+  private byte[] mWrittenContentHash = null;
+
   /** Flag indicating if the DOM should have Auto IDs set or not */
   private final boolean mIsAutoIds;
 
@@ -163,24 +175,64 @@ extends XMLWorkDoc {
    * @param pUCon For running the update statement.
    */
   private void writeDOMIfModified(UCon pUCon) {
-    //If the DOM was modified it needs to be written back
+    //If the DOM was modified it needs to be written back, unless its content is the same as when it was last written
+    //The current content is only hashed if there is a hash of the written content to compare it to
     if(mDOMModifyCountAtOpen != getDOM().getDocumentModifiedCount()) {
+      if(mWrittenContentHash != null && Arrays.equals(mWrittenContentHash, contentHash(getDOM()))) {
+        Track.info("UpdateSkipped", "DOM modified but content unchanged; update not required");
+        mDOMModifyCountAtOpen = getDOM().getDocumentModifiedCount();
+        return;
+      }
 
       // Update document's change number
       String lChangeNumber = updateChangeNumberOnDOM();
       Track.info("ChangeNumberAtWrite", lChangeNumber);
 
       // Update record information
-      updateRow(pUCon);
+      mWrittenContentHash = null;
+      byte[] lWrittenContentHash = updateRow(pUCon);
 
       //Do this after update as updateRow() may cause further modifications to the DOM (currently for binary XML)
       mDOMModifyCountAtOpen = getDOM().getDocumentModifiedCount();
+      mWrittenContentHash = lWrittenContentHash;
     }
     else {
       Track.info("UpdateSkipped", "DOM not modified; update not required");
     }
   }
 
+  /**
+   * Creates a new digest for hashing serialised WorkDoc content.
+   * @return New SHA-256 digest.
+   */
+  static MessageDigest newContentDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    }
+    catch (NoSuchAlgorithmException e) {
+      throw new ExInternal("Failed to create digest for WorkDoc content hash", e);
+    }
+  }
+
+  /**
+   * Computes a hash of the serialised content of the given node, including the change number attribute. The node is
+   * serialised in the same way as it is written by {@link ClobDOMAccessor}, so a hash taken during a CLOB write can be
+   * compared with the result of this method.
+   * @param pDOM The WorkDoc DOM.
+   * @return SHA-256 digest of the DOM.
+   */
+  static byte[] contentHash(DOM pDOM) {
+    Track.pushDebug("WorkDocContentHash");
+    try {
+      DigestOutputStream lDigestStream = new DigestOutputStream(ByteStreams.nullOutputStream(), newContentDigest());
+      pDOM.outputNodeToOutputStream(lDigestStream, false, false);
+      return lDigestStream.getMessageDigest().digest();
+    }
+    finally {
+      Track.pop("WorkDocContentHash");
+    }
+  }
+
   @Override
   public void post(ContextUCon pContextUCon) {
 
@@ -210,6 +262,7 @@ extends XMLWorkDoc {
     }
 
     mIsOpen = false;
+    mWrittenContentHash = null;
   }
 
   @Override
@@ -249,9 +302,16 @@ extends XMLWorkDoc {
       setDOM(lNewDOM);
       setDOMChangeNumber("*UNKNOWN*");
       mDOMModifyCountAtOpen = lNewDOM.getDocumentModifiedCount() - 1; // forces an update on close()
+      mWrittenContentHash = null;
     }
     else {
+      DOM lPreviousDOM = getDOM();
       readNonEmptyExistingRow(pUCon);
+
+      //The written content hash only remains valid if the cached DOM was not reloaded from the database
+      if(getDOM() != lPreviousDOM) {
+        mWrittenContentHash = null;
+      }
       mDOMModifyCountAtOpen = getDOM().getDocumentModifiedCount();
     }
   }
@@ -270,9 +330,16 @@ extends XMLWorkDoc {
   }
 
 
-  private void updateRow(UCon pUCon) {
-    //For CLOB DOMs this will write the DOM using the DOM accessor, for binary it will do nothing
-    getDOMAccessor().prepareForDML(pUCon, getDOM());
+  /**
+   * Writes the DOM to the database and checks the write was successful.
+   * @param pUCon For running the update statement.
+   * @return Hash of the written DOM content.
+   */
+  private byte[] updateRow(UCon pUCon) {
+    //For CLOB DOMs this will write the DOM using the DOM accessor, hashing the serialised DOM as it is written. For binary
+    //it will not serialise the DOM, so the hash is taken after the update in case the DOM was modified by the bind.
+    MessageDigest lContentDigest = newContentDigest();
+    boolean lContentDigested = getDOMAccessor().prepareForDML(pUCon, getDOM(), lContentDigest);
 
     //Run the WSL update statement if defined
     runUpdateStatement(pUCon);
@@ -293,6 +360,8 @@ extends XMLWorkDoc {
     else {
       throw new ExInternal("Storage Location: Update/Query pair do not access the same row/column or failed to update column (column still null): " + getWorkingStoreLocation().getStorageLocationName(), lSelectResult.getSelectException());
     }
+
+    return lContentDigested ? lContentDigest.digest() : contentHash(getDOM());
   }
 
   /**
@@ -309,11 +378,12 @@ extends XMLWorkDoc {
         setDOM(lNewDOM);
 
         //Call the abstract method to write the DOM
-        getDOMAccessor().prepareForDML(pUCon, lNewDOM);
+        getDOMAccessor().prepareForDML(pUCon, lNewDOM, null);
 
         //Record status now to prevent unnecessary update if the DOM doesn't change between WorkDoc open and WorkDoc close
         updateChangeNumberOnDOM();
         mDOMModifyCountAtOpen = lNewDOM.getDocumentModifiedCount();
+        mWrittenContentHash = null;
 
         //Run the update statement if defined
         runInsertStatement(pUCon);
@@ -4,6 +4,8 @@ import net.foxopen.fox.database.UCon;
 import net.foxopen.fox.database.sql.bind.BindSQLType;
 import net.foxopen.fox.dom.DOM;
 
+import java.security.MessageDigest;
+
 /**
  * Strategy for WorkDoc DOM access. Implementations should use the optimal approach for DOM access based on their target
  * XML storage type.
@@ -19,9 +21,14 @@ interface XMLWorkDocDOMAccessor {
 
   /**
    * This method is called before an insert or update is performed. Implementors may perform any preparation they require here.
+   * Implementors which serialise the DOM as part of this preparation should also feed the serialised bytes into pContentDigest,
+   * so the caller does not need to serialise the DOM again to hash it.
    * @param pUCon Current UCon.
+   * @param pDOM The current WorkDoc DOM.
+   * @param pContentDigest Digest to update with the serialised DOM. Can be null if a digest is not required.
+   * @return True if pContentDigest was updated with the serialised DOM, false if the DOM was not serialised.
    */
-  void prepareForDML(UCon pUCon, DOM pDOM);
+  boolean prepareForDML(UCon pUCon, DOM pDOM, MessageDigest pContentDigest);
 
   /**
    * Returns the change number defined in the change number attribute, or null if no change number is defined on the XML
@@ -4,22 +4,30 @@ import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Types;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import net.foxopen.fox.XFUtil;
 import net.foxopen.fox.database.sql.out.JDBCResultAdaptor;
 import net.foxopen.fox.database.sql.out.SQLTypeConverter;
 import net.foxopen.fox.dbinterface.InterfaceQuery;
 import net.foxopen.fox.dom.DOM;
+import net.foxopen.fox.dom.DOMList;
 import net.foxopen.fox.ex.ExBadPath;
 import net.foxopen.fox.ex.ExInternal;
-import net.foxopen.fox.ex.ExTooFew;
 import net.foxopen.fox.ex.ExTooMany;
 
 
 /**
  * Row provider for AUGMENT query mode. This attempts to locate an existing row based on the key defined on the interface
- * query, and only creates new rows when an existing row cannot be found.
+ * query, and only creates new rows when an existing row cannot be found.<br/><br/>
+ *
+ * Existing rows are indexed by their key values when delivery starts, so each result row is matched with a map lookup
+ * rather than an XPath search of the target rows. Rows created during delivery are added to the index once populated.
  */
 class AugmentRowProvider
 implements QueryRowProvider {
@@ -29,6 +37,11 @@ implements QueryRowProvider {
 
   private int[] mColumnPositionsForKeyElements;
 
+  /** Target rows keyed by their key element values, in the order of the interface query's key element names */
+  private final Map<List<String>, DOM> mKeyToRow = new HashMap<>();
+  /** Keys which are shared by more than one target row */
+  private final Set<List<String>> mDuplicateKeys = new HashSet<>();
+
   public AugmentRowProvider(InterfaceQuery pInterfaceQuery, DOM pMatchNode) {
     //Validate that the associated query has primary key elements defined
     if(pInterfaceQuery.getKeyElementNames() == null) {
@@ -56,45 +69,81 @@ implements QueryRowProvider {
       //Search completed without finding the column
       throw new ExInternal("Query " + mInterfaceQuery.getQualifiedName() + " does not return column for key " + lKeyElementNames.get(lKeyIdx));
     }
+
+    //Index the existing target rows by key
+    mKeyToRow.clear();
+    mDuplicateKeys.clear();
+    DOMList lExistingRows;
+    try {
+      lExistingRows = mMatchNode.xpathUL(mInterfaceQuery.getTargetPath());
+    }
+    catch (ExBadPath e) {
+      throw new ExInternal("Bad target path for key search ", e);
+    }
+
+    for(DOM lRow : lExistingRows) {
+      indexRow(lRow);
+    }
   }
 
-  @Override
-  public DOM getTargetRow(JDBCResultAdaptor pResultSet) {
+  /**
+   * Adds the given row to the key index. A row with multiple elements for a key is indexed against each of the key values,
+   * which mirrors the existential semantics of an XPath equality predicate. Rows with a missing key element are not indexed.
+   * @param pRow Row to index.
+   */
+  private void indexRow(DOM pRow) {
+    indexRow(pRow, new ArrayList<>(), 0);
+  }
 
-    DOM lTargetRowContainer;
-    String lTargetPath = mInterfaceQuery.getTargetPath();
-    try {
-      StringBuilder lSeekRecordXPath = new StringBuilder(lTargetPath);
-      List<String> lKeyElementNames = mInterfaceQuery.getKeyElementNames();
+  private void indexRow(DOM pRow, List<String> pKeyPrefix, int pKeyIdx) {
 
-      //Construct seek path based on target path and predicates of keys
-      for(int i = 0; i < lKeyElementNames.size(); i++) {
+    List<String> lKeyElementNames = mInterfaceQuery.getKeyElementNames();
+    if(pKeyIdx == lKeyElementNames.size()) {
+      List<String> lKey = new ArrayList<>(pKeyPrefix);
+      DOM lExistingRow = mKeyToRow.putIfAbsent(lKey, pRow);
+      if(lExistingRow != null && lExistingRow != pRow) {
+        mDuplicateKeys.add(lKey);
+      }
+      return;
+    }
 
-        String lKeyColumnName = lKeyElementNames.get(i);
+    for(DOM lKeyElement : pRow.getUL(lKeyElementNames.get(pKeyIdx))) {
+      pKeyPrefix.add(lKeyElement.value(true));
+      indexRow(pRow, pKeyPrefix, pKeyIdx + 1);
+      pKeyPrefix.remove(pKeyIdx);
+    }
+  }
 
-        int lColIdxForKey = mColumnPositionsForKeyElements[i];
-        //Result set should be in the correct position
-        String lColKeyValue;
-        try {
-          lColKeyValue = SQLTypeConverter.getValueAsString(pResultSet, lColIdxForKey, Types.VARCHAR);
-        }
-        catch (SQLException e) {
-          throw new ExInternal("Failed to convert key column " + lKeyColumnName + " to a string", e);
-        }
+  @Override
+  public DOM getTargetRow(JDBCResultAdaptor pResultSet) {
 
-        //Escape single quotes in the key value string ('' is an XPath 2.0 escape sequence)
-        lColKeyValue.replace("'", "''");
+    List<String> lKeyElementNames = mInterfaceQuery.getKeyElementNames();
+    List<String> lKey = new ArrayList<>(lKeyElementNames.size());
 
-        lSeekRecordXPath.append("[" + lKeyColumnName + " = '" + lColKeyValue + "']");
+    //Read the key values for the current result row - the result set should be in the correct position
+    for(int i = 0; i < lKeyElementNames.size(); i++) {
+      try {
+        lKey.add(SQLTypeConverter.getValueAsString(pResultSet, mColumnPositionsForKeyElements[i], Types.VARCHAR));
       }
+      catch (SQLException e) {
+        throw new ExInternal("Failed to convert key column " + lKeyElementNames.get(i) + " to a string", e);
+      }
+    }
 
-      lTargetRowContainer = mMatchNode.xpath1E(lSeekRecordXPath.toString());
+    if(mDuplicateKeys.contains(lKey)) {
+      throw new ExInternal("Duplicate DOM matches found for interface key " + lKey);
     }
-    catch (ExBadPath e) {
-      throw new ExInternal("Bad key XPath search ", e);
+
+    DOM lTargetRowContainer = mKeyToRow.get(lKey);
+    if(lTargetRowContainer != null && !lTargetRowContainer.isAttached()) {
+      //Row has been removed since it was indexed (i.e. by a for-each-row command)
+      mKeyToRow.remove(lKey);
+      lTargetRowContainer = null;
     }
-    catch (ExTooFew e) {
+
+    if(lTargetRowContainer == null) {
       // Create new record node when missing
+      String lTargetPath = mInterfaceQuery.getTargetPath();
       StringBuffer lSB = new StringBuffer(lTargetPath);
       String lElementName = XFUtil.pathPopTail(lSB);
       if(lSB.length() != 0) {
@@ -113,14 +162,15 @@ implements QueryRowProvider {
       }
       lTargetRowContainer = lTargetRowContainer.addElem(lElementName);
     }
-    catch (ExTooMany e) {
-      throw new ExInternal("Duplicate DOM matches found for interface key ", e);
-    }
 
     return lTargetRowContainer;
   }
 
   @Override
   public void finaliseRow(int pRowNumber, DOM pRow) {
+    //Index the populated row so subsequent result rows with the same key are delivered into it
+    if(pRow.isAttached()) {
+      indexRow(pRow);
+    }
   }
 }
@@ -0,0 +1,127 @@
+package net.foxopen.fox.dbinterface.deliverer;
+
+import net.foxopen.fox.database.sql.out.JDBCResultAdaptor;
+import net.foxopen.fox.dbinterface.DOMDataType;
+import net.foxopen.fox.dbinterface.InterfaceParameter;
+import net.foxopen.fox.dom.DOM;
+import net.foxopen.fox.thread.ActionRequestContext;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+
+/**
+ * Plan for writing the columns of an executed query's result set into row DOMs. The column metadata and fm:into
+ * definition for each column are resolved once when the plan is created, rather than for every cell. Destination paths
+ * which are a single element name are resolved as direct child elements of the row, avoiding an XPath evaluation per cell.
+ */
+class ColumnDeliveryPlan {
+
+  /** Destination paths matching this pattern are a single child element name */
+  private static final Pattern CHILD_ELEMENT_NAME_PATTERN = Pattern.compile("^[A-Za-z_][A-Za-z0-9_\\-]*$");
+
+  private final List<ColumnDelivery> mColumnDeliveries;
+
+  /**
+   * Creates a delivery plan for the columns of a result set.
+   * @param pResultSetMeta Metadata of the executed query.
+   * @param pIntoParams fm:into definitions for the query, keyed by column name.
+   * @return New plan.
+   * @throws SQLException If the metadata cannot be read.
+   */
+  static ColumnDeliveryPlan create(ResultSetMetaData pResultSetMeta, Map<String, InterfaceParameter> pIntoParams)
+  throws SQLException {
+
+    int lColCount = pResultSetMeta.getColumnCount();
+    List<ColumnDelivery> lColumnDeliveries = new ArrayList<>(lColCount);
+
+    for(int lColIdx = 1; lColIdx <= lColCount; lColIdx++) {
+
+      String lColumnName = pResultSetMeta.getColumnName(lColIdx);
+
+      //Get the fm:into definition - this is optional so may be null
+      InterfaceParameter lIntoParam = pIntoParams.get(lColumnName);
+
+      //Work out path for this column - default is column name if no into param is specified, or no relative path is specified on the into param
+      String lDestinationColumnPath;
+      if(lIntoParam != null && lIntoParam.getRelativeXPath() != null) {
+        lDestinationColumnPath = lIntoParam.getRelativeXPath();
+      }
+      else {
+        lDestinationColumnPath = lColumnName;
+      }
+
+      //Use the explicitly specified DOMDataType if there is one - otherwise it is established when the first row is delivered
+      DOMDataType lDestinationDataType = null;
+      //Work out if selected DOMs should purge the contents of the existing node before being written (legacy/default is false)
+      boolean lPurgeDOMs = false;
+      if(lIntoParam != null) {
+        lDestinationDataType = lIntoParam.getDOMDataType();
+        lPurgeDOMs = lIntoParam.isPurgeDOMContents();
+      }
+
+      lColumnDeliveries.add(new ColumnDelivery(lColIdx, lColumnName, pResultSetMeta.getColumnType(lColIdx), lDestinationColumnPath,
+                                               CHILD_ELEMENT_NAME_PATTERN.matcher(lDestinationColumnPath).matches(), lDestinationDataType, lPurgeDOMs));
+    }
+
+    return new ColumnDeliveryPlan(Collections.unmodifiableList(lColumnDeliveries));
+  }
+
+  private ColumnDeliveryPlan(List<ColumnDelivery> pColumnDeliveries) {
+    mColumnDeliveries = pColumnDeliveries;
+  }
+
+  /**
+   * Reads every column of the current row of the result set into the given row container.
+   * @param pRequestContext Current RequestContext.
+   * @param pResultAdaptor Result set positioned at the row to be delivered.
+   * @param pRowContainer Row DOM to populate.
+   * @throws SQLException If the result set cannot be read.
+   */
+  void populateRow(ActionRequestContext pRequestContext, JDBCResultAdaptor pResultAdaptor, DOM pRowContainer)
+  throws SQLException {
+    for(ColumnDelivery lColumnDelivery : mColumnDeliveries) {
+      lColumnDelivery.populate(pRequestContext, pResultAdaptor, pRowContainer);
+    }
+  }
+
+  /**
+   * Resolved delivery details for a single column.
+   */
+  private static class ColumnDelivery {
+
+    private final int mColumnIndex;
+    private final String mColumnName;
+    private final int mColumnSQLType;
+    private final String mDestinationPath;
+    private final boolean mDestinationIsChildElementName;
+    private final boolean mPurgeDOMs;
+
+    /** Explicitly specified datatype, or the datatype established when the first row was delivered. Null until then. */
+    private DOMDataType mDestinationDataType;
+
+    private ColumnDelivery(int pColumnIndex, String pColumnName, int pColumnSQLType, String pDestinationPath,
+                           boolean pDestinationIsChildElementName, DOMDataType pDestinationDataType, boolean pPurgeDOMs) {
+      mColumnIndex = pColumnIndex;
+      mColumnName = pColumnName;
+      mColumnSQLType = pColumnSQLType;
+      mDestinationPath = pDestinationPath;
+      mDestinationIsChildElementName = pDestinationIsChildElementName;
+      mDestinationDataType = pDestinationDataType;
+      mPurgeDOMs = pPurgeDOMs;
+    }
+
+    private void populate(ActionRequestContext pRequestContext, JDBCResultAdaptor pResultAdaptor, DOM pRowContainer)
+    throws SQLException {
+      //Cache the returned datatype so the default datatype is only calculated for the first row
+      mDestinationDataType = DelivererUtils.convertResultAndPopulateDOM(pRequestContext, pResultAdaptor, mColumnIndex, mColumnSQLType,
+                                                                        pRowContainer, mDestinationPath, mDestinationIsChildElementName,
+                                                                        mDestinationDataType, mColumnName, true, mPurgeDOMs);
+    }
+  }
+}
@@ -117,6 +117,22 @@ public final class DelivererUtils {
                                                   String pDestinationRelativePath, DOMDataType pOptionalDestinationDataType,
                                                   String pParamName, boolean pCreateTargetForDOMWhenNull, boolean pPurgeSelectedDOMs)
   throws SQLException {
+    return convertResultAndPopulateDOM(pRequestContext, pResultAdaptor, pParamIndex, pParamSQLType, pDestinationRelativeDOM, pDestinationRelativePath,
+                                       false, pOptionalDestinationDataType, pParamName, pCreateTargetForDOMWhenNull, pPurgeSelectedDOMs);
+  }
+
+  /**
+   * As {@link #convertResultAndPopulateDOM(ActionRequestContext, JDBCResultAdaptor, int, int, DOM, String, DOMDataType, String, boolean, boolean)},
+   * with the option of resolving the destination as a direct child element of the relative DOM without evaluating an XPath.
+   * @param pDestinationIsChildElementName If true, pDestinationRelativePath must be a single element name. The destination
+   * is resolved or created as a child of pDestinationRelativeDOM using a simple path.
+   */
+  static DOMDataType convertResultAndPopulateDOM (ActionRequestContext pRequestContext, JDBCResultAdaptor pResultAdaptor,
+                                                  int pParamIndex, int pParamSQLType, DOM pDestinationRelativeDOM,
+                                                  String pDestinationRelativePath, boolean pDestinationIsChildElementName,
+                                                  DOMDataType pOptionalDestinationDataType, String pParamName,
+                                                  boolean pCreateTargetForDOMWhenNull, boolean pPurgeSelectedDOMs)
+  throws SQLException {
 
     //If destination type is not provided, work out the default
     DOMDataType lDestinationDataType = null;
@@ -135,7 +151,7 @@ public final class DelivererUtils {
 
         //Get or create a node to contain the current column's value (only if the DOM is not null or we're being forced to)
         if(lColDOMValue != null || pCreateTargetForDOMWhenNull) {
-          lTargetDOM = pRequestContext.getContextUElem().extendedXPath1E(pDestinationRelativeDOM, pDestinationRelativePath, true);
+          lTargetDOM = getOrCreateTargetDOM(pRequestContext, pDestinationRelativeDOM, pDestinationRelativePath, pDestinationIsChildElementName);
         }
 
         if(pPurgeSelectedDOMs && lTargetDOM != null) {
@@ -149,7 +165,7 @@ public final class DelivererUtils {
       }
       else {
         //Always create a target node for non-DOM output
-        lTargetDOM = pRequestContext.getContextUElem().extendedXPath1E(pDestinationRelativeDOM, pDestinationRelativePath, true);
+        lTargetDOM = getOrCreateTargetDOM(pRequestContext, pDestinationRelativeDOM, pDestinationRelativePath, pDestinationIsChildElementName);
 
         //Get the value of the column as a String
         String lColStringValue;
@@ -175,4 +191,15 @@ public final class DelivererUtils {
       throw new ExInternal("Output column " + pParamName + " could not be added to DOM destination using path '" + pDestinationRelativePath + "'", e);
     }
   }
+
+  private static DOM getOrCreateTargetDOM(ActionRequestContext pRequestContext, DOM pDestinationRelativeDOM, String pDestinationRelativePath,
+                                          boolean pDestinationIsChildElementName)
+  throws ExActionFailed, ExCardinality {
+    if(pDestinationIsChildElementName) {
+      return pDestinationRelativeDOM.getCreate1E(pDestinationRelativePath);
+    }
+    else {
+      return pRequestContext.getContextUElem().extendedXPath1E(pDestinationRelativeDOM, pDestinationRelativePath, true);
+    }
+  }
 }
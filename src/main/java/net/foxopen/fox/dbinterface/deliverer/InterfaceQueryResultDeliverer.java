@@ -16,7 +16,6 @@ import net.foxopen.fox.database.sql.ExecutableQuery;
 import net.foxopen.fox.database.sql.QueryResultDeliverer;
 import net.foxopen.fox.database.sql.out.JDBCResultAdaptor;
 import net.foxopen.fox.database.sql.out.ResultSetAdaptor;
-import net.foxopen.fox.dbinterface.DOMDataType;
 import net.foxopen.fox.dbinterface.InterfaceParameter;
 import net.foxopen.fox.dbinterface.InterfaceQuery;
 import net.foxopen.fox.dbinterface.QueryMode;
@@ -137,10 +136,10 @@ implements QueryResultDeliverer {
       //Allow the row provider to prepare for delivering rows E.g. setup the AUGMENT deliverer so it knows column names etc.
       mRowProvider.prepareForDelivery(mResultSetMeta);
 
-      int lColCount = mResultSetMeta.getColumnCount();
       Map<String, InterfaceParameter> lIntoParams = mInterfaceQuery.getIntoParams();
 
-      DOMDataType[] lColIdxToDataType = new DOMDataType[lColCount];
+      //Resolve column metadata and destinations once for all rows
+      ColumnDeliveryPlan lDeliveryPlan = ColumnDeliveryPlan.create(mResultSetMeta, lIntoParams);
 
       ROW_LOOP:
       while(lRowCount < getMaxRows() && mResultSet.next()) {
@@ -154,52 +153,8 @@ implements QueryResultDeliverer {
           throw new ExInternal("Multiple rows returned so a target-path is required and none is defined for query " + mInterfaceQuery.getStatementName());
         }
 
-        COLUMN_LOOP:
-        for(int lColIdx = 1; lColIdx <= lColCount; lColIdx++) {
-
-          String lColumnName = mResultSetMeta.getColumnName(lColIdx);
-          int lColumnSQLType = mResultSetMeta.getColumnType(lColIdx);
-
-          //Get the fm:into definition - this is optional so may be null
-          InterfaceParameter lIntoParam = lIntoParams.get(lColumnName);
-
-          //Work out path for this column - default is column name if no into param is specified, or no relative path is specified on the into param
-          String lDestinationColumnPath;
-          if(lIntoParam != null && lIntoParam.getRelativeXPath() != null) {
-            lDestinationColumnPath = lIntoParam.getRelativeXPath();
-          }
-          else {
-            lDestinationColumnPath = lColumnName;
-          }
-
-          //Work out the DOMDataType for this column - either explicitly specified on the into param, cached from a previous iteration or null
-          DOMDataType lDestinationDataType;
-          if(lIntoParam != null && lIntoParam.getDOMDataType() != null){
-            lDestinationDataType = lIntoParam.getDOMDataType();
-          }
-          else if(lRowCount > 1) {
-            lDestinationDataType = lColIdxToDataType[lColIdx - 1];
-          }
-          else {
-            lDestinationDataType = null;
-          }
-
-          //Work out if selected DOMs should purge the contents of the existing node before being written (legacy/default is false)
-          boolean lPurgeDOMs = false;
-          if(lIntoParam != null) {
-            lPurgeDOMs = lIntoParam.isPurgeDOMContents();
-          }
-
-          // Read the value from the column into the DOM
-          DOMDataType lPopulatedDataType = DelivererUtils.convertResultAndPopulateDOM(mRequestContext, lResultSetAdaptor, lColIdx, lColumnSQLType,
-                                                                                      lTargetRowContainer, lDestinationColumnPath, lDestinationDataType,
-                                                                                      lColumnName, true, lPurgeDOMs);
-
-          //For the first iteration cache the returned datatype against the coulmn index. This avoids re-calculating it every time.
-          if(lRowCount == 1) {
-            lColIdxToDataType[lColIdx - 1] = lPopulatedDataType;
-          }
-        } // COLUMN_LOOP
+        // Read the column values into the DOM
+        lDeliveryPlan.populateRow(mRequestContext, lResultSetAdaptor, lTargetRowContainer);
 
         //If this is the first result, validate the query definition (dev only)
         if(lRowCount == 1 && !FoxGlobals.getInstance().isProduction()) {
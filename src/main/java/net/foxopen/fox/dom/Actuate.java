@@ -509,6 +509,13 @@ abstract class Actuate
     return null;
   }
 
+  /** Reorder a subset of a node's children within the positions they currently occupy */
+  public void reorderChildren(Node pParentNode, List<Node> pOrderedChildren)
+  throws ExInternal
+  {
+    throwAccessViolation(pParentNode);
+  }
+
   public Node remove(Node pNode)
   throws ExInternal
   {
@@ -21,7 +21,12 @@ import nu.xom.ProcessingInstruction;
 import nu.xom.Text;
 
 import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
 
 
 /**
@@ -382,6 +387,46 @@ extends ActuateReadWriteGeneric {
     return pNode;
   }
 
+  /**
+   * Reorders the given children of pParentNode so they occupy the positions which they currently occupy between them,
+   * in the order of the list. Other children of pParentNode keep their current positions. All the children are detached
+   * and reattached in a single pass, so this is linear in the number of children.
+   * @param pParentNode Parent of the nodes being reordered.
+   * @param pOrderedChildren Children of pParentNode in their required order. Must not contain duplicates.
+   */
+  public void reorderChildren(Node pParentNode, List<Node> pOrderedChildren) {
+
+    mDocControl.setDocumentModifiedCount();
+    ParentNode lParentNode = (ParentNode) pParentNode;
+
+    Set<Node> lReorderedChildren = Collections.newSetFromMap(new IdentityHashMap<>(pOrderedChildren.size()));
+    for(Node lChild : pOrderedChildren) {
+      if(lChild.getParent() != lParentNode) {
+        throw new ExInternal("Cannot reorder a node which is not a child of the parent node");
+      }
+      else if(!lReorderedChildren.add(lChild)) {
+        throw new ExInternal("Cannot reorder the same child node more than once");
+      }
+    }
+
+    //Establish the new order of all children, filling the positions of the reordered children from the ordered list
+    int lChildCount = lParentNode.getChildCount();
+    List<Node> lNewChildOrder = new ArrayList<>(lChildCount);
+    Iterator<Node> lOrderedChildIterator = pOrderedChildren.iterator();
+    for(int i = 0; i < lChildCount; i++) {
+      Node lChild = lParentNode.getChild(i);
+      lNewChildOrder.add(lReorderedChildren.contains(lChild) ? lOrderedChildIterator.next() : lChild);
+    }
+
+    //Remove from the end so no child list shuffling is required, then append in the new order
+    for(int i = lChildCount - 1; i >= 0; i--) {
+      lParentNode.removeChild(i);
+    }
+    for(Node lChild : lNewChildOrder) {
+      lParentNode.appendChild(lChild);
+    }
+  }
+
   /**
    * Remove (i.e. detach) pNode from its parent. pNode will remain as an unattached node with no parent Element or
    * owning Document.
@@ -1783,6 +1783,20 @@ implements FxpDOM<DOM> {
     );
   }
 
+  /**
+   * Reorders the given children of this node, so they occupy the positions they currently hold between them in the order
+   * given by the list. Any other children of this node are not moved. This is considerably cheaper than moving each child
+   * individually when a large number of children are being reordered.
+   * @param pOrderedChildren Children of this node in their required order.
+   */
+  public void reorderChildren(List<DOM> pOrderedChildren) {
+    List<Node> lOrderedNodes = new ArrayList<>(pOrderedChildren.size());
+    for(DOM lChild : pOrderedChildren) {
+      lOrderedNodes.add(lChild.mXOMNode);
+    }
+    DocControl.getDocControl(mXOMNode).mActuate.reorderChildren(mXOMNode, lOrderedNodes);
+  }
+
   /**
    * Detaches this element from its parent, effectively removing it from the DOM tree. Attempting operations (such as
    * XPath evaluation) on unattached nodes can cause errors.
@@ -0,0 +1,209 @@
+package net.foxopen.fox.dom;
+
+import net.foxopen.fox.ex.ExInternal;
+import nu.xom.Attribute;
+import nu.xom.Comment;
+import nu.xom.DocType;
+import nu.xom.Document;
+import nu.xom.Element;
+import nu.xom.Node;
+import nu.xom.ParentNode;
+import nu.xom.ProcessingInstruction;
+import nu.xom.Text;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.ext.DefaultHandler2;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * A ContentHandler for constructing a new FOX DOM document directly from SAX events, i.e. from a binary XML decoder. The
+ * XOM tree is built without going through a XOM Builder, and the document's FOXID index is populated as elements are
+ * created, so the document is ready for use without a further pass over the tree. See the {@link ContentHandler}
+ * documentation for a description of the interface's method contracts. Lexical events are also handled so comments are
+ * retained. Content within a DTD is ignored.
+ * <br/><br/>
+ * This object is not thread safe and should be discarded after use.
+ */
+public class DOMDocumentBuilder
+extends DefaultHandler2 {
+
+  /** Nodes preceding the root element, which cannot be added until the Document exists. */
+  private final List<Node> mPrologNodes = new ArrayList<>();
+
+  /** Namespace declarations reported since the last element was started, as prefix/URI pairs. */
+  private final List<String> mPendingNamespaces = new ArrayList<>();
+
+  /** FOXIDs encountered in the document mapped to the element they are on. */
+  private final Map<String, Element> mRefToElement = new HashMap<>();
+
+  /** Set if a FOXID occurs more than once, in which case the index is left to be built (and fail) on first use. */
+  private boolean mDuplicateRefFound = false;
+
+  private final StringBuilder mTextBuffer = new StringBuilder();
+
+  private Document mDocument = null;
+
+  /** The current element being inserted into, or null if outside the root element. */
+  private Element mCurrentElement = null;
+
+  private boolean mInDTD = false;
+
+  /**
+   * Gets the DOM constructed by this builder. This should only be invoked after the document has been fully parsed.
+   * @return The root element of the new document.
+   */
+  public DOM getDOM() {
+    if(mDocument == null) {
+      throw new ExInternal("Document has no root element");
+    }
+    else if(mCurrentElement != null) {
+      throw new ExInternal("Document is incomplete, element " + mCurrentElement.getQualifiedName() + " was not ended");
+    }
+
+    DocControl lDocControl = new DocControl(mDocument, false);
+    if(!mDuplicateRefFound) {
+      lDocControl.initialiseRefIndex(mRefToElement);
+    }
+
+    return new DOM(mDocument.getRootElement());
+  }
+
+  private void flushText() {
+    if(mTextBuffer.length() > 0) {
+      //Text outside of the root element can only be whitespace, which is discarded
+      if(mCurrentElement != null) {
+        mCurrentElement.appendChild(new Text(mTextBuffer.toString()));
+      }
+      mTextBuffer.setLength(0);
+    }
+  }
+
+  private void appendNode(Node pNode) {
+    if(mCurrentElement != null) {
+      mCurrentElement.appendChild(pNode);
+    }
+    else if(mDocument != null) {
+      mDocument.appendChild(pNode);
+    }
+    else {
+      mPrologNodes.add(pNode);
+    }
+  }
+
+  @Override
+  public void startPrefixMapping(String pPrefix, String pURI) {
+    mPendingNamespaces.add(pPrefix);
+    mPendingNamespaces.add(pURI);
+  }
+
+  @Override
+  public void startElement(String pURI, String pLocalName, String pQName, Attributes pAttrs) {
+    flushText();
+
+    Element lNewElement = new Element(pQName, pURI);
+
+    //Declare namespaces which are not already in scope from the element's own name
+    for(int i = 0; i < mPendingNamespaces.size(); i += 2) {
+      String lPrefix = mPendingNamespaces.get(i);
+      String lURI = mPendingNamespaces.get(i + 1);
+      if(!lPrefix.equals(lNewElement.getNamespacePrefix()) || !lURI.equals(lNewElement.getNamespaceURI())) {
+        lNewElement.addNamespaceDeclaration(lPrefix, lURI);
+      }
+    }
+    mPendingNamespaces.clear();
+
+    for(int i = 0; i < pAttrs.getLength(); i++) {
+      String lAttrName = pAttrs.getQName(i);
+      //Namespace declarations are reported through startPrefixMapping
+      if(!"xmlns".equals(lAttrName) && !lAttrName.startsWith("xmlns:")) {
+        String lAttrValue = pAttrs.getValue(i);
+        lNewElement.addAttribute(new Attribute(lAttrName, pAttrs.getURI(i), lAttrValue, attributeType(pAttrs.getType(i))));
+
+        if(Actuate.FOXID.equals(lAttrName) && lAttrValue.length() != 0) {
+          mDuplicateRefFound |= mRefToElement.put(lAttrValue, lNewElement) != null;
+        }
+      }
+    }
+
+    if(mCurrentElement != null) {
+      mCurrentElement.appendChild(lNewElement);
+    }
+    else if(mDocument == null) {
+      mDocument = new Document(lNewElement);
+      for(int i = 0; i < mPrologNodes.size(); i++) {
+        mDocument.insertChild(mPrologNodes.get(i), i);
+      }
+      mPrologNodes.clear();
+    }
+    else {
+      throw new ExInternal("Document cannot have more than one root element (found " + pQName + ")");
+    }
+
+    mCurrentElement = lNewElement;
+  }
+
+  private static Attribute.Type attributeType(String pSAXType) {
+    if("CDATA".equals(pSAXType)) {
+      return Attribute.Type.CDATA;
+    }
+    else if("ID".equals(pSAXType)) {
+      return Attribute.Type.ID;
+    }
+    else {
+      return Attribute.Type.UNDECLARED;
+    }
+  }
+
+  @Override
+  public void endElement(String pURI, String pLocalName, String pQName) {
+    flushText();
+
+    //Jump up one level in the tree
+    ParentNode lParent = mCurrentElement.getParent();
+    mCurrentElement = lParent instanceof Element ? (Element) lParent : null;
+  }
+
+  @Override
+  public void characters(char[] pCharacters, int pStart, int pLength) {
+    if(!mInDTD) {
+      mTextBuffer.append(pCharacters, pStart, pLength);
+    }
+  }
+
+  @Override
+  public void ignorableWhitespace(char[] pCharacters, int pStart, int pLength) {
+    characters(pCharacters, pStart, pLength);
+  }
+
+  @Override
+  public void processingInstruction(String pTarget, String pData) {
+    if(!mInDTD) {
+      flushText();
+      appendNode(new ProcessingInstruction(pTarget, pData));
+    }
+  }
+
+  @Override
+  public void comment(char[] pCharacters, int pStart, int pLength) {
+    if(!mInDTD) {
+      flushText();
+      appendNode(new Comment(new String(pCharacters, pStart, pLength)));
+    }
+  }
+
+  @Override
+  public void startDTD(String pName, String pPublicId, String pSystemId) {
+    mPrologNodes.add(new DocType(pName, pPublicId, pSystemId));
+    mInDTD = true;
+  }
+
+  @Override
+  public void endDTD() {
+    mInDTD = false;
+  }
+}
@@ -357,6 +357,19 @@ public class DocControl {
   } // refIndexRefresh
 
 
+  /**
+   * Populates the reference index for a newly built Document whose FOXIDs have already been found, so the index does not
+   * need to be rebuilt from the tree on first use.
+   * @param pRefToElement Every FOXID in the Document mapped to the Element it is on.
+   */
+  void initialiseRefIndex(Map<String, Element> pRefToElement) {
+    mRefIndexToWeakElement.clear();
+    for(Map.Entry<String, Element> lEntry : pRefToElement.entrySet()) {
+      mRefIndexToWeakElement.put(lEntry.getKey(), new WeakReference(lEntry.getValue()));
+    }
+    mRefIndexFullRebuildModifyCount = mDocumentModifiedCount;
+  }
+
   void setRefIndex(String pRef, Node pNode) {
     mRefIndexToWeakElement.put(pRef, new WeakReference(pNode));
   }
@@ -1,5 +1,6 @@
 package net.foxopen.fox.dom.paging;
 
+import java.sql.SQLException;
 import java.util.List;
 
 import net.foxopen.fox.database.UCon;
@@ -9,13 +10,16 @@ import net.foxopen.fox.database.sql.bind.DecoratingBindObjectProvider;
 import net.foxopen.fox.dbinterface.InterfaceQuery;
 import net.foxopen.fox.dbinterface.deliverer.InterfaceQueryResultDeliverer;
 import net.foxopen.fox.dom.DOM;
+import net.foxopen.fox.dom.DOMList;
 import net.foxopen.fox.ex.ExDB;
 import net.foxopen.fox.ex.ExInternal;
 import net.foxopen.fox.sql.SQLManager;
 import net.foxopen.fox.thread.ActionRequestContext;
 
 /**
- * Pager which caches all rows from the query in a special cache table, for retrieval when the user changes page.
+ * Pager which caches all rows from the query in a special cache table, for retrieval when the user changes page. Rows
+ * are stored as one compressed chunk per page (see {@link PageDataEncoder}), recording the range of rows each chunk holds.
+ * The cache table columns this requires are added by the src/upgrade/sql/PaginationPagesUpgrade.sql upgrade script.
  */
 public class CachingDatabasePager
 extends DatabasePager {
@@ -39,12 +43,21 @@ extends DatabasePager {
 
     UCon lUCon = pRequestContext.getContextUCon().getUCon("Select Page");
     try {
+      //Usually one chunk, unless the page size has been changed since the query was run
       List<UConStatementResult> lList = lUCon.queryMultipleRows(SQLManager.instance().getStatement(SELECT_PAGE_FILENAME, getClass()), lBindMap);
-      for(UConStatementResult lPageRow : lList) {
-        lPageRow.getDOMFromSQLXML("PAGE_XML").copyToParent(pTargetNode);
+      for(UConStatementResult lPageChunk : lList) {
+        int lChunkStartRowNum = lPageChunk.getInteger("ROW_NUMBER");
+        DOMList lChunkRows = PageDataEncoder.decode(lPageChunk.getBlob("PAGE_DATA").getBinaryStream()).getChildElements();
+
+        for(int i = 0; i < lChunkRows.getLength(); i++) {
+          int lRowNum = lChunkStartRowNum + i;
+          if(lRowNum >= getCurrentPageStartRowNum() && lRowNum <= getCurrentPageEndRowNum()) {
+            lChunkRows.item(i).copyToParent(pTargetNode);
+          }
+        }
       }
     }
-    catch (ExDB e) {
+    catch (ExDB | SQLException e) {
       throw new ExInternal("Failed to run select page query", e);
     }
     finally {
@@ -1,8 +1,11 @@
 package net.foxopen.fox.dom.paging;
 
+import java.sql.Blob;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 
 import net.foxopen.fox.database.UCon;
 import net.foxopen.fox.database.UConBindMap;
@@ -17,6 +20,7 @@ import net.foxopen.fox.ex.ExInternal;
 import net.foxopen.fox.ex.ExTooMany;
 import net.foxopen.fox.sql.SQLManager;
 import net.foxopen.fox.thread.ActionRequestContext;
+import net.foxopen.fox.track.Track;
 
 
 public class CachingPaginatedResultDeliverer
@@ -31,6 +35,13 @@ extends InterfaceQueryResultDeliverer {
   private UCon mUCon;
   private ExecutableBatchAPI mBatchAPI;
 
+  //Page currently being written - rows are accumulated into one compressed chunk per page
+  private PageDataEncoder mCurrentPageEncoder;
+  private Blob mCurrentPageBlob;
+  private int mCurrentPageStartRowNum;
+  /** Temporary BLOBs bound into the current batch, which are freed as soon as the batch has been executed */
+  private final List<Blob> mPendingPageBlobs = new ArrayList<>();
+
 
   public static CachingPaginatedResultDeliverer createNew(ActionRequestContext pRequestContext, InterfaceQuery pInterfaceQuery, DOM pMatchNode, Pager pPager) {
     PaginatedRowProvider lRowProvider = new PaginatedRowProvider(new AddToRowProvider(pInterfaceQuery, pMatchNode));
@@ -68,35 +79,104 @@ extends InterfaceQueryResultDeliverer {
 
   @Override
   protected void performPostDeliveryProcessing(int pFinalRowCount, ResultSet mResultSet){
+    if(mUCon == null) {
+      //Delivery failed before pre-delivery processing - nothing to clean up
+      return;
+    }
+
     try {
-      mBatchAPI.finaliseAndClose();
+      //Batch API will be null if pre-delivery processing failed - don't mask the original error
+      if(mBatchAPI != null) {
+        //Write out the final partial page, if there is one
+        if(mCurrentPageEncoder != null) {
+          insertCurrentPage(pFinalRowCount);
+        }
+
+        mBatchAPI.finaliseAndClose();
 
-      mPager.setRowCount(pFinalRowCount);
+        mPager.setRowCount(pFinalRowCount);
 
-      mPager.runPostPageAction(mRequestContext, mMatchNode);
+        mPager.runPostPageAction(mRequestContext, mMatchNode);
+      }
     }
     catch (SQLException e) {
       throw new ExInternal("Failed to close batch API", e);
     }
     finally {
+      //Release any BLOBs still held, including those from a batch which failed to execute
+      if(mCurrentPageBlob != null) {
+        mPendingPageBlobs.add(mCurrentPageBlob);
+        mCurrentPageBlob = null;
+      }
+      freePendingPageBlobs();
+
       mRequestContext.getContextUCon().returnUCon(mUCon, mInterfaceQuery.getQualifiedName() + " paginated results");
     }
   }
 
-  private void insertPageRow(int pRowNumber, DOM pRow) {
+  private void freePendingPageBlobs() {
+    for(Blob lBlob : mPendingPageBlobs) {
+      try {
+        lBlob.free();
+      }
+      catch (SQLException e) {
+        Track.alert("FreePageBlob", "Failed to free temporary page BLOB: " + e.getMessage());
+      }
+    }
+    mPendingPageBlobs.clear();
+  }
+
+  /**
+   * Adds a row to the page currently being written, starting a new page if necessary. When the row completes a page,
+   * the page is queued for insert.
+   * @param pRowNumber 1-based row number.
+   * @param pRow Row to add.
+   */
+  private void addPageRow(int pRowNumber, DOM pRow) {
+
+    if(mCurrentPageEncoder == null) {
+      mCurrentPageBlob = mUCon.getTemporaryBlob();
+      mCurrentPageStartRowNum = pRowNumber;
+      try {
+        mCurrentPageEncoder = new PageDataEncoder(mCurrentPageBlob.setBinaryStream(1));
+      }
+      catch (SQLException e) {
+        throw new ExInternal("Failed to open page BLOB for writing", e);
+      }
+    }
+
+    mCurrentPageEncoder.writeRow(pRow);
+
+    if(pRowNumber % mPager.getPageSize() == 0) {
+      insertCurrentPage(pRowNumber);
+    }
+  }
+
+  private void insertCurrentPage(int pLastRowNumber) {
+
+    mCurrentPageEncoder.close();
+    mPendingPageBlobs.add(mCurrentPageBlob);
 
     try {
       UConBindMap lBindMap = new UConBindMap()
         .defineBind(":call_id", mRequestContext.getCurrentCallId())
         .defineBind(":match_id", mMatchNode.getFoxId())
         .defineBind(":invoke_name", mPager.getInvokeName())
-        .defineBind(":row_num", pRowNumber)
-        .defineBind(":page_xml", pRow);
+        .defineBind(":row_num", mCurrentPageStartRowNum)
+        .defineBind(":last_row_num", pLastRowNumber)
+        .defineBind(":page_data", mCurrentPageBlob);
 
-      mBatchAPI.addBatch(mUCon, lBindMap);
+      if(mBatchAPI.addBatch(mUCon, lBindMap)) {
+        //The BLOBs have been written to the table so the temporary copies are no longer needed
+        freePendingPageBlobs();
+      }
     }
     catch (SQLException e) {
-      throw new ExInternal("Failed to add batch for insert page row", e);
+      throw new ExInternal("Failed to add batch for insert page", e);
+    }
+    finally {
+      mCurrentPageEncoder = null;
+      mCurrentPageBlob = null;
     }
   }
 
@@ -126,7 +206,7 @@ extends InterfaceQueryResultDeliverer {
     @Override
     public void finaliseRow(int pRowNumber, DOM pRow) {
 
-      mDeliverer.insertPageRow(pRowNumber, pRow);
+      mDeliverer.addPageRow(pRowNumber, pRow);
 
       //Remove the node from its destination position if we've exceeded the page size
       if(pRowNumber > mDeliverer.mPager.getPageSize()) {
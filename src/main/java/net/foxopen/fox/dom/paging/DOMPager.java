@@ -1,11 +1,18 @@
 package net.foxopen.fox.dom.paging;
 
+import net.foxopen.fox.ContextUElem;
 import net.foxopen.fox.dom.DOM;
 import net.foxopen.fox.dom.DOMList;
+import net.foxopen.fox.dom.xpath.FoxXPathResultType;
+import net.foxopen.fox.dom.xpath.saxon.XPathVariableManager;
+import net.foxopen.fox.ex.ExActionFailed;
 import net.foxopen.fox.thread.ActionRequestContext;
 import net.foxopen.fox.thread.persistence.PersistenceMethod;
 import net.foxopen.fox.track.Track;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Pager for paging through a DOMList identified by an XPath, typically in a for-each or set-out command. The entire
  * DOM is stored in memory and this pager is used to save page state and trim the DOM so the correct view of it can
@@ -20,6 +27,14 @@ import net.foxopen.fox.track.Track;
 public class DOMPager
 extends Pager {
 
+  /** Local XPath variable holding the row number of the first row on the current page, for {@link #evaluateXPathForCurrentPage}. */
+  private static final String START_ROW_VARIABLE_NAME = "fox_pager_start_row";
+  /** Local XPath variable holding the number of rows to fetch for the current page, for {@link #evaluateXPathForCurrentPage}. */
+  private static final String FETCH_SIZE_VARIABLE_NAME = "fox_pager_fetch_size";
+
+  /** True if the row count was established from the full set of paged nodes and has not been found to be out of date since. */
+  private boolean mRowCountEstablished = false;
+
   public DOMPager(String pPagerKey, String pModuleCallId, EvaluatedPagerSetup pEvalPagerSetup) {
     super(pPagerKey, pModuleCallId, pEvalPagerSetup);
   }
@@ -33,21 +48,84 @@ extends Pager {
    */
   public DOMList trimDOMListForCurrentPage(ActionRequestContext pRequestContext, DOMList pFullDOMList) {
 
-    int lOldRowCount = getRowCount();
-    int lNewRowCount = pFullDOMList.getLength();
-    setRowCount(lNewRowCount);
+    updateRowCount(pRequestContext, pFullDOMList.getLength());
 
     DOMList lTrimmedList = new DOMList(getPageSize());
     for(int i = getCurrentPageStartRowNum() - 1; i < Math.min(getCurrentPageEndRowNum(), pFullDOMList.size()); i++) {
       lTrimmedList.add(pFullDOMList.get(i));
     }
 
-    if(lOldRowCount != lNewRowCount) {
+    return lTrimmedList;
+  }
+
+  /**
+   * Evaluates the given XPath, returning only the nodes on the pager's current page. The XPath is wrapped in a
+   * <tt>subsequence()</tt> call so only the current page's nodes are materialised. The page bounds are bound as local
+   * XPath variables, so the wrapped XPath string is the same for every page and only needs compiling once.<br/><br/>
+   *
+   * The row count is established with a <tt>count()</tt> of the XPath the first time this method is called, and is then
+   * cached on the pager until the next refresh. One row beyond the current page is fetched so changes to the number of
+   * rows on or after the current page can be detected, in which case the rows are counted again.
+   *
+   * @param pRequestContext Current RequestContext.
+   * @param pContextUElem ContextUElem for evaluating the XPath.
+   * @param pRelativeDOM Context node for the XPath.
+   * @param pXPath XPath identifying the paged nodes. Must return nodes in the order they should be paged.
+   * @return The nodes on the current page.
+   * @throws ExActionFailed If the XPath cannot be evaluated.
+   */
+  public DOMList evaluateXPathForCurrentPage(ActionRequestContext pRequestContext, ContextUElem pContextUElem, DOM pRelativeDOM, String pXPath)
+  throws ExActionFailed {
+
+    if(!mRowCountEstablished) {
+      countXPathResult(pRequestContext, pContextUElem, pRelativeDOM, pXPath);
+    }
+
+    Map<String, Object> lPageVariables = new HashMap<>(2);
+    lPageVariables.put(START_ROW_VARIABLE_NAME, getCurrentPageStartRowNum());
+    lPageVariables.put(FETCH_SIZE_VARIABLE_NAME, getPageSize() + 1);
+
+    DOMList lFetchedItems;
+    XPathVariableManager lVariableManager = pRequestContext.getXPathVariableManager();
+    lVariableManager.localise("DOMPager/" + getPagerKey(), lPageVariables);
+    try {
+      lFetchedItems = pContextUElem.extendedXPathUL(pRelativeDOM, "subsequence((" + pXPath + "), $" + START_ROW_VARIABLE_NAME + ", $" + FETCH_SIZE_VARIABLE_NAME + ")");
+    }
+    finally {
+      lVariableManager.delocalise("DOMPager/" + getPagerKey());
+    }
+
+    //If the cached row count does not agree with the fetched rows the paged nodes have changed, so they need counting again
+    int lExpectedFetchCount = Math.max(0, Math.min(getPageSize() + 1, getRowCount() - getCurrentPageStartRowNum() + 1));
+    if(lFetchedItems.getLength() != lExpectedFetchCount) {
+      Track.info("DOMPagerRecount", "Row count " + getRowCount() + " is out of date for page " + getCurrentPage() + "; counting rows again");
+      countXPathResult(pRequestContext, pContextUElem, pRelativeDOM, pXPath);
+    }
+
+    //Remove the extra row fetched from the next page
+    if(lFetchedItems.getLength() > getPageSize()) {
+      lFetchedItems.removeFromList(getPageSize());
+    }
+
+    return lFetchedItems;
+  }
+
+  private void countXPathResult(ActionRequestContext pRequestContext, ContextUElem pContextUElem, DOM pRelativeDOM, String pXPath)
+  throws ExActionFailed {
+    int lRowCount = pContextUElem.extendedXPathResult(pRelativeDOM, "count((" + pXPath + "))", FoxXPathResultType.NUMBER).asNumber().intValue();
+    updateRowCount(pRequestContext, lRowCount);
+  }
+
+  private void updateRowCount(ActionRequestContext pRequestContext, int pNewRowCount) {
+    int lOldRowCount = getRowCount();
+    boolean lWasEstablished = mRowCountEstablished;
+    setRowCount(pNewRowCount);
+    mRowCountEstablished = true;
+
+    if(lOldRowCount != pNewRowCount || !lWasEstablished) {
       Track.info("PersistDOMPager", "Marking DOM pager as requiring update as row counts have changed");
       pRequestContext.getPersistenceContext().requiresPersisting(this, PersistenceMethod.UPDATE);
     }
-
-    return lTrimmedList;
   }
 
   /**
@@ -58,6 +136,7 @@ extends Pager {
    */
   public void refreshPager(ActionRequestContext pRequestContext, DOMList pPagedDOMList) {
     setRowCount(pPagedDOMList.getLength());
+    mRowCountEstablished = true;
     setCurrentPage(getClosestActualPageNum());
     pRequestContext.getPersistenceContext().requiresPersisting(this, PersistenceMethod.UPDATE);
   }
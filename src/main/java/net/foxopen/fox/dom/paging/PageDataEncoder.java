@@ -0,0 +1,88 @@
+package net.foxopen.fox.dom.paging;
+
+import net.foxopen.fox.dom.DOM;
+import net.foxopen.fox.ex.ExInternal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Encodes a page of query result rows as a single compressed chunk for storage in the pagination cache. Rows are
+ * serialised as XML into a container element and the whole page is deflated, so the repeated row and column element names
+ * which dominate the size of a typical result set are only paid for once. Decoding a page is a single inflate and parse.
+ */
+class PageDataEncoder
+implements Closeable {
+
+  private static final String PAGE_ELEMENT_NAME = "PAGE";
+
+  private final OutputStream mOutputStream;
+  private int mRowCount = 0;
+
+  /**
+   * Decodes a page written by a PageDataEncoder.
+   * @param pPageData Compressed page data. The stream is closed by this method.
+   * @return A new document containing the page's rows as children of the root element, in the order they were written.
+   */
+  static DOM decode(InputStream pPageData) {
+    try (InputStream lInputStream = new BufferedInputStream(new InflaterInputStream(pPageData))) {
+      return DOM.createDocument(lInputStream, false);
+    }
+    catch (IOException e) {
+      throw new ExInternal("Failed to decode cached page data", e);
+    }
+  }
+
+  /**
+   * Creates a new encoder which writes compressed page data to the given OutputStream. {@link #close} must be called
+   * once all rows have been written to complete the page.
+   * @param pDestination Destination for the page data, i.e. a BLOB output stream.
+   */
+  PageDataEncoder(OutputStream pDestination) {
+    mOutputStream = new DeflaterOutputStream(new BufferedOutputStream(pDestination));
+    writeString("<" + PAGE_ELEMENT_NAME + ">");
+  }
+
+  /**
+   * Appends a row to the page.
+   * @param pRow Row element to serialise.
+   */
+  void writeRow(DOM pRow) {
+    pRow.outputNodeToOutputStream(mOutputStream, false, false);
+    mRowCount++;
+  }
+
+  int getRowCount() {
+    return mRowCount;
+  }
+
+  private void writeString(String pString) {
+    try {
+      mOutputStream.write(pString.getBytes(StandardCharsets.UTF_8));
+    }
+    catch (IOException e) {
+      throw new ExInternal("Failed to write cached page data", e);
+    }
+  }
+
+  /**
+   * Completes the page and closes the underlying OutputStream.
+   */
+  @Override
+  public void close() {
+    writeString("</" + PAGE_ELEMENT_NAME + ">");
+    try {
+      mOutputStream.close();
+    }
+    catch (IOException e) {
+      throw new ExInternal("Failed to close cached page data stream", e);
+    }
+  }
+}
@@ -0,0 +1,124 @@
+package net.foxopen.fox.dom.xpath;
+
+import net.foxopen.fox.ContextUElem;
+import net.foxopen.fox.dom.DOM;
+import net.foxopen.fox.dom.DocControl;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+/**
+ * Memoised results of context-free XPaths (see {@link FoxXPath#isContextFree()}) for a ContextUElem. A memoised result
+ * is only reused if every :{context} label referenced by the XPath still resolves to the same node, and none of the
+ * documents containing those nodes have been modified since the result was recorded.<br><br>
+ *
+ * Only scalar result types are memoised, so consumers requesting nodes are always given a freshly evaluated result.
+ * This object is not thread safe and should only be used by the thread which owns the ContextUElem.
+ */
+public class ContextFreeXPathResultMemo {
+
+  private final Map<FoxXPathResultType, Map<FoxXPath, MemoisedResult>> mResultTypeToResults = new EnumMap<>(FoxXPathResultType.class);
+
+  private int mHitCount = 0;
+  private int mMissCount = 0;
+
+  private static boolean isMemoisableResultType(FoxXPathResultType pResultType) {
+    return pResultType == FoxXPathResultType.BOOLEAN || pResultType == FoxXPathResultType.STRING || pResultType == FoxXPathResultType.NUMBER;
+  }
+
+  /**
+   * Gets a memoised result for the given XPath, if one exists and is still valid.
+   * @param pXPath Context-free XPath being evaluated.
+   * @param pResultType Result type of the evaluation.
+   * @param pContextUElem ContextUElem used to resolve the XPath's labels.
+   * @return The raw result of a previous evaluation, or null if the XPath needs to be evaluated.
+   */
+  Object getResultOrNull(FoxXPath pXPath, FoxXPathResultType pResultType, ContextUElem pContextUElem) {
+
+    if(!isMemoisableResultType(pResultType)) {
+      return null;
+    }
+
+    Map<FoxXPath, MemoisedResult> lResults = mResultTypeToResults.get(pResultType);
+    MemoisedResult lMemoisedResult = lResults == null ? null : lResults.get(pXPath);
+
+    if(lMemoisedResult != null && lMemoisedResult.isValid(pContextUElem)) {
+      mHitCount++;
+      return lMemoisedResult.mResult;
+    }
+    else {
+      mMissCount++;
+      return null;
+    }
+  }
+
+  /**
+   * Records the result of evaluating a context-free XPath, along with the state of its labels and their documents.
+   * @param pXPath Context-free XPath which was evaluated.
+   * @param pResultType Result type of the evaluation.
+   * @param pContextUElem ContextUElem used to resolve the XPath's labels.
+   * @param pResult Raw result of the evaluation.
+   */
+  void putResult(FoxXPath pXPath, FoxXPathResultType pResultType, ContextUElem pContextUElem, Object pResult) {
+
+    if(!isMemoisableResultType(pResultType)) {
+      return;
+    }
+
+    LinkedHashSet<String> lLabelSet = pXPath.getLabelSet();
+    String[] lLabels = lLabelSet == null ? new String[0] : lLabelSet.toArray(new String[lLabelSet.size()]);
+    DOM[] lLabelNodes = new DOM[lLabels.length];
+    int[] lModifiedCounts = new int[lLabels.length];
+
+    for(int i = 0; i < lLabels.length; i++) {
+      lLabelNodes[i] = pContextUElem.getUElemOrNull(lLabels[i]);
+      if(lLabelNodes[i] == null) {
+        //Can't reliably detect if the label is later defined, so don't memoise
+        return;
+      }
+      lModifiedCounts[i] = lLabelNodes[i].getDocControl().getDocumentModifiedCount();
+    }
+
+    mResultTypeToResults.computeIfAbsent(pResultType, k -> new HashMap<>()).put(pXPath, new MemoisedResult(pResult, lLabels, lLabelNodes, lModifiedCounts));
+  }
+
+  public int getHitCount() {
+    return mHitCount;
+  }
+
+  public int getMissCount() {
+    return mMissCount;
+  }
+
+  private static class MemoisedResult {
+
+    private final Object mResult;
+    private final String[] mLabels;
+    private final DOM[] mLabelNodes;
+    private final int[] mDocumentModifiedCounts;
+
+    private MemoisedResult(Object pResult, String[] pLabels, DOM[] pLabelNodes, int[] pDocumentModifiedCounts) {
+      mResult = pResult;
+      mLabels = pLabels;
+      mLabelNodes = pLabelNodes;
+      mDocumentModifiedCounts = pDocumentModifiedCounts;
+    }
+
+    private boolean isValid(ContextUElem pContextUElem) {
+      for(int i = 0; i < mLabels.length; i++) {
+        DOM lCurrentNode = pContextUElem.getUElemOrNull(mLabels[i]);
+        if(lCurrentNode == null || !lCurrentNode.equals(mLabelNodes[i])) {
+          return false;
+        }
+
+        DocControl lDocControl = lCurrentNode.getDocControl();
+        if(lDocControl.getDocumentModifiedCount() != mDocumentModifiedCounts[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
@@ -19,6 +19,7 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.regex.Pattern;
 
 
 /**
@@ -28,6 +29,13 @@ import java.util.Set;
 public class FoxXPath
 implements FoxPath {
 
+  /**
+   * Matches calls to functions whose results can change between evaluations even when the context labels and documents
+   * have not changed, either because they refer to context labels by name or read state from outside the XPath.
+   */
+  private static final Pattern NON_MEMOISABLE_FUNCTION_PATTERN =
+    Pattern.compile("(?<![\\w\\-])(exists-context|mapset|pager-status|plugin-uri|upload-type-info|current-date|current-time|doc|collection)[\\w\\-]*\\s*\\(");
+
   /**
    * The 'external' (i.e. FOX developer) representation of the XPath, i.e. :{theme}/ELEMENT_NAME[@X = :{root}/ELEMENT_2]
    * This may have originally contained stored XPath markup so the XPathDefinition is used to report the original path to the user
@@ -75,6 +83,11 @@ implements FoxPath {
   private final boolean mUsesContextItem;
   private final boolean mUsesContextDocument;
 
+  /**
+   * Records whether this XPath's result depends only on the nodes its :{context} labels resolve to, so can be memoised.
+   */
+  private final boolean mContextFree;
+
   /**
    * Construct a new FoxXPath for the given XPath string.
    * @param pXPathDefinition XPath definition containing a FOX-compliant executable XPath string, possibly containing :{contexts} and/or custom FOX functions.
@@ -111,6 +124,15 @@ implements FoxPath {
     mUsesContextItem = (StaticProperty.DEPENDS_ON_CONTEXT_ITEM & lDeps) > 0;
     mUsesContextDocument = (StaticProperty.DEPENDS_ON_CONTEXT_DOCUMENT & lDeps) > 0;
 
+    //Context free XPaths must not use the focus (context item, position or document), variables, or functions which
+    //can return different results for the same input. Explicit fox:ctxt calls are excluded as their labels are not in the label set.
+    //Namespace aware XPaths are compiled per evaluation so would never be reused.
+    mContextFree = (StaticProperty.DEPENDS_ON_FOCUS & lDeps) == 0
+      && pNamespaceMap == null
+      && mInternalXPathString.indexOf('$') == -1
+      && pXPathDefinition.getExecutableXPath().indexOf("ctxt(") == -1
+      && !NON_MEMOISABLE_FUNCTION_PATTERN.matcher(mInternalXPathString).find();
+
     //Store the compile time
     mCompileTime = System.currentTimeMillis() - lStartTime;
   }
@@ -133,11 +155,28 @@ implements FoxPath {
     long lStartTimeMS = System.currentTimeMillis();
 
     try {
+      //Use a memoised result if the ContextUElem is currently memoising and the result is still valid
+      ContextFreeXPathResultMemo lResultMemo = null;
+      if(pContextUElem != null && mContextFree) {
+        lResultMemo = pContextUElem.getContextFreeXPathResultMemoOrNull();
+        if(lResultMemo != null) {
+          Object lMemoisedResult = lResultMemo.getResultOrNull(this, pResultType, pContextUElem);
+          if(lMemoisedResult != null) {
+            return new XPathResult(lMemoisedResult, this, pContextUElem, pContextNode, pXPathWrapper);
+          }
+        }
+      }
+
       if(pContextUElem != null){
         SaxonEnvironment.setThreadLocalContextUElem(pContextUElem);
       }
       //Evaluate the compiled XPath expression using Saxon, then wrap the resulting object.
       Object lEvalResult = mXPathExpression.evaluate(pContextNode.wrap(), pResultType.asQName());
+
+      if(lResultMemo != null) {
+        lResultMemo.putResult(this, pResultType, pContextUElem, lEvalResult);
+      }
+
       return new XPathResult(lEvalResult, this, pContextUElem, pContextNode, pXPathWrapper);
 
     }
@@ -182,6 +221,15 @@ implements FoxPath {
     return mUsesContextItem || mUsesContextDocument;
   }
 
+  /**
+   * Returns true if the result of this XPath only depends on the nodes its :{context} labels resolve to, i.e.
+   * "string(:{theme}/MODE) = 'EDIT'". Such XPaths give the same result for any context node so their results can be
+   * memoised by a {@link ContextFreeXPathResultMemo}.
+   */
+  public boolean isContextFree() {
+    return mContextFree;
+  }
+
   /**
    * Returns true if this XPath contains a reference to the context item, i.e. "./X/Y" or "X/Y".
    * I.e. if is this a relative XPath.
@@ -17,6 +17,9 @@ import java.util.List;
  */
 public interface DownloadManager {
 
+  /** Default maximum number of bytes of file data which can be read ahead of the writer for a zip download. */
+  long DEFAULT_ZIP_PREFETCH_BYTE_BUDGET = 32 * 1024 * 1024;
+
   /**
    * Generates the download URL for a parcel. The URL will not include the download mode - if this signature is used,
    * it is the consumer's responsibility to add this manually.
@@ -50,6 +53,14 @@ public interface DownloadManager {
 
   DownloadParcel addQueryDownload(ExecutableQuery pExecutableQuery, String pFilename);
 
-  DownloadParcel addZipQueryDownload(List<ExecutableQuery> pExecutableQueryList, String pFilename, int pZipCompressionLevel);
+  /**
+   * Creates a parcel which zips the files returned by the given queries into a single download.
+   * @param pExecutableQueryList Queries returning the files to zip.
+   * @param pFilename Filename of the zip file.
+   * @param pZipCompressionLevel Deflate compression level for the zip entries.
+   * @param pPrefetchByteBudget Maximum number of bytes of file data which may be read ahead of the zip writer.
+   * @return The new parcel.
+   */
+  DownloadParcel addZipQueryDownload(List<ExecutableQuery> pExecutableQueryList, String pFilename, int pZipCompressionLevel, long pPrefetchByteBudget);
 
 }
@@ -151,8 +151,8 @@ implements DownloadManager {
   }
 
   @Override
-  public DownloadParcel addZipQueryDownload(List<ExecutableQuery> pExecutableQueryList, String pFilename, int pZipCompressionLevel) {
-    ZipQueryDownloadParcel lNewParcel = new ZipQueryDownloadParcel(generateParcelId(), pFilename, pExecutableQueryList, pZipCompressionLevel);
+  public DownloadParcel addZipQueryDownload(List<ExecutableQuery> pExecutableQueryList, String pFilename, int pZipCompressionLevel, long pPrefetchByteBudget) {
+    ZipQueryDownloadParcel lNewParcel = new ZipQueryDownloadParcel(generateParcelId(), pFilename, pExecutableQueryList, pZipCompressionLevel, pPrefetchByteBudget);
     addDownloadParcel(lNewParcel);
     return lNewParcel;
   }
@@ -2,15 +2,26 @@ package net.foxopen.fox.download;
 
 
 import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multiset;
 
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 
 import java.sql.SQLException;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -19,30 +30,78 @@ import net.foxopen.fox.database.sql.ExecutableQuery;
 import net.foxopen.fox.download.QueryDownloadResultDeliverer.QueryFile;
 import net.foxopen.fox.ex.ExDB;
 import net.foxopen.fox.ex.ExInternal;
+import net.foxopen.fox.job.BasicFoxJobPool;
+import net.foxopen.fox.job.FoxJobTask;
+import net.foxopen.fox.job.TaskCompletionMessage;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.DeferredFileOutputStream;
 
 
 /**
  * DownloadParcel for a query which returns one or more rows containing either Blobs or a Clobs. The files are zipped into
- * a single file as they are streamed out.
+ * a single file as they are streamed out.<br/><br/>
+ *
+ * LOB contents are prefetched on a job pool shared by all zip downloads while the download thread compresses and writes
+ * the previous entries, so the download is not held up alternating between LOB reads and compression. The amount of
+ * prefetched data held at any one time is limited by the parcel's prefetch byte budget, and the number of prefetches
+ * each download may have queued or running is capped so one large download cannot starve the others. Prefetched files
+ * are held in memory up to a threshold, then spill over to a temporary file.<br/><br/>
+ *
+ * Prefetch tasks read LOBs using the download's connection, so the download does not return until every prefetch which
+ * has started reading has finished, even if the download fails.
  */
-class ZipQueryDownloadParcel 
+class ZipQueryDownloadParcel
 extends AbstractDownloadParcel {
-  
+
   private static final String ZIP_CONTENT_TYPE = "application/zip";
 
+  /** Number of threads reading LOBs across all downloads. Each download's prefetching is limited by its byte budget. */
+  private static final int PREFETCH_THREAD_COUNT = 8;
+
+  private static final BasicFoxJobPool gPrefetchJobPool = BasicFoxJobPool.createMultiThreadedPool("Zip Download Prefetch", PREFETCH_THREAD_COUNT);
+
+  /** Maximum number of prefetches a single download may have queued or running on the shared pool at any one time. */
+  private static final int MAX_PREFETCHES_PER_DOWNLOAD = 2;
+
+  /** Size above which a prefetched file is written to a temporary file instead of being held in memory. */
+  private static final int PREFETCH_MEMORY_THRESHOLD_BYTES = 1024 * 1024;
+
+  private static final String PREFETCH_TEMP_FILE_PREFIX = "FoxZipPrefetch";
+
+  /** MIME types of files which are already compressed, and so are stored in the zip without being deflated again. */
+  private static final Set<String> COMPRESSED_CONTENT_TYPES = ImmutableSet.of(
+    "application/zip",
+    "application/x-zip-compressed",
+    "application/gzip",
+    "application/x-gzip",
+    "application/x-bzip2",
+    "application/x-7z-compressed",
+    "application/x-rar-compressed",
+    "image/jpeg",
+    "image/png",
+    "image/gif"
+  );
+
+  /** MIME type prefixes of files which are already compressed (media formats and Office Open XML containers). */
+  private static final String[] COMPRESSED_CONTENT_TYPE_PREFIXES = {
+    "video/",
+    "audio/mpeg",
+    "application/vnd.openxmlformats-officedocument."
+  };
+
   private final List<ExecutableQuery> mQueryList;
   private final int mZipCompressionLevel;
-  
+  private final long mPrefetchByteBudget;
+
   private boolean mStreamStarted = false;
 
-  public ZipQueryDownloadParcel(String pParcelId, String pFilename, List<ExecutableQuery> pQueryList, int pZipCompressionLevel) {
+  public ZipQueryDownloadParcel(String pParcelId, String pFilename, List<ExecutableQuery> pQueryList, int pZipCompressionLevel, long pPrefetchByteBudget) {
     super(pParcelId, pFilename, ZIP_CONTENT_TYPE);
     mQueryList = pQueryList;
     mZipCompressionLevel = pZipCompressionLevel;
+    mPrefetchByteBudget = pPrefetchByteBudget;
   }
-    
   private String appendIndexToFilePath(String pFilePath, int pIndex) {
     int lExtIndex = pFilePath.lastIndexOf(".");
     String lExt = "";
@@ -80,50 +139,124 @@ extends AbstractDownloadParcel {
     }
     
     List<QueryFile> lQueryFiles = lDeliverer.getQueryFiles();
-    
+
     //Wrap fox output stream with a ZipOutputStream
     ZipOutputStream lZipOutputStream = new ZipOutputStream(pOutputStream);
     lZipOutputStream.setLevel(mZipCompressionLevel);
-    
+
     //Multiset for tracking duplicate file paths
     Multiset lFullPaths = HashMultiset.create();
-    
-    //Loop through each selected file
-    for(QueryFile lQueryFile : lQueryFiles) {
-    
-      //Process filename, checking for duplicates
-      String lPathFile = lQueryFile.getPath() + lQueryFile.getFilename();      
-      //Record the unmodified path
-      lFullPaths.add(lPathFile);
-      
-      //Rename the file path to avoid dupes
-      int lExistingPathCount = lFullPaths.count(lPathFile);      
-      if(lExistingPathCount > 1) {        
-        lPathFile = appendIndexToFilePath(lPathFile, lExistingPathCount);
-      } 
-      
-      try {
-        //Create new Zip File Entry using name from current StreamParcelInput and add to output stream
-        ZipEntry lZipFileEntry = new ZipEntry(lPathFile);
-        lZipOutputStream.putNextEntry(lZipFileEntry);
-    
-        // Stream data from file LOB to response output stream
-        InputStream lLOBInputStream = lQueryFile.getLOBAdaptor().getInputStream();
-        IOUtils.copy(lLOBInputStream, lZipOutputStream);
-        lLOBInputStream.close();
 
-        //Close zip file entry
-        lZipOutputStream.closeEntry();
+    //Prefetches which have been submitted but not yet written to the zip, in query order
+    Deque<PendingPrefetch> lPendingPrefetches = new ArrayDeque<>();
+    long lReservedBytes = 0;
+    int lNextFileIndex = 0;
+
+    try {
+      for (int i = 0; i < lQueryFiles.size(); i++) {
+
+        //Submit prefetches for upcoming files until the byte budget or prefetch limit is used up - always allow at least
+        //one in flight so files larger than the budget can still be downloaded
+        while (lNextFileIndex < lQueryFiles.size() && lPendingPrefetches.size() < MAX_PREFETCHES_PER_DOWNLOAD) {
+          QueryFile lNextFile = lQueryFiles.get(lNextFileIndex);
+          long lNextFileLength = getLOBLength(lNextFile);
+          if (!lPendingPrefetches.isEmpty() && lReservedBytes + lNextFileLength > mPrefetchByteBudget) {
+            break;
+          }
+
+          PrefetchTask lPrefetchTask = new PrefetchTask(lNextFile, getFilename());
+          gPrefetchJobPool.submitTask(lPrefetchTask);
+          lPendingPrefetches.addLast(new PendingPrefetch(lPrefetchTask, lNextFileLength));
+          lReservedBytes += lNextFileLength;
+          lNextFileIndex++;
+        }
+
+        PendingPrefetch lPendingPrefetch = lPendingPrefetches.removeFirst();
+        PrefetchedFile lPrefetchedFile = lPendingPrefetch.awaitResult();
+        try {
+          //Process filename, checking for duplicates
+          QueryFile lQueryFile = lQueryFiles.get(i);
+          String lPathFile = lQueryFile.getPath() + lQueryFile.getFilename();
+          //Record the unmodified path
+          lFullPaths.add(lPathFile);
+
+          //Rename the file path to avoid dupes
+          int lExistingPathCount = lFullPaths.count(lPathFile);
+          if(lExistingPathCount > 1) {
+            lPathFile = appendIndexToFilePath(lPathFile, lExistingPathCount);
+          }
+
+          //Create new Zip File Entry using name from current StreamParcelInput and add to output stream
+          ZipEntry lZipFileEntry = new ZipEntry(lPathFile);
+          if (isStoredWithoutCompression(lQueryFile)) {
+            //Stored entries need their size and checksum up front, which are known now the file has been prefetched
+            lZipFileEntry.setMethod(ZipEntry.STORED);
+            lZipFileEntry.setSize(lPrefetchedFile.mSize);
+            lZipFileEntry.setCompressedSize(lPrefetchedFile.mSize);
+            lZipFileEntry.setCrc(lPrefetchedFile.mCRC);
+          }
+          lZipOutputStream.putNextEntry(lZipFileEntry);
+
+          //Write prefetched data to response output stream
+          lPrefetchedFile.writeTo(lZipOutputStream);
+
+          //Close zip file entry
+          lZipOutputStream.closeEntry();
+        }
+        finally {
+          lPrefetchedFile.delete();
+        }
+
+        lReservedBytes -= lPendingPrefetch.mReservedBytes;
+      }
+    }
+    finally {
+      //Clean up anything prefetched but not written, i.e. if the download failed part way through. Prefetches which have
+      //already started are reading from the download's connection, so wait for them to finish before it is released.
+      for (PendingPrefetch lPendingPrefetch : lPendingPrefetches) {
+        lPendingPrefetch.discard();
       }
-      catch (SQLException e) {
-        throw new ExInternal("Failed to get LOB input stream for zip download", e);
+      for (PendingPrefetch lPendingPrefetch : lPendingPrefetches) {
+        lPendingPrefetch.mTask.awaitFinished();
       }
     }
-    
+
     // All file entries successfully written so close zip file
     lZipOutputStream.close();
   }
-  
+
+  private static long getLOBLength(QueryFile pQueryFile) {
+    try {
+      return pQueryFile.getLOBAdaptor().getLength();
+    }
+    catch (SQLException e) {
+      throw new ExInternal("Failed to get LOB length for zip download", e);
+    }
+  }
+
+  /**
+   * Tests if the given file should be stored in the zip without compression, either because compression is disabled for
+   * this parcel or because the file's content type is already compressed.
+   */
+  private boolean isStoredWithoutCompression(QueryFile pQueryFile) {
+    if (mZipCompressionLevel == Deflater.NO_COMPRESSION) {
+      return true;
+    }
+
+    String lContentType = pQueryFile.getContentType().toLowerCase();
+    if (COMPRESSED_CONTENT_TYPES.contains(lContentType)) {
+      return true;
+    }
+
+    for (String lPrefix : COMPRESSED_CONTENT_TYPE_PREFIXES) {
+      if (lContentType.startsWith(lPrefix)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
   @Override
   public void closeAfterDownload(UCon pUCon) {
   }
@@ -138,4 +271,199 @@ extends AbstractDownloadParcel {
   public boolean isSerialiseAllowed() {
     return !mStreamStarted;
   }
+
+  /**
+   * Reads the LOB for a QueryFile into memory or a temporary file, recording its size and checksum. The outcome is
+   * available from the task's future once it has run on the prefetch job pool.
+   */
+  private static class PrefetchTask
+  implements FoxJobTask {
+
+    private final QueryFile mQueryFile;
+    private final String mDownloadFilename;
+    private final CompletableFuture<PrefetchedFile> mFuture = new CompletableFuture<>();
+
+    /** Counted down when a task which has started reading its LOB has finished. */
+    private final CountDownLatch mFinished = new CountDownLatch(1);
+
+    /** The completed prefetch, retained so it can be cleaned up if the download is abandoned. */
+    private PrefetchedFile mResult = null;
+    private boolean mDiscarded = false;
+    private boolean mStarted = false;
+
+    private PrefetchTask(QueryFile pQueryFile, String pDownloadFilename) {
+      mQueryFile = pQueryFile;
+      mDownloadFilename = pDownloadFilename;
+    }
+
+    /**
+     * Marks this task as no longer required, deleting its result if it has already completed. A task which has not
+     * started yet will not read its LOB, and a task which completes after being discarded deletes its own result.
+     */
+    private synchronized void discard() {
+      mDiscarded = true;
+      if (mResult != null) {
+        mResult.delete();
+      }
+      mFuture.cancel(false);
+    }
+
+    /**
+     * Blocks until this task has stopped using its LOB. Returns immediately if the task never started.
+     */
+    private void awaitFinished() {
+      synchronized (this) {
+        if (!mStarted) {
+          return;
+        }
+      }
+
+      boolean lInterrupted = false;
+      while (true) {
+        try {
+          mFinished.await();
+          break;
+        }
+        catch (InterruptedException e) {
+          //Keep waiting - the connection must not be released while the LOB is being read
+          lInterrupted = true;
+        }
+      }
+
+      if (lInterrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    @Override
+    public String getTaskDescription() {
+      return "Prefetch " + mQueryFile.getFilename() + " for " + mDownloadFilename;
+    }
+
+    @Override
+    public TaskCompletionMessage executeTask() {
+      synchronized (this) {
+        if (mDiscarded) {
+          return new TaskCompletionMessage(this, "Discarded before starting");
+        }
+        mStarted = true;
+      }
+
+      try {
+        PrefetchedFile lPrefetchedFile = prefetch();
+        mFuture.complete(lPrefetchedFile);
+        return new TaskCompletionMessage(this, "Prefetched " + lPrefetchedFile.mSize + " bytes");
+      }
+      catch (Throwable th) {
+        mFuture.completeExceptionally(th);
+        return new TaskCompletionMessage(this, "Prefetch failed: " + th.getMessage());
+      }
+      finally {
+        mFinished.countDown();
+      }
+    }
+
+    private PrefetchedFile prefetch()
+    throws IOException, SQLException {
+      DeferredFileOutputStream lDeferredOutputStream = new DeferredFileOutputStream(PREFETCH_MEMORY_THRESHOLD_BYTES, PREFETCH_TEMP_FILE_PREFIX, null, null);
+      CRC32 lCRC = new CRC32();
+      long lSize;
+
+      try (
+        InputStream lLOBInputStream = mQueryFile.getLOBAdaptor().getInputStream();
+        CheckedOutputStream lCheckedOutputStream = new CheckedOutputStream(lDeferredOutputStream, lCRC)
+      ) {
+        lSize = IOUtils.copyLarge(lLOBInputStream, lCheckedOutputStream);
+      }
+      catch (IOException | SQLException | RuntimeException e) {
+        if (lDeferredOutputStream.getFile() != null) {
+          lDeferredOutputStream.getFile().delete();
+        }
+        throw e;
+      }
+
+      PrefetchedFile lPrefetchedFile = new PrefetchedFile(lDeferredOutputStream, lSize, lCRC.getValue());
+      synchronized (this) {
+        mResult = lPrefetchedFile;
+        if (mDiscarded) {
+          lPrefetchedFile.delete();
+        }
+      }
+
+      return lPrefetchedFile;
+    }
+  }
+
+  /**
+   * LOB contents which have been read ahead of the zip writer.
+   */
+  private static class PrefetchedFile {
+
+    private final DeferredFileOutputStream mContents;
+    private final long mSize;
+    private final long mCRC;
+
+    private PrefetchedFile(DeferredFileOutputStream pContents, long pSize, long pCRC) {
+      mContents = pContents;
+      mSize = pSize;
+      mCRC = pCRC;
+    }
+
+    private void writeTo(OutputStream pOutputStream)
+    throws IOException {
+      if (mContents.isInMemory()) {
+        mContents.writeTo(pOutputStream);
+      }
+      else {
+        //Avoid DeferredFileOutputStream.writeTo as it uses an unbuffered stream for files
+        try (InputStream lFileInputStream = new FileInputStream(mContents.getFile())) {
+          IOUtils.copyLarge(lFileInputStream, pOutputStream);
+        }
+      }
+    }
+
+    private void delete() {
+      if (!mContents.isInMemory()) {
+        mContents.getFile().delete();
+      }
+    }
+  }
+
+  /**
+   * A submitted prefetch and the number of bytes reserved from the prefetch budget for it.
+   */
+  private static class PendingPrefetch {
+
+    private final PrefetchTask mTask;
+    private final long mReservedBytes;
+
+    private PendingPrefetch(PrefetchTask pTask, long pReservedBytes) {
+      mTask = pTask;
+      mReservedBytes = pReservedBytes;
+    }
+
+    private PrefetchedFile awaitResult()
+    throws IOException {
+      try {
+        return mTask.mFuture.get();
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ExInternal("Interrupted while waiting for LOB prefetch for zip download", e);
+      }
+      catch (ExecutionException e) {
+        if (e.getCause() instanceof IOException) {
+          throw (IOException) e.getCause();
+        }
+        throw new ExInternal("Failed to read LOB for zip download", e.getCause());
+      }
+    }
+
+    /**
+     * Cancels this prefetch and deletes any data it has already read.
+     */
+    private void discard() {
+      mTask.discard();
+    }
+  }
 }
@@ -10,6 +10,7 @@ import net.foxopen.fox.banghandler.InternalAuthentication;
 import net.foxopen.fox.boot.EngineInitialisationController;
 import net.foxopen.fox.boot.FoxBootStatusProvider;
 import net.foxopen.fox.boot.InitialisationResult;
+import net.foxopen.fox.boot.ModuleWarmUpStatusProvider;
 import net.foxopen.fox.boot.RuntimeStatusProvider;
 import net.foxopen.fox.configuration.FoxConfigHandler;
 import net.foxopen.fox.database.UCon;
@@ -57,6 +58,7 @@ extends HttpServlet {
   static {
     EngineStatus.instance().registerStatusProvider(new RuntimeStatusProvider());
     EngineStatus.instance().registerStatusProvider(new FoxBootStatusProvider());
+    EngineStatus.instance().registerStatusProvider(new ModuleWarmUpStatusProvider());
   }
 
   @Override
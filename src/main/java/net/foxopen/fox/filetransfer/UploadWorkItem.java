@@ -16,16 +16,14 @@ import org.apache.commons.fileupload.MultipartStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.PipedInputStream;
-import java.io.PipedOutputStream;
 import java.sql.Blob;
-import java.util.Collection;
 
 
 public class UploadWorkItem extends WorkItem {
   private UploadInfo mUploadInfo;
 
-  private static final int BYTE_READ_QUANTITY = 1024 * 4; // buffer size of 4k - seems to read http packet at a time of roughly 4k
+  private static final int BYTE_READ_QUANTITY = VirusScanStreamer.BUFFER_SIZE; // must not exceed the virus scan buffer size so each read can be passed straight on
+  private static final int NON_BLOCKING_FRAME_COUNT = 4;
   private static final int MAX_SUBSEQUENT_BUFFER_READS = 30;
   private static final int READ_TIMEOUT_MS = 1000 * 60 * 5;
 
@@ -49,7 +47,7 @@ public class UploadWorkItem extends WorkItem {
   private long mLastReadTime;
   private long[] mReadLoopIterations = new long[MAX_SUBSEQUENT_BUFFER_READS+1];
 
-  private VirusScanner[] mVirusScannerArray;
+  private VirusScanStreamer mVirusScanStreamer;
 
   public Throwable mErrorException;
 
@@ -78,7 +76,7 @@ public class UploadWorkItem extends WorkItem {
         Track.alert("UploadWorkItem", "Unexpected form field encountered when streaming upload");
       }
       else {
-        mItemNonBlockingInputStream = new NonBlockingInputStream(mItemInputStream, BYTE_READ_QUANTITY, MAX_SUBSEQUENT_BUFFER_READS);
+        mItemNonBlockingInputStream = new NonBlockingInputStream(mItemInputStream, BYTE_READ_QUANTITY, NON_BLOCKING_FRAME_COUNT);
 
         String lFilename = lCurrentItem.getName();
         mUploadInfo.setOriginalFileLocation(lFilename);
@@ -116,6 +114,14 @@ public class UploadWorkItem extends WorkItem {
       READ_LOOP:
       for (int i = 0; i < MAX_SUBSEQUENT_BUFFER_READS && lItemBytesRead != -1 && !lBreak; i++) {
 
+        //Apply back-pressure if a virus scanner has fallen behind - stop reading until it catches up. Time spent waiting
+        //still counts towards the read timeout, so a stalled scanner cannot hold the upload open indefinitely.
+        if (!mVirusScanStreamer.canAcceptBytes()) {
+          mReadLoopIterations[i]++;
+          lBreak = true;
+          break;
+        }
+
         if ((lItemBytesRead = mItemNonBlockingInputStream.read(mBuffer)) != -1) {
 
           //Perform a content type check if this is the first packet read
@@ -131,18 +137,18 @@ public class UploadWorkItem extends WorkItem {
 
           mBlobOutputStream.write(mBuffer, 0, lItemBytesRead); // write to blob
 
-          //loop all available VirusScanners and write to each one's OutputStream
-          for(int j=0; j<mVirusScannerArray.length; j++){
-            //belt & braces - check for error before stream write
-            if(mVirusScannerArray[j].isError()){
-              throw new ExInternal("Virus Scanner " + mVirusScannerArray[j].getType() + " threw exception: " + mVirusScannerArray[j].getErrorMessage() + ". Upload cannot complete without Virus Detection.");
+          //belt & braces - check for error before stream write
+          for(VirusScanner lVirusScanner : mVirusScanStreamer.getVirusScanners()){
+            if(lVirusScanner.isError()){
+              throw new ExInternal("Virus Scanner " + lVirusScanner.getType() + " threw exception: " + lVirusScanner.getErrorMessage() + ". Upload cannot complete without Virus Detection.");
             }
+          }
 
-            try{
-              mVirusScannerArray[j].getOutputStream().write(mBuffer, 0, lItemBytesRead);
-            } catch (IOException ex){
-              throw new ExInternal("Virus Scanner encountered an input problem. Upload cannot continue.", ex);
-            }
+          //pass the bytes on to all available VirusScanners
+          try{
+            mVirusScanStreamer.write(mBuffer, 0, lItemBytesRead);
+          } catch (IOException ex){
+            throw new ExInternal("Virus Scanner encountered an input problem. Upload cannot continue.", ex);
           }
 
           if(lItemBytesRead==0){
@@ -165,17 +171,8 @@ public class UploadWorkItem extends WorkItem {
           mUploadInfo.setStatus(UploadStatus.VIRUS_CHECK);
           //mUploadInfo.getFileWSL().fireUploadEvent(null, mUCon, mUploadInfo);
 
-          //close all VirusScanner OutputStreams and wait on all their threads.
-          for(int j=0; j<mVirusScannerArray.length; j++){
-            mVirusScannerArray[j].getOutputStream().close();
-            // Wait for all the scanners to complete. This may happen after the
-            // upload has completed.
-            mVirusScannerArray[j].getCurrentThread().join(mVirusScannerArray[j].getTimeoutSecs()*1000);
-            if(!mVirusScannerArray[j].isComplete()){
-              throw new ExInternal("Virus Scanner " + mVirusScannerArray[j].getType() + " did not complete after waiting " + mVirusScannerArray[j].getTimeoutSecs() + " seconds.");
-            }
-
-          }
+          //signal end of stream to all VirusScanners and wait for their scans to complete.
+          mVirusScanStreamer.closeAndAwaitCompletion();
 
           mReadLoopIterations[i]++;
           lBreak = true;
@@ -183,13 +180,13 @@ public class UploadWorkItem extends WorkItem {
 
         // Test for virus detection/errors at the end of every output buffer write
         // ClamAV may terminate early if it detects a virus in the middle of the stream
-        for(int j=0; j<mVirusScannerArray.length; j++){
-          if(mVirusScannerArray[j].isVirusFound()){
+        for(VirusScanner lVirusScanner : mVirusScanStreamer.getVirusScanners()){
+          if(lVirusScanner.isVirusFound()){
             mUploadInfo.setStatus(UploadStatus.VIRUS_CHECK_FAILED);
-            throw new ExUpload("Virus Detected in uploaded file: " + mVirusScannerArray[j].getScanResultString(), "a virus was detected in the file");
+            throw new ExUpload("Virus Detected in uploaded file: " + lVirusScanner.getScanResultString(), "a virus was detected in the file");
           }
-          else if(mVirusScannerArray[j].isError()){
-            throw new ExInternal("Virus Detection threw exception: " + mVirusScannerArray[j].getErrorMessage() + ". Upload cannot complete without Virus Detection.");
+          else if(lVirusScanner.isError()){
+            throw new ExInternal("Virus Detection threw exception: " + lVirusScanner.getErrorMessage() + ". Upload cannot complete without Virus Detection.");
           }
         }
       }//for i
@@ -281,20 +278,15 @@ public class UploadWorkItem extends WorkItem {
 
     // see if someone has requested that this upload fails
     if ( isUploadFailRequested() ){
-      if(mVirusScannerArray != null){
-        for(int i=0; i<mVirusScannerArray.length; i++){
-          try{
-            //close streams so virus scanners do not hang waiting for input
-            mVirusScannerArray[i].getOutputStream().close();
-            mVirusScannerArray[i].getInputStream().close();
-          }catch(IOException ignore){}
-        }
+      if(mVirusScanStreamer != null){
+        //release pipes so virus scanners do not hang waiting for input
+        mVirusScanStreamer.abort();
       }
       //throw new ExInternal("Upload work item failed to complete.  A fail was requested on the upload work item.");
       throwForceFailException();
     }
 
-    if(mVirusScannerArray == null){
+    if(mVirusScanStreamer == null){
       initialiseVirusScanners();
     }
 
@@ -323,27 +315,8 @@ public class UploadWorkItem extends WorkItem {
   }
 
   private void initialiseVirusScanners(){
-
-    //Ask the app to create a fresh set of virus scanners
-    Collection<VirusScanner> lVirusScanners = mUploadInfo.getApp().createVirusScanners();
-    mVirusScannerArray = lVirusScanners.toArray(new VirusScanner[lVirusScanners.size()]);
-
-    for(int i=0; i<mVirusScannerArray.length;i++){
-      //Construct the pipe - outputstream is written to inputstream
-      PipedInputStream lInputStream = new PipedInputStream();
-      OutputStream lOutputStream;
-      try {
-        lOutputStream = new PipedOutputStream(lInputStream);
-      } catch (IOException e) {
-        throw new ExInternal("Virus Scanner pipe construction: " + e);
-      }
-      mVirusScannerArray[i].setInputStream(lInputStream);
-      mVirusScannerArray[i].setOutputStream(lOutputStream);
-
-      //Start the virus scan thread, which will wait for input on its InputStream
-      new Thread(mVirusScannerArray[i],"VirusScanThread-" + i + "-" + Thread.currentThread().getName()).start();
-    }
-
+    //Ask the app to create a fresh set of virus scanners - these will wait for input on the shared scan job pool
+    mVirusScanStreamer = new VirusScanStreamer(mUploadInfo.getApp().createVirusScanners(), "upload FileId=" + mUploadInfo.getFileId());
   }
 
   public boolean isComplete() {
@@ -385,6 +358,11 @@ public class UploadWorkItem extends WorkItem {
     if(mItemNonBlockingInputStream != null) {
       mItemNonBlockingInputStream.destroy();
     }
+
+    if(mVirusScanStreamer != null) {
+      //Release any scanners still waiting for input
+      mVirusScanStreamer.abort();
+    }
   }
 }
 
@@ -0,0 +1,494 @@
+package net.foxopen.fox.filetransfer;
+
+import net.foxopen.fox.ex.ExInternal;
+import net.foxopen.fox.job.BasicFoxJobPool;
+import net.foxopen.fox.job.FoxJobTask;
+import net.foxopen.fox.job.TaskCompletionMessage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fans the bytes of an upload out to a set of VirusScanners. Scans are run on a shared, bounded job pool rather than on
+ * a dedicated thread per scanner, so the number of scanning threads stays fixed regardless of how many uploads are in
+ * progress. Data is passed to each scanner through a bounded pipe of pooled buffers.<br/><br/>
+ *
+ * The writer should check {@link #canAcceptBytes()} before reading more data from the upload. If a scanner has fallen
+ * behind (or has not been allocated a thread yet) its pipe will be full, and the writer should stop reading until it has
+ * caught up. This means a slow scanner throttles its upload instead of causing unbounded buffering, and the thread
+ * writing to the streamer is never blocked waiting for a scanner until the upload is complete.<br/><br/>
+ *
+ * Because the writer is held back by its slowest scanner, an upload's scanners are only started once there is a free
+ * thread for every one of them. Otherwise scanners with a thread could wait for data which cannot be written until their
+ * queued siblings start, and enough concurrent uploads would tie up every thread in the pool this way.
+ */
+public class VirusScanStreamer {
+
+  /** Maximum number of scans which can run at once across the whole engine. Further scans queue for a thread. */
+  static final int MAX_SCAN_THREADS = 16;
+
+  /** Size of the buffers used to pass data to scanners. Writes to the streamer must not exceed this size. */
+  public static final int BUFFER_SIZE = 1024 * 32;
+
+  /** Maximum number of buffers which can be waiting to be read by a single scanner before the writer is held back. */
+  private static final int MAX_PENDING_BUFFERS_PER_SCANNER = 32;
+
+  /** How long a blocked writer waits for pipe capacity before checking whether the pipe has been aborted. */
+  private static final long WRITE_WAIT_INTERVAL_MS = 100;
+
+  /** Maximum number of free buffers retained for reuse. Buffers released when the pool is full are left for GC. */
+  private static final int MAX_POOLED_BUFFERS = 512;
+
+  private static final BasicFoxJobPool gScanJobPool = BasicFoxJobPool.createMultiThreadedPool("Virus Scan", MAX_SCAN_THREADS);
+
+  private static final BlockingQueue<byte[]> gBufferPool = new ArrayBlockingQueue<>(MAX_POOLED_BUFFERS);
+
+  /** One permit per scan thread. A streamer takes permits for all its scanners before submitting any of them. */
+  private static final Semaphore gScanThreadPermits = new Semaphore(MAX_SCAN_THREADS);
+
+  private final VirusScanner[] mVirusScanners;
+  private final ScanPipe[] mScanPipes;
+  private final String mDescription;
+
+  private volatile boolean mScansStarted = false;
+
+  /**
+   * Creates a new streamer and submits the given scanners to the scan job pool if there are threads available for all of
+   * them. Otherwise they are submitted when threads become available - see {@link #canAcceptBytes()}. Each scanner will
+   * wait for input on its InputStream once it has been allocated a thread.
+   * @param pVirusScanners Scanners to stream data to.
+   * @param pDescription Description of the upload being scanned, for the engine status page.
+   */
+  public VirusScanStreamer(Collection<VirusScanner> pVirusScanners, String pDescription) {
+
+    if(pVirusScanners.size() > MAX_SCAN_THREADS) {
+      throw new ExInternal("Cannot run " + pVirusScanners.size() + " virus scanners for one upload, maximum is " + MAX_SCAN_THREADS);
+    }
+
+    mVirusScanners = pVirusScanners.toArray(new VirusScanner[pVirusScanners.size()]);
+    mScanPipes = new ScanPipe[mVirusScanners.length];
+    mDescription = pDescription;
+
+    for(int i = 0; i < mVirusScanners.length; i++) {
+      mScanPipes[i] = new ScanPipe();
+      mVirusScanners[i].setInputStream(mScanPipes[i].mInputStream);
+      mVirusScanners[i].setOutputStream(mScanPipes[i].mOutputStream);
+    }
+
+    startScans(false);
+  }
+
+  /**
+   * Submits all the scanners to the scan job pool, if this has not already been done and there is a free thread for each.
+   * @param pWait If true, waits for threads to become free.
+   * @return True if the scanners have been submitted.
+   */
+  private synchronized boolean startScans(boolean pWait) {
+    if(!mScansStarted) {
+      if(pWait) {
+        gScanThreadPermits.acquireUninterruptibly(mVirusScanners.length);
+      }
+      else if(!gScanThreadPermits.tryAcquire(mVirusScanners.length)) {
+        return false;
+      }
+
+      for(int i = 0; i < mVirusScanners.length; i++) {
+        gScanJobPool.submitTask(new ScanTask(mVirusScanners[i], mScanPipes[i], mDescription));
+      }
+      mScansStarted = true;
+    }
+    return true;
+  }
+
+  /**
+   * Gets the scanners which this streamer is writing to.
+   * @return Array of scanners.
+   */
+  public VirusScanner[] getVirusScanners() {
+    return mVirusScanners;
+  }
+
+  /**
+   * Tests if every scanner can accept another buffer of data without the writer having to wait. If this returns false,
+   * the caller should stop reading from the upload and try again later. This also starts the scanners if they are still
+   * waiting for threads and enough have become free.
+   * @return True if a write of up to {@link #BUFFER_SIZE} bytes can be made without blocking.
+   */
+  public boolean canAcceptBytes() {
+    if(!startScans(false)) {
+      return false;
+    }
+
+    for(ScanPipe lScanPipe : mScanPipes) {
+      if(!lScanPipe.hasCapacity()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Writes bytes to all scanners. If the scanners have not been started or a scanner's pipe is full this will block until
+   * it has capacity - use {@link #canAcceptBytes()} to avoid this.
+   * @param pBytes Source data.
+   * @param pOffset Offset in the source array.
+   * @param pLength Number of bytes to write, up to {@link #BUFFER_SIZE}.
+   */
+  public void write(byte[] pBytes, int pOffset, int pLength)
+  throws IOException {
+    if(pLength > BUFFER_SIZE) {
+      throw new ExInternal("Cannot write " + pLength + " bytes to virus scanners in a single write, maximum is " + BUFFER_SIZE);
+    }
+
+    startScans(true);
+
+    for(ScanPipe lScanPipe : mScanPipes) {
+      lScanPipe.write(pBytes, pOffset, pLength);
+    }
+  }
+
+  /**
+   * Signals the end of the data to all scanners and waits for each one to complete, up to its timeout.
+   * @throws ExInternal If a scanner does not complete within its timeout, or failed without reporting an error.
+   */
+  public void closeAndAwaitCompletion()
+  throws IOException {
+    startScans(true);
+
+    for(int i = 0; i < mVirusScanners.length; i++) {
+      VirusScanner lVirusScanner = mVirusScanners[i];
+      long lTimeoutMS = lVirusScanner.getTimeoutSecs() * 1000L;
+      // Wait for all the scanners to complete. This may happen after the upload has completed.
+      if(!mScanPipes[i].close(lTimeoutMS) || !mScanPipes[i].awaitScanFinished(lTimeoutMS)) {
+        throw new ExInternal("Virus Scanner " + lVirusScanner.getType() + " did not complete after waiting " + lVirusScanner.getTimeoutSecs() + " seconds.");
+      }
+      else if(mScanPipes[i].mAborted) {
+        throw new ExInternal("Virus Scanner " + lVirusScanner.getType() + " failed unexpectedly. Upload cannot complete without Virus Detection.");
+      }
+    }
+  }
+
+  /**
+   * Abandons the scans, releasing any data waiting to be read. Scanners waiting for data will receive an IOException.
+   * Scanners which have not been started yet are never started.
+   */
+  public void abort() {
+    for(ScanPipe lScanPipe : mScanPipes) {
+      lScanPipe.abort();
+    }
+  }
+
+  private static byte[] acquireBuffer() {
+    byte[] lBuffer = gBufferPool.poll();
+    return lBuffer != null ? lBuffer : new byte[BUFFER_SIZE];
+  }
+
+  private static void releaseBuffer(byte[] pBuffer) {
+    gBufferPool.offer(pBuffer);
+  }
+
+  /**
+   * Runs a scanner on the scan job pool.
+   */
+  private static class ScanTask
+  implements FoxJobTask {
+
+    private final VirusScanner mVirusScanner;
+    private final ScanPipe mScanPipe;
+    private final String mDescription;
+
+    private ScanTask(VirusScanner pVirusScanner, ScanPipe pScanPipe, String pDescription) {
+      mVirusScanner = pVirusScanner;
+      mScanPipe = pScanPipe;
+      mDescription = pDescription;
+    }
+
+    @Override
+    public String getTaskDescription() {
+      return mVirusScanner.getType() + " scan for " + mDescription;
+    }
+
+    @Override
+    public TaskCompletionMessage executeTask() {
+      boolean lScanReturned = false;
+      try {
+        mVirusScanner.run();
+        lScanReturned = true;
+      }
+      finally {
+        gScanThreadPermits.release();
+        if(!lScanReturned) {
+          //The scanner died without recording an error - fail the upload rather than letting it complete unscanned
+          mScanPipe.abort();
+        }
+        mScanPipe.mScanFinished.countDown();
+      }
+
+      String lResult;
+      if(mVirusScanner.isError()) {
+        lResult = "Scan failed: " + mVirusScanner.getErrorMessage();
+      }
+      else if(mVirusScanner.isVirusFound()) {
+        lResult = "Virus found: " + mVirusScanner.getScanResultString();
+      }
+      else {
+        lResult = "Scan complete";
+      }
+
+      return new TaskCompletionMessage(this, lResult);
+    }
+  }
+
+  /**
+   * A chunk of data in a ScanPipe. A chunk with a null buffer marks the end of the stream.
+   */
+  private static class Chunk {
+
+    private static final Chunk END_OF_STREAM = new Chunk(null, 0);
+
+    private final byte[] mBuffer;
+    private final int mLength;
+
+    private Chunk(byte[] pBuffer, int pLength) {
+      mBuffer = pBuffer;
+      mLength = pLength;
+    }
+  }
+
+  /**
+   * Bounded single-writer, single-reader pipe between the upload and a scanner. Unlike a PipedInputStream, the writer
+   * can test for capacity before writing, and buffers are recycled through the shared buffer pool.
+   */
+  private static class ScanPipe {
+
+    private final BlockingQueue<Chunk> mPendingChunks = new ArrayBlockingQueue<>(MAX_PENDING_BUFFERS_PER_SCANNER);
+
+    /** Set when the reader has closed its stream, i.e. the scanner has finished early. Further writes are discarded. */
+    private volatile boolean mReaderClosed = false;
+    private volatile boolean mAborted = false;
+    /** Counted down once the scan task has finished with this pipe, after any abort caused by the scanner failing. */
+    private final CountDownLatch mScanFinished = new CountDownLatch(1);
+
+    private final InputStream mInputStream = new PipeInputStream();
+    private final OutputStream mOutputStream = new PipeOutputStream();
+
+    private boolean hasCapacity() {
+      //Closed and aborted pipes never block the writer
+      return mReaderClosed || mAborted || mPendingChunks.remainingCapacity() > 0;
+    }
+
+    /**
+     * Adds a chunk to the pipe, waiting for the reader to make space if necessary.
+     * @param pChunk Chunk to add.
+     * @param pTimeoutMS Maximum time to wait, or -1 to wait indefinitely.
+     * @return True if the chunk was added, false if the reader closed its stream or the timeout was reached.
+     * @throws IOException If the pipe is aborted while waiting.
+     */
+    private boolean offerChunk(Chunk pChunk, long pTimeoutMS)
+    throws IOException {
+      long lDeadline = System.currentTimeMillis() + pTimeoutMS;
+      try {
+        while(!mPendingChunks.offer(pChunk, WRITE_WAIT_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+          if(mAborted) {
+            throw new IOException("Virus scan pipe has been aborted");
+          }
+          else if(mReaderClosed || (pTimeoutMS != -1 && System.currentTimeMillis() > lDeadline)) {
+            return false;
+          }
+        }
+        return true;
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while writing to virus scanner", e);
+      }
+    }
+
+    private void write(byte[] pBytes, int pOffset, int pLength)
+    throws IOException {
+      if(mAborted) {
+        throw new IOException("Virus scan pipe has been aborted");
+      }
+      else if(mReaderClosed || pLength == 0) {
+        return;
+      }
+
+      byte[] lBuffer = acquireBuffer();
+      System.arraycopy(pBytes, pOffset, lBuffer, 0, pLength);
+
+      if(!offerChunk(new Chunk(lBuffer, pLength), -1)) {
+        releaseBuffer(lBuffer);
+      }
+      else if(mReaderClosed) {
+        //Reader may have closed while we were writing - make sure its buffers are not left in the queue
+        discardPendingChunks();
+      }
+    }
+
+    /**
+     * Marks the end of the data, waiting for the reader to make space for the marker if necessary.
+     * @param pTimeoutMS Maximum time to wait.
+     * @return False if the reader did not make space within the timeout.
+     */
+    private boolean close(long pTimeoutMS)
+    throws IOException {
+      if(mAborted || mReaderClosed) {
+        return true;
+      }
+
+      try {
+        return offerChunk(Chunk.END_OF_STREAM, pTimeoutMS) || mReaderClosed;
+      }
+      catch (IOException e) {
+        //Aborted while waiting - the caller checks for this
+        return true;
+      }
+    }
+
+    private boolean awaitScanFinished(long pTimeoutMS) {
+      try {
+        return mScanFinished.await(pTimeoutMS, TimeUnit.MILLISECONDS);
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+
+    private void abort() {
+      mAborted = true;
+      discardPendingChunks();
+      //Wake up the reader if it is waiting
+      mPendingChunks.offer(Chunk.END_OF_STREAM);
+    }
+
+    private void discardPendingChunks() {
+      Chunk lChunk;
+      while((lChunk = mPendingChunks.poll()) != null) {
+        if(lChunk.mBuffer != null) {
+          releaseBuffer(lChunk.mBuffer);
+        }
+      }
+    }
+
+    private class PipeOutputStream
+    extends OutputStream {
+
+      @Override
+      public void write(int pByte)
+      throws IOException {
+        write(new byte[]{(byte) pByte}, 0, 1);
+      }
+
+      @Override
+      public void write(byte[] pBytes, int pOffset, int pLength)
+      throws IOException {
+        //Split large writes into buffer sized chunks
+        for(int lWritten = 0; lWritten < pLength; lWritten += BUFFER_SIZE) {
+          ScanPipe.this.write(pBytes, pOffset + lWritten, Math.min(BUFFER_SIZE, pLength - lWritten));
+        }
+      }
+
+      @Override
+      public void close()
+      throws IOException {
+        ScanPipe.this.close(-1);
+      }
+    }
+
+    private class PipeInputStream
+    extends InputStream {
+
+      private Chunk mCurrentChunk = null;
+      private int mCurrentOffset = 0;
+      private boolean mEOF = false;
+
+      /**
+       * Ensures a chunk with unread data is available, waiting for the writer if necessary.
+       * @return False if the end of the stream has been reached.
+       */
+      private boolean nextChunk()
+      throws IOException {
+        if(mEOF || mReaderClosed) {
+          return false;
+        }
+        else if(mCurrentChunk != null && mCurrentOffset < mCurrentChunk.mLength) {
+          return true;
+        }
+
+        if(mCurrentChunk != null) {
+          releaseBuffer(mCurrentChunk.mBuffer);
+          mCurrentChunk = null;
+        }
+
+        Chunk lChunk;
+        try {
+          lChunk = mPendingChunks.take();
+        }
+        catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IOException("Interrupted while waiting for data to scan", e);
+        }
+
+        if(mAborted) {
+          throw new IOException("Virus scan pipe has been aborted");
+        }
+        else if(lChunk == Chunk.END_OF_STREAM) {
+          mEOF = true;
+          return false;
+        }
+
+        mCurrentChunk = lChunk;
+        mCurrentOffset = 0;
+        return true;
+      }
+
+      @Override
+      public int read()
+      throws IOException {
+        if(!nextChunk()) {
+          return -1;
+        }
+        return mCurrentChunk.mBuffer[mCurrentOffset++] & 0xFF;
+      }
+
+      @Override
+      public int read(byte[] pBytes, int pOffset, int pLength)
+      throws IOException {
+        if(pLength == 0) {
+          return 0;
+        }
+        else if(!nextChunk()) {
+          return -1;
+        }
+
+        int lLength = Math.min(pLength, mCurrentChunk.mLength - mCurrentOffset);
+        System.arraycopy(mCurrentChunk.mBuffer, mCurrentOffset, pBytes, pOffset, lLength);
+        mCurrentOffset += lLength;
+        return lLength;
+      }
+
+      @Override
+      public int available() {
+        return mCurrentChunk != null ? mCurrentChunk.mLength - mCurrentOffset : 0;
+      }
+
+      @Override
+      public void close() {
+        mReaderClosed = true;
+        if(mCurrentChunk != null) {
+          releaseBuffer(mCurrentChunk.mBuffer);
+          mCurrentChunk = null;
+        }
+        discardPendingChunks();
+      }
+    }
+  }
+}
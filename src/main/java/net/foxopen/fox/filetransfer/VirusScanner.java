@@ -6,6 +6,8 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 public abstract class VirusScanner
 implements Runnable{
@@ -17,10 +19,10 @@ implements Runnable{
   protected final int mPort;
   protected final int mTimeout;
 
-  private Thread mRunThread;
-  private boolean mComplete;
+  private final CountDownLatch mCompletionLatch = new CountDownLatch(1);
+  private volatile boolean mComplete;
 
-  private ExVirusScan mException = null;
+  private volatile ExVirusScan mException = null;
 
   private static final byte[] EICAR_VIRUS = {'X','5','O','!','P','%','@','A','P','[','4','\\','P','Z','X','5','4','(','P','^',')','7','C','C',')','7','}','$','E','I','C','A','R','-','S','T','A','N','D','A','R','D','-','A','N','T','I','V','I','R','U','S','-','T','E','S','T','-','F','I','L','E','!','$','H','+','H','*'};
 
@@ -62,9 +64,17 @@ implements Runnable{
   public abstract String getType();
 
   public void run(){
-    mRunThread = Thread.currentThread();
-    if(mInputStream == null || mOutputStream == null){
-      handleError(new ExVirusScan("InputStream and/or OutputStream cannot be null"));
+    try {
+      runScan();
+    }
+    finally {
+      mCompletionLatch.countDown();
+    }
+  }
+
+  private void runScan(){
+    if(mInputStream == null){
+      handleError(new ExVirusScan("InputStream cannot be null"));
       return;
     }
 
@@ -105,11 +115,18 @@ implements Runnable{
   }
 
   /**
-   *
-   * @return The Thread which is executing this object's run() method.
+   * Waits for this scanner's run() method to complete, or for the given timeout to elapse.
+   * @param pTimeoutMS Maximum time to wait in milliseconds.
+   * @return True if the scan completed, false if the timeout elapsed first.
    */
-  public Thread getCurrentThread(){
-    return mRunThread;
+  public boolean awaitCompletion(long pTimeoutMS){
+    try {
+      return mCompletionLatch.await(pTimeoutMS, TimeUnit.MILLISECONDS);
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
   }
 
   private void handleError(ExVirusScan pEx){
@@ -0,0 +1,453 @@
+package net.foxopen.fox.io;
+
+import net.foxopen.fox.ex.ExInternal;
+import org.apache.poi.ss.usermodel.DateUtil;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams an Office Open XML spreadsheet (XLSX) directly to an output stream. Unlike an in-memory workbook, rows are
+ * written to the worksheet part as they are added, so memory use does not grow with the number of rows. Strings are
+ * written inline rather than to a shared string table, so nothing needs to be held back until the workbook is closed
+ * apart from the sheet names and cell number formats.<br/><br/>
+ *
+ * Sheets must be written one at a time: {@link #startSheet}, then any number of {@link #startRow} / cell /
+ * {@link #endRow} calls, then {@link #endSheet}. {@link #finish} must be called once all sheets have been written to
+ * complete the workbook. The underlying output stream is not closed.<br/><br/>
+ *
+ * Sheet names are made unique within the workbook. If a sheet reaches Excel's row limit, the writer continues on a new
+ * sheet with the same column widths, named after the original with a numeric suffix.
+ */
+public class XLSXStreamWriter {
+
+  private static final String SPREADSHEETML_NAMESPACE = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+  private static final String RELATIONSHIPS_NAMESPACE = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+  private static final String PACKAGE_RELATIONSHIPS_NAMESPACE = "http://schemas.openxmlformats.org/package/2006/relationships";
+  private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+
+  /** The first number format ID available for custom formats - IDs below this are reserved for built in formats. */
+  private static final int FIRST_CUSTOM_NUMBER_FORMAT_ID = 164;
+
+  /** Excel only allows up to 31 characters in a sheet name. */
+  private static final int MAX_SHEET_NAME_LENGTH = 31;
+
+  /** Excel cannot open a worksheet with more than 1,048,576 rows. */
+  private static final int MAX_ROWS_PER_SHEET = 1048576;
+
+  private final ZipOutputStream mZipOutputStream;
+  private final Writer mWriter;
+
+  private final int mMaxRowsPerSheet;
+
+  private final List<String> mSheetNames = new ArrayList<>();
+  /** Upper case sheet names, as Excel treats sheet names case insensitively when checking they are unique. */
+  private final Set<String> mUpperSheetNames = new HashSet<>();
+  /** Number format patterns mapped to their cell style index. Index 0 is the default style. */
+  private final Map<String, Integer> mFormatPatternToStyleIndex = new LinkedHashMap<>();
+
+  private boolean mSheetOpen = false;
+  /** Name and column widths the current sheet was started with, so it can be continued on a new sheet if it overflows. */
+  private String mSheetBaseName;
+  private Integer[] mSheetColumnWidths;
+  private int mRowNumber = 0;
+  private int mColumnIndex = 0;
+  private boolean mRowOpen = false;
+
+  /**
+   * Creates a new XLSX writer which will write the workbook package to the given stream.
+   * @param pOutputStream Destination for the XLSX file. This is not closed by the writer.
+   */
+  public XLSXStreamWriter(OutputStream pOutputStream) {
+    this(pOutputStream, MAX_ROWS_PER_SHEET);
+  }
+
+  /**
+   * Creates a new XLSX writer with a custom row limit, so sheet overflow can be tested without writing a million rows.
+   */
+  XLSXStreamWriter(OutputStream pOutputStream, int pMaxRowsPerSheet) {
+    mMaxRowsPerSheet = pMaxRowsPerSheet;
+    mZipOutputStream = new ZipOutputStream(pOutputStream);
+    mWriter = new BufferedWriter(new OutputStreamWriter(mZipOutputStream, StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Starts a new worksheet. The previous worksheet must have been ended.
+   * @param pSheetName Name of the sheet as displayed on the sheet tab. Invalid characters are replaced and the name is
+   *                   truncated to 31 characters if necessary. If the name is empty or has already been used, a numeric
+   *                   suffix is added to make it unique.
+   * @param pColumnWidths Widths of the sheet's columns in characters, indexed by 0-based column number. Null entries
+   *                      (or a null array) leave the column at the default width.
+   */
+  public void startSheet(String pSheetName, Integer[] pColumnWidths)
+  throws IOException {
+    if (mSheetOpen) {
+      throw new ExInternal("Cannot start sheet '" + pSheetName + "' as the previous sheet has not been ended");
+    }
+
+    mSheetBaseName = pSheetName;
+    mSheetColumnWidths = pColumnWidths;
+    openSheet(uniqueSheetName(pSheetName));
+  }
+
+  /**
+   * Makes a valid sheet name from the given name which has not yet been used in this workbook. Where a suffix is needed to
+   * make the name unique, the name is truncated so the suffix still fits within Excel's length limit.
+   */
+  private String uniqueSheetName(String pSheetName) {
+    // Excel will refuse to open a workbook with these characters in a sheet name
+    String lBaseName = pSheetName == null ? "" : pSheetName.replaceAll("[\\[\\]:*?/\\\\]", "_").trim();
+    if (lBaseName.length() == 0) {
+      lBaseName = "Sheet";
+    }
+
+    String lSheetName = truncateSheetName(lBaseName, "");
+    for (int lSuffix = 2; mUpperSheetNames.contains(lSheetName.toUpperCase()); lSuffix++) {
+      lSheetName = truncateSheetName(lBaseName, " (" + lSuffix + ")");
+    }
+    return lSheetName;
+  }
+
+  private static String truncateSheetName(String pBaseName, String pSuffix) {
+    int lMaxBaseLength = MAX_SHEET_NAME_LENGTH - pSuffix.length();
+    return (pBaseName.length() > lMaxBaseLength ? pBaseName.substring(0, lMaxBaseLength) : pBaseName) + pSuffix;
+  }
+
+  private void openSheet(String pSheetName)
+  throws IOException {
+    mSheetNames.add(pSheetName);
+    mUpperSheetNames.add(pSheetName.toUpperCase());
+
+    mZipOutputStream.putNextEntry(new ZipEntry("xl/worksheets/sheet" + mSheetNames.size() + ".xml"));
+    mWriter.write(XML_DECLARATION);
+    mWriter.write("<worksheet xmlns=\"" + SPREADSHEETML_NAMESPACE + "\" xmlns:r=\"" + RELATIONSHIPS_NAMESPACE + "\">");
+
+    // Column definitions must precede the sheet data, so can only be based on information known before any rows are written
+    if (mSheetColumnWidths != null) {
+      StringBuilder lCols = new StringBuilder();
+      for (int i = 0; i < mSheetColumnWidths.length; i++) {
+        if (mSheetColumnWidths[i] != null) {
+          lCols.append("<col min=\"").append(i + 1).append("\" max=\"").append(i + 1).append("\" width=\"").append(mSheetColumnWidths[i]).append("\" customWidth=\"1\"/>");
+        }
+      }
+
+      if (lCols.length() > 0) {
+        mWriter.write("<cols>");
+        mWriter.write(lCols.toString());
+        mWriter.write("</cols>");
+      }
+    }
+
+    mWriter.write("<sheetData>");
+
+    mSheetOpen = true;
+    mRowNumber = 0;
+  }
+
+  /**
+   * Ends the current worksheet, flushing its content to the output stream.
+   */
+  public void endSheet()
+  throws IOException {
+    assertSheetOpen();
+    closeSheet();
+  }
+
+  private void closeSheet()
+  throws IOException {
+    if (mRowOpen) {
+      endRow();
+    }
+
+    mWriter.write("</sheetData></worksheet>");
+    closeEntry();
+    mSheetOpen = false;
+  }
+
+  /**
+   * Starts a new row in the current sheet. Cells added after this call are added to this row, from the first column.
+   * If the sheet is already at Excel's row limit, it is ended and the row is written to a new continuation sheet.
+   */
+  public void startRow()
+  throws IOException {
+    assertSheetOpen();
+    if (mRowOpen) {
+      endRow();
+    }
+
+    if (mRowNumber >= mMaxRowsPerSheet) {
+      closeSheet();
+      openSheet(uniqueSheetName(mSheetBaseName));
+    }
+
+    mRowNumber++;
+    mColumnIndex = 0;
+    mWriter.write("<row r=\"" + mRowNumber + "\">");
+    mRowOpen = true;
+  }
+
+  /**
+   * Ends the current row.
+   */
+  public void endRow()
+  throws IOException {
+    if (!mRowOpen) {
+      throw new ExInternal("Cannot end a row which has not been started");
+    }
+
+    mWriter.write("</row>");
+    mRowOpen = false;
+  }
+
+  /**
+   * Adds a string cell to the current row. Null strings are written as empty cells.
+   * @param pValue Cell value.
+   */
+  public void addStringCell(String pValue)
+  throws IOException {
+    String lCellRef = nextCellRef();
+    if (pValue == null || pValue.length() == 0) {
+      return;
+    }
+
+    mWriter.write("<c r=\"" + lCellRef + "\" t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+    mWriter.write(escape(pValue));
+    mWriter.write("</t></is></c>");
+  }
+
+  /**
+   * Adds a numeric cell to the current row, displayed using the given number format. Non-finite numbers cannot be
+   * represented in a spreadsheet so are written as strings.
+   * @param pValue Cell value.
+   * @param pFormatPattern Excel number format pattern, or null to use the default format.
+   */
+  public void addNumberCell(double pValue, String pFormatPattern)
+  throws IOException {
+    if (Double.isNaN(pValue) || Double.isInfinite(pValue)) {
+      addStringCell(Double.toString(pValue));
+      return;
+    }
+
+    String lCellRef = nextCellRef();
+    mWriter.write("<c r=\"" + lCellRef + "\"" + styleAttribute(pFormatPattern) + "><v>" + Double.toString(pValue) + "</v></c>");
+  }
+
+  /**
+   * Adds a date cell to the current row, displayed using the given date format.
+   * @param pValue Cell value, interpreted in the JVM's default time zone.
+   * @param pFormatPattern Excel date format pattern.
+   */
+  public void addDateCell(Date pValue, String pFormatPattern)
+  throws IOException {
+    addNumberCell(DateUtil.getExcelDate(pValue), pFormatPattern);
+  }
+
+  /**
+   * Adds an empty cell to the current row which has the given number format applied.
+   * @param pFormatPattern Excel number format pattern.
+   */
+  public void addBlankCell(String pFormatPattern)
+  throws IOException {
+    String lCellRef = nextCellRef();
+    mWriter.write("<c r=\"" + lCellRef + "\"" + styleAttribute(pFormatPattern) + "/>");
+  }
+
+  /**
+   * Completes the workbook by writing the workbook, style and package parts. The underlying output stream is flushed but
+   * not closed.
+   */
+  public void finish()
+  throws IOException {
+    if (mSheetOpen) {
+      endSheet();
+    }
+
+    if (mSheetNames.size() == 0) {
+      // A workbook must contain at least one sheet to be valid
+      startSheet("Sheet1", null);
+      endSheet();
+    }
+
+    writeWorkbook();
+    writeWorkbookRelationships();
+    writeStyles();
+    writeContentTypes();
+    writePackageRelationships();
+
+    mZipOutputStream.finish();
+    mZipOutputStream.flush();
+  }
+
+  private void assertSheetOpen() {
+    if (!mSheetOpen) {
+      throw new ExInternal("A sheet must be started before rows can be written");
+    }
+  }
+
+  /**
+   * Gets the A1-style reference for the next cell in the current row and moves the column index on.
+   */
+  private String nextCellRef() {
+    if (!mRowOpen) {
+      throw new ExInternal("A row must be started before cells can be added");
+    }
+
+    return columnName(mColumnIndex++) + mRowNumber;
+  }
+
+  /**
+   * Converts a 0-based column index into an Excel column name (A, B, ... Z, AA, AB...).
+   */
+  private static String columnName(int pColumnIndex) {
+    StringBuilder lName = new StringBuilder(3);
+    int lIndex = pColumnIndex + 1;
+    while (lIndex > 0) {
+      int lRemainder = (lIndex - 1) % 26;
+      lName.insert(0, (char) ('A' + lRemainder));
+      lIndex = (lIndex - 1) / 26;
+    }
+    return lName.toString();
+  }
+
+  /**
+   * Gets the style attribute string for a cell with the given number format, registering the format if this is the
+   * first time it has been used.
+   */
+  private String styleAttribute(String pFormatPattern) {
+    if (pFormatPattern == null) {
+      return "";
+    }
+
+    Integer lStyleIndex = mFormatPatternToStyleIndex.get(pFormatPattern);
+    if (lStyleIndex == null) {
+      lStyleIndex = mFormatPatternToStyleIndex.size() + 1;
+      mFormatPatternToStyleIndex.put(pFormatPattern, lStyleIndex);
+    }
+
+    return " s=\"" + lStyleIndex + "\"";
+  }
+
+  /**
+   * Escapes XML markup characters in the given string and removes characters which are not allowed in XML documents.
+   */
+  private static String escape(String pValue) {
+    StringBuilder lResult = new StringBuilder(pValue.length());
+    for (int i = 0; i < pValue.length(); i++) {
+      char c = pValue.charAt(i);
+      switch (c) {
+        case '<': lResult.append("&lt;"); break;
+        case '>': lResult.append("&gt;"); break;
+        case '&': lResult.append("&amp;"); break;
+        case '"': lResult.append("&quot;"); break;
+        default:
+          if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+            lResult.append(c);
+          }
+      }
+    }
+    return lResult.toString();
+  }
+
+  private void closeEntry()
+  throws IOException {
+    mWriter.flush();
+    mZipOutputStream.closeEntry();
+  }
+
+  private void writeWorkbook()
+  throws IOException {
+    mZipOutputStream.putNextEntry(new ZipEntry("xl/workbook.xml"));
+    mWriter.write(XML_DECLARATION);
+    mWriter.write("<workbook xmlns=\"" + SPREADSHEETML_NAMESPACE + "\" xmlns:r=\"" + RELATIONSHIPS_NAMESPACE + "\"><sheets>");
+    for (int i = 0; i < mSheetNames.size(); i++) {
+      mWriter.write("<sheet name=\"" + escape(mSheetNames.get(i)) + "\" sheetId=\"" + (i + 1) + "\" r:id=\"rId" + (i + 1) + "\"/>");
+    }
+    mWriter.write("</sheets></workbook>");
+    closeEntry();
+  }
+
+  private void writeWorkbookRelationships()
+  throws IOException {
+    mZipOutputStream.putNextEntry(new ZipEntry("xl/_rels/workbook.xml.rels"));
+    mWriter.write(XML_DECLARATION);
+    mWriter.write("<Relationships xmlns=\"" + PACKAGE_RELATIONSHIPS_NAMESPACE + "\">");
+    for (int i = 0; i < mSheetNames.size(); i++) {
+      mWriter.write("<Relationship Id=\"rId" + (i + 1) + "\" Type=\"" + RELATIONSHIPS_NAMESPACE + "/worksheet\" Target=\"worksheets/sheet" + (i + 1) + ".xml\"/>");
+    }
+    mWriter.write("<Relationship Id=\"rId" + (mSheetNames.size() + 1) + "\" Type=\"" + RELATIONSHIPS_NAMESPACE + "/styles\" Target=\"styles.xml\"/>");
+    mWriter.write("</Relationships>");
+    closeEntry();
+  }
+
+  private void writeStyles()
+  throws IOException {
+    mZipOutputStream.putNextEntry(new ZipEntry("xl/styles.xml"));
+    mWriter.write(XML_DECLARATION);
+    mWriter.write("<styleSheet xmlns=\"" + SPREADSHEETML_NAMESPACE + "\">");
+
+    if (mFormatPatternToStyleIndex.size() > 0) {
+      mWriter.write("<numFmts count=\"" + mFormatPatternToStyleIndex.size() + "\">");
+      for (Map.Entry<String, Integer> lFormat : mFormatPatternToStyleIndex.entrySet()) {
+        int lFormatId = FIRST_CUSTOM_NUMBER_FORMAT_ID + lFormat.getValue() - 1;
+        mWriter.write("<numFmt numFmtId=\"" + lFormatId + "\" formatCode=\"" + escape(lFormat.getKey()) + "\"/>");
+      }
+      mWriter.write("</numFmts>");
+    }
+
+    mWriter.write("<fonts count=\"1\"><font><sz val=\"11\"/><name val=\"Calibri\"/><family val=\"2\"/></font></fonts>");
+    mWriter.write("<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill><fill><patternFill patternType=\"gray125\"/></fill></fills>");
+    mWriter.write("<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>");
+    mWriter.write("<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>");
+
+    mWriter.write("<cellXfs count=\"" + (mFormatPatternToStyleIndex.size() + 1) + "\">");
+    mWriter.write("<xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>");
+    for (Integer lStyleIndex : mFormatPatternToStyleIndex.values()) {
+      int lFormatId = FIRST_CUSTOM_NUMBER_FORMAT_ID + lStyleIndex - 1;
+      mWriter.write("<xf numFmtId=\"" + lFormatId + "\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/>");
+    }
+    mWriter.write("</cellXfs>");
+
+    mWriter.write("<cellStyles count=\"1\"><cellStyle name=\"Normal\" xfId=\"0\" builtinId=\"0\"/></cellStyles>");
+    mWriter.write("</styleSheet>");
+    closeEntry();
+  }
+
+  private void writeContentTypes()
+  throws IOException {
+    mZipOutputStream.putNextEntry(new ZipEntry("[Content_Types].xml"));
+    mWriter.write(XML_DECLARATION);
+    mWriter.write("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">");
+    mWriter.write("<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>");
+    mWriter.write("<Default Extension=\"xml\" ContentType=\"application/xml\"/>");
+    mWriter.write("<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>");
+    mWriter.write("<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+    for (int i = 0; i < mSheetNames.size(); i++) {
+      mWriter.write("<Override PartName=\"/xl/worksheets/sheet" + (i + 1) + ".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+    }
+    mWriter.write("</Types>");
+    closeEntry();
+  }
+
+  private void writePackageRelationships()
+  throws IOException {
+    mZipOutputStream.putNextEntry(new ZipEntry("_rels/.rels"));
+    mWriter.write(XML_DECLARATION);
+    mWriter.write("<Relationships xmlns=\"" + PACKAGE_RELATIONSHIPS_NAMESPACE + "\">");
+    mWriter.write("<Relationship Id=\"rId1\" Type=\"" + RELATIONSHIPS_NAMESPACE + "/officeDocument\" Target=\"xl/workbook.xml\"/>");
+    mWriter.write("</Relationships>");
+    closeEntry();
+  }
+}
@@ -10,6 +10,9 @@ import java.util.concurrent.TimeUnit;
 public class BasicFoxJobPool
 extends FoxJobPool {
 
+  /** How long an idle thread in a multi threaded pool is kept before it is allowed to terminate. */
+  private static final long IDLE_THREAD_KEEP_ALIVE_SECONDS = 60L;
+
   private final ThreadPoolExecutor mExecutor;
 
   public static BasicFoxJobPool createSingleThreadedPool(String pPoolName) {
@@ -18,12 +21,30 @@ extends FoxJobPool {
     return lNewJobPool;
   }
 
+  /**
+   * Creates a pool which runs up to the given number of tasks concurrently. Further tasks are queued until a thread
+   * becomes available. Idle threads are allowed to terminate so the pool does not hold threads when it is not in use.
+   * @param pPoolName Name of the pool.
+   * @param pMaxThreads Maximum number of threads in the pool.
+   * @return New pool.
+   */
+  public static BasicFoxJobPool createMultiThreadedPool(String pPoolName, int pMaxThreads) {
+    BasicFoxJobPool lNewJobPool = new BasicFoxJobPool(pPoolName, pMaxThreads);
+    lNewJobPool.mExecutor.allowCoreThreadTimeOut(true);
+    registerPool(lNewJobPool);
+    return lNewJobPool;
+  }
+
   private BasicFoxJobPool(String pPoolName) {
+    this(pPoolName, 1);
+  }
+
+  private BasicFoxJobPool(String pPoolName, int pThreadCount) {
 
     super(pPoolName);
 
     //Create a new ThreadPoolExecutor with the afterExecute method overriden so we can log errors.
-    mExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), createThreadFactory(pPoolName));
+    mExecutor = new ThreadPoolExecutor(pThreadCount, pThreadCount, IDLE_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), createThreadFactory(pPoolName));
   }
 
   @Override
@@ -31,6 +52,23 @@ extends FoxJobPool {
     return mExecutor;
   }
 
+  /**
+   * Changes the number of tasks this pool can run concurrently. Tasks which are already running are not affected, but
+   * queued tasks will be started on the new number of threads.
+   * @param pMaxThreads New maximum number of threads in the pool.
+   */
+  public void setMaxThreads(int pMaxThreads) {
+    //The core size must never exceed the maximum size, so the order these are set in depends on the direction of change
+    if(pMaxThreads > mExecutor.getMaximumPoolSize()) {
+      mExecutor.setMaximumPoolSize(pMaxThreads);
+      mExecutor.setCorePoolSize(pMaxThreads);
+    }
+    else {
+      mExecutor.setCorePoolSize(pMaxThreads);
+      mExecutor.setMaximumPoolSize(pMaxThreads);
+    }
+  }
+
   public void submitTask(final FoxJobTask pTask) {
     getExecutor().execute(new RunnableFoxJobTask(pTask));
   }
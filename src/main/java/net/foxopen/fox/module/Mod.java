@@ -8,6 +8,9 @@ import net.foxopen.fox.FoxRequest;
 import net.foxopen.fox.FoxResponse;
 import net.foxopen.fox.StringUtil;
 import net.foxopen.fox.XFUtil;
+import net.foxopen.fox.cache.BuiltInCacheDefinition;
+import net.foxopen.fox.cache.CacheManager;
+import net.foxopen.fox.cache.FoxCache;
 import net.foxopen.fox.database.ConnectionAgent;
 import net.foxopen.fox.database.UCon;
 import net.foxopen.fox.database.sql.out.SQLTypeConverter;
@@ -1402,8 +1405,7 @@ extends FoxComponent implements Validatable, NodeInfoProvider {
     // Load raw library DOM
     DOM lSchemaDOM;
     try {
-      Clob lModuleClob = mModuleParseUCon.querySingleRow(mApp.getResourceTableParsedStatement(), pLibName).getClob("DATA");
-      lSchemaDOM = Mod.parseModuleDOM(SQLTypeConverter.clobToStringBuffer(lModuleClob), pLibName, pIsInitialModule);
+      lSchemaDOM = getParsedLibraryDOM(pLibName, pIsInitialModule);
     }
     catch(ExDBTooFew x) {
       throw new ExModule ("Referenced Library " + pLibName + " could not be found, in "+pContext, x);
@@ -1463,6 +1465,41 @@ extends FoxComponent implements Validatable, NodeInfoProvider {
 
   }
 
+  /**
+   * Gets a writable copy of the parsed DOM for a library. Libraries are shared by many modules, so their parsed DOMs are
+   * held in an app-level cache and copied for each module which includes them, as the copy is subsequently modified
+   * (namespace localisation etc). The module being loaded is not cached as it is only needed once.
+   *
+   * @param pLibName Name of the library (or module) to load.
+   * @param pIsInitialModule True if this is the initial module in the library structure.
+   * @return Root element of a new DOM containing the parsed library.
+   */
+  private DOM getParsedLibraryDOM(String pLibName, boolean pIsInitialModule)
+  throws ExDB, ExModule {
+
+    //Initial modules have their local namespaces parsed differently, so can't be shared
+    if(pIsInitialModule || pLibName.equals(mModuleName)) {
+      return parseLibraryDOM(pLibName, pIsInitialModule);
+    }
+
+    FoxCache<String, DOM> lLibraryCache = CacheManager.getMemberCache(BuiltInCacheDefinition.APP_PARSED_LIBRARIES, mApp.getMnemonicName());
+    DOM lParsedLibraryDOM = lLibraryCache.get(pLibName);
+    if(lParsedLibraryDOM == null) {
+      lParsedLibraryDOM = parseLibraryDOM(pLibName, false);
+      //Guard against the shared copy being modified
+      lParsedLibraryDOM.setDocumentReadOnly();
+      lLibraryCache.put(pLibName, lParsedLibraryDOM);
+    }
+
+    return lParsedLibraryDOM.createDocument();
+  }
+
+  private DOM parseLibraryDOM(String pLibName, boolean pIsInitialModule)
+  throws ExDB, ExModule {
+    Clob lModuleClob = mModuleParseUCon.querySingleRow(mApp.getResourceTableParsedStatement(), pLibName).getClob("DATA");
+    return Mod.parseModuleDOM(SQLTypeConverter.clobToStringBuffer(lModuleClob), pLibName, pIsInitialModule);
+  }
+
   private void processLibraries(
     final DOM pModuleRootDOM
   , final DOM pModuleMetaDOM
@@ -51,6 +51,12 @@ public class FieldSet {
 
   private static final String LABEL_PREFIX = "fs";
 
+  /**
+   * Name of the posted field containing a JSON array of the names of fields which the client detected as changed. If this
+   * is posted, the client has omitted unchanged fields from the submission.
+   */
+  private static final String CHANGED_FIELDS_POSTED_NAME = "changed_fields";
+
   /* IMPORTANT: all the fields below are serialised using Kryo unless marked as transient. If any more fields are added,
      they MUST NOT implicate a complex object graph. Ensure all objects being referenced by these fields are appropriate
      candidates for serialisation.  */
@@ -78,6 +84,9 @@ public class FieldSet {
 
   private transient Set<String> mEditableItemRefs = new HashSet<>();
 
+  /** FOXIDs of editable items mapped to the labels of the documents which contain them, used to route FOXID lookups when changes are applied. */
+  private transient Map<String, String> mEditableItemRefToDocumentLabel = new HashMap<>();
+
   /** Multimap of DOM FOXIDs to corresponding FieldMgrs, in registration order. (cardinality required as an element may be set out multiple times) */
   private transient Multimap<String, FieldMgr> mFoxIdToFieldMgrMap = ArrayListMultimap.create();
 
@@ -124,7 +133,9 @@ public class FieldSet {
         mFields.add(pFieldInfo);
       }
       mEditableItemRefs.add(lDOMRef);
-      mImplicatedDocumentLabels.add(pContextUElem.getDocumentLabelForNode(pDataDOM));
+      String lDocumentLabel = pContextUElem.getDocumentLabelForNode(pDataDOM);
+      mImplicatedDocumentLabels.add(lDocumentLabel);
+      mEditableItemRefToDocumentLabel.put(lDOMRef, lDocumentLabel);
 
       return true;
     }
@@ -247,21 +258,38 @@ public class FieldSet {
       lContextUElem.loadUElem(lDocLabel);
     }
 
-    //If client actions have been performed, apply them now
-    if(pPostedFormValuesMap.get("client_actions") != null) {
-      applyClientActions(pRequestContext, SingleValueFieldInfo.singlePostedValue(pPostedFormValuesMap.get("client_actions"), "client_actions"));
+    //Tell the ContextUElem which document each item is in, so resolving them doesn't require probing every document
+    //(the map is not persisted, so will be null if this FieldSet was deserialised)
+    if(mEditableItemRefToDocumentLabel != null) {
+      lContextUElem.setRegisteredElemRefOwners(mEditableItemRefToDocumentLabel);
     }
+    try {
+      //If client actions have been performed, apply them now
+      if(pPostedFormValuesMap.get("client_actions") != null) {
+        applyClientActions(pRequestContext, SingleValueFieldInfo.singlePostedValue(pPostedFormValuesMap.get("client_actions"), "client_actions"));
+      }
 
-    //Apply field changes
-    for (PostedValueProcessor lFieldInfo : mFields) {
-      List<ChangeActionContext> lApplyActions = lFieldInfo.applyPostedValues(pRequestContext, pPostedFormValuesMap.get(lFieldInfo.getExternalName()));
-      lChangeActions.addAll(lApplyActions);
-    }
+      //If the client only posted changed fields, any field which was not posted is unchanged and does not need to be applied
+      Set<String> lChangedFieldNames = getChangedFieldNamesOrNull(pPostedFormValuesMap);
+
+      //Apply field changes
+      for (PostedValueProcessor lFieldInfo : mFields) {
+        if(isApplyRequired(lFieldInfo, pPostedFormValuesMap, lChangedFieldNames)) {
+          List<ChangeActionContext> lApplyActions = lFieldInfo.applyPostedValues(pRequestContext, pPostedFormValuesMap.get(lFieldInfo.getExternalName()));
+          lChangeActions.addAll(lApplyActions);
+        }
+      }
 
-    //Apply radio group changes
-    for(RadioGroup lRadioGroup : mRadioGroups.values()) {
-      List<ChangeActionContext> lApplyActions = lRadioGroup.applyPostedValues(pRequestContext, pPostedFormValuesMap.get(lRadioGroup.getRadioGroupId()));
-      lChangeActions.addAll(lApplyActions);
+      //Apply radio group changes
+      for(RadioGroup lRadioGroup : mRadioGroups.values()) {
+        if(isApplyRequired(lRadioGroup, pPostedFormValuesMap, lChangedFieldNames)) {
+          List<ChangeActionContext> lApplyActions = lRadioGroup.applyPostedValues(pRequestContext, pPostedFormValuesMap.get(lRadioGroup.getRadioGroupId()));
+          lChangeActions.addAll(lApplyActions);
+        }
+      }
+    }
+    finally {
+      lContextUElem.clearRegisteredElemRefOwners();
     }
 
     // Flag field changes as having been applied
@@ -292,6 +320,50 @@ public class FieldSet {
     }
   }
 
+  /**
+   * Reads the names of the fields which the client detected as changed, if the client only posted changed fields.
+   * @param pPostedFormValuesMap All posted values.
+   * @return Set of changed field names, or null if the client posted every field.
+   */
+  private static Set<String> getChangedFieldNamesOrNull(Map<String, String[]> pPostedFormValuesMap) {
+
+    String[] lChangedFieldsJSON = pPostedFormValuesMap.get(CHANGED_FIELDS_POSTED_NAME);
+    if(lChangedFieldsJSON == null) {
+      return null;
+    }
+
+    JSONArray lChangedFieldArray;
+    try {
+      lChangedFieldArray = (JSONArray) new JSONParser().parse(SingleValueFieldInfo.singlePostedValue(lChangedFieldsJSON, CHANGED_FIELDS_POSTED_NAME));
+    }
+    catch (ParseException | ClassCastException e) {
+      throw new ExInternal("Failed to parse changed fields JSON", e);
+    }
+
+    Set<String> lChangedFieldNames = new HashSet<>(lChangedFieldArray.size());
+    for(Object lFieldName : lChangedFieldArray) {
+      lChangedFieldNames.add((String) lFieldName);
+    }
+
+    Track.info("ChangedFields", "Client posted " + lChangedFieldNames.size() + " changed fields");
+
+    return lChangedFieldNames;
+  }
+
+  /**
+   * Tests if a PostedValueProcessor needs to be applied. If the client only posted changed fields, fields which were
+   * not posted are unchanged unless the client explicitly marked them as changed (i.e. a tickbox which was cleared, so has
+   * no value to post).
+   * @param pProcessor Processor to test.
+   * @param pPostedFormValuesMap All posted values.
+   * @param pChangedFieldNames Names of changed fields, or null if the client posted every field.
+   * @return True if the processor should be applied.
+   */
+  private static boolean isApplyRequired(PostedValueProcessor pProcessor, Map<String, String[]> pPostedFormValuesMap, Set<String> pChangedFieldNames) {
+    String lExternalName = pProcessor.getExternalName();
+    return pChangedFieldNames == null || pPostedFormValuesMap.containsKey(lExternalName) || pChangedFieldNames.contains(lExternalName);
+  }
+
   /**
    * Adds the given context ref as a valid upload target in this FieldSet. If the context ref has already been added,
    * this method returns false.
@@ -35,7 +35,7 @@ extends SingleValueFieldInfo {
     DOM lConvertedHTML = DefaultHTMLValueTransformer.instance().transformPostedString(lPostedValue, lHTMLWidgetConfig.getHTMLTransformConfig());
     String lConvertedHTMLString = lConvertedHTML.outputNodeContentsToString(false);
 
-    if(!getSentValue().equals(lConvertedHTMLString)) {
+    if(!isSentValue(lConvertedHTMLString)) {
 
       DOM lItemDOM = resolveAndClearTargetDOM(pRequestContext);
 
@@ -50,7 +50,7 @@ extends SingleValueFieldInfo {
     String lPostedValue = getSinglePostedValue(pPostedValues);
 
     //Skip apply if the returned value was a "key-missing", or if no change has occurred
-    if(!lPostedValue.startsWith(FieldValueMapping.UNRECOGNISED_PREFIX) && !lPostedValue.equals(getSentValue())) {
+    if(!lPostedValue.startsWith(FieldValueMapping.UNRECOGNISED_PREFIX) && !isSentValue(lPostedValue)) {
 
       DOM lTargetDOM = resolveAndClearTargetDOM(pRequestContext);
       lTargetDOM.removeAttr(OptionFieldMgr.FREE_TEXT_ATTR);
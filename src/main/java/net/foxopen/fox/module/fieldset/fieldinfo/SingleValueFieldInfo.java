@@ -1,22 +1,44 @@
 package net.foxopen.fox.module.fieldset.fieldinfo;
 
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
 import net.foxopen.fox.XFUtil;
 import net.foxopen.fox.ex.ExInternal;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
 
 public abstract class SingleValueFieldInfo
 extends FieldInfo {
 
-  /** The value in the DOM which is being sent to the HTML form. Note the final value in the HTML form may be different if a transformer is active for this field. */
-  private final String mSentValue;
+  /** Hash function for sent values. This must be consistent between JVMs as FieldSets can be deserialised on a different server. */
+  private static final HashFunction SENT_VALUE_HASH_FUNCTION = Hashing.murmur3_128();
+
+  /**
+   * Hash of the value in the DOM which is being sent to the HTML form. Note the final value in the HTML form may be different
+   * if a transformer is active for this field. Only the hash is retained as the value is only used to detect changes,
+   * and large values (i.e. text areas) would otherwise bloat the serialised FieldSet.
+   */
+  private final byte[] mSentValueHash;
 
   protected SingleValueFieldInfo(String pExternalName, String pDOMRef, String pChangeActionName, String pSentValue) {
     super(pExternalName, pDOMRef, pChangeActionName);
-    mSentValue = pSentValue;
+    mSentValueHash = hashValue(pSentValue);
   }
 
-  protected String getSentValue() {
-    return mSentValue;
+  private static byte[] hashValue(String pValue) {
+    //A null sent value should never match a posted value
+    return pValue == null ? new byte[0] : SENT_VALUE_HASH_FUNCTION.hashString(pValue, StandardCharsets.UTF_8).asBytes();
+  }
+
+  /**
+   * Tests if the given value is the same as the value which was sent to the HTML form for this field.
+   * @param pValue Value to test, i.e. a posted value after any inbound transformation.
+   * @return True if the value matches the sent value.
+   */
+  protected boolean isSentValue(String pValue) {
+    return Arrays.equals(mSentValueHash, hashValue(pValue));
   }
 
   /**
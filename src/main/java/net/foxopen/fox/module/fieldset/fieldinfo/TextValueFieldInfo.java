@@ -27,7 +27,7 @@ extends SingleValueFieldInfo {
 
     lPostedValue = mFieldTransformer.applyInboundTransform(lPostedValue);
 
-    if(!getSentValue().equals(lPostedValue)) {
+    if(!isSentValue(lPostedValue)) {
 
       DOM lItemDOM = resolveAndClearTargetDOM(pRequestContext);
 
@@ -48,7 +48,7 @@ extends SingleOptionFieldMgr {
       String lPostedValue = getSinglePostedValue(pPostedValues);
 
       //Skip apply if FALSE was sent out and null returned - for strict booleans null is equivelant to false
-      if(!getSentValue().equals(lPostedValue) && !(BooleanFVM.FALSE_VALUE.equals(getSentValue()) && FieldValueMapping.NULL_VALUE.equals(lPostedValue) )) {
+      if(!isSentValue(lPostedValue) && !(isSentValue(BooleanFVM.FALSE_VALUE) && FieldValueMapping.NULL_VALUE.equals(lPostedValue) )) {
 
         DOM lTargetDOM = resolveAndClearTargetDOM(pRequestContext);
         if(BooleanFVM.TRUE_VALUE.equals(lPostedValue)) {
@@ -164,23 +164,30 @@ public class EvaluatedParseTree implements SerialisationContext {
       throw ex.toUnexpected();
     }
 
-    Track.pushInfo("EvaluatedParseTree", "Evaluating the parse tree");
-    // Start from the set-page buffer for this module and evaluate our way down the Parse Tree nodes
+    //Mode, view and attribute XPaths which only reference labels such as :{theme} are evaluated once rather than per item
+    getContextUElem().startContextFreeXPathMemoisation();
     try {
-      BufferPresentationNode lStartBuffer = getBuffer(pBufferName);
-      mRootBuffer = evaluateNode(null, lStartBuffer, getContextUElem().attachDOM());
-    }
-    catch (ExModule e) {
-      throw new ExInternal("Failed to find buffer", e);
+      Track.pushInfo("EvaluatedParseTree", "Evaluating the parse tree");
+      // Start from the set-page buffer for this module and evaluate our way down the Parse Tree nodes
+      try {
+        BufferPresentationNode lStartBuffer = getBuffer(pBufferName);
+        mRootBuffer = evaluateNode(null, lStartBuffer, getContextUElem().attachDOM());
+      }
+      catch (ExModule e) {
+        throw new ExInternal("Failed to find buffer", e);
+      }
+      finally {
+        Track.pop("EvaluatedParseTree");
+      }
+
+      //Evaluate the modal popover if one is active
+      mOptionalModalPopover = EvaluatedModalPopover.getEvaluatedPopoverOrNull(mRequestContext, this);
+
+      handleClientVisibilityRules();
     }
     finally {
-      Track.pop("EvaluatedParseTree");
+      getContextUElem().endContextFreeXPathMemoisation();
     }
-
-    //Evaluate the modal popover if one is active
-    mOptionalModalPopover = EvaluatedModalPopover.getEvaluatedPopoverOrNull(mRequestContext, this);
-
-    handleClientVisibilityRules();
   }
 
   public EvaluatedParseTree(ActionRequestContext pRequestContext, FieldSet pFieldSet, List<EvaluatedDataDefinition> pEvaluatedDataDefinitions) {
@@ -139,16 +139,17 @@ public class ForEachPresentationNode extends PresentationNode {
       DOMList lXPathMatchedItems = null;
       if (!XFUtil.isNull(mXPath)) {
         try {
-          lXPathMatchedItems = lContextUElem.extendedXPathUL(pEvalContext, mXPath);
+          if(lPager != null) {
+            //Only resolve the current page's items
+            lXPathMatchedItems = lPager.evaluateXPathForCurrentPage(pEvaluatedParseTree.getRequestContext(), lContextUElem, pEvalContext, mXPath);
+          }
+          else {
+            lXPathMatchedItems = lContextUElem.extendedXPathUL(pEvalContext, mXPath);
+          }
         }
         catch (ExActionFailed e) {
           throw new ExInternal("Bad XPath " + mXPath + " specified in for-each presentation node", e);
         }
-
-        //Apply paging to results
-        if(lPager != null) {
-          lXPathMatchedItems = lPager.trimDOMListForCurrentPage(pEvaluatedParseTree.getRequestContext(), lXPathMatchedItems);
-        }
       }
 
       ForEachIterator lIterator = new ForEachIterator(!XFUtil.isNull(mXPath), mItemContextName, mStatusContextName, mRangeFrom, mRangeTo, mRangeStep);
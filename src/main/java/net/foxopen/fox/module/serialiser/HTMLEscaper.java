@@ -0,0 +1,108 @@
+package net.foxopen.fox.module.serialiser;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Escapes text for safe inclusion in HTML content and double-quoted attribute values. Only the markup-significant characters
+ * <tt>&amp; &lt; &gt; "</tt> are replaced with entity references. All other characters, including non-ASCII characters,
+ * are output as-is, which is safe as responses are always encoded as UTF-8.<br><br>
+ *
+ * Strings which do not contain any of these characters are output without any copying, so the common case of plain
+ * text values costs a single scan of the string.
+ */
+public final class HTMLEscaper {
+
+  private HTMLEscaper() {}
+
+  /**
+   * Gets the entity reference to use in place of the given character, or null if it does not need escaping.
+   */
+  private static String replacementFor(char pChar) {
+    switch (pChar) {
+      case '&':
+        return "&amp;";
+      case '<':
+        return "&lt;";
+      case '>':
+        return "&gt;";
+      case '"':
+        return "&quot;";
+      default:
+        return null;
+    }
+  }
+
+  private static int indexOfFirstEscapable(String pString) {
+    for(int i = 0; i < pString.length(); i++) {
+      if(replacementFor(pString.charAt(i)) != null) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Escapes the given string. If no characters need escaping the original string is returned.
+   * @param pString String to escape. Can be null.
+   * @return Escaped string, or null if pString was null.
+   */
+  public static String escape(String pString) {
+    if(pString == null) {
+      return null;
+    }
+
+    int lFirstEscapable = indexOfFirstEscapable(pString);
+    if(lFirstEscapable == -1) {
+      return pString;
+    }
+
+    StringBuilder lEscaped = new StringBuilder(pString.length() + 16);
+    lEscaped.append(pString, 0, lFirstEscapable);
+    for(int i = lFirstEscapable; i < pString.length(); i++) {
+      char lChar = pString.charAt(i);
+      String lReplacement = replacementFor(lChar);
+      if(lReplacement != null) {
+        lEscaped.append(lReplacement);
+      }
+      else {
+        lEscaped.append(lChar);
+      }
+    }
+    return lEscaped.toString();
+  }
+
+  /**
+   * Writes the given string to a Writer with any characters which need escaping replaced. Runs of characters between
+   * escapes are written directly from the source string, so no intermediate string is created.
+   * @param pWriter Destination Writer.
+   * @param pString String to escape and write. Can be null, in which case nothing is written.
+   * @throws IOException If the Writer fails.
+   */
+  public static void writeEscaped(Writer pWriter, String pString)
+  throws IOException {
+    if(pString == null) {
+      return;
+    }
+
+    int lLength = pString.length();
+    int lRunStart = 0;
+    for(int i = 0; i < lLength; i++) {
+      String lReplacement = replacementFor(pString.charAt(i));
+      if(lReplacement != null) {
+        if(i > lRunStart) {
+          pWriter.write(pString, lRunStart, i - lRunStart);
+        }
+        pWriter.write(lReplacement);
+        lRunStart = i + 1;
+      }
+    }
+
+    if(lRunStart == 0) {
+      pWriter.write(pString);
+    }
+    else if(lRunStart < lLength) {
+      pWriter.write(pString, lRunStart, lLength - lRunStart);
+    }
+  }
+}
@@ -39,4 +39,24 @@ public abstract class WriterOutputSerialiser implements OutputSerialiser {
     }
     return this;
   }
+
+  /**
+   * Appends a string with HTML markup characters escaped, writing directly to the underlying Writer. This should be used
+   * in preference to escaping a string and then appending it, as no intermediate string is created. See {@link HTMLEscaper}.
+   * @param pString String to escape and append. Can be null, in which case nothing is appended.
+   * @return This serialiser.
+   */
+  public WriterOutputSerialiser appendEscaped(String pString) {
+    if (mWriter == null) {
+      throw new ExInternal("Cannot append to WriterOutputSerialiser without calling setWriter() first");
+    }
+
+    try {
+      HTMLEscaper.writeEscaped(mWriter, pString);
+    }
+    catch (IOException e) {
+      throw new ExInternal("Appending escaped \"" + pString + "\" to response writer failed", e);
+    }
+    return this;
+  }
 }
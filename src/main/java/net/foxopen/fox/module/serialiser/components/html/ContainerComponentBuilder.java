@@ -1,11 +1,11 @@
 package net.foxopen.fox.module.serialiser.components.html;
 
 import net.foxopen.fox.module.parsetree.evaluatedpresentationnode.EvaluatedContainerPresentationNode;
+import net.foxopen.fox.module.serialiser.HTMLEscaper;
 import net.foxopen.fox.module.serialiser.SerialisationContext;
 import net.foxopen.fox.module.serialiser.components.ComponentBuilder;
 import net.foxopen.fox.module.serialiser.html.HTMLSerialiser;
 import net.foxopen.fox.thread.devtoolbar.DevToolbarContext;
-import org.apache.commons.lang3.StringEscapeUtils;
 
 
 public class ContainerComponentBuilder extends ComponentBuilder<HTMLSerialiser, EvaluatedContainerPresentationNode> {
@@ -22,13 +22,13 @@ public class ContainerComponentBuilder extends ComponentBuilder<HTMLSerialiser,
   public void buildComponent(SerialisationContext pSerialisationContext, HTMLSerialiser pSerialiser, EvaluatedContainerPresentationNode pEvalContainerNode) {
 
     if (pSerialiser.isInBody() && pSerialisationContext.getDevToolbarContext().isFlagOn(DevToolbarContext.Flag.HTML_GEN_DEBUG)) {
-      pSerialiser.addDebugInformation("<strong>Container Start:</strong> " + StringEscapeUtils.escapeHtml4(pEvalContainerNode.toString()));
+      pSerialiser.addDebugInformation("<strong>Container Start:</strong> " + HTMLEscaper.escape(pEvalContainerNode.toString()));
     }
 
     processChildren(pSerialisationContext, pSerialiser, pEvalContainerNode);
 
     if (pSerialiser.isInBody() && pSerialisationContext.getDevToolbarContext().isFlagOn(DevToolbarContext.Flag.HTML_GEN_DEBUG)) {
-      pSerialiser.addDebugInformation("<strong>Container End:</strong> " + StringEscapeUtils.escapeHtml4(pEvalContainerNode.toString()));
+      pSerialiser.addDebugInformation("<strong>Container End:</strong> " + HTMLEscaper.escape(pEvalContainerNode.toString()));
     }
   }
 }
@@ -22,7 +22,6 @@ import net.foxopen.fox.thread.devtoolbar.XPathBangHandler;
 import net.foxopen.fox.track.LatestTrackBangHandler;
 import net.foxopen.fox.track.Track;
 import net.foxopen.fox.track.TrackUtils;
-import org.apache.commons.lang3.StringEscapeUtils;
 
 import java.util.List;
 import java.util.Map;
@@ -98,11 +97,11 @@ public class DevToolbarComponentBuilder extends ComponentBuilder<HTMLSerialiser,
         lDOMViewURIBuilder.setParam(ViewDOMBangHandler.DOM_NAME_PARAM, lDomName);
         String lDOMViewURI = lDOMViewURIBuilder.buildBangHandlerURI(ViewDOMBangHandler.instance());
         pSerialiser.append("<li><a href=\"#\" onclick=\"FOXjs.openwin({url:'");
-        pSerialiser.append(StringEscapeUtils.escapeHtml4(lDOMViewURI));
+        pSerialiser.appendEscaped(lDOMViewURI);
         pSerialiser.append("',windowOptions:'appwin'});return false;\" id=\"");
-        pSerialiser.append(StringEscapeUtils.escapeHtml4(lDomName));
+        pSerialiser.appendEscaped(lDomName);
         pSerialiser.append( "-dom-link\">:{");
-        pSerialiser.append(StringEscapeUtils.escapeHtml4(lDomName));
+        pSerialiser.appendEscaped(lDomName);
         pSerialiser.append("}</a></li>\n");
       }
       pSerialiser.append("</ul>\n" +
@@ -116,9 +115,9 @@ public class DevToolbarComponentBuilder extends ComponentBuilder<HTMLSerialiser,
         lDebugPageURIBuilder.setParam(DebugPageBangHandler.DEBUG_PAGE_TYPE_PARAM_NAME, lDebugPage.toString());
         String lDebugURI = lDebugPageURIBuilder.buildBangHandlerURI(DebugPageBangHandler.instance());
         pSerialiser.append("<li><a href=\"#\" onclick=\"FOXjs.openwin({url:'");
-        pSerialiser.append(StringEscapeUtils.escapeHtml4(lDebugURI));
+        pSerialiser.appendEscaped(lDebugURI);
         pSerialiser.append("',windowOptions:'appwin'});return false;\">");
-        pSerialiser.append(StringEscapeUtils.escapeHtml4(XFUtil.initCap(lDebugPage.toString())));
+        pSerialiser.appendEscaped(XFUtil.initCap(lDebugPage.toString()));
         pSerialiser.append("</a></li>\n");
       }
 
@@ -225,7 +224,7 @@ public class DevToolbarComponentBuilder extends ComponentBuilder<HTMLSerialiser,
         catch (ExActionFailed e) {
           pSerialiser.append("(evaluation failed: " + e.getMessage() +")");
         }
-        pSerialiser.append(StringEscapeUtils.escapeHtml4(lResultSB.toString()));
+        pSerialiser.appendEscaped(lResultSB.toString());
         pSerialiser.append("</pre></li>");
       });
 
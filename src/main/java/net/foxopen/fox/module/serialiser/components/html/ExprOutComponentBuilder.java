@@ -1,10 +1,10 @@
 package net.foxopen.fox.module.serialiser.components.html;
 
 import net.foxopen.fox.module.parsetree.evaluatedpresentationnode.EvaluatedPresentationNode;
+import net.foxopen.fox.module.serialiser.HTMLEscaper;
 import net.foxopen.fox.module.serialiser.SerialisationContext;
 import net.foxopen.fox.module.serialiser.components.ComponentBuilder;
 import net.foxopen.fox.module.serialiser.html.HTMLSerialiser;
-import org.apache.commons.lang3.StringEscapeUtils;
 
 /**
  * Similar to the TextComponentBuilder, but linebreaks are converted for the serialiser
@@ -23,7 +23,7 @@ public class ExprOutComponentBuilder extends ComponentBuilder<HTMLSerialiser, Ev
   public void buildComponent(SerialisationContext pSerialisationContext, HTMLSerialiser pSerialiser, EvaluatedPresentationNode pEvalNode) {
     String lEvaluatedExpression = pEvalNode.getText();
     if (pEvalNode.isEscapingRequired()) {
-      lEvaluatedExpression = StringEscapeUtils.escapeHtml4(lEvaluatedExpression);
+      lEvaluatedExpression = HTMLEscaper.escape(lEvaluatedExpression);
     }
     pSerialiser.append(pSerialiser.escapeNewlines(lEvaluatedExpression));
   }
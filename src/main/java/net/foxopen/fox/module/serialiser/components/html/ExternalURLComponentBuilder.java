@@ -5,7 +5,6 @@ import net.foxopen.fox.module.parsetree.evaluatedpresentationnode.EvaluatedPrese
 import net.foxopen.fox.module.serialiser.SerialisationContext;
 import net.foxopen.fox.module.serialiser.components.ComponentBuilder;
 import net.foxopen.fox.module.serialiser.html.HTMLSerialiser;
-import org.apache.commons.lang3.StringEscapeUtils;
 
 /**
  * Builds an external URL with pre-evaluated attributes from an EvaluatedExternalURLPresentationNode
@@ -33,21 +32,21 @@ public class ExternalURLComponentBuilder extends ComponentBuilder<HTMLSerialiser
     // Choose between a non-js link and a FOXjs.openwin() windowOptions string
     if (NON_JS_LINK_TYPE.equals(lLinkType)) {
       pSerialiser.append("href=\"");
-      pSerialiser.append(StringEscapeUtils.escapeHtml4(lURI));
+      pSerialiser.appendEscaped(lURI);
       pSerialiser.append("\" target=\"_blank\" rel=\"noopener noreferrer\"");
     }
     else {
       pSerialiser.append("href=\"#\" onclick=\"FOXjs.openwin({url:'");
-      pSerialiser.append(StringEscapeUtils.escapeHtml4(lURI));
+      pSerialiser.appendEscaped(lURI);
       pSerialiser.append("',windowOptions:'");
-      pSerialiser.append(StringEscapeUtils.escapeHtml4(lLinkType));
+      pSerialiser.appendEscaped(lLinkType);
       pSerialiser.append("'});return false;\" title=\"");
-      pSerialiser.append(StringEscapeUtils.escapeHtml4(lExternalURLNode.getTitle()));
+      pSerialiser.appendEscaped(lExternalURLNode.getTitle());
       pSerialiser.append("\"");
     }
 
     pSerialiser.append(">");
-    pSerialiser.append(StringEscapeUtils.escapeHtml4(lExternalURLNode.getLinkText()));
+    pSerialiser.appendEscaped(lExternalURLNode.getLinkText());
     pSerialiser.append("</a>");
   }
 }
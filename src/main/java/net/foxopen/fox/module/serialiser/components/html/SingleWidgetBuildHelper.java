@@ -6,6 +6,7 @@ import net.foxopen.fox.module.LayoutDirection;
 import net.foxopen.fox.module.OutputError;
 import net.foxopen.fox.module.OutputHistory;
 import net.foxopen.fox.module.datanode.EvaluatedNode;
+import net.foxopen.fox.module.serialiser.HTMLEscaper;
 import net.foxopen.fox.module.serialiser.SerialisationContext;
 import net.foxopen.fox.module.serialiser.html.HTMLSerialiser;
 import net.foxopen.fox.module.serialiser.layout.items.LayoutWidgetItemColumn;
@@ -167,9 +168,9 @@ public class SingleWidgetBuildHelper {
       pSerialiser.append(lError.getContent());
       if (XFUtil.exists(lError.getErrorURL()) && XFUtil.exists(lError.getErrorURLPrompt())) {
         pSerialiser.append("<a href=\"");
-        pSerialiser.append(StringEscapeUtils.escapeHtml4(lError.getErrorURL()));
+        pSerialiser.appendEscaped(lError.getErrorURL());
         pSerialiser.append("\" class=\"error-url\">");
-        pSerialiser.append(StringEscapeUtils.escapeHtml4(lError.getErrorURLPrompt()));
+        pSerialiser.appendEscaped(lError.getErrorURLPrompt());
         pSerialiser.append("</a>");
       }
       pSerialiser.append("</div>");
@@ -215,9 +216,9 @@ public class SingleWidgetBuildHelper {
       }
       else {
         pSerialiser.append(" (");
-        pSerialiser.append(StringEscapeUtils.escapeHtml4(XFUtil.initCap(lHistory.getLabel())));
+        pSerialiser.appendEscaped(XFUtil.initCap(lHistory.getLabel()));
         pSerialiser.append(": ");
-        pSerialiser.append(StringEscapeUtils.escapeHtml4(XFUtil.initCap(lHistory.getValue())));
+        pSerialiser.appendEscaped(XFUtil.initCap(lHistory.getValue()));
         pSerialiser.append(")");
       }
       pSerialiser.append("</div></div>");
@@ -238,7 +239,7 @@ public class SingleWidgetBuildHelper {
       lItemDebugInfo.append(Joiner.on("</li><li>").join(pColumnItem.getItemNode().getNamespacePrecedenceList()));
       lItemDebugInfo.append("</li></ol></p>");
       lItemDebugInfo.append("<p>");
-      lItemDebugInfo.append(StringEscapeUtils.escapeHtml4(pColumnItem.getItemNode().getIdentityInformation()));
+      lItemDebugInfo.append(HTMLEscaper.escape(pColumnItem.getItemNode().getIdentityInformation()));
       lItemDebugInfo.append("</p>");
 
       lItemDebugInfo.append("<p><strong>DisplayOrder:</strong> ");
@@ -286,7 +287,7 @@ public class SingleWidgetBuildHelper {
     lItemDebugInfo.append(Joiner.on("</li><li>").join(pEvaluatedNode.getNamespacePrecedenceList()));
     lItemDebugInfo.append("</li></ol></p>");
     lItemDebugInfo.append("<p>");
-    lItemDebugInfo.append(StringEscapeUtils.escapeHtml4(pEvaluatedNode.getIdentityInformation()));
+    lItemDebugInfo.append(HTMLEscaper.escape(pEvaluatedNode.getIdentityInformation()));
     lItemDebugInfo.append("</p>");
     pSerialiser.addDebugInformation(lItemDebugInfo.toString());
   }
@@ -4,6 +4,7 @@ import net.foxopen.fox.XFUtil;
 import net.foxopen.fox.dom.DOM;
 import net.foxopen.fox.ex.ExInternal;
 import net.foxopen.fox.module.parsetree.evaluatedpresentationnode.EvaluatedBufferPresentationNode;
+import net.foxopen.fox.module.serialiser.HTMLEscaper;
 import net.foxopen.fox.module.serialiser.SerialisationContext;
 import net.foxopen.fox.module.serialiser.components.html.InfoBoxComponentBuilder;
 import net.foxopen.fox.thread.alert.AlertMessage;
@@ -86,7 +87,7 @@ public class HTMLAlertSerialiser {
   private static void escapeTitle(JSONObject pMessageProperties) {
     String lTitle = (String) pMessageProperties.get(RichAlertMessage.TITLE_JSON_PROPERTY_NAME);
     if(!XFUtil.isNull(lTitle)) {
-      pMessageProperties.put(RichAlertMessage.TITLE_JSON_PROPERTY_NAME, StringEscapeUtils.escapeHtml4(lTitle));
+      pMessageProperties.put(RichAlertMessage.TITLE_JSON_PROPERTY_NAME, HTMLEscaper.escape(lTitle));
     }
   }
 
@@ -122,7 +123,7 @@ public class HTMLAlertSerialiser {
 
     //Only escape HTML if required - otherwise, HTML can be passed through direct from module markup
     if(pRichTextAlertMessage.isEscapingRequired()) {
-      lMessage = StringEscapeUtils.escapeHtml4(lMessage);
+      lMessage = HTMLEscaper.escape(lMessage);
     }
 
     //Support conversion of "\n" strings into line breaks
@@ -186,7 +187,7 @@ public class HTMLAlertSerialiser {
       String lMessage = lFlashMessage.getMessage();
       //Escape HTML tags if required
       if(lFlashMessage.isEscapingRequired()) {
-        lMessage = StringEscapeUtils.escapeHtml4(lMessage);
+        lMessage = HTMLEscaper.escape(lMessage);
       }
 
       //Always need to escape JS characters like apostrophes
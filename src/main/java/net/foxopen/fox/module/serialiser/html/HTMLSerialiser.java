@@ -14,6 +14,7 @@ import net.foxopen.fox.module.evaluatedattributeresult.StringAttributeResult;
 import net.foxopen.fox.module.fieldset.action.InternalActionContext;
 import net.foxopen.fox.module.parsetree.EvaluatedParseTree;
 import net.foxopen.fox.module.parsetree.evaluatedpresentationnode.EvaluatedPresentationNode;
+import net.foxopen.fox.module.serialiser.HTMLEscaper;
 import net.foxopen.fox.module.serialiser.HtmlDoctype;
 import net.foxopen.fox.module.serialiser.SerialisationContext;
 import net.foxopen.fox.module.serialiser.TempSerialiser;
@@ -78,7 +79,6 @@ import net.foxopen.fox.module.serialiser.widgets.html.TimerWidgetBuilder;
 import net.foxopen.fox.module.serialiser.widgets.html.URLWidgetBuilder;
 import net.foxopen.fox.module.serialiser.widgets.html.UnimplementedWidgetBuilder;
 import net.foxopen.fox.track.Track;
-import org.apache.commons.lang3.StringEscapeUtils;
 import org.json.simple.JSONObject;
 
 import java.io.StringWriter;
@@ -248,7 +248,7 @@ extends WriterOutputSerialiser {
       if (pAddIcon) {
         if (XFUtil.exists(pHint.getHintURL())) {
           append("<a href=\"");
-          append(StringEscapeUtils.escapeHtml4(pHint.getHintURL()));
+          appendEscaped(pHint.getHintURL());
           append("\">");
         }
 
@@ -425,7 +425,7 @@ extends WriterOutputSerialiser {
     // Display stack trace here if we can, to help in case of serious mishap
     if (FoxGlobals.getInstance().canShowStackTracesOnError()) {
       append("<pre>");
-      append(StringEscapeUtils.escapeHtml4(XFUtil.getJavaStackTraceInfo(pThrowable)));
+      appendEscaped(XFUtil.getJavaStackTraceInfo(pThrowable));
       append("</pre>");
     }
 
@@ -450,7 +450,7 @@ extends WriterOutputSerialiser {
     }
 
     if (pStringAttributeResult.isEscapingRequired()) {
-      return StringEscapeUtils.escapeHtml4(pStringAttributeResult.getString());
+      return HTMLEscaper.escape(pStringAttributeResult.getString());
     }
     else {
       return pStringAttributeResult.getString();
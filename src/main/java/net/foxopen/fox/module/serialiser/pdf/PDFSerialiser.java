@@ -71,8 +71,9 @@ import net.foxopen.fox.module.serialiser.widgets.pdf.TextWidgetBuilder;
 import net.foxopen.fox.module.serialiser.widgets.pdf.TickboxWidgetBuilder;
 import net.foxopen.fox.module.serialiser.widgets.pdf.UnimplementedWidgetBuilder;
 import net.foxopen.fox.track.Track;
+import org.apache.commons.io.output.DeferredFileOutputStream;
 
-import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.OutputStream;
 import java.util.EnumMap;
 import java.util.LinkedList;
@@ -89,6 +90,12 @@ public class PDFSerialiser implements OutputSerialiser {
    * The name of the application that created the PDF, to be embedded in the PDF metadata
    */
   private static final String DOCUMENT_CREATOR_APPLICATION = "FOX";
+  /**
+   * The number of bytes of first pass output held in memory before it is spilled to a temporary file
+   */
+  private static final int FIRST_PASS_MEMORY_THRESHOLD_BYTES = 1024 * 1024;
+  private static final String FIRST_PASS_TEMP_FILE_PREFIX = "FoxPDFFirstPass";
+  private static final String FIRST_PASS_TEMP_FILE_SUFFIX = ".pdf";
   /**
    * The widget builders that should be used to serialise the specified widget builder types
    */
@@ -139,7 +146,7 @@ public class PDFSerialiser implements OutputSerialiser {
   private final boolean mIsIgnoreUnsupported;
   private final Document mDocument = new Document();
   private final PageManager mPageManager = new PageManager(mDocument);
-  private final FontManager mFontManager = new FontManager();
+  private final FontManager mFontManager = FontManager.getInstance();
   private final ElementAttributeManager mElementAttributeManager = new ElementAttributeManager();
   private final ElementContainerManager mElementContainerManager = new ElementContainerManager();
   private final CSSResolver mCSSResolver;
@@ -192,11 +199,36 @@ public class PDFSerialiser implements OutputSerialiser {
       throw new ExInternal("Output stream must not be null");
     }
 
-    // PDF serialisation is done in two passes, the first pass bytes are streamed first, the second pass will then
-    // stream the final document to pOutputStream
-    ByteArrayOutputStream lFirstPassOutput = new ByteArrayOutputStream();
+    // Headers and footers are rendered as each page ends where possible. Only if some could not be (i.e. they require
+    // the total page count) is a second pass needed, which re-reads the first pass output and streams the final document
+    // to pOutputStream. The first pass is held in memory up to a threshold and spilled to a temporary file beyond that,
+    // so large documents do not need to be held on the heap.
+    DeferredFileOutputStream lFirstPassOutput = new DeferredFileOutputStream(FIRST_PASS_MEMORY_THRESHOLD_BYTES, FIRST_PASS_TEMP_FILE_PREFIX,
+                                                                             FIRST_PASS_TEMP_FILE_SUFFIX, null);
+    try {
+      serialiseWithFirstPassOutput(pOutputStream, lFirstPassOutput);
+    }
+    finally {
+      // Remove the temporary file if the first pass output spilled to one
+      if (!lFirstPassOutput.isInMemory()) {
+        File lTempFile = lFirstPassOutput.getFile();
+        if (!lTempFile.delete() && lTempFile.exists()) {
+          Track.alert("PDFTempFileDelete", "Failed to delete first pass temporary file " + lTempFile.getAbsolutePath() + ", will retry on exit");
+          lTempFile.deleteOnExit();
+        }
+      }
+    }
+  }
+
+  /**
+   * Serialises the evaluated parse tree as a PDF to the first pass output, then post processes it if required and
+   * streams the final document to the output stream
+   * @param pOutputStream The output stream for the serialised PDF
+   * @param pFirstPassOutput The output stream for the first pass document
+   */
+  private void serialiseWithFirstPassOutput(OutputStream pOutputStream, DeferredFileOutputStream pFirstPassOutput) {
     // Opening a writer with the first pass output stream will allow the document to be opened and written to the stream
-    PdfWriter lWriter = openWriter(mDocument, lFirstPassOutput);
+    PdfWriter lWriter = openWriter(mDocument, pFirstPassOutput);
     // Set the document metadata (title, author etc.) provided to the serialiser
     setDocumentMetadata();
     // Page manager will handle document page events (i.e. page end)
@@ -228,13 +260,16 @@ public class PDFSerialiser implements OutputSerialiser {
       throw new ExInternal("The document was not opened because no content was serialised. Ensure your PDF buffer has content.");
     }
 
-    // Close the document - this completes the first pass output
+    // Close the document - this completes the first pass output and closes the first pass output stream
     mDocument.close();
 
-    // Apply second pass processing, currently the only post processing required is headers/footers
+    // Apply second pass processing if required, currently the only post processing required is deferred headers/footers.
+    // If there are no operations the first pass output is streamed to pOutputStream as is.
     PostProcessingManager lPostProcessingManager = new PostProcessingManager();
-    lPostProcessingManager.addPostProcessingOperation(new HeaderFooterPostProcessingOperation(mPageManager));
-    lPostProcessingManager.process(pOutputStream, lFirstPassOutput);
+    if (mPageManager.hasDeferredHeadersFooters()) {
+      lPostProcessingManager.addPostProcessingOperation(new HeaderFooterPostProcessingOperation(mPageManager));
+    }
+    lPostProcessingManager.process(pOutputStream, pFirstPassOutput);
   }
 
   @Override
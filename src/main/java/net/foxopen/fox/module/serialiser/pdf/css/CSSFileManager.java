@@ -8,20 +8,27 @@ import com.itextpdf.tool.xml.css.CssFilesImpl;
 import com.itextpdf.tool.xml.net.FileRetrieve;
 import com.itextpdf.tool.xml.net.FileRetrieveImpl;
 import net.foxopen.fox.FoxComponent;
+import net.foxopen.fox.cache.BuiltInCacheDefinition;
+import net.foxopen.fox.cache.CacheManager;
+import net.foxopen.fox.cache.FoxCache;
 import net.foxopen.fox.entrypoint.FoxGlobals;
 import net.foxopen.fox.ex.ExInternal;
 import net.foxopen.fox.module.CSSListItem;
 import net.foxopen.fox.module.serialiser.FoxComponentUtils;
 import net.foxopen.fox.module.serialiser.SerialisationContext;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
- * Loads CSS files from module CSS items (css-list)
+ * Loads CSS files from module CSS items (css-list). Parsed CSS files are shared engine-wide in the
+ * {@link BuiltInCacheDefinition#PDF_CSS_FILES} cache, keyed by their source and a modification marker, so the same
+ * stylesheets are not re-parsed for every PDF generated.
  */
 public class CSSFileManager {
   /**
@@ -73,13 +80,19 @@ public class CSSFileManager {
    */
   private CssFile getDefaultCSS() throws ExInternal {
     String lDefaultCssPath = FoxGlobals.getInstance().getServletContext().getRealPath(DEFAULT_CSS_RELATIVE_PATH);
-
-    try {
-      return getCSSFile(new FileInputStream(lDefaultCssPath));
-    }
-    catch (FileNotFoundException e) {
-      throw new ExInternal("Could not find default CSS '" + lDefaultCssPath + "'", e);
-    }
+    String lCacheKey = lDefaultCssPath + "@" + new File(lDefaultCssPath).lastModified();
+
+    return getCachedCSSFile(lCacheKey, () -> {
+      try (InputStream lInputStream = new FileInputStream(lDefaultCssPath)) {
+        return getCSSFile(lInputStream);
+      }
+      catch (FileNotFoundException e) {
+        throw new ExInternal("Could not find default CSS '" + lDefaultCssPath + "'", e);
+      }
+      catch (IOException e) {
+        throw new ExInternal("Failed to close default CSS '" + lDefaultCssPath + "'", e);
+      }
+    });
   }
 
   /**
@@ -113,7 +126,32 @@ public class CSSFileManager {
    */
   private CssFile getCSSFileFromComponent(SerialisationContext pSerialisationContext, String pComponentPath) {
     FoxComponent lCSSComponent = FoxComponentUtils.getComponent(pSerialisationContext, pComponentPath);
-    return getCSSFile(lCSSComponent.getInputStream());
+
+    // The component parse time changes whenever the component is reloaded from the database, so is used as the
+    // modification marker
+    String lCacheKey = pSerialisationContext.getApp().getMnemonicName() + "/" + lCSSComponent.getName() + "@"
+                     + lCSSComponent.getParseDateTime().getTime();
+
+    return getCachedCSSFile(lCacheKey, () -> getCSSFile(lCSSComponent.getInputStream()));
+  }
+
+  /**
+   * Returns the parsed CSS file for the cache key from the engine-wide cache, parsing and caching it if it has not been
+   * parsed already. The CSS files are immutable so may be shared between serialisers.
+   * @param pCacheKey The key of the CSS file, including a marker that changes when the source CSS is modified
+   * @param pCSSFileSupplier Supplies the parsed CSS file if it is not cached
+   * @return The parsed CSS file
+   */
+  private CssFile getCachedCSSFile(String pCacheKey, Supplier<CssFile> pCSSFileSupplier) {
+    FoxCache<String, CssFile> lCSSFileCache = CacheManager.getCache(BuiltInCacheDefinition.PDF_CSS_FILES);
+    CssFile lCSSFile = lCSSFileCache.get(pCacheKey);
+
+    if (lCSSFile == null) {
+      lCSSFile = pCSSFileSupplier.get();
+      lCSSFileCache.put(pCacheKey, lCSSFile);
+    }
+
+    return lCSSFile;
   }
 
   /**
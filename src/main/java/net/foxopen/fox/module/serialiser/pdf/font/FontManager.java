@@ -12,7 +12,8 @@ import java.util.Arrays;
 import java.util.List;
 
 /**
- * Loads fonts to be used in the document. Font selectors can then be created using the loaded fonts.
+ * Loads fonts to be used in documents. Font selectors can then be created using the loaded fonts. Font directories are
+ * registered with the process-wide iText font factory once, when the font manager instance is first requested.
  */
 public class FontManager {
   /**
@@ -24,10 +25,24 @@ public class FontManager {
    */
   private static final List<String> FONT_FAMILY_NAMES = Arrays.asList("Open Sans", "DejaVu Sans");
 
+  private static FontManager gInstance;
+
+  /**
+   * Returns the font manager, registering the font directories if this is the first time it has been requested
+   * @return The process-wide font manager
+   */
+  public static synchronized FontManager getInstance() {
+    if (gInstance == null) {
+      gInstance = new FontManager();
+    }
+
+    return gInstance;
+  }
+
   /**
    * Create a font manager with font directories registered
    */
-  public FontManager() {
+  private FontManager() {
     FONT_DIRECTORY_RELATIVE_PATHS.forEach(this::registerDirectory);
   }
 
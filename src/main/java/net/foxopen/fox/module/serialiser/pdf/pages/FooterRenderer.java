@@ -5,7 +5,7 @@ import net.foxopen.fox.module.serialiser.pdf.pages.pagenumbers.PageNumberPlaceho
 import java.util.List;
 
 /**
- * Renders a footer to a completed document
+ * Renders a footer to a document page
  */
 public class FooterRenderer extends HeaderFooterRenderer {
   /**
@@ -19,10 +19,9 @@ public class FooterRenderer extends HeaderFooterRenderer {
    * @param pPageAttributes The page attributes
    * @param pContent The header/footer content
    * @param pPageNumberPlaceholders A list of page number placeholders that should have the page numbers set when rendering
-   * @param pPageNumbers A list of page numbers that the header/footer should be rendered on
    */
   public FooterRenderer(PageAttributes pPageAttributes, HeaderFooterContent pContent,
-                        List<PageNumberPlaceholder> pPageNumberPlaceholders, List<Integer> pPageNumbers) {
-    super(POSITION_STRATEGY, pPageAttributes, pContent, pPageNumberPlaceholders, pPageNumbers);
+                        List<PageNumberPlaceholder> pPageNumberPlaceholders) {
+    super(POSITION_STRATEGY, pPageAttributes, pContent, pPageNumberPlaceholders);
   }
 }
@@ -4,7 +4,7 @@ import com.itextpdf.text.pdf.PdfStamper;
 import net.foxopen.fox.module.serialiser.pdf.postprocessing.PostProcessingOperation;
 
 /**
- * Renders headers and footers after the document has completed its first pass
+ * Renders headers and footers that could not be rendered during the first pass, after the document has completed it
  */
 public class HeaderFooterPostProcessingOperation implements PostProcessingOperation {
   private final PageManager mPageManager;
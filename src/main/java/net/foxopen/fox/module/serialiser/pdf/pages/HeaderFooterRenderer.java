@@ -1,20 +1,28 @@
 package net.foxopen.fox.module.serialiser.pdf.pages;
 
+import com.itextpdf.text.pdf.PdfContentByte;
 import com.itextpdf.text.pdf.PdfPTable;
 import com.itextpdf.text.pdf.PdfStamper;
+import net.foxopen.fox.ex.ExInternal;
 import net.foxopen.fox.module.serialiser.pdf.pages.pagenumbers.PageNumberPlaceholder;
 
 import java.util.List;
 
 /**
- * Renders a header or footer to a completed document
+ * Renders a header or footer to a document page, either as the page is ended during the first pass or to a completed
+ * document during post-processing
  */
 public abstract class HeaderFooterRenderer {
+  /**
+   * The total page count provided to page number placeholders when rendering during the first pass, where the total
+   * is not yet known
+   */
+  private static final int UNKNOWN_TOTAL_PAGE_COUNT = -1;
+
   private final HeaderFooterPositionStrategy mPositionStrategy;
   private final PageAttributes mPageAttributes;
   private final HeaderFooterContent mContent;
   private final List<PageNumberPlaceholder> mPageNumberPlaceholders;
-  private final List<Integer> mPageNumbers;
 
   /**
    * Creates a header or footer renderer
@@ -23,33 +31,66 @@ public abstract class HeaderFooterRenderer {
    * @param pPageAttributes The page attributes
    * @param pContent The header/footer content
    * @param pPageNumberPlaceholders A list of page number placeholders that should have the page numbers set when rendering
-   * @param pPageNumbers A list of page numbers that the header/footer should be rendered on
    */
   public HeaderFooterRenderer(HeaderFooterPositionStrategy pPositionStrategy, PageAttributes pPageAttributes,
-                              HeaderFooterContent pContent, List<PageNumberPlaceholder> pPageNumberPlaceholders,
-                              List<Integer> pPageNumbers) {
+                              HeaderFooterContent pContent, List<PageNumberPlaceholder> pPageNumberPlaceholders) {
     mPositionStrategy = pPositionStrategy;
     mPageAttributes = pPageAttributes;
     mContent = pContent;
     mPageNumberPlaceholders = pPageNumberPlaceholders;
-    mPageNumbers = pPageNumbers;
   }
 
   /**
-   * Render the header/footer to the document on the pages provided in the constructor. Page number placeholders are
-   * set during rendering.
+   * Returns true if the header/footer can be rendered as each page is ended, i.e. none of the page number placeholders
+   * require the total page count
+   * @return True if the header/footer can be rendered during the first pass
+   */
+  public boolean isRenderableDuringFirstPass() {
+    return mPageNumberPlaceholders.stream().noneMatch(PageNumberPlaceholder::isTotalPageCountRequired);
+  }
+
+  /**
+   * Render the header/footer to the page currently being ended during the first pass. Page number placeholders are set
+   * during rendering.
+   * @param pCanvas The direct content of the page being ended
+   * @param pPageNumber The number of the page being ended
+   * @throws ExInternal If the header/footer contains a placeholder that requires the total page count
+   */
+  public void render(PdfContentByte pCanvas, int pPageNumber) throws ExInternal {
+    if (!isRenderableDuringFirstPass()) {
+      throw new ExInternal("Cannot render header/footer during the first pass as it requires the total page count");
+    }
+
+    PdfPTable lTable = getContentTable();
+    renderPage(lTable, pCanvas, pPageNumber, UNKNOWN_TOTAL_PAGE_COUNT);
+  }
+
+  /**
+   * Render the header/footer to the completed document on the pages provided. Page number placeholders are set during
+   * rendering.
    * @param pStamper The stamper used to manipulate the completed document
+   * @param pPageNumbers A list of page numbers that the header/footer should be rendered on
    */
-  public void render(PdfStamper pStamper) {
+  public void render(PdfStamper pStamper, List<Integer> pPageNumbers) {
     PdfPTable lTable = getContentTable();
-    float lXPosition = mPageAttributes.getMarginLeft();
-    float lYPosition = mPositionStrategy.getYPosition(mPageAttributes, lTable.getTotalHeight());
     int lTotalPageCount = pStamper.getReader().getNumberOfPages();
 
-    mPageNumbers.forEach(pPageNumber -> {
-      mPageNumberPlaceholders.forEach(pPageNumberPlaceholder -> pPageNumberPlaceholder.setPageNumber(pPageNumber, lTotalPageCount));
-      lTable.writeSelectedRows(0, -1, lXPosition, lYPosition, pStamper.getOverContent(pPageNumber));
-    });
+    pPageNumbers.forEach(pPageNumber -> renderPage(lTable, pStamper.getOverContent(pPageNumber), pPageNumber, lTotalPageCount));
+  }
+
+  /**
+   * Set the page number placeholders and write the content table to the page canvas
+   * @param pTable The header/footer content table
+   * @param pCanvas The canvas of the page the header/footer is rendered to
+   * @param pPageNumber The number of the page the header/footer is rendered to
+   * @param pTotalPageCount The total page count
+   */
+  private void renderPage(PdfPTable pTable, PdfContentByte pCanvas, int pPageNumber, int pTotalPageCount) {
+    float lXPosition = mPageAttributes.getMarginLeft();
+    float lYPosition = mPositionStrategy.getYPosition(mPageAttributes, pTable.getTotalHeight());
+
+    mPageNumberPlaceholders.forEach(pPageNumberPlaceholder -> pPageNumberPlaceholder.setPageNumber(pPageNumber, pTotalPageCount));
+    pTable.writeSelectedRows(0, -1, lXPosition, lYPosition, pCanvas);
   }
 
   /**
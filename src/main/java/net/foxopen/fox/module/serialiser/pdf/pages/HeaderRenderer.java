@@ -5,7 +5,7 @@ import net.foxopen.fox.module.serialiser.pdf.pages.pagenumbers.PageNumberPlaceho
 import java.util.List;
 
 /**
- * Renders a header to a completed document
+ * Renders a header to a document page
  */
 public class HeaderRenderer extends HeaderFooterRenderer {
   /**
@@ -19,10 +19,9 @@ public class HeaderRenderer extends HeaderFooterRenderer {
    * @param pPageAttributes The page attributes
    * @param pContent The header/footer content
    * @param pPageNumberPlaceholders A list of page number placeholders that should have the page numbers set when rendering
-   * @param pPageNumbers A list of page numbers that the header/footer should be rendered on
    */
   public HeaderRenderer(PageAttributes pPageAttributes, HeaderFooterContent pContent,
-                        List<PageNumberPlaceholder> pPageNumberPlaceholders, List<Integer> pPageNumbers) {
-    super(POSITION_STRATEGY, pPageAttributes, pContent, pPageNumberPlaceholders, pPageNumbers);
+                        List<PageNumberPlaceholder> pPageNumberPlaceholders) {
+    super(POSITION_STRATEGY, pPageAttributes, pContent, pPageNumberPlaceholders);
   }
 }
@@ -2,6 +2,7 @@ package net.foxopen.fox.module.serialiser.pdf.pages;
 
 import com.itextpdf.text.Document;
 import com.itextpdf.text.Rectangle;
+import com.itextpdf.text.pdf.PdfContentByte;
 import com.itextpdf.text.pdf.PdfPageEventHelper;
 import com.itextpdf.text.pdf.PdfStamper;
 import com.itextpdf.text.pdf.PdfWriter;
@@ -11,8 +12,9 @@ import net.foxopen.fox.module.serialiser.pdf.pages.pagenumbers.PageNumberPlaceho
 
 import java.util.ArrayDeque;
 import java.util.Deque;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 
@@ -27,8 +29,10 @@ import java.util.Optional;
  * is ended, and a new page using the current page template begins when content is added.</p>
  *
  * <p>The header and footer content of pages created using a page template can be set any point during the lifetime of
- * the page template, as the content is added to the document during post-processing. The header and footer content is
- * the same for every page created using that page template.</p>
+ * the page template. Where possible the content is rendered as each page is ended, so the document is completed in a
+ * single pass. Pages that ended before the content was set, or content that requires the total page count (i.e. a last
+ * page number), are instead rendered during post-processing. The header and footer content is the same for every page
+ * created using that page template.</p>
  */
 public class PageManager extends PdfPageEventHelper {
   // Unfortunately it's not possible to simply deal with all applied to page numbers in a
@@ -60,10 +64,10 @@ public class PageManager extends PdfPageEventHelper {
    */
   private final Deque<PageTemplate> mPageTemplates = new ArrayDeque<>();
   /**
-   * A list of header/footer renderers. The renderers will output a header or footer to a document page during
-   * post-processing
+   * Header/footer renderers that could not render to every page during the first pass, mapped to the (live) list of
+   * page numbers they must be rendered to during post-processing
    */
-  private final List<HeaderFooterRenderer> mHeaderFooterRenderers = new LinkedList<>();
+  private final Map<HeaderFooterRenderer, List<Integer>> mDeferredHeaderFooterRenderers = new LinkedHashMap<>();
   /**
    * If true, a new page is added the next time content is serialised
    */
@@ -164,7 +168,8 @@ public class PageManager extends PdfPageEventHelper {
 
   /**
    * Sets the header content for the current page template. All pages created from that template will have the header
-   * applied to them during post-processing. Header content can only be set once per page template.
+   * applied to them, either as the page ends or during post-processing. Header content can only be set once per page
+   * template.
    * @param pHeaderContent The header content
    * @throws ExInternal If the header content for the page template has already been set
    */
@@ -174,7 +179,8 @@ public class PageManager extends PdfPageEventHelper {
 
   /**
    * Sets the footer content for the current page template. All pages created from that template will have the footer
-   * applied to them during post-processing. Footer content can only be set once per page template.
+   * applied to them, either as the page ends or during post-processing. Footer content can only be set once per page
+   * template.
    * @param pFooterContent The footer content
    * @throws ExInternal If the footer content for the page template has already been set
    */
@@ -183,8 +189,9 @@ public class PageManager extends PdfPageEventHelper {
   }
 
   /**
-   * Adds a placeholder for a page number. Page numbers are resolved during post-processing of the document when headers
-   * and footers are resolved, as the total number of pages are known then.
+   * Adds a placeholder for a page number. Page numbers are resolved when headers and footers are rendered. Placeholders
+   * that require the total page count cause the headers and footers of the page template to be rendered during
+   * post-processing of the document, as the total number of pages are known then.
    * @param pPageNumberPlaceholder
    */
   public void addPageNumberPlaceholder(PageNumberPlaceholder pPageNumberPlaceholder) {
@@ -192,24 +199,60 @@ public class PageManager extends PdfPageEventHelper {
   }
 
   /**
-   * Renders the headers and footers added to the page manager during first-pass serialisation to the document. Headers
-   * and footers are added to all pages created using the page template they belong to. Page number placeholders are
-   * resolved to the correct page number during rendering.
+   * Returns true if any headers or footers could not be rendered during first-pass serialisation, and so must be
+   * rendered to the completed document using {@link #renderHeadersFooters}
+   * @return True if post-processing is required to render headers or footers
+   */
+  public boolean hasDeferredHeadersFooters() {
+    return mDeferredHeaderFooterRenderers.values().stream().anyMatch(pPageNumbers -> !pPageNumbers.isEmpty());
+  }
+
+  /**
+   * Renders the headers and footers that could not be rendered during first-pass serialisation to the document. Page
+   * number placeholders are resolved to the correct page number during rendering.
    * @param pStamper A stamper over the first-pass document output
    */
   public void renderHeadersFooters(PdfStamper pStamper) {
-    mHeaderFooterRenderers.forEach(pRenderer -> pRenderer.render(pStamper));
+    mDeferredHeaderFooterRenderers.forEach((pRenderer, pPageNumbers) -> pRenderer.render(pStamper, pPageNumbers));
   }
 
   @Override
   public void onEndPage(PdfWriter pWriter, Document pDocument) {
-    // Record the page number of the ending page as a page created from the current template, so that post-processing
-    // of the template can manipulate the page if required (i.e. if adding headers and footers)
     // The page template that created the ending page is the last page template with content (this may not be the same
     // as the current page template, as for example the page may be ending due to a new page template being added)
     PageTemplate lPageTemplate = mLastTemplateWithContent.orElseThrow(
       () -> new ExInternal("A page end event has been encountered before content has been added to a page template"));
-    lPageTemplate.addPageNumberAppliedTo(pWriter.getCurrentPageNumber());
+    int lPageNumber = pWriter.getCurrentPageNumber();
+    PdfContentByte lCanvas = pWriter.getDirectContent();
+
+    // Render the header and footer straight onto the ending page if possible, otherwise record the page number so the
+    // header/footer can be rendered during post-processing
+    Optional<HeaderFooterRenderer> lHeaderRenderer = lPageTemplate.getHeaderContent().map(pContent -> createHeaderRenderer(lPageTemplate, pContent));
+    if (!renderDuringFirstPass(lHeaderRenderer, lCanvas, lPageNumber)) {
+      lPageTemplate.addHeaderPendingPageNumber(lPageNumber);
+    }
+
+    Optional<HeaderFooterRenderer> lFooterRenderer = lPageTemplate.getFooterContent().map(pContent -> createFooterRenderer(lPageTemplate, pContent));
+    if (!renderDuringFirstPass(lFooterRenderer, lCanvas, lPageNumber)) {
+      lPageTemplate.addFooterPendingPageNumber(lPageNumber);
+    }
+  }
+
+  /**
+   * Renders the header/footer to the ending page if it exists and does not require the total page count
+   * @param pRenderer The header/footer renderer, or empty if the header/footer content has not been set
+   * @param pCanvas The direct content of the ending page
+   * @param pPageNumber The number of the ending page
+   * @return True if the header/footer was rendered, false if it must be rendered during post-processing
+   */
+  private boolean renderDuringFirstPass(Optional<HeaderFooterRenderer> pRenderer, PdfContentByte pCanvas, int pPageNumber) {
+    if (pRenderer.isPresent() && pRenderer.get().isRenderableDuringFirstPass()) {
+      pRenderer.get().render(pCanvas, pPageNumber);
+      return true;
+    }
+    else {
+      return false;
+    }
   }
 
   /**
@@ -246,23 +289,39 @@ public class PageManager extends PdfPageEventHelper {
   }
 
   /**
-   * Adds header and footer renderers for the given page template. A renderer is added for each page that was created
-   * using the page template.
+   * Adds deferred header and footer renderers for the given page template. The renderers are given the live lists of
+   * pages pending header/footer rendering, as the last page created using the page template may not have ended yet.
    * @param pPageTemplate The page template that may contain header or footer content
    */
   private void addHeaderFooterRenderers(PageTemplate pPageTemplate) {
-    PageAttributes lPageAttributes = pPageTemplate.getPageAttributes();
-    List<PageNumberPlaceholder> lPageNumberPlaceholders = pPageTemplate.getPageNumberPlaceholders();
-    List<Integer> lPageNumbers = pPageTemplate.getPageNumbersAppliedTo();
-
     pPageTemplate.getHeaderContent().ifPresent(pHeaderContent -> {
-      HeaderRenderer lHeaderRenderer = new HeaderRenderer(lPageAttributes, pHeaderContent, lPageNumberPlaceholders, lPageNumbers);
-      mHeaderFooterRenderers.add(lHeaderRenderer);
+      HeaderRenderer lHeaderRenderer = createHeaderRenderer(pPageTemplate, pHeaderContent);
+      mDeferredHeaderFooterRenderers.put(lHeaderRenderer, pPageTemplate.getHeaderPendingPageNumbers());
     });
 
     pPageTemplate.getFooterContent().ifPresent(pFooterContent -> {
-      FooterRenderer lFooterRenderer = new FooterRenderer(lPageAttributes, pFooterContent, lPageNumberPlaceholders, lPageNumbers);
-      mHeaderFooterRenderers.add(lFooterRenderer);
+      FooterRenderer lFooterRenderer = createFooterRenderer(pPageTemplate, pFooterContent);
+      mDeferredHeaderFooterRenderers.put(lFooterRenderer, pPageTemplate.getFooterPendingPageNumbers());
     });
   }
+
+  /**
+   * Creates a header renderer for the page template
+   * @param pPageTemplate The page template the header belongs to
+   * @param pHeaderContent The header content
+   * @return A header renderer for the page template
+   */
+  private HeaderRenderer createHeaderRenderer(PageTemplate pPageTemplate, HeaderFooterContent pHeaderContent) {
+    return new HeaderRenderer(pPageTemplate.getPageAttributes(), pHeaderContent, pPageTemplate.getPageNumberPlaceholders());
+  }
+
+  /**
+   * Creates a footer renderer for the page template
+   * @param pPageTemplate The page template the footer belongs to
+   * @param pFooterContent The footer content
+   * @return A footer renderer for the page template
+   */
+  private FooterRenderer createFooterRenderer(PageTemplate pPageTemplate, HeaderFooterContent pFooterContent) {
+    return new FooterRenderer(pPageTemplate.getPageAttributes(), pFooterContent, pPageTemplate.getPageNumberPlaceholders());
+  }
 }
@@ -31,9 +31,15 @@ public class PageTemplate {
    */
   private List<PageNumberPlaceholder> mPageNumberPlaceholders = new LinkedList<>();
   /**
-   * The numbers of pages created using this template
+   * The numbers of pages created using this template that could not have the header rendered when the page ended
+   * (i.e. the header content was not yet set, or requires the total page count) and must be post-processed
    */
-  private List<Integer> mPageNumbersAppliedTo = new LinkedList<>();
+  private List<Integer> mHeaderPendingPageNumbers = new LinkedList<>();
+  /**
+   * The numbers of pages created using this template that could not have the footer rendered when the page ended
+   * (i.e. the footer content was not yet set, or requires the total page count) and must be post-processed
+   */
+  private List<Integer> mFooterPendingPageNumbers = new LinkedList<>();
 
   /**
    * Creates a page template with the given attributes
@@ -114,18 +120,36 @@ public class PageTemplate {
   }
 
   /**
-   * Add the number of a page that has been created using this page template
+   * Add the number of a page created using this page template that still requires the header to be rendered during
+   * post-processing
+   * @param pPageNumber The number of the page created using this template
+   */
+  public void addHeaderPendingPageNumber(int pPageNumber) {
+    mHeaderPendingPageNumbers.add(pPageNumber);
+  }
+
+  /**
+   * Return the page numbers of pages created using this page template that still require the header to be rendered
+   * @return The page numbers of pages pending header rendering
+   */
+  public List<Integer> getHeaderPendingPageNumbers() {
+    return mHeaderPendingPageNumbers;
+  }
+
+  /**
+   * Add the number of a page created using this page template that still requires the footer to be rendered during
+   * post-processing
    * @param pPageNumber The number of the page created using this template
    */
-  public void addPageNumberAppliedTo(int pPageNumber) {
-    mPageNumbersAppliedTo.add(pPageNumber);
+  public void addFooterPendingPageNumber(int pPageNumber) {
+    mFooterPendingPageNumbers.add(pPageNumber);
   }
 
   /**
-   * Return the page numbers of pages created using this page template
-   * @return the page numbers of pages created using this page template
+   * Return the page numbers of pages created using this page template that still require the footer to be rendered
+   * @return The page numbers of pages pending footer rendering
    */
-  public List<Integer> getPageNumbersAppliedTo() {
-    return mPageNumbersAppliedTo;
+  public List<Integer> getFooterPendingPageNumbers() {
+    return mFooterPendingPageNumbers;
   }
 }
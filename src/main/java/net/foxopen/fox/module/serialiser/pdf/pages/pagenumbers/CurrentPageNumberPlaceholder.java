@@ -26,4 +26,13 @@ public class CurrentPageNumberPlaceholder extends AbstractPageNumberPlaceholder
   public void setPageNumber(int pCurrentPageNumber, int pTotalPageCount) {
     setPageNumber(pCurrentPageNumber);
   }
+
+  /**
+   * The current page number is known when the page ends, so the total page count is not required
+   * @return False
+   */
+  @Override
+  public boolean isTotalPageCountRequired() {
+    return false;
+  }
 }
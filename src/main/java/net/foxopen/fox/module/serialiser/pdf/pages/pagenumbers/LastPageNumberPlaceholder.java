@@ -26,4 +26,13 @@ public class LastPageNumberPlaceholder extends AbstractPageNumberPlaceholder {
   public void setPageNumber(int pCurrentPageNumber, int pTotalPageCount) {
     setPageNumber(pTotalPageCount);
   }
+
+  /**
+   * The last page number is only known once the document has been completed
+   * @return True
+   */
+  @Override
+  public boolean isTotalPageCountRequired() {
+    return true;
+  }
 }
@@ -10,4 +10,11 @@ public interface PageNumberPlaceholder {
    * @param pTotalPageCount The total page count
    */
   public void setPageNumber(int pCurrentPageNumber, int pTotalPageCount);
+
+  /**
+   * Returns true if the placeholder can only be resolved once the total page count is known (i.e. after the document
+   * has been completed), false if it can be resolved as each page is ended
+   * @return True if the total page count is required to resolve the placeholder
+   */
+  public boolean isTotalPageCountRequired();
 }
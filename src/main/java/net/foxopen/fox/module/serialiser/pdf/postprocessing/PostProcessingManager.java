@@ -4,15 +4,16 @@ import com.itextpdf.text.DocumentException;
 import com.itextpdf.text.pdf.PdfReader;
 import com.itextpdf.text.pdf.PdfStamper;
 import net.foxopen.fox.ex.ExInternal;
+import org.apache.commons.io.output.DeferredFileOutputStream;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.LinkedList;
 import java.util.List;
 
 /**
- * Manipulates a document after the first pass has been completed, to apply post processing operations
+ * Manipulates a document after the first pass has been completed, to apply post processing operations. If no post
+ * processing operations have been added the first-pass source is streamed to the output as is, without being re-read.
  */
 public class PostProcessingManager {
   private final List<PostProcessingOperation> mPostProcessingOperations = new LinkedList<>();
@@ -28,25 +29,58 @@ public class PostProcessingManager {
 
   /**
    * Process the first-pass source, applying any post processing operations that have been added, and stream to the
-   * output.
+   * output. The source must have been closed before processing.
    * @param pOutput The post processing output
+   * @param pSource The source document bytes, held in memory or spilled to a temporary file
+   */
+  public void process(OutputStream pOutput, DeferredFileOutputStream pSource) {
+    if (mPostProcessingOperations.isEmpty()) {
+      copySource(pOutput, pSource);
+    }
+    else {
+      PdfReader lReader = getReader(pSource);
+      try {
+        PdfStamper lStamper = getStamper(pOutput, lReader);
+        mPostProcessingOperations.forEach(pOperation -> pOperation.process(lStamper));
+        closeStamper(lStamper);
+      }
+      finally {
+        // Release the reader's hold on the source, which may be a temporary file that is deleted after processing
+        lReader.close();
+      }
+    }
+  }
+
+  /**
+   * Streams the source document to the output unmodified
+   * @param pOutput The output stream
    * @param pSource The source document bytes
+   * @throws ExInternal If the source could not be written to the output
    */
-  public void process(OutputStream pOutput, ByteArrayOutputStream pSource) {
-    PdfStamper lStamper = getStamper(pOutput, getReader(pSource));
-    mPostProcessingOperations.forEach(pOperation -> pOperation.process(lStamper));
-    closeStamper(lStamper);
+  private void copySource(OutputStream pOutput, DeferredFileOutputStream pSource) throws ExInternal {
+    try {
+      pSource.writeTo(pOutput);
+    }
+    catch (IOException e) {
+      throw new ExInternal("Failed to write first pass output", e);
+    }
   }
 
   /**
-   * Return a reader for the PDF bytes provided in source
+   * Return a reader for the PDF bytes provided in source. Sources that have spilled to a temporary file are read
+   * partially, so the document is not loaded into memory in full.
    * @param pSource The PDF output stream
    * @return A reader for the source PDF
    * @throws ExInternal If the source output stream could not be read
    */
-  private PdfReader getReader(ByteArrayOutputStream pSource) throws ExInternal {
+  private PdfReader getReader(DeferredFileOutputStream pSource) throws ExInternal {
     try {
-      return new PdfReader(pSource.toByteArray());
+      if (pSource.isInMemory()) {
+        return new PdfReader(pSource.getData());
+      }
+      else {
+        return new PdfReader(pSource.getFile().getAbsolutePath(), null, true);
+      }
     }
     catch (IOException e) {
       throw new ExInternal("Failed to read source output stream for post processing", e);
@@ -70,7 +104,7 @@ public class PostProcessingManager {
   }
 
   /**
-   * Closes the stamper and its associated reader
+   * Closes the stamper, writing the processed document to its output stream. The stamper's reader is not closed.
    * @param pStamper The stamper to close
    * @throws ExInternal If the stamper could not be closed
    */
@@ -10,11 +10,11 @@ import net.foxopen.fox.module.datanode.NodeAttribute;
 import net.foxopen.fox.module.datanode.NodeEvaluationContext;
 import net.foxopen.fox.module.datanode.NodeInfo;
 import net.foxopen.fox.module.evaluatedattributeresult.StringAttributeResult;
+import net.foxopen.fox.module.serialiser.HTMLEscaper;
 import net.foxopen.fox.module.serialiser.SerialisationContext;
 import net.foxopen.fox.module.serialiser.fragmentbuilder.MustacheFragmentBuilder;
 import net.foxopen.fox.module.serialiser.html.HTMLSerialiser;
 import net.foxopen.fox.module.serialiser.widgets.WidgetBuilder;
-import org.apache.commons.lang3.StringEscapeUtils;
 
 import java.util.Arrays;
 import java.util.Map;
@@ -69,7 +69,7 @@ public class ErrorRefWidgetBuilder extends WidgetBuilderHTMLSerialiser<Evaluated
     else {
       // TODO - NP - This should be done higher up, at pEvalNode creation perhaps?
       pSerialisationContext.getFieldSet().registerExternalRunnableAction(lErrorItemNavAction, lErrorItemDOMRef);
-      lTemplateVars.put("AttributeSafeActionJS", StringEscapeUtils.escapeHtml4("FOXjs.action({ref:'" + lErrorItemNavAction + "', ctxt:'" + lErrorItemDOMRef + "'});"));
+      lTemplateVars.put("AttributeSafeActionJS", HTMLEscaper.escape("FOXjs.action({ref:'" + lErrorItemNavAction + "', ctxt:'" + lErrorItemDOMRef + "'});"));
     }
 
     MustacheFragmentBuilder.applyMapToTemplate(MUSTACHE_TEMPLATE, lTemplateVars, pSerialiser.getWriter());
@@ -4,12 +4,12 @@ import net.foxopen.fox.XFUtil;
 import net.foxopen.fox.module.datanode.EvaluatedNode;
 import net.foxopen.fox.module.datanode.NodeAttribute;
 import net.foxopen.fox.module.datanode.NodeVisibility;
+import net.foxopen.fox.module.serialiser.HTMLEscaper;
 import net.foxopen.fox.module.serialiser.SerialisationContext;
 import net.foxopen.fox.module.serialiser.fragmentbuilder.MustacheFragmentBuilder;
 import net.foxopen.fox.module.serialiser.html.HTMLSerialiser;
 import net.foxopen.fox.module.serialiser.widgets.WidgetBuilder;
 import net.foxopen.fox.module.serialiser.widgets.WidgetBuilderType;
-import org.apache.commons.lang3.StringEscapeUtils;
 
 import java.util.Map;
 
@@ -79,7 +79,7 @@ public class InputWidgetBuilder extends WidgetBuilderHTMLSerialiser<EvaluatedNod
       }
       else {
         //Manually escape for now as mustache auto-escape corrupts these entities (see use of {{{x}}} in textarea template instead of {{x}})
-        lTextValue = StringEscapeUtils.escapeHtml4(lTextValue);
+        lTextValue = HTMLEscaper.escape(lTextValue);
         //Convert newlines to HTML entities for standards conformance
         lTextValue = lTextValue.replaceAll("\r?\n", "&#13;&#10;");
         lTemplateVars.put("Value", lTextValue);
@@ -11,6 +11,7 @@ import net.foxopen.fox.module.datanode.NodeVisibility;
 import net.foxopen.fox.module.evaluatedattributeresult.StringAttributeResult;
 import net.foxopen.fox.module.parsetree.evaluatedpresentationnode.EvaluatedPresentationNode;
 import net.foxopen.fox.module.parsetree.presentationnode.PresentationNode;
+import net.foxopen.fox.module.serialiser.HTMLEscaper;
 import net.foxopen.fox.module.serialiser.SerialisationContext;
 import net.foxopen.fox.module.serialiser.TempSerialiser;
 import net.foxopen.fox.module.serialiser.components.html.SingleWidgetBuildHelper;
@@ -21,7 +22,6 @@ import net.foxopen.fox.module.serialiser.widgets.WidgetBuilderType;
 import net.foxopen.fox.thread.devtoolbar.DevToolbarContext;
 import net.foxopen.fox.track.Track;
 import net.foxopen.fox.track.TrackFlag;
-import org.apache.commons.lang3.StringEscapeUtils;
 
 import java.util.Collection;
 import java.util.HashMap;
@@ -176,7 +176,7 @@ public class ListWidgetBuilder extends WidgetBuilderHTMLSerialiser<EvaluatedNode
           lItemDebugInfo.append(Joiner.on("</li><li>").join(lTitleNode.getNamespacePrecedenceList()));
           lItemDebugInfo.append("</li></ol></p>");
           lItemDebugInfo.append("<p>");
-          lItemDebugInfo.append(StringEscapeUtils.escapeHtml4(lTitleNode.getIdentityInformation()));
+          lItemDebugInfo.append(HTMLEscaper.escape(lTitleNode.getIdentityInformation()));
           lItemDebugInfo.append("</p>");
           pSerialiser.addDebugInformation(lItemDebugInfo.toString());
         }
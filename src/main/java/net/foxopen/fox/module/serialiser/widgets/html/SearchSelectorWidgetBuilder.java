@@ -17,12 +17,12 @@ import net.foxopen.fox.module.fieldset.fieldmgr.OptionFieldMgr;
 import net.foxopen.fox.module.fieldset.fvm.FieldSelectOption;
 import net.foxopen.fox.module.fieldset.fvm.FieldValueMapping;
 import net.foxopen.fox.module.mapset.JITMapSet;
+import net.foxopen.fox.module.serialiser.HTMLEscaper;
 import net.foxopen.fox.module.serialiser.SerialisationContext;
 import net.foxopen.fox.module.serialiser.fragmentbuilder.MustacheFragmentBuilder;
 import net.foxopen.fox.module.serialiser.html.HTMLSerialiser;
 import net.foxopen.fox.module.serialiser.widgets.OptionWidgetUtils;
 import net.foxopen.fox.module.serialiser.widgets.WidgetBuilder;
-import org.apache.commons.lang3.StringEscapeUtils;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 
@@ -265,7 +265,7 @@ public class SearchSelectorWidgetBuilder extends WidgetBuilderHTMLSerialiser<Eva
         if (lFreeTextMessage != null) {
           String lSafeMessage;
           if (lFreeTextMessage.isEscapingRequired()) {
-            lSafeMessage = StringEscapeUtils.escapeHtml4(lFreeTextMessage.getString());
+            lSafeMessage = HTMLEscaper.escape(lFreeTextMessage.getString());
           }
           else {
             lSafeMessage = lFreeTextMessage.getString();
@@ -332,7 +332,7 @@ public class SearchSelectorWidgetBuilder extends WidgetBuilderHTMLSerialiser<Eva
 
       // Add suggestion text (if none in mapset the JS will use the key safely escaped)
       if (!XFUtil.isNull(lSuggestion)) {
-        lJSONEntry.put(SUGGESTION_DISPLAY_JSON_PROPERTY, StringEscapeUtils.escapeHtml4(lSuggestion.replaceAll("%IMAGE_BASE%", pBaseURL)));
+        lJSONEntry.put(SUGGESTION_DISPLAY_JSON_PROPERTY, HTMLEscaper.escape(lSuggestion.replaceAll("%IMAGE_BASE%", pBaseURL)));
       }
 
       lJSONEntry.put(HIDDEN_SEARCHABLE_JSON_PROPERTY, XFUtil.nvl(lHiddenSearchable, ""));
@@ -3,11 +3,11 @@ package net.foxopen.fox.module.serialiser.widgets.html;
 import net.foxopen.fox.XFUtil;
 import net.foxopen.fox.module.datanode.EvaluatedNode;
 import net.foxopen.fox.module.datanode.NodeAttribute;
+import net.foxopen.fox.module.serialiser.HTMLEscaper;
 import net.foxopen.fox.module.serialiser.SerialisationContext;
 import net.foxopen.fox.module.serialiser.fragmentbuilder.MustacheFragmentBuilder;
 import net.foxopen.fox.module.serialiser.html.HTMLSerialiser;
 import net.foxopen.fox.module.serialiser.widgets.WidgetBuilder;
-import org.apache.commons.lang3.StringEscapeUtils;
 
 import java.util.Map;
 
@@ -42,7 +42,7 @@ public class TextWidgetBuilder extends WidgetBuilderHTMLSerialiser<EvaluatedNode
       lTextValue = XFUtil.nvl(pEvalNode.getStringAttribute(NodeAttribute.EMPTY_TEXT), "");
     }
 
-    lTemplateVars.put("UnescapedValue", StringEscapeUtils.escapeHtml4(lTextValue).replaceAll("\r?\n","<br>"));
+    lTemplateVars.put("UnescapedValue", HTMLEscaper.escape(lTextValue).replaceAll("\r?\n","<br>"));
 
     MustacheFragmentBuilder.applyMapToTemplate(TEXT_MUSTACHE_TEMPLATE, lTemplateVars, pSerialiser.getWriter());
   }
@@ -3,12 +3,12 @@ package net.foxopen.fox.module.serialiser.widgets.html;
 import net.foxopen.fox.XFUtil;
 import net.foxopen.fox.module.datanode.EvaluatedNode;
 import net.foxopen.fox.module.datanode.NodeAttribute;
+import net.foxopen.fox.module.serialiser.HTMLEscaper;
 import net.foxopen.fox.module.serialiser.SerialisationContext;
 import net.foxopen.fox.module.serialiser.components.html.ExternalURLComponentBuilder;
 import net.foxopen.fox.module.serialiser.fragmentbuilder.MustacheFragmentBuilder;
 import net.foxopen.fox.module.serialiser.html.HTMLSerialiser;
 import net.foxopen.fox.module.serialiser.widgets.WidgetBuilder;
-import org.apache.commons.lang3.StringEscapeUtils;
 
 import java.util.Map;
 
@@ -44,11 +44,11 @@ public class URLWidgetBuilder extends WidgetBuilderHTMLSerialiser<EvaluatedNode>
       // Choose between a non-js link and a FOXjs.openwin() windowOptions string
       String lLinkType = pEvalNode.getStringAttribute(NodeAttribute.LINK_TYPE, ExternalURLComponentBuilder.NON_JS_LINK_TYPE);
       if (ExternalURLComponentBuilder.NON_JS_LINK_TYPE.equals(lLinkType)) {
-        lTemplateVars.put("ActionHref", StringEscapeUtils.escapeHtml4(lURL));
+        lTemplateVars.put("ActionHref", HTMLEscaper.escape(lURL));
         lTemplateVars.put("TargetBlank", true);
       }
       else {
-        lTemplateVars.put("AttributeSafeActionJS", StringEscapeUtils.escapeHtml4(HTMLSerialiser.buildFOXjsOpenWinJSON(lURL, lLinkType)));
+        lTemplateVars.put("AttributeSafeActionJS", HTMLEscaper.escape(HTMLSerialiser.buildFOXjsOpenWinJSON(lURL, lLinkType)));
       }
 
       lTemplateVars.put("PromptText", XFUtil.nvl(lTemplateVars.get("PromptText"), lURL));
@@ -14,13 +14,13 @@ import net.foxopen.fox.module.datanode.NodeVisibility;
 import net.foxopen.fox.module.fieldset.fieldmgr.FieldMgr;
 import net.foxopen.fox.module.parsetree.evaluatedpresentationnode.EvaluatedPresentationNode;
 import net.foxopen.fox.module.parsetree.presentationnode.PresentationNode;
+import net.foxopen.fox.module.serialiser.HTMLEscaper;
 import net.foxopen.fox.module.serialiser.SerialisationContext;
 import net.foxopen.fox.module.serialiser.TempSerialiser;
 import net.foxopen.fox.module.serialiser.fragmentbuilder.MustacheFragmentBuilder;
 import net.foxopen.fox.module.serialiser.html.HTMLSerialiser;
 import net.foxopen.fox.module.serialiser.widgets.WidgetBuilder;
 import net.foxopen.fox.module.serialiser.widgets.WidgetBuilderType;
-import org.apache.commons.lang3.StringEscapeUtils;
 import org.json.simple.JSONObject;
 
 import java.util.ArrayList;
@@ -99,7 +99,7 @@ extends WidgetBuilder<HTMLSerialiser, EN>  {
     //All other HTML must be escaped here as confirms are not currently designed to support formatting
     if(XFUtil.exists(pOptionalConfirm)) {
       pOptionalConfirm = pOptionalConfirm.replace("\\n", "##SAFE_ESCAPE_LINEBREAK##");
-      pOptionalConfirm = StringEscapeUtils.escapeHtml4(pOptionalConfirm);
+      pOptionalConfirm = HTMLEscaper.escape(pOptionalConfirm);
       pOptionalConfirm = pOptionalConfirm.replace("##SAFE_ESCAPE_LINEBREAK##", "<br>");
       lActionJSON.put("confirm", pOptionalConfirm);
     }
@@ -122,7 +122,7 @@ extends WidgetBuilder<HTMLSerialiser, EN>  {
       pTemplateVars.put("ActionHref", lURI);
     }
     else {
-      pTemplateVars.put("AttributeSafeActionJS", StringEscapeUtils.escapeHtml4(getActionSubmitString(pEvalNode)));
+      pTemplateVars.put("AttributeSafeActionJS", HTMLEscaper.escape(getActionSubmitString(pEvalNode)));
       pTemplateVars.put("RawActionJS", getActionSubmitString(pEvalNode));
     }
   }
@@ -2,6 +2,7 @@ package net.foxopen.fox.thread;
 
 import net.foxopen.fox.App;
 import net.foxopen.fox.ContextLabel;
+import net.foxopen.fox.ContextUCon;
 import net.foxopen.fox.ContextUElem;
 import net.foxopen.fox.FoxResponse;
 import net.foxopen.fox.FoxResponseCHAR;
@@ -135,6 +136,9 @@ implements XThreadInterface, ThreadInfoProvider, Persistable {
    */
   static StatefulXThread getAndLockXThread(RequestContext pRequestContext, String pThreadId)
   throws ExInvalidThreadId {
+    //Wait for any write-behind from this thread's previous churn, which will release the lock when it completes
+    DatabasePersistenceContext.awaitWriteBehind(pThreadId);
+
     //Lock the thread symbolically before doing anything else
     String lDbChangeNumber;
     Track.pushInfo("LockThread", pThreadId, TrackTimer.THREAD_LOCK);
@@ -217,6 +221,16 @@ implements XThreadInterface, ThreadInfoProvider, Persistable {
     }
   }
 
+  /**
+   * Releases the lock on a thread from outside of a request, i.e. once its write-behind has completed.
+   * NOTE: THIS COMMITS THE TOP UCON
+   * @param pContextUCon ContextUCon to unlock the thread with.
+   * @param pThreadId ID of the thread to unlock.
+   */
+  static void unlockThread(ContextUCon pContextUCon, String pThreadId) {
+    StatefulXThreadLocker.releaseLock(pContextUCon, pThreadId);
+  }
+
   private static StatefulXThread deserialise(RequestContext pRequestContext, String pThreadId) {
 
     Track.pushInfo("DeserialiseXThread", "Deserialising thread " + pThreadId + " from database", TrackTimer.THREAD_DESERIALISE);
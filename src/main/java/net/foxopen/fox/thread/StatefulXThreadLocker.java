@@ -1,5 +1,6 @@
 package net.foxopen.fox.thread;
 
+import net.foxopen.fox.ContextUCon;
 import net.foxopen.fox.XFUtil;
 import net.foxopen.fox.database.UCon;
 import net.foxopen.fox.database.UConStatementResult;
@@ -106,12 +107,21 @@ class StatefulXThreadLocker {
    * @param pThreadId
    */
   static void releaseLock(RequestContext pRequestContext, String pThreadId) {
-    UCon lUCon = pRequestContext.getContextUCon().getUCon("Unlock Thread " + pThreadId);
+    releaseLock(pRequestContext.getContextUCon(), pThreadId);
+  }
+
+  /**
+   * NOTE: THIS COMMITS THE TOP UCON
+   * @param pContextUCon
+   * @param pThreadId
+   */
+  static void releaseLock(ContextUCon pContextUCon, String pThreadId) {
+    UCon lUCon = pContextUCon.getUCon("Unlock Thread " + pThreadId);
     try {
       unlock(lUCon, pThreadId);
     }
     finally {
-      pRequestContext.getContextUCon().returnUCon(lUCon, "Unlock Thread " + pThreadId);
+      pContextUCon.returnUCon(lUCon, "Unlock Thread " + pThreadId);
     }
   }
 }
@@ -1,6 +1,7 @@
 package net.foxopen.fox.thread;
 
 import net.foxopen.fox.ContextUCon;
+import net.foxopen.fox.entrypoint.FoxGlobals;
 import net.foxopen.fox.ex.ExInternal;
 import net.foxopen.fox.ex.ExInvalidThreadId;
 import net.foxopen.fox.track.Track;
@@ -111,6 +112,11 @@ public class ThreadLockManager<T> {
       //Lock the thread - this will COMMIT top connection for SharedConnection locking behaviour
       lXThread = mLockingBehaviour.lockXThread(pRequestContext);
 
+      //Allow non-critical thread state to be written after the response if configured - this manager must then submit it
+      if(FoxGlobals.getInstance().getFoxEnvironment().getDatabaseProperties().isThreadWriteBehind()) {
+        lXThread.getPersistenceContext().allowWriteBehind();
+      }
+
       //Delegate to the consumer to perform whatever action is required with the locked thread
       lResult = pLockedThreadRunnable.doWhenLocked(pRequestContext, lXThread);
 
@@ -121,7 +127,10 @@ public class ThreadLockManager<T> {
       lContextUCon.commit(lTopConnectionName);
 
       //Now release the thread - this will COMMIT top connection for SharedConnection locking behaviour
-      mLockingBehaviour.unlockThread(pRequestContext, lXThread);
+      //If thread state was deferred to write-behind, the thread stays locked until the background write releases it
+      if(!lXThread.getPersistenceContext().submitWriteBehind(this::releaseAfterWriteBehind)) {
+        mLockingBehaviour.unlockThread(pRequestContext, lXThread);
+      }
     }
     catch (ExInvalidThreadId e) {
       //Explicit re-throw of invalid thread ID exception (doesn't need to purge thread etc because no thread exists)
@@ -155,6 +164,25 @@ public class ThreadLockManager<T> {
     return lResult;
   }
 
+  /**
+   * Releases the thread lock once a write-behind submitted by this manager has completed. If the write failed, the thread
+   * is purged from cache before it is unlocked, so the next churn restores the thread from the database.
+   * @param pContextUCon ContextUCon used by the write-behind job.
+   * @param pWriteSuccessful True if the deferred writes were committed.
+   */
+  private void releaseAfterWriteBehind(ContextUCon pContextUCon, boolean pWriteSuccessful) {
+    if(pWriteSuccessful) {
+      //This will COMMIT the write-behind connection
+      StatefulXThread.unlockThread(pContextUCon, mThreadId);
+    }
+    else {
+      StatefulXThread.purgeThreadFromCache(mThreadId);
+
+      //Thread should be unlocked on a new connection
+      new DedicatedConnectionLockingBehaviour().unlockThread(pContextUCon);
+    }
+  }
+
   /**
    * Actions to run against a thread which has been locked by a ThreadLockManager.
    * @param <T> Object type to be returned.
@@ -217,5 +245,21 @@ public class ThreadLockManager<T> {
         pRequestContext.getContextUCon().popConnection("UNLOCK_THREAD");
       }
     }
+
+    /**
+     * Releases the thread lock from outside of a request, i.e. after a failed write-behind.
+     * @param pContextUCon ContextUCon to push the unlock connection on to.
+     */
+    public void unlockThread(ContextUCon pContextUCon) {
+
+      pContextUCon.pushConnection("UNLOCK_THREAD");
+      try {
+        //Now release the thread lock - THIS ISSUES A COMMIT
+        StatefulXThread.unlockThread(pContextUCon, mThreadId);
+      }
+      finally {
+        pContextUCon.popConnection("UNLOCK_THREAD");
+      }
+    }
   }
 }
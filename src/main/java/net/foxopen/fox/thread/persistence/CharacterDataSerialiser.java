@@ -0,0 +1,97 @@
+package net.foxopen.fox.thread.persistence;
+
+
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import net.foxopen.fox.ex.ExInternal;
+import net.foxopen.fox.thread.persistence.kryo.KryoManager;
+import net.foxopen.fox.thread.persistence.xstream.XStreamManager;
+import net.foxopen.fox.track.Track;
+import org.apache.commons.io.IOUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Serialises thread state objects which are stored in character (CLOB) columns. Objects are written using Kryo and
+ * Base64 encoded, with a prefix to identify the format. Data without the prefix is assumed to have been written by XStream
+ * before the switch to Kryo, and is read using XStream. Once all legacy rows have been replaced the XStream fallback can
+ * be removed.
+ */
+class CharacterDataSerialiser {
+
+  /** Prefix for Kryo data - XStream data always starts with a '<' so cannot be mistaken for this */
+  static final String KRYO_DATA_PREFIX = "KRYO:";
+
+  /**
+   * Serialises the given object using Kryo to a Base64 string suitable for binding into a CLOB column.
+   * @param pObject Object to serialise. Can be null.
+   * @param pObjectName Name of the object for debug tracking.
+   * @return Serialised object string.
+   */
+  static String serialise(Object pObject, String pObjectName) {
+    Track.pushDebug(pObjectName + "Serialise");
+    try {
+      ByteArrayOutputStream lBAOS = new ByteArrayOutputStream();
+      //Class is written as objects may be subclasses or interface implementations
+      Output lOutput = new Output(Base64.getEncoder().wrap(lBAOS));
+      KryoManager.getThreadKryoInstance().writeClassAndObject(lOutput, pObject);
+      lOutput.close();
+
+      return KRYO_DATA_PREFIX + new String(lBAOS.toByteArray(), StandardCharsets.US_ASCII);
+    }
+    finally {
+      Track.pop(pObjectName + "Serialise");
+    }
+  }
+
+  /**
+   * Deserialises an object from a string created by {@link #serialise}, or from legacy XStream XML.
+   * @param pString Serialised object string.
+   * @param pObjectName Name of the object for debug tracking.
+   * @return Deserialised object.
+   */
+  static Object deserialise(String pString, String pObjectName) {
+    return deserialise(new StringReader(pString), pObjectName);
+  }
+
+  /**
+   * Deserialises an object from a Reader containing a string created by {@link #serialise}, or legacy XStream XML.
+   * @param pReader Reader for the serialised object, i.e. a CLOB character stream.
+   * @param pObjectName Name of the object for debug tracking.
+   * @return Deserialised object.
+   */
+  static Object deserialise(Reader pReader, String pObjectName) {
+    Track.pushDebug(pObjectName + "Deserialise");
+    try {
+      //Read enough characters to establish whether the data has the Kryo prefix, so they can be pushed back for XStream if not
+      PushbackReader lReader = new PushbackReader(pReader, KRYO_DATA_PREFIX.length());
+      char[] lPrefix = new char[KRYO_DATA_PREFIX.length()];
+      int lPrefixLength = IOUtils.read(lReader, lPrefix);
+
+      if(lPrefixLength == lPrefix.length && KRYO_DATA_PREFIX.equals(new String(lPrefix))) {
+        byte[] lBytes = Base64.getDecoder().decode(IOUtils.toString(lReader));
+        return KryoManager.getThreadKryoInstance().readClassAndObject(new Input(lBytes));
+      }
+      else {
+        //Legacy data written before Kryo was used
+        lReader.unread(lPrefix, 0, lPrefixLength);
+        return XStreamManager.getXStream().fromXML(lReader);
+      }
+    }
+    catch (IOException e) {
+      throw new ExInternal("Failed to read serialised " + pObjectName, e);
+    }
+    finally {
+      Track.pop(pObjectName + "Deserialise");
+    }
+  }
+
+  private CharacterDataSerialiser() {
+  }
+}
@@ -24,7 +24,6 @@ import net.foxopen.fox.thread.persistence.data.ModuleCallPersistedData;
 import net.foxopen.fox.thread.persistence.data.StateCallPersistedData;
 import net.foxopen.fox.thread.persistence.data.StatefulXThreadPersistedData;
 import net.foxopen.fox.thread.persistence.kryo.KryoManager;
-import net.foxopen.fox.thread.persistence.xstream.XStreamManager;
 import net.foxopen.fox.thread.stack.ModuleXPathVariableManager;
 import net.foxopen.fox.thread.stack.callback.CallbackHandler;
 import net.foxopen.fox.thread.storage.WorkingDataDOMStorageLocation;
@@ -100,16 +99,12 @@ implements Deserialiser {
 
         Clob lAuthContextClob = lSelectXThreadResult.getClob("AUTHENTICATION_CONTEXT");
 
-        Track.pushDebug("AuthContextDeserialise");
         try {
-          lAuthContext = (AuthenticationContext) XStreamManager.getXStream().fromXML(lAuthContextClob.getCharacterStream());
+          lAuthContext = (AuthenticationContext) CharacterDataSerialiser.deserialise(lAuthContextClob.getCharacterStream(), "AuthContext");
         }
         catch (SQLException e) {
           throw new ExInternal("Failed to retrieved authentication context for thread " + pThreadId, e);
         }
-        finally {
-          Track.pop("AuthContextDeserialise");
-        }
 
         lThreadPropertyMap = kryoDeserialise(ThreadPropertyMap.class, lSelectXThreadResult.getBlob("THREAD_PROPERTY_MAP"), "ThreadPropertyMap", pThreadId);
         lFieldSet = kryoDeserialise(FieldSet.class, lSelectXThreadResult.getBlob("FIELD_SET"), "FieldSet", pThreadId);
@@ -159,9 +154,9 @@ implements Deserialiser {
               Clob lCallbackHandlerClob = lResultSet.getClob("CALLBACK_HANDLERS");
               Clob lSecurityScopeClob = lResultSet.getClob("SECURITY_SCOPE");
 
-              Map<String, WorkingDataDOMStorageLocation> lLabelToStorageLocationMap = (Map<String, WorkingDataDOMStorageLocation>) XStreamManager.getXStream().fromXML(lStorageLocationClob.getCharacterStream());
-              List<CallbackHandler> lCallbackHandlers = (List<CallbackHandler>) XStreamManager.getXStream().fromXML(lCallbackHandlerClob.getCharacterStream());
-              SecurityScope lSecurityScope = (SecurityScope) XStreamManager.getXStream().fromXML(lSecurityScopeClob.getCharacterStream());
+              Map<String, WorkingDataDOMStorageLocation> lLabelToStorageLocationMap = (Map<String, WorkingDataDOMStorageLocation>) CharacterDataSerialiser.deserialise(lStorageLocationClob.getCharacterStream(), "StorageLocations");
+              List<CallbackHandler> lCallbackHandlers = (List<CallbackHandler>) CharacterDataSerialiser.deserialise(lCallbackHandlerClob.getCharacterStream(), "CallbackHandlers");
+              SecurityScope lSecurityScope = (SecurityScope) CharacterDataSerialiser.deserialise(lSecurityScopeClob.getCharacterStream(), "SecurityScope");
 
               ModuleXPathVariableManager lXPathVariableManager = kryoDeserialise(ModuleXPathVariableManager.class, lResultSet.getBlob("XPATH_VARIABLES"), "XPathVariables", lModuleCallId);
 
@@ -221,7 +216,7 @@ implements Deserialiser {
             , lResultSet.getInt("STACK_POSITION")
             , lResultSet.getString("STATE_NAME")
             , lResultSet.getInt("SCROLL_POSITION")
-            , (Collection<ContextUElem.SerialisedLabel>) XStreamManager.getXStream().fromXML(lResultSet.getString("CONTEXT_LABELS"))
+            , (Collection<ContextUElem.SerialisedLabel>) CharacterDataSerialiser.deserialise(lResultSet.getString("CONTEXT_LABELS"), "ContextLabels")
             );
 
             lStateCallDataList.add(lStateCallData);
@@ -287,7 +282,7 @@ implements Deserialiser {
       try {
         lResultRow = lUCon.querySingleRow(SQLManager.instance().getStatement(SELECT_DOWNLOAD_PARCEL_FILENAME, getClass()), pDownloadParcelId, lThreadId);
 
-        return (DownloadParcel) XStreamManager.getXStream().fromXML(lResultRow.getClob("DATA_CLOB").getCharacterStream());
+        return (DownloadParcel) CharacterDataSerialiser.deserialise(lResultRow.getClob("DATA_CLOB").getCharacterStream(), "DownloadParcel");
       }
       catch (ExDBTooFew e) {
         //Nothing exists - let the consumer deal with it
@@ -3,8 +3,11 @@ package net.foxopen.fox.thread.persistence;
 
 import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.Table;
+import net.foxopen.fox.ContextUCon;
 import net.foxopen.fox.database.UCon;
 import net.foxopen.fox.ex.ExInternal;
+import net.foxopen.fox.job.FoxJobTask;
+import net.foxopen.fox.job.TaskCompletionMessage;
 import net.foxopen.fox.thread.RequestContext;
 import net.foxopen.fox.thread.persistence.SharedDOMManager.SharedDOMType;
 import net.foxopen.fox.track.Track;
@@ -20,6 +23,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.stream.Collectors;
 
 
 /**
@@ -56,6 +60,16 @@ implements PersistenceContext {
     //All other operations (updates etc) are not dependent on others
   }
 
+  /**
+   * Types which may have their updates written behind. These hold navigational state (scroll positions, contextual labels,
+   * tab selections, pager positions, module call variables) which is only read back when a thread is deserialised, so
+   * deferring the write is safe provided the thread remains locked until it completes.
+   */
+  private static final Set<PersistableType> gWriteBehindTypes = EnumSet.of(PersistableType.MODULE_CALL, PersistableType.STATE_CALL, PersistableType.MODULE_FACET);
+
+  /** Maximum time a request will wait for a thread's pending write-behind before attempting to lock it regardless. */
+  private static final long WRITE_BEHIND_AWAIT_TIMEOUT_MS = 10000L;
+
   private static int methodPriority(PersistenceMethod pPersistenceMethod){
     switch(pPersistenceMethod) {
       case DELETE:
@@ -122,10 +136,49 @@ implements PersistenceContext {
 
   private Deserialiser mDeserialiser = null;
 
+  /** True if the current persistence cycle may defer updates. Reset at the end of every cycle. */
+  private boolean mWriteBehindAllowed = false;
+
+  /** Updates deferred by the last persistence cycle which have not yet been submitted, or null. */
+  private WriteBehindTask mPendingWriteBehind = null;
+
   public DatabasePersistenceContext(String pThreadId) {
     mThreadId = pThreadId;
   }
 
+  /**
+   * Waits for any write-behind which is still in progress for the given thread. This should be called before attempting
+   * to lock the thread, so requests on this engine do not poll the thread lock while a background write holds it. The lock
+   * remains the guarantee of consistency; if the write takes too long, this method returns and the lock is contended as normal.
+   * @param pThreadId Thread ID to wait for.
+   */
+  public static void awaitWriteBehind(String pThreadId) {
+    if(!WriteBehindQueue.awaitPendingWrites(pThreadId, WRITE_BEHIND_AWAIT_TIMEOUT_MS)) {
+      Track.alert("WriteBehindAwaitTimeout", "Write-behind for thread " + pThreadId + " did not complete within " + WRITE_BEHIND_AWAIT_TIMEOUT_MS + "ms");
+    }
+  }
+
+  /**
+   * Tests if the given entry may be deferred from a cycle which is eligible for write-behind.
+   */
+  private static boolean isWriteBehindCandidate(PersistenceEntry pEntry) {
+    return pEntry.mPersistenceMethod == PersistenceMethod.UPDATE && gWriteBehindTypes.contains(pEntry.mPersistable.getPersistableType());
+  }
+
+  /**
+   * Tests if a cycle containing the given entries may defer any of them. A cycle is only eligible if it consists entirely of
+   * updates which have no ordering dependencies, i.e. it does not create, remove or restructure any part of the thread.
+   * Otherwise all entries are written synchronously.
+   */
+  private static boolean isWriteBehindEligible(List<PersistenceEntry> pEntries) {
+    for(PersistenceEntry lEntry : pEntries) {
+      if(lEntry.mPersistenceMethod != PersistenceMethod.UPDATE || gSerialisePriorities.contains(lEntry.mPersistable.getPersistableType(), lEntry.mPersistenceMethod)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   @Override
   public void startPersistenceCycle(RequestContext pRequestContext) {
     for(ListeningPersistable lPersistable : mListeningPersistables) {
@@ -147,6 +200,11 @@ implements PersistenceContext {
   @Override
   public void endPersistenceCycle(RequestContext pRequestContext) {
 
+    boolean lWriteBehindAllowed = mWriteBehindAllowed;
+    mWriteBehindAllowed = false;
+    //Deferred updates from an earlier cycle are only left unsubmitted if its request failed, so must not be written now
+    mPendingWriteBehind = null;
+
     UCon lUCon = pRequestContext.getContextUCon().getUCon("Thread Serialise");
     try {
       mSerialiser = new DatabaseSerialiser(this, lUCon);
@@ -154,58 +212,191 @@ implements PersistenceContext {
       //Sort the pending map so important operations happen first to avoid violating DB constraints
       Collections.sort(mRequirePersisting, new PersistenceEntryComparator());
 
+      //Split out updates which can be written after the response - deferred updates are not dependent on any other entries
+      List<PersistenceEntry> lSynchronousEntries = mRequirePersisting;
+      List<PersistenceEntry> lWriteBehindEntries = Collections.emptyList();
+      if(lWriteBehindAllowed && isWriteBehindEligible(mRequirePersisting)) {
+        lSynchronousEntries = mRequirePersisting.stream().filter(e -> !isWriteBehindCandidate(e)).collect(Collectors.toList());
+        lWriteBehindEntries = mRequirePersisting.stream().filter(DatabasePersistenceContext::isWriteBehindCandidate).collect(Collectors.toList());
+      }
+
       Track.pushInfo("ThreadSerialise", "Serialising thread to database", TrackTimer.THREAD_SERIALISE);
       try {
+        Set<Persistable> lAlreadyPersisted = new HashSet<>();
+        persistEntries(lSynchronousEntries, lAlreadyPersisted);
+
+        //Anything implicated by a synchronous write does not need to be written again
+        lWriteBehindEntries = lWriteBehindEntries.stream().filter(e -> !lAlreadyPersisted.contains(e.mPersistable)).collect(Collectors.toList());
+        if(lWriteBehindEntries.size() > 0) {
+          Track.info("WriteBehindDeferred", "Deferred " + lWriteBehindEntries.size() + " update(s) to write-behind");
+          mPendingWriteBehind = new WriteBehindTask(mThreadId, pRequestContext.getContextUCon().getPoolName(), lWriteBehindEntries, EnumSet.copyOf(mMarkedFacets));
+        }
 
-       Set<Persistable> lAlreadyPersisted = new HashSet<>();
+        //Clear for next persistence cycle
+        mRequirePersisting.clear();
+        mMarkedFacets.clear();
+      }
+      finally {
+        Track.pop("ThreadSerialise", TrackTimer.THREAD_SERIALISE);
+      }
+    }
+    finally {
+      pRequestContext.getContextUCon().returnUCon(lUCon, "Thread Serialise");
+    }
+  }
 
-        for(PersistenceEntry lEntry : mRequirePersisting) {
+  /**
+   * Runs the persistence operation for each entry in the given list, in list order.
+   * @param pEntries Entries to persist.
+   * @param pAlreadyPersisted Persistables which have already been persisted in this cycle, which are skipped. Anything
+   *                          persisted or implicated by this method is added to the set.
+   */
+  private void persistEntries(List<PersistenceEntry> pEntries, Set<Persistable> pAlreadyPersisted) {
+
+    for(PersistenceEntry lEntry : pEntries) {
+
+      Persistable lPersistable = lEntry.mPersistable;
+
+      //Skip persistables if they are already persisted
+      if(!pAlreadyPersisted.contains(lEntry.mPersistable)) {
+
+        Collection<PersistenceResult> lImplicated;
+
+        switch(lEntry.mPersistenceMethod) {
+          case CREATE:
+            lImplicated = lPersistable.create(this);
+            break;
+          case UPDATE:
+            lImplicated = lPersistable.update(this);
+            break;
+          case DELETE:
+            lImplicated = lPersistable.delete(this);
+            break;
+          default:
+            throw new ExInternal("Unknown persistence method " + lEntry.mPersistenceMethod.toString()); //Shuts up compiler
+        }
 
-          Persistable lPersistable = lEntry.mPersistable;
+        //Record any implicated persistables as done so they are not serialised twice
+        //(including what was just persisted)
+        pAlreadyPersisted.add(lPersistable);
 
-          //Skip persistables if they are already persisted
-          if(!lAlreadyPersisted.contains(lEntry.mPersistable)) {
+        for(PersistenceResult lPersistenceResult : lImplicated) {
+          pAlreadyPersisted.add(lPersistenceResult.getPersistable());
+          //Also remove any deletes from the listening list - might not be in here, but just in case
+          if(lPersistenceResult.getMethod() == PersistenceMethod.DELETE) {
+            mListeningPersistables.remove(lPersistenceResult.getPersistable());
+          }
+        }
+      }
+    }
+  }
 
-            Collection<PersistenceResult> lImplicated;
+  @Override
+  public void allowWriteBehind() {
+    mWriteBehindAllowed = true;
+  }
 
-            switch(lEntry.mPersistenceMethod) {
-              case CREATE:
-                lImplicated = lPersistable.create(this);
-                break;
-              case UPDATE:
-                lImplicated = lPersistable.update(this);
-                break;
-              case DELETE:
-                lImplicated = lPersistable.delete(this);
-                break;
-              default:
-                throw new ExInternal("Unknown persistence method " + lEntry.mPersistenceMethod.toString()); //Shuts up compiler
-            }
+  @Override
+  public boolean submitWriteBehind(WriteBehindCallback pCallback) {
+    //Write-behind must be allowed again for each cycle, even if the last one never ended
+    mWriteBehindAllowed = false;
 
-            //Record any implicated persistables as done so they are not serialised twice
-            //(including what was just persisted)
-            lAlreadyPersisted.add(lPersistable);
+    if(mPendingWriteBehind == null) {
+      return false;
+    }
 
-            for(PersistenceResult lPersistenceResult : lImplicated) {
-              lAlreadyPersisted.add(lPersistenceResult.getPersistable());
-              //Also remove any deletes from the listening list - might not be in here, but just in case
-              if(lPersistenceResult.getMethod() == PersistenceMethod.DELETE) {
-                mListeningPersistables.remove(lPersistenceResult.getPersistable());
-              }
-            }
-          }
+    WriteBehindTask lTask = mPendingWriteBehind;
+    mPendingWriteBehind = null;
+
+    lTask.mCallback = pCallback;
+    WriteBehindQueue.submit(mThreadId, lTask);
+    return true;
+  }
+
+  /**
+   * Tests if the last persistence cycle deferred any updates which are yet to be submitted.
+   * @return True if updates are waiting for {@link #submitWriteBehind}.
+   */
+  boolean hasPendingWriteBehind() {
+    return mPendingWriteBehind != null;
+  }
+
+  /**
+   * Background job which writes updates deferred from a persistence cycle on its own connection, then notifies the
+   * submitter. The entries are persisted through a new DatabasePersistenceContext so the facets marked in the original
+   * cycle are preserved, without sharing any state with the thread's own context.
+   */
+  private static class WriteBehindTask
+  implements FoxJobTask {
+
+    private final String mThreadId;
+    private final String mPoolName;
+    private final List<PersistenceEntry> mEntries;
+    private final Set<PersistenceFacet> mMarkedFacets;
+    private WriteBehindCallback mCallback;
+
+    private WriteBehindTask(String pThreadId, String pPoolName, List<PersistenceEntry> pEntries, Set<PersistenceFacet> pMarkedFacets) {
+      mThreadId = pThreadId;
+      mPoolName = pPoolName;
+      mEntries = pEntries;
+      mMarkedFacets = pMarkedFacets;
+    }
+
+    @Override
+    public String getTaskDescription() {
+      return "Write-behind for thread " + mThreadId;
+    }
+
+    @Override
+    public TaskCompletionMessage executeTask() {
+
+      long lStartTime = System.currentTimeMillis();
+      ContextUCon lContextUCon = ContextUCon.createContextUCon(mPoolName, "Thread Write-Behind");
+      boolean lConnectionPushed = false;
+      boolean lWriteSuccessful = false;
+      try {
+        //Connections are acquired within the try block so the callback is still invoked if none are available
+        lContextUCon.pushAutonomousConnection("WRITE_BEHIND");
+        lConnectionPushed = true;
+
+        UCon lUCon = lContextUCon.getUCon("Thread Serialise");
+        try {
+          DatabasePersistenceContext lWriteContext = new DatabasePersistenceContext(mThreadId);
+          lWriteContext.mSerialiser = new DatabaseSerialiser(lWriteContext, lUCon);
+          lWriteContext.mMarkedFacets.addAll(mMarkedFacets);
+          lWriteContext.persistEntries(mEntries, new HashSet<>());
+        }
+        finally {
+          lContextUCon.returnUCon(lUCon, "Thread Serialise");
         }
 
-        //Clear for next persistence cycle
-        mRequirePersisting.clear();
-        mMarkedFacets.clear();
+        lContextUCon.commitCurrentConnection();
+        lWriteSuccessful = true;
+      }
+      catch (Throwable th) {
+        throw new ExInternal("Failed to write deferred updates for thread " + mThreadId, th);
       }
       finally {
-        Track.pop("ThreadSerialise", TrackTimer.THREAD_SERIALISE);
+        try {
+          if(!lWriteSuccessful && lConnectionPushed) {
+            //Partial writes must not be committed by anything the callback does on this connection
+            try {
+              lContextUCon.rollbackCurrentConnection();
+            }
+            catch (Throwable th) {
+              Track.recordSuppressedException("WriteBehindRollback", th);
+            }
+          }
+
+          //Always notify the submitter so the thread lock can be released
+          mCallback.writeComplete(lContextUCon, lWriteSuccessful);
+        }
+        finally {
+          lContextUCon.rollbackAndCloseAll(true);
+        }
       }
-    }
-    finally {
-      pRequestContext.getContextUCon().returnUCon(lUCon, "Thread Serialise");
+
+      return new TaskCompletionMessage(this, "Wrote " + mEntries.size() + " deferred update(s) in " + (System.currentTimeMillis() - lStartTime) + "ms");
     }
   }
 
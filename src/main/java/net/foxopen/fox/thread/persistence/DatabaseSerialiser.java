@@ -23,7 +23,6 @@ import net.foxopen.fox.module.fieldset.FieldSet;
 import net.foxopen.fox.sql.SQLManager;
 import net.foxopen.fox.thread.ThreadPropertyMap;
 import net.foxopen.fox.thread.persistence.kryo.KryoManager;
-import net.foxopen.fox.thread.persistence.xstream.XStreamManager;
 import net.foxopen.fox.thread.stack.callback.CallbackHandler;
 import net.foxopen.fox.thread.storage.WorkingDataDOMStorageLocation;
 import net.foxopen.fox.track.Track;
@@ -116,7 +115,7 @@ implements Serialiser {
       lBindMap.defineBind(":app_mnem", pAppMnem);
       lBindMap.defineBind(":user_thread_session_id", pUserThreadSessionId);
       lBindMap.defineBind(":change_number", pChangeNumber);
-      lBindMap.defineBind(":authentication_context", XStreamManager.serialiseObjectToXMLString(pAuthenticationContext));
+      lBindMap.defineBind(":authentication_context", CharacterDataSerialiser.serialise(pAuthenticationContext, "AuthContext"));
       lBindMap.defineBind(":fox_session_id", pFoxSessionID);
 
       lBindMap.defineBind(":field_set_blob", UCon.bindOutBlob());
@@ -151,7 +150,7 @@ implements Serialiser {
       UConBindMap lBindMap = new UConBindMap();
       lBindMap.defineBind(":field_set_blob", UCon.bindOutBlob());
       lBindMap.defineBind(":property_map_blob", UCon.bindOutBlob());
-      lBindMap.defineBind(":authentication_context", XStreamManager.serialiseObjectToXMLString(pAuthenticationContext));
+      lBindMap.defineBind(":authentication_context", CharacterDataSerialiser.serialise(pAuthenticationContext, "AuthContext"));
       lBindMap.defineBind(":change_number", pChangeNumber);
       lBindMap.defineBind(":thread_id", pThreadId);
       lBindMap.defineBind(":fox_session_id", pFoxSessionID);
@@ -194,9 +193,9 @@ implements Serialiser {
       lBindMap.defineBind(":app_mnem", pAppMnem);
       lBindMap.defineBind(":module_name", pModuleName);
       lBindMap.defineBind(":theme_name", pEntryThemeName);
-      lBindMap.defineBind(":storage_locations", XStreamManager.serialiseObjectToXMLString(pLabelToStorageLocationMap));
-      lBindMap.defineBind(":callback_handlers", XStreamManager.serialiseObjectToXMLString(pCallbackHandlerList));
-      lBindMap.defineBind(":security_scope", XStreamManager.serialiseObjectToXMLString(pSecurityScope));
+      lBindMap.defineBind(":storage_locations", CharacterDataSerialiser.serialise(pLabelToStorageLocationMap, "StorageLocations"));
+      lBindMap.defineBind(":callback_handlers", CharacterDataSerialiser.serialise(pCallbackHandlerList, "CallbackHandlers"));
+      lBindMap.defineBind(":security_scope", CharacterDataSerialiser.serialise(pSecurityScope, "SecurityScope"));
 
       lBindMap.defineBind(":xpath_variables", UCon.bindOutBlob());
 
@@ -224,7 +223,7 @@ implements Serialiser {
 
       //Only update security scope if it has changed during the churn
       if(mPersistenceContext.isFacetMarked(PersistenceFacet.MODULE_CALL_SECURITY_SCOPE)) {
-        lBindMap.defineBind(":security_scope", XStreamManager.serialiseObjectToXMLString(pSecurityScope));
+        lBindMap.defineBind(":security_scope", CharacterDataSerialiser.serialise(pSecurityScope, "SecurityScope"));
       }
       else {
         lBindMap.defineBind(":security_scope", null);
@@ -276,7 +275,7 @@ implements Serialiser {
       lBindMap.defineBind(":module_call_id", pModuleCallId);
       lBindMap.defineBind(":state_name", pStateName);
       lBindMap.defineBind(":scroll_position", pScrollPosition);
-      lBindMap.defineBind(":context_labels", XStreamManager.serialiseObjectToXMLString(pContextualLabels));
+      lBindMap.defineBind(":context_labels", CharacterDataSerialiser.serialise(pContextualLabels, "ContextLabels"));
 
       mUCon.executeAPI(SQLManager.instance().getStatement(INSERT_STATE_CALL_FILENAME, getClass()), lBindMap);
     }
@@ -296,7 +295,7 @@ implements Serialiser {
     try {
       UConBindMap lBindMap = new UConBindMap();
       lBindMap.defineBind(":scroll_position", pScrollPosition);
-      lBindMap.defineBind(":context_labels", XStreamManager.serialiseObjectToXMLString(pContextualLabels));
+      lBindMap.defineBind(":context_labels", CharacterDataSerialiser.serialise(pContextualLabels, "ContextLabels"));
       lBindMap.defineBind(":call_id", pCallId);
 
       mUCon.executeAPI(SQLManager.instance().getStatement(UPDATE_STATE_CALL_FILENAME, getClass()), lBindMap);
@@ -370,7 +369,7 @@ implements Serialiser {
       UConBindMap lBindMap = new UConBindMap();
       lBindMap.defineBind(":parcel_id", pDownloadParcel.getParcelId());
       lBindMap.defineBind(":thread_id", mPersistenceContext.getThreadId());
-      lBindMap.defineBind(":data_clob", XStreamManager.serialiseObjectToXMLString(pDownloadParcel));
+      lBindMap.defineBind(":data_clob", CharacterDataSerialiser.serialise(pDownloadParcel, "DownloadParcel"));
 
       mUCon.executeAPI(SQLManager.instance().getStatement(INSERT_DOWNLOAD_PARCEL_FILENAME, getClass()), lBindMap);
     }
@@ -22,6 +22,23 @@ public interface PersistenceContext {
 
   void endPersistenceCycle(RequestContext pRequestContext);
 
+  /**
+   * Allows the next persistence cycle to defer updates to non-critical Persistables so they can be written in the background
+   * after the request's transaction has been committed. If this is invoked, the caller takes responsibility for calling
+   * {@link #submitWriteBehind} once the transaction has been committed, and must not release the thread lock until the
+   * deferred writes have completed.
+   */
+  void allowWriteBehind();
+
+  /**
+   * Submits any updates deferred by the last persistence cycle to be written by a background job, using a new connection
+   * from the same pool as the request. Writes for the same thread are performed in submission order.
+   * @param pCallback Invoked by the background job once the writes have been committed or rolled back.
+   * @return True if writes were submitted, in which case the callback will be invoked when they complete. False if no
+   * writes were deferred, in which case the callback is not invoked.
+   */
+  boolean submitWriteBehind(WriteBehindCallback pCallback);
+
   String getThreadId();
 
   Serialiser getSerialiser();
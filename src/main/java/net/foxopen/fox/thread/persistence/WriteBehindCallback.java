@@ -0,0 +1,19 @@
+package net.foxopen.fox.thread.persistence;
+
+import net.foxopen.fox.ContextUCon;
+
+/**
+ * Lambda invoked by a background job once a {@link PersistenceContext} has finished writing updates which were deferred
+ * from a persistence cycle. See {@link PersistenceContext#submitWriteBehind}.
+ */
+@FunctionalInterface
+public interface WriteBehindCallback {
+
+  /**
+   * Invoked after the deferred writes have been committed or rolled back. This is always invoked, even if the write failed.
+   * @param pContextUCon ContextUCon which was used to perform the write, with its connection still available for use.
+   *                     The write transaction has already been committed or rolled back.
+   * @param pWriteSuccessful False if an error occurred and the deferred writes were rolled back.
+   */
+  void writeComplete(ContextUCon pContextUCon, boolean pWriteSuccessful);
+}
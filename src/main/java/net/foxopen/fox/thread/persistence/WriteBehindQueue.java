@@ -0,0 +1,118 @@
+package net.foxopen.fox.thread.persistence;
+
+import net.foxopen.fox.job.BasicFoxJobPool;
+import net.foxopen.fox.job.FoxJobTask;
+import net.foxopen.fox.job.TaskCompletionMessage;
+import net.foxopen.fox.track.Track;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs deferred thread persistence writes on a background job pool. Writes for the same thread ID are always run in the
+ * order they were submitted, one at a time; writes for different threads may run concurrently. Request processing can
+ * wait for any writes still pending for a thread before attempting to lock it.
+ */
+class WriteBehindQueue {
+
+  private static final int MAX_WRITE_THREADS = 4;
+
+  private static final BasicFoxJobPool gWritePool = BasicFoxJobPool.createMultiThreadedPool("Thread Write-Behind", MAX_WRITE_THREADS);
+
+  /** The most recently submitted write for each thread ID, which may be chained behind earlier writes for the same thread. */
+  private static final ConcurrentMap<String, CompletableFuture<Void>> gPendingWrites = new ConcurrentHashMap<>();
+
+  private WriteBehindQueue() {}
+
+  /**
+   * Submits a write task for the given thread. If writes are already pending for the thread, the task will not start
+   * until they have all completed.
+   * @param pThreadId Thread the write is for.
+   * @param pWriteTask Task which performs the write.
+   */
+  static void submit(String pThreadId, FoxJobTask pWriteTask) {
+
+    CompletableFuture<Void> lWriteComplete = new CompletableFuture<>();
+    FoxJobTask lTask = new FoxJobTask() {
+      @Override
+      public String getTaskDescription() {
+        return pWriteTask.getTaskDescription();
+      }
+
+      @Override
+      public TaskCompletionMessage executeTask() {
+        try {
+          return pWriteTask.executeTask();
+        }
+        finally {
+          //Remove the entry unless a later write has already been chained behind this one
+          gPendingWrites.remove(pThreadId, lWriteComplete);
+          lWriteComplete.complete(null);
+        }
+      }
+    };
+
+    CompletableFuture<Void> lPreviousWrite = gPendingWrites.put(pThreadId, lWriteComplete);
+    if(lPreviousWrite == null) {
+      submitOrRunNow(lTask);
+    }
+    else {
+      lPreviousWrite.whenComplete((pResult, pError) -> submitOrRunNow(lTask));
+    }
+  }
+
+  /**
+   * Submits a task to the write pool, or runs it on the current Java thread if the pool rejects it (i.e. because the
+   * engine is shutting down). The task must always run, as the thread lock is only released once its write completes.
+   * @param pTask Task to run.
+   */
+  private static void submitOrRunNow(FoxJobTask pTask) {
+    try {
+      gWritePool.submitTask(pTask);
+    }
+    catch (RejectedExecutionException e) {
+      Track.alert("WriteBehindRejected", "Write-behind pool rejected task, writing synchronously: " + pTask.getTaskDescription());
+      try {
+        pTask.executeTask();
+      }
+      catch (Throwable th) {
+        //The task's callback has already dealt with the failure
+        Track.recordSuppressedException("WriteBehindSynchronousWrite", th);
+      }
+    }
+  }
+
+  /**
+   * Blocks until all writes submitted for the given thread have completed, or the timeout elapses.
+   * @param pThreadId Thread to wait for.
+   * @param pTimeoutMS Maximum time to wait.
+   * @return True if no writes are pending for the thread, false if the timeout elapsed or the wait was interrupted.
+   */
+  static boolean awaitPendingWrites(String pThreadId, long pTimeoutMS) {
+    CompletableFuture<Void> lPendingWrite = gPendingWrites.get(pThreadId);
+    if(lPendingWrite == null) {
+      return true;
+    }
+
+    try {
+      lPendingWrite.get(pTimeoutMS, TimeUnit.MILLISECONDS);
+      return true;
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+    catch (TimeoutException e) {
+      return false;
+    }
+    catch (ExecutionException e) {
+      //Write futures are only ever completed normally
+      return true;
+    }
+  }
+}
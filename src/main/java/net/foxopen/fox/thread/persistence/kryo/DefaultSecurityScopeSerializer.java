@@ -0,0 +1,30 @@
+package net.foxopen.fox.thread.persistence.kryo;
+
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import net.foxopen.fox.auth.SecurityScope;
+
+/**
+ * Serializer for the default SecurityScope singleton. No data is written, and the singleton is returned when reading,
+ * so the deserialised object is the same instance as the one which was serialised.
+ */
+class DefaultSecurityScopeSerializer
+extends Serializer<SecurityScope> {
+
+  DefaultSecurityScopeSerializer() {
+    //Singleton is immutable so does not need to be copied
+    setImmutable(true);
+  }
+
+  @Override
+  public void write(Kryo pKryo, Output pOutput, SecurityScope pObject) {
+  }
+
+  @Override
+  public SecurityScope read(Kryo pKryo, Input pInput, Class<SecurityScope> pType) {
+    return SecurityScope.defaultInstance();
+  }
+}
@@ -5,8 +5,11 @@ import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryo.Serializer;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
+import de.javakaffee.kryoserializers.ArraysAsListSerializer;
 import de.javakaffee.kryoserializers.EnumMapSerializer;
 import de.javakaffee.kryoserializers.UnmodifiableCollectionsSerializer;
+import net.foxopen.fox.auth.SecurityScope;
+import net.foxopen.fox.auth.StandardAuthenticationContext;
 import net.foxopen.fox.dom.DOM;
 import net.foxopen.fox.track.Track;
 import org.apache.commons.io.input.BoundedInputStream;
@@ -14,6 +17,7 @@ import org.objenesis.strategy.InstantiatorStrategy;
 import org.objenesis.strategy.StdInstantiatorStrategy;
 
 import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
 import java.util.EnumMap;
 
 
@@ -22,6 +26,9 @@ public class KryoManager {
   //Kryo doco: use the "default" strategy and only fall back to Objenesis if no no-arg constructor is available
   private static final InstantiatorStrategy INSTANTIATOR_STRATEGY = new Kryo.DefaultInstantiatorStrategy(new StdInstantiatorStrategy());
 
+  //Kryo instances are expensive to create and not thread safe, so frequently used small object serialisation uses one instance per thread
+  private static final ThreadLocal<Kryo> THREAD_KRYO_INSTANCE = ThreadLocal.withInitial(KryoManager::getKryoInstance);
+
   public static Kryo getKryoInstance() {
 
     Track.pushInfo("CreateKryoInstance");
@@ -39,6 +46,14 @@ public class KryoManager {
       //Register our custom DOM serialiser
       lKryo.register(DOM.class, new DOMSerializer());
 
+      //Serializers for thread state objects which only need a subset of their fields to be written (see XStream converter equivalents)
+      lKryo.register(StandardAuthenticationContext.class, new StandardAuthenticationContextSerializer());
+      lKryo.register(SecurityScope.defaultInstance().getClass(), new DefaultSecurityScopeSerializer());
+      //Arrays.asList returns a private class with no no-arg constructor
+      lKryo.register(Arrays.asList().getClass(), new ArraysAsListSerializer());
+
+      //Note: new registrations must be added at the end of this method - registration IDs are written into serialised data
+
       return lKryo;
     }
     finally {
@@ -46,6 +61,15 @@ public class KryoManager {
     }
   }
 
+  /**
+   * Gets a Kryo instance which is reused by all callers on the current thread. Callers must complete their read or write
+   * before another caller can use the instance, so this must not be used from within a custom Serializer.
+   * @return Kryo instance for the current thread.
+   */
+  public static Kryo getThreadKryoInstance() {
+    return THREAD_KRYO_INSTANCE.get();
+  }
+
   private KryoManager(){}
 
   /**
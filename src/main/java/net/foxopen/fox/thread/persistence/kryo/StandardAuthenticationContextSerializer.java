@@ -0,0 +1,27 @@
+package net.foxopen.fox.thread.persistence.kryo;
+
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import net.foxopen.fox.auth.StandardAuthenticationContext;
+
+/**
+ * Serializer for StandardAuthenticationContexts. Only the session ID is written - the rest of the context is re-established
+ * from the database when the session is next verified. This mirrors the behaviour of the equivalent XStream converter.
+ */
+class StandardAuthenticationContextSerializer
+extends Serializer<StandardAuthenticationContext> {
+
+  @Override
+  public void write(Kryo pKryo, Output pOutput, StandardAuthenticationContext pObject) {
+    //Null session ID is written as null (not authenticated)
+    pOutput.writeString(pObject.getSessionId());
+  }
+
+  @Override
+  public StandardAuthenticationContext read(Kryo pKryo, Input pInput, Class<StandardAuthenticationContext> pType) {
+    return new StandardAuthenticationContext(pInput.readString());
+  }
+}
@@ -0,0 +1,104 @@
+package net.foxopen.fox.util;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Coordinates the loading of expensive objects so that only one thread loads the object for a given key at a time.
+ * The first thread to request a key runs the loader; any other threads which request the same key while the load is in
+ * progress wait for and share its result (or its exception). Once a load completes the key is released, so results are
+ * not retained - callers should cache them separately if required.<br/><br/>
+ *
+ * A thread which re-requests a key it is already loading runs the loader again directly, rather than deadlocking on its
+ * own load.
+ *
+ * @param <K> Key type.
+ * @param <V> Loaded object type.
+ */
+public class SingleFlightLoader<K, V> {
+
+  private final ConcurrentMap<K, InFlightLoad<V>> mInFlightLoads = new ConcurrentHashMap<>();
+
+  /**
+   * Loads the object for the given key, either by running the given loader or by waiting for a load already in progress
+   * on another thread.
+   *
+   * @param pKey Key of the object being loaded.
+   * @param pLoader Loader to run if no load is in progress for the key.
+   * @return The loaded object, which may be null if the loader returned null.
+   * @throws ExecutionException If the loader threw an exception. The original exception is available as the cause.
+   */
+  public V load(K pKey, Callable<V> pLoader)
+  throws ExecutionException {
+
+    InFlightLoad<V> lNewLoad = new InFlightLoad<>(pLoader);
+    InFlightLoad<V> lExistingLoad = mInFlightLoads.putIfAbsent(pKey, lNewLoad);
+
+    if(lExistingLoad != null) {
+      if(lExistingLoad.mLoadingThread == Thread.currentThread()) {
+        //Recursive request from the loading thread - waiting would deadlock so just run the loader
+        try {
+          return pLoader.call();
+        }
+        catch (Exception e) {
+          throw new ExecutionException(e);
+        }
+      }
+
+      return awaitResult(lExistingLoad);
+    }
+
+    //This thread is responsible for the load
+    try {
+      lNewLoad.run();
+    }
+    finally {
+      mInFlightLoads.remove(pKey, lNewLoad);
+    }
+
+    return awaitResult(lNewLoad);
+  }
+
+  /**
+   * Tests if a load is currently in progress for the given key.
+   * @param pKey Key to check.
+   * @return True if a thread is currently loading the key.
+   */
+  public boolean isLoadInProgress(K pKey) {
+    return mInFlightLoads.containsKey(pKey);
+  }
+
+  private V awaitResult(InFlightLoad<V> pLoad)
+  throws ExecutionException {
+    boolean lInterrupted = false;
+    try {
+      while(true) {
+        try {
+          return pLoad.get();
+        }
+        catch (InterruptedException e) {
+          //Other callers are relying on the result so keep waiting, but preserve the interrupt
+          lInterrupted = true;
+        }
+      }
+    }
+    finally {
+      if(lInterrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private static class InFlightLoad<V>
+  extends FutureTask<V> {
+
+    private final Thread mLoadingThread = Thread.currentThread();
+
+    private InFlightLoad(Callable<V> pLoader) {
+      super(pLoader);
+    }
+  }
+}
@@ -0,0 +1,9 @@
+SELECT app_mnem, module_name
+FROM (
+  SELECT fmc.app_mnem, fmc.module_name, MAX(fmc.last_updated_datetime) last_called_datetime
+  FROM ${schema.fox}.fox_module_calls fmc
+  WHERE fmc.last_updated_datetime > SYSDATE - :recent_days
+  GROUP BY fmc.app_mnem, fmc.module_name
+  ORDER BY last_called_datetime DESC
+)
+WHERE ROWNUM <= :module_count
@@ -3,14 +3,16 @@ INSERT INTO ${schema.fox}.fox_pagination_pages (
 , match_id 
 , invoke_name 
 , row_number
+, last_row_number
 , created_datetime 
-, page_xml
+, page_data
 )
 VALUES (
   :call_id
 , :match_id
 , :invoke_name
 , :row_num
+, :last_row_num
 , SYSDATE
-, :page_xml
+, :page_data
 )
\ No newline at end of file
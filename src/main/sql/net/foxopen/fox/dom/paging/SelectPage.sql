@@ -1,7 +1,8 @@
-SELECT page_xml 
+SELECT row_number, page_data
 FROM ${schema.fox}.fox_pagination_pages
 WHERE module_call_id = :call_id
 AND match_id = :match_id
 AND invoke_name = :invoke_name
-AND row_number BETWEEN :row_start AND :row_end
-ORDER BY row_number 
\ No newline at end of file
+AND row_number <= :row_end
+AND last_row_number >= :row_start
+ORDER BY row_number
\ No newline at end of file
@@ -535,6 +535,9 @@ var FOXjs = {
       // Process HTMLArea code, or anything else pre-submit
       document.mainForm.onsubmit();
 
+      // Only POST fields which the user has changed
+      this._omitUnchangedFields(document.mainForm);
+
       // POST form
       document.mainForm.submit();
 
@@ -543,6 +546,59 @@ var FOXjs = {
     }
   },
 
+  /**
+   * Disables form fields which still have their initial value so they are not POSTed, and records the names of changed
+   * fields in a changed_fields hidden input. The server treats any field which is not POSTed and not listed as changed as
+   * unchanged. Fields with hidden or non-standard inputs are always POSTed, as their initial value cannot be established.
+   * @param {HTMLFormElement} form Form about to be submitted
+   * @private
+   */
+  _omitUnchangedFields : function(form) {
+    var fieldStates = {};
+
+    $.each(form.elements, function(i, element) {
+      if (!element.name || element.disabled) {
+        return;
+      }
+
+      var state = fieldStates[element.name] || (fieldStates[element.name] = {omittable: true, changed: false, elements: []});
+      state.elements.push(element);
+
+      var type = (element.type || "").toLowerCase();
+      if (type === "checkbox" || type === "radio") {
+        state.changed = state.changed || element.checked !== element.defaultChecked;
+      }
+      else if (type === "select-one" || type === "select-multiple") {
+        $.each(element.options, function(j, option) {
+          state.changed = state.changed || option.selected !== option.defaultSelected;
+        });
+      }
+      else if (type === "text" || type === "textarea" || type === "password" || type === "email" || type === "number" || type === "tel" || type === "url" || type === "search") {
+        state.changed = state.changed || element.value !== element.defaultValue;
+      }
+      else {
+        // Hidden inputs, buttons, file uploads etc.
+        state.omittable = false;
+      }
+    });
+
+    var changedFields = [];
+    $.each(fieldStates, function(name, state) {
+      if (state.omittable) {
+        if (state.changed) {
+          changedFields.push(name);
+        }
+        else {
+          $.each(state.elements, function(i, element) {
+            element.disabled = true;
+          });
+        }
+      }
+    });
+
+    $(form).append($("<input type=\"hidden\" name=\"changed_fields\"/>").val(JSON.stringify(changedFields)));
+  },
+
   _expiredPageGoForward : function() {
     // A bit ugly, but worst case scenario is that we go nowhere and user has to use browser forward button
     // If problematic, could add a form POST timeout to make sure users go somewhere
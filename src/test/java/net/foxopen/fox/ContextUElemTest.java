@@ -29,6 +29,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashSet;
 
 import static org.junit.Assert.assertEquals;
@@ -1025,5 +1026,74 @@ public class ContextUElemTest {
     mContextUElem.getAbsolutePathForCreateableXPath(mRootDOM, "(:{root}/NOTHING | :{theme}/NOTHING)[1]");
   }
 
+
+  @Test
+  public void testContextFreeXPathClassification()
+  throws ExBadPath {
+    assertTrue("XPath only referencing labels is context free", ((FoxXPath) mEvaluator.getOrCompilePath(":{theme}/CONFIG/NAME_TYPE = 'FULL'", null)).isContextFree());
+    assertFalse("XPath using the context item is not context free", ((FoxXPath) mEvaluator.getOrCompilePath("./NAME_TYPE = :{theme}/CONFIG/NAME_TYPE", null)).isContextFree());
+    assertFalse("XPath using the context document is not context free", ((FoxXPath) mEvaluator.getOrCompilePath("//NAME_TYPE = 'FULL'", null)).isContextFree());
+    assertFalse("XPath using exists-context is not context free", ((FoxXPath) mEvaluator.getOrCompilePath("exists-context(:{theme}) and 1 = 1", null)).isContextFree());
+    assertFalse("XPath using current-date is not context free", ((FoxXPath) mEvaluator.getOrCompilePath("string(current-date()) = 'x'", null)).isContextFree());
+  }
+
+  @Test
+  public void testContextFreeXPathMemoisation()
+  throws ExActionFailed {
+
+    mContextUElem.setUElem("config", ContextualityLevel.STATE, mThemeDOM.get1EOrNull("/*/CONFIG"));
+    String lXPath = ":{config}/NAME_TYPE = 'FULL'";
+    DOMList lResults = mRootDOM.getUL("/*/RESULT_LIST/RESULT");
+
+    mContextUElem.startContextFreeXPathMemoisation();
+    try {
+      for(DOM lResult : lResults) {
+        assertTrue("Context free XPath evaluates to true for every item", mContextUElem.extendedXPathBoolean(lResult, lXPath));
+      }
+      assertEquals("Context free XPath is evaluated once", 1, mContextUElem.getContextFreeXPathResultMemoOrNull().getMissCount());
+      assertEquals("Memoised result is used for the remaining items", 2, mContextUElem.getContextFreeXPathResultMemoOrNull().getHitCount());
+
+      //Relative XPaths are always evaluated
+      assertTrue(mContextUElem.extendedXPathBoolean(lResults.item(0), "./NAME_TYPE = :{theme}/CONFIG/NAME_TYPE"));
+      assertFalse(mContextUElem.extendedXPathBoolean(lResults.item(2), "./NAME_TYPE = :{theme}/CONFIG/NAME_TYPE"));
+      assertEquals("Relative XPaths are not memoised", 3, mContextUElem.getContextFreeXPathResultMemoOrNull().getHitCount() + mContextUElem.getContextFreeXPathResultMemoOrNull().getMissCount());
+
+      //Modifying the labelled document invalidates the memoised result
+      mThemeDOM.get1EOrNull("/*/CONFIG/NAME_TYPE").setText("ABBR");
+      assertFalse("Result reflects document modification", mContextUElem.extendedXPathBoolean(lResults.item(0), lXPath));
+
+      //Remapping the label invalidates the memoised result
+      mContextUElem.setUElem("config", ContextualityLevel.STATE, DOM.createDocumentFromXMLString(THEME_DOC).get1EOrNull("/*/CONFIG"));
+      assertTrue("Result reflects label remapping", mContextUElem.extendedXPathBoolean(lResults.item(0), lXPath));
+    }
+    finally {
+      mContextUElem.endContextFreeXPathMemoisation();
+    }
+
+    assertNull("Memo is discarded at end of phase", mContextUElem.getContextFreeXPathResultMemoOrNull());
+  }
+
+  @Test
+  public void testGetElemByRefRouting() {
+
+    DOM lSeekName = mThemeDOM.get1EOrNull("/*/CONFIG/SEEK_NAME");
+    String lSeekNameRef = lSeekName.getRef();
+    assertTrue("Element resolved from non-attach document", lSeekName.equals(mContextUElem.getElemByRef(lSeekNameRef)));
+    assertTrue("Element resolved again using recorded owner", lSeekName.equals(mContextUElem.getElemByRef(lSeekNameRef)));
+
+    //Incorrectly registered owner falls back to a full search
+    DOM lDateType = mThemeDOM.get1EOrNull("/*/CONFIG/DATE_TYPE");
+    mContextUElem.setRegisteredElemRefOwners(Collections.singletonMap(lDateType.getRef(), "html"));
+    try {
+      assertTrue("Element resolved despite incorrect owner", lDateType.equals(mContextUElem.getElemByRef(lDateType.getRef())));
+    }
+    finally {
+      mContextUElem.clearRegisteredElemRefOwners();
+    }
+
+    //Element moved to another document is still resolved
+    lSeekName.moveToParent(mRootDOM);
+    assertTrue("Moved element resolved from new document", lSeekName.equals(mContextUElem.getElemByRef(lSeekNameRef)));
+  }
 }
 
@@ -0,0 +1,44 @@
+package net.foxopen.fox.auth;
+
+import net.foxopen.fox.auth.StandardAuthenticationContext.VerifiedSession;
+import net.foxopen.fox.auth.StandardAuthenticationContext.VerifiedSessionKey;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class StandardAuthenticationContextTest {
+
+  private static VerifiedSession validSession() {
+    return new VerifiedSession(AuthenticationResult.Code.VALID, "Valid", 30, "1");
+  }
+
+  @Test
+  public void testVerifiedSessionKeyedOnClientAndAppInfo() {
+    Map<VerifiedSessionKey, VerifiedSession> lCache = new HashMap<>();
+    lCache.put(new VerifiedSessionKey("SESSION1", "CLIENT_A", "APP"), validSession());
+
+    assertNotNull("Same session, client info and app info hits", lCache.get(new VerifiedSessionKey("SESSION1", "CLIENT_A", "APP")));
+    assertNull("Different client info misses", lCache.get(new VerifiedSessionKey("SESSION1", "CLIENT_B", "APP")));
+    assertNull("Different app info misses", lCache.get(new VerifiedSessionKey("SESSION1", "CLIENT_A", "OTHER_APP")));
+    assertNull("Null client info misses", lCache.get(new VerifiedSessionKey("SESSION1", null, "APP")));
+    assertNull("Different session misses", lCache.get(new VerifiedSessionKey("SESSION2", "CLIENT_A", "APP")));
+  }
+
+  @Test
+  public void testRemoveVerifiedSessionsRemovesAllClients() {
+    Map<VerifiedSessionKey, VerifiedSession> lCache = new HashMap<>();
+    lCache.put(new VerifiedSessionKey("SESSION1", "CLIENT_A", "APP"), validSession());
+    lCache.put(new VerifiedSessionKey("SESSION1", "CLIENT_B", "APP"), validSession());
+    lCache.put(new VerifiedSessionKey("SESSION2", "CLIENT_A", "APP"), validSession());
+
+    StandardAuthenticationContext.removeVerifiedSessions(lCache, "SESSION1");
+
+    assertEquals(1, lCache.size());
+    assertNotNull("Other session retained", lCache.get(new VerifiedSessionKey("SESSION2", "CLIENT_A", "APP")));
+  }
+}
@@ -0,0 +1,150 @@
+package net.foxopen.fox.command.builtin;
+
+import net.foxopen.fox.ContextLabel;
+import net.foxopen.fox.ContextUElem;
+import net.foxopen.fox.dom.DOM;
+import net.foxopen.fox.dom.handler.DOMHandler;
+import net.foxopen.fox.ex.ExDoSyntax;
+import net.foxopen.fox.module.Mod;
+import net.foxopen.fox.module.datanode.NodeInfo;
+import net.foxopen.fox.thread.ActionRequestContext;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ValidateCommandTest {
+
+  private static final int CHILD_COUNT = 9;
+
+  private Mod mModule;
+  private DOM mErrorDOM;
+
+  @Before
+  public void setup() {
+    //Every child of a ROW element must occur exactly once
+    Map<String, NodeInfo> lNodeInfoMap = new HashMap<>();
+    for(int i = 1; i <= CHILD_COUNT; i++) {
+      NodeInfo lNodeInfo = mock(NodeInfo.class);
+      when(lNodeInfo.getAttribute("", "minOccurs")).thenReturn("1");
+      when(lNodeInfo.getAttribute("", "maxOccurs")).thenReturn("1");
+      lNodeInfoMap.put("/LIST/ROW/CHILD_" + i, lNodeInfo);
+    }
+
+    mModule = mock(Mod.class);
+    when(mModule.getNodeInfo(anyString())).thenAnswer(new Answer<NodeInfo>() {
+      @Override
+      public NodeInfo answer(InvocationOnMock pInvocation) {
+        return lNodeInfoMap.get(pInvocation.getArguments()[0]);
+      }
+    });
+    when(mModule.getNodeInfo(any(DOM.class))).thenAnswer(new Answer<NodeInfo>() {
+      @Override
+      public NodeInfo answer(InvocationOnMock pInvocation) {
+        return lNodeInfoMap.get(((DOM) pInvocation.getArguments()[0]).absolute());
+      }
+    });
+
+    mErrorDOM = DOM.createDocument("ERROR", false);
+  }
+
+  private static DOM createListDOM(int pRowCount) {
+    DOM lListDOM = DOM.createDocument("LIST", false);
+    for(int lRow = 0; lRow < pRowCount; lRow++) {
+      DOM lRowDOM = lListDOM.addElem("ROW");
+      for(int lChild = 1; lChild <= CHILD_COUNT; lChild++) {
+        lRowDOM.addElem("CHILD_" + lChild, "value");
+      }
+    }
+    return lListDOM;
+  }
+
+  private void runValidate(DOM pListDOM, String pCommandAttributes) throws ExDoSyntax {
+    ContextUElem lContextUElem = new ContextUElem(pListDOM, ContextLabel.ROOT);
+    DOMHandler lErrorDOMHandler = mock(DOMHandler.class);
+    when(lErrorDOMHandler.getDOM()).thenReturn(mErrorDOM);
+    when(lErrorDOMHandler.getContextLabel()).thenReturn(ContextLabel.ERROR.asString());
+    lContextUElem.registerDOMHandler(lErrorDOMHandler);
+
+    ActionRequestContext lRequestContext = mock(ActionRequestContext.class);
+    when(lRequestContext.getContextUElem()).thenReturn(lContextUElem);
+    when(lRequestContext.getCurrentModule()).thenReturn(mModule);
+
+    DOM lCommandDOM = DOM.createDocumentFromXMLString("<validate match=\"/*/ROW/*\" check=\"CARDINALITY\" " + pCommandAttributes + "/>");
+    new ValidateCommand.Factory().create(mModule, lCommandDOM).run(lRequestContext);
+  }
+
+  @Test
+  public void testValidStructureIsUnchanged() throws ExDoSyntax {
+    DOM lListDOM = createListDOM(10);
+    runValidate(lListDOM, "");
+
+    assertEquals("No elements created", 10 * CHILD_COUNT, lListDOM.getUL("/LIST/ROW/*").getLength());
+    assertEquals("No errors reported", 0, mErrorDOM.getUL("error-list/fox-error").getLength());
+  }
+
+  @Test
+  public void testMissingElementIsCreatedOnlyWhereMissing() throws ExDoSyntax {
+    DOM lListDOM = createListDOM(10);
+    lListDOM.getUL("/LIST/ROW").item(4).getUL("CHILD_3").removeFromDOMTree();
+
+    runValidate(lListDOM, "");
+
+    assertEquals("Missing element is created in row which was missing it", 1, lListDOM.getUL("/LIST/ROW").item(4).getUL("CHILD_3").getLength());
+    assertEquals("No elements created in other rows", 10 * CHILD_COUNT, lListDOM.getUL("/LIST/ROW/*").getLength());
+  }
+
+  @Test
+  public void testCardinalityErrorsAreReported() throws ExDoSyntax {
+    DOM lListDOM = createListDOM(10);
+    lListDOM.getUL("/LIST/ROW").item(2).getUL("CHILD_1").removeFromDOMTree();
+    lListDOM.getUL("/LIST/ROW").item(7).addElem("CHILD_2");
+    lListDOM.getUL("/LIST/ROW").item(0).get1EOrNull("CHILD_1").addElem("fox-error").addElem("msg", "Old error");
+
+    runValidate(lListDOM, "init=\"n\" clear=\"CLEAR-NODE\"");
+
+    assertEquals("Errors reported for missing and surplus elements", 2, mErrorDOM.getUL("error-list/fox-error").getLength());
+    assertEquals("Error added to row with missing element", 1, lListDOM.getUL("/LIST/ROW").item(2).getUL("fox-error").getLength());
+    assertEquals("Error added to row with surplus element", 1, lListDOM.getUL("/LIST/ROW").item(7).getUL("fox-error").getLength());
+    assertEquals("Old errors cleared from matched node", 0, lListDOM.getUL("/LIST/ROW/CHILD_1/fox-error").getLength());
+  }
+
+  /**
+   * Benchmark timing a cardinality validation of a document made up of rows of mandatory children. Not run as part of
+   * the test suite. Arguments: approximate element count (default 50000), timed iterations (default 5).
+   */
+  public static void main(String[] pArgs) throws ExDoSyntax {
+    int lElementCount = pArgs.length > 0 ? Integer.parseInt(pArgs[0]) : 50000;
+    int lIterations = pArgs.length > 1 ? Integer.parseInt(pArgs[1]) : 5;
+    //Each row is one element plus its children
+    int lRowCount = lElementCount / (CHILD_COUNT + 1);
+
+    ValidateCommandTest lTest = new ValidateCommandTest();
+    lTest.setup();
+
+    //Warm up on a smaller document before timing
+    for(int i = 0; i < lIterations; i++) {
+      lTest.runValidate(createListDOM(1000 / (CHILD_COUNT + 1)), "");
+    }
+
+    long lTotalNanos = 0;
+    for(int i = 0; i < lIterations; i++) {
+      DOM lListDOM = createListDOM(lRowCount);
+      long lStart = System.nanoTime();
+      lTest.runValidate(lListDOM, "");
+      lTotalNanos += System.nanoTime() - lStart;
+    }
+
+    System.out.printf("%d rows of %d children (%d elements), mean of %d runs: %.0f ms%n", lRowCount, CHILD_COUNT,
+                      lRowCount * (CHILD_COUNT + 1), lIterations, lTotalNanos / 1e6 / lIterations);
+  }
+}
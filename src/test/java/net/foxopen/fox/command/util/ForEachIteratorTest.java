@@ -0,0 +1,73 @@
+package net.foxopen.fox.command.util;
+
+import net.foxopen.fox.ContextLabel;
+import net.foxopen.fox.ContextUElem;
+import net.foxopen.fox.dom.DOM;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ForEachIteratorTest {
+
+  private DOM mRootDOM;
+  private ContextUElem mContextUElem;
+
+  @Before
+  public void setup() {
+    mRootDOM = DOM.createDocumentFromXMLString("<ROOT><ITEM>a</ITEM><ITEM>b</ITEM><ITEM>c</ITEM></ROOT>");
+    mContextUElem = new ContextUElem(mRootDOM, ContextLabel.ROOT);
+  }
+
+  @Test
+  public void testStatusIsCurrentWhenFirstReadMidLoop() {
+    ForEachIterator lIterator = new ForEachIterator(true, "item", "status", null, null, null);
+    List<String> lStatuses = new ArrayList<>();
+
+    lIterator.doForEach(mContextUElem, mRootDOM.getUL("ITEM"), (pCurrentItem, pStatus) -> {
+      //Only read the status on the last iteration
+      if (pStatus.isIsLast()) {
+        DOM lStatusDOM = mContextUElem.getUElem("status");
+        lStatuses.add(lStatusDOM.get1SNoEx("index") + "/" + lStatusDOM.get1SNoEx("count") + "/" + lStatusDOM.get1SNoEx("isFirst") +
+                      "/" + lStatusDOM.get1SNoEx("isLast") + "/" + lStatusDOM.get1SNoEx("end"));
+      }
+      return true;
+    });
+
+    assertEquals("Status reflects the iteration it was read in", "2/3/false/true/2", lStatuses.get(0));
+  }
+
+  @Test
+  public void testStatusIsReadableEveryIteration() {
+    ForEachIterator lIterator = new ForEachIterator(true, "item", "status", null, null, null);
+    List<String> lValues = new ArrayList<>();
+
+    lIterator.doForEach(mContextUElem, mRootDOM.getUL("ITEM"), (pCurrentItem, pStatus) -> {
+      lValues.add(mContextUElem.getUElem("item").value() + mContextUElem.getUElem("status").get1SNoEx("count"));
+      return true;
+    });
+
+    assertEquals("[a1, b2, c3]", lValues.toString());
+  }
+
+  @Test
+  public void testHeldStatusElementsAreUpdated() {
+    ForEachIterator lIterator = new ForEachIterator(false, null, "status", 1d, 3d, 1d);
+    DOM[] lHeldStep = new DOM[1];
+    List<String> lValues = new ArrayList<>();
+
+    lIterator.doForEach(mContextUElem, null, (pCurrentItem, pStatus) -> {
+      if (pStatus.isIsFirst()) {
+        lHeldStep[0] = mContextUElem.getUElem("status").get1EOrNull("currentStep");
+      }
+      //Read via the held element without resolving the label again
+      lValues.add(lHeldStep[0].value());
+      return true;
+    });
+
+    assertEquals("[1, 2, 3]", lValues.toString());
+  }
+}
@@ -0,0 +1,20 @@
+package net.foxopen.fox.database;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class UConTest {
+
+  @Test
+  public void testIsAnonymousBlock() {
+    assertTrue("Default check in SQL can be nested", UCon.isAnonymousBlock(ConnectionPoolConfig.DEFAULT_CHECKIN_SQL));
+    assertTrue("Leading whitespace and case ignored", UCon.isAnonymousBlock("\n  begin\n    null;\n  end;\n"));
+    assertTrue("Declare section allowed", UCon.isAnonymousBlock("DECLARE l NUMBER; BEGIN l := 1; END;"));
+
+    assertFalse("Unterminated block cannot be nested", UCon.isAnonymousBlock("BEGIN NULL; END"));
+    assertFalse("SQL statement cannot be nested", UCon.isAnonymousBlock("UPDATE beginnings SET x = 1;"));
+    assertFalse("CALL statement cannot be nested", UCon.isAnonymousBlock("CALL dbms_session.reset_package()"));
+  }
+}
@@ -0,0 +1,60 @@
+package net.foxopen.fox.database.storage.dom;
+
+import net.foxopen.fox.dom.DOM;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class WriteableXMLWorkDocTest {
+
+  private static DOM createDOM() {
+    return DOM.createDocumentFromXMLString("<ROOT><ITEM><NAME>first</NAME><VALUE>1</VALUE></ITEM><ITEM><NAME>second</NAME></ITEM></ROOT>");
+  }
+
+  @Test
+  public void testRevertedChangeHasSameContentHash() {
+    DOM lDOM = createDOM();
+    byte[] lOriginalHash = WriteableXMLWorkDoc.contentHash(lDOM);
+    int lOriginalModifiedCount = lDOM.getDocumentModifiedCount();
+
+    DOM lValue = lDOM.getUL("/ROOT/ITEM/VALUE").item(0);
+    lValue.setText("2");
+    lValue.setText("1");
+    lDOM.addElem("TEMP").remove();
+
+    assertTrue("DOM is marked as modified", lOriginalModifiedCount != lDOM.getDocumentModifiedCount());
+    assertTrue("Content hash unchanged", Arrays.equals(lOriginalHash, WriteableXMLWorkDoc.contentHash(lDOM)));
+  }
+
+  @Test
+  public void testChangedContentHasDifferentContentHash() {
+    DOM lDOM = createDOM();
+    byte[] lOriginalHash = WriteableXMLWorkDoc.contentHash(lDOM);
+
+    lDOM.getUL("/ROOT/ITEM/VALUE").item(0).setText("2");
+    byte[] lTextChangedHash = WriteableXMLWorkDoc.contentHash(lDOM);
+    assertFalse("Text change detected", Arrays.equals(lOriginalHash, lTextChangedHash));
+
+    lDOM.setAttr(XMLWorkDoc.CHANGE_NUMBER_ATTR_NAME, "1234");
+    assertFalse("Change number included in hash", Arrays.equals(lTextChangedHash, WriteableXMLWorkDoc.contentHash(lDOM)));
+  }
+
+  @Test
+  public void testClobWriteDigestMatchesContentHash() {
+    DOM lDOM = createDOM();
+    lDOM.setAttr(XMLWorkDoc.CHANGE_NUMBER_ATTR_NAME, "1234");
+
+    StringWriter lWriter = new StringWriter();
+    MessageDigest lContentDigest = WriteableXMLWorkDoc.newContentDigest();
+    ClobDOMAccessor.writeDOM(lDOM, lWriter, lContentDigest);
+
+    assertEquals("Digest does not change written content", lDOM.outputNodeToString(false), lWriter.toString());
+    assertTrue("Hash taken during write matches content hash", Arrays.equals(WriteableXMLWorkDoc.contentHash(lDOM), lContentDigest.digest()));
+  }
+}
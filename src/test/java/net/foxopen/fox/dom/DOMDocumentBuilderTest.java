@@ -0,0 +1,207 @@
+package net.foxopen.fox.dom;
+
+import nu.xom.Builder;
+import org.junit.Test;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.DTDHandler;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.ext.DefaultHandler2;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.AttributesImpl;
+
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DOMDocumentBuilderTest {
+
+  private static final String TEST_XML =
+"<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+"<!-- Prolog comment --><?prolog-pi data?>" +
+"<ROOT foxid=\"r1\" xmlns:ns1=\"http://ns1.com\">" +
+"<ELEMENT_1 foxid=\"e1\" attr1=\"attr &amp; 1\">Element &lt;1&gt;</ELEMENT_1>" +
+"<ns1:ELEMENT_2 foxid=\"e2\" ns1:attr=\"ns attr\"><ns1:CHILD>Namespaced</ns1:CHILD></ns1:ELEMENT_2>" +
+"<DEFAULT_NS xmlns=\"http://default.com\"><CHILD>Default namespace</CHILD></DEFAULT_NS>" +
+"<MIXED foxid=\"m1\">Text <!-- inner comment --><B>bold</B><![CDATA[ <cdata> ]]>tail<?inner-pi x?></MIXED>" +
+"<EMPTY/>" +
+"</ROOT>" +
+"<!-- Epilog comment -->";
+
+  /**
+   * A SAX event which has been recorded from a parser and can be replayed to a handler, simulating a binary XML decoder.
+   */
+  private interface SAXEvent {
+    void replay(ContentHandler pContentHandler, LexicalHandler pLexicalHandler) throws SAXException;
+  }
+
+  /**
+   * Records the events produced by parsing an XML string.
+   */
+  private static List<SAXEvent> recordEvents(String pXML) throws Exception {
+    final List<SAXEvent> lEvents = new ArrayList<>();
+    DefaultHandler2 lRecorder = new DefaultHandler2() {
+      public void startDocument() { lEvents.add((c, l) -> c.startDocument()); }
+      public void endDocument() { lEvents.add((c, l) -> c.endDocument()); }
+      public void startPrefixMapping(String pPrefix, String pURI) { lEvents.add((c, l) -> c.startPrefixMapping(pPrefix, pURI)); }
+      public void endPrefixMapping(String pPrefix) { lEvents.add((c, l) -> c.endPrefixMapping(pPrefix)); }
+      public void startElement(String pURI, String pLocalName, String pQName, Attributes pAttrs) {
+        Attributes lAttrs = new AttributesImpl(pAttrs);
+        lEvents.add((c, l) -> c.startElement(pURI, pLocalName, pQName, lAttrs));
+      }
+      public void endElement(String pURI, String pLocalName, String pQName) { lEvents.add((c, l) -> c.endElement(pURI, pLocalName, pQName)); }
+      public void characters(char[] pChars, int pStart, int pLength) {
+        char[] lChars = new String(pChars, pStart, pLength).toCharArray();
+        lEvents.add((c, l) -> c.characters(lChars, 0, lChars.length));
+      }
+      public void processingInstruction(String pTarget, String pData) { lEvents.add((c, l) -> c.processingInstruction(pTarget, pData)); }
+      public void comment(char[] pChars, int pStart, int pLength) {
+        char[] lChars = new String(pChars, pStart, pLength).toCharArray();
+        lEvents.add((c, l) -> l.comment(lChars, 0, lChars.length));
+      }
+      public void startCDATA() { lEvents.add((c, l) -> l.startCDATA()); }
+      public void endCDATA() { lEvents.add((c, l) -> l.endCDATA()); }
+    };
+
+    SAXParserFactory lFactory = SAXParserFactory.newInstance();
+    lFactory.setNamespaceAware(true);
+    SAXParser lParser = lFactory.newSAXParser();
+    lParser.setProperty("http://xml.org/sax/properties/lexical-handler", lRecorder);
+    lParser.parse(new InputSource(new StringReader(pXML)), lRecorder);
+    return lEvents;
+  }
+
+  private static DOM buildWithDocumentBuilder(List<SAXEvent> pEvents) throws SAXException {
+    DOMDocumentBuilder lBuilder = new DOMDocumentBuilder();
+    for(SAXEvent lEvent : pEvents) {
+      lEvent.replay(lBuilder, lBuilder);
+    }
+    return lBuilder.getDOM();
+  }
+
+  /**
+   * Builds a DOM the way binary XML was previously read - replaying events into a XOM Builder's handler and wrapping the result.
+   */
+  private static DOM buildWithXOMBuilder(List<SAXEvent> pEvents) throws Exception {
+    return DOM.createDocumentFromNode(new Builder(new ReplayingXMLReader(pEvents)).build(""));
+  }
+
+  private static String serialiseDocument(DOM pDOM) {
+    ByteArrayOutputStream lOutput = new ByteArrayOutputStream();
+    pDOM.outputDocumentToOutputStream(lOutput, false);
+    return new String(lOutput.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void testBuiltDocumentMatchesXOMBuilder() throws Exception {
+    List<SAXEvent> lEvents = recordEvents(TEST_XML);
+
+    DOM lExpected = buildWithXOMBuilder(lEvents);
+    DOM lActual = buildWithDocumentBuilder(lEvents);
+
+    assertEquals(serialiseDocument(lExpected), serialiseDocument(lActual));
+  }
+
+  @Test
+  public void testRefIndexIsPopulated() throws Exception {
+    DOM lDOM = buildWithDocumentBuilder(recordEvents(TEST_XML));
+
+    assertEquals("ELEMENT_1", lDOM.getElemByRef("e1").getName());
+    assertEquals("ns1:ELEMENT_2", lDOM.getElemByRef("e2").getName());
+    assertTrue("Index still correct after modification", lDOM.getElemByRef("m1").equals(lDOM.get1EOrNull("MIXED")));
+
+    lDOM.getDocControl().setDocumentReadWriteAutoIds();
+    DOM lNewElement = lDOM.addElem("NEW");
+    assertTrue("New elements are indexed", lNewElement.equals(lDOM.getElemByRef(lNewElement.getRef())));
+  }
+
+  /**
+   * Benchmark comparing the time taken to build a large document from recorded SAX events and resolve an element by
+   * FOXID, using this builder and using a XOM Builder as binary XML was previously read. Not run as part of the test
+   * suite. Arguments: element count (default 25000), timed iterations (default 20).
+   */
+  public static void main(String[] pArgs) throws Exception {
+    int lElementCount = pArgs.length > 0 ? Integer.parseInt(pArgs[0]) : 25000;
+    int lIterations = pArgs.length > 1 ? Integer.parseInt(pArgs[1]) : 20;
+
+    StringBuilder lXML = new StringBuilder("<ROOT foxid=\"root\">");
+    for(int i = 0; i < lElementCount; i++) {
+      lXML.append("<ROW foxid=\"r").append(i).append("\" attr=\"value ").append(i).append("\">Text ").append(i).append("</ROW>");
+    }
+    lXML.append("</ROOT>");
+
+    List<SAXEvent> lEvents = recordEvents(lXML.toString());
+    String lLastRef = "r" + (lElementCount - 1);
+
+    //Warm up both paths before timing
+    for(int i = 0; i < lIterations; i++) {
+      buildWithXOMBuilder(lEvents).getElemByRef(lLastRef);
+      buildWithDocumentBuilder(lEvents).getElemByRef(lLastRef);
+    }
+
+    long lXOMBuilderNanos = 0;
+    long lDocumentBuilderNanos = 0;
+    for(int i = 0; i < lIterations; i++) {
+      long lStart = System.nanoTime();
+      buildWithXOMBuilder(lEvents).getElemByRef(lLastRef);
+      lXOMBuilderNanos += System.nanoTime() - lStart;
+
+      lStart = System.nanoTime();
+      buildWithDocumentBuilder(lEvents).getElemByRef(lLastRef);
+      lDocumentBuilderNanos += System.nanoTime() - lStart;
+    }
+
+    System.out.printf("%d elements, mean of %d runs%n", lElementCount, lIterations);
+    System.out.printf("XOM Builder:        %.1f ms%n", lXOMBuilderNanos / 1e6 / lIterations);
+    System.out.printf("DOMDocumentBuilder: %.1f ms%n", lDocumentBuilderNanos / 1e6 / lIterations);
+  }
+
+  /**
+   * XMLReader which replays recorded events to the handler XOM gives it, in the same way binary XML used to be read.
+   */
+  private static class ReplayingXMLReader
+  implements XMLReader {
+
+    private final List<SAXEvent> mEvents;
+    private ContentHandler mContentHandler;
+    private ErrorHandler mErrorHandler;
+
+    ReplayingXMLReader(List<SAXEvent> pEvents) {
+      mEvents = pEvents;
+    }
+
+    public boolean getFeature(String pName) { return false; }
+    public void setFeature(String pName, boolean pValue) { }
+    public Object getProperty(String pName) { return null; }
+    public void setProperty(String pName, Object pValue) { }
+    public void setEntityResolver(EntityResolver pResolver) { }
+    public EntityResolver getEntityResolver() { return null; }
+    public void setDTDHandler(DTDHandler pHandler) { }
+    public DTDHandler getDTDHandler() { return null; }
+    public void setContentHandler(ContentHandler pHandler) { mContentHandler = pHandler; }
+    public ContentHandler getContentHandler() { return mContentHandler; }
+    public void setErrorHandler(ErrorHandler pHandler) { mErrorHandler = pHandler; }
+    public ErrorHandler getErrorHandler() { return mErrorHandler; }
+
+    public void parse(InputSource pInput) throws SAXException {
+      parse("");
+    }
+
+    public void parse(String pSystemId) throws SAXException {
+      for(SAXEvent lEvent : mEvents) {
+        lEvent.replay(mContentHandler, (LexicalHandler) mContentHandler);
+      }
+    }
+  }
+}
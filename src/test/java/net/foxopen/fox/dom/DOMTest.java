@@ -9,6 +9,7 @@ import net.foxopen.fox.ex.ExTooMany;
 import net.foxopen.fox.ex.ExValidation;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -739,6 +740,17 @@ public class DOMTest {
   }
 
 
+  @Test
+  public void testReorderChildren() {
+    mDOM = DOM.createDocumentFromXMLString("<ROOT><A/><HEADER/><B/><C/><FOOTER/></ROOT>");
+
+    DOMList lChildren = mDOM.getUL("/ROOT/*");
+    mDOM.reorderChildren(Arrays.asList(lChildren.item(3), lChildren.item(0), lChildren.item(2)));
+
+    assertEquals("Reordered children fill the positions they previously occupied, other children are not moved",
+                 "C,HEADER,A,B,FOOTER", mDOM.xpath1SNoEx("string-join(/ROOT/*/name(), ',')"));
+  }
+
   @Test
   public void testCopyContentsTo()
   throws ExTooFew, ExTooMany {
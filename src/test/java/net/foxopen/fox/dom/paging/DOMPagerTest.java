@@ -0,0 +1,142 @@
+package net.foxopen.fox.dom.paging;
+
+import net.foxopen.fox.ContextLabel;
+import net.foxopen.fox.ContextUElem;
+import net.foxopen.fox.dom.DOM;
+import net.foxopen.fox.dom.DOMList;
+import net.foxopen.fox.dom.xpath.saxon.SaxonEnvironment;
+import net.foxopen.fox.dom.xpath.saxon.XPathVariableManager;
+import net.foxopen.fox.ex.ExActionFailed;
+import net.foxopen.fox.thread.ActionRequestContext;
+import net.foxopen.fox.thread.persistence.PersistenceContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyMap;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DOMPagerTest {
+
+  private ActionRequestContext mRequestContext;
+  private final Map<String, Object> mLocalVariables = new HashMap<>();
+
+  @Before
+  @SuppressWarnings("unchecked")
+  public void setup() {
+    //Variable manager which only supports a single level of localisation
+    XPathVariableManager lVariableManager = mock(XPathVariableManager.class);
+    doAnswer(i -> { mLocalVariables.putAll((Map<String, Object>) i.getArguments()[1]); return null; }).when(lVariableManager).localise(anyString(), anyMap());
+    doAnswer(i -> { mLocalVariables.clear(); return null; }).when(lVariableManager).delocalise(anyString());
+    when(lVariableManager.resolveVariable(anyString())).thenAnswer(i -> mLocalVariables.get(i.getArguments()[0]));
+
+    mRequestContext = mock(ActionRequestContext.class);
+    when(mRequestContext.getPersistenceContext()).thenReturn(mock(PersistenceContext.class));
+    when(mRequestContext.getXPathVariableManager()).thenReturn(lVariableManager);
+
+    SaxonEnvironment.clearThreadLocalRequestContext();
+    SaxonEnvironment.setThreadLocalRequestContext(mRequestContext);
+  }
+
+  @After
+  public void cleanup() {
+    SaxonEnvironment.clearThreadLocalRequestContext();
+  }
+
+  private static DOM createListDOM(int pRowCount) {
+    DOM lListDOM = DOM.createDocument("LIST", false);
+    for(int i = 1; i <= pRowCount; i++) {
+      lListDOM.addElem("ROW", Integer.toString(i));
+    }
+    return lListDOM;
+  }
+
+  private static DOMPager createPager(int pPageSize) {
+    return new DOMPager("PAGER", "CALL", new EvaluatedPagerSetup(null, pPageSize, "INVOKE", null));
+  }
+
+  @Test
+  public void testPageBoundaries() throws ExActionFailed {
+    for(int lRowCount : new int[]{0, 1, 19, 20, 21, 40, 45}) {
+      DOM lListDOM = createListDOM(lRowCount);
+      ContextUElem lContextUElem = new ContextUElem(lListDOM, ContextLabel.ROOT);
+      DOMPager lPager = createPager(20);
+
+      //Walk every page, plus the page after the last one
+      for(int lPageNum = 1; lPageNum <= lPager.getPageCount() + 1; lPageNum++) {
+        lPager.setCurrentPage(lPageNum);
+        DOMList lEvaluated = lPager.evaluateXPathForCurrentPage(mRequestContext, lContextUElem, lListDOM, "./ROW");
+        DOMList lTrimmed = lPager.trimDOMListForCurrentPage(mRequestContext, lContextUElem.extendedXPathUL(lListDOM, "./ROW"));
+
+        String lDescription = lRowCount + " rows, page " + lPageNum;
+        assertEquals(lDescription + " row count", lRowCount, lPager.getRowCount());
+        assertEquals(lDescription + " size", lTrimmed.getLength(), lEvaluated.getLength());
+        for(int i = 0; i < lTrimmed.getLength(); i++) {
+          assertTrue(lDescription + " item " + i, lTrimmed.get(i).equals(lEvaluated.get(i)));
+        }
+        assertTrue("Page variables delocalised", mLocalVariables.isEmpty());
+      }
+    }
+  }
+
+  @Test
+  public void testUnionPagedAsSingleSequence() throws ExActionFailed {
+    DOM lListDOM = createListDOM(45);
+    ContextUElem lContextUElem = new ContextUElem(lListDOM, ContextLabel.ROOT);
+    DOMPager lPager = createPager(20);
+
+    DOMList lPage = lPager.evaluateXPathForCurrentPage(mRequestContext, lContextUElem, lListDOM, "./ROW[1] | ./ROW[45]");
+    assertEquals(2, lPager.getRowCount());
+    assertEquals(2, lPage.getLength());
+    assertEquals("45", lPage.get(1).value());
+  }
+
+  @Test
+  public void testRowCountCachedUntilRefresh() throws ExActionFailed {
+    DOM lListDOM = createListDOM(45);
+    ContextUElem lContextUElem = new ContextUElem(lListDOM, ContextLabel.ROOT);
+    DOMPager lPager = createPager(20);
+
+    lPager.evaluateXPathForCurrentPage(mRequestContext, lContextUElem, lListDOM, "./ROW");
+    assertEquals(45, lPager.getRowCount());
+
+    //A row added after the current page is not counted until the pager is refreshed
+    lListDOM.addElem("ROW", "46");
+    lPager.evaluateXPathForCurrentPage(mRequestContext, lContextUElem, lListDOM, "./ROW");
+    assertEquals("Row count cached", 45, lPager.getRowCount());
+
+    lPager.refreshPager(mRequestContext, lContextUElem.extendedXPathUL(lListDOM, "./ROW"));
+    assertEquals("Row count updated by refresh", 46, lPager.getRowCount());
+
+    //Rows added to the current page cause a recount
+    lListDOM.addElem("ROW", "47");
+    lPager.setCurrentPage(3);
+    DOMList lPage = lPager.evaluateXPathForCurrentPage(mRequestContext, lContextUElem, lListDOM, "./ROW");
+    assertEquals("Recounted after rows added to current page", 47, lPager.getRowCount());
+    assertEquals(7, lPage.getLength());
+
+    //Rows removed from the current page cause a recount
+    lContextUElem.extendedXPathUL(lListDOM, "./ROW[. > 42]").removeFromDOMTree();
+    lPage = lPager.evaluateXPathForCurrentPage(mRequestContext, lContextUElem, lListDOM, "./ROW");
+    assertEquals("Recounted after rows removed from current page", 42, lPager.getRowCount());
+    assertEquals(2, lPage.getLength());
+
+    //Filling the last page exactly then adding a row is detected from the extra row fetched beyond the page
+    lContextUElem.extendedXPathUL(lListDOM, "./ROW[. > 40]").removeFromDOMTree();
+    lPager.setCurrentPage(2);
+    lPager.evaluateXPathForCurrentPage(mRequestContext, lContextUElem, lListDOM, "./ROW");
+    assertEquals(40, lPager.getRowCount());
+    lListDOM.addElem("ROW", "41");
+    lPage = lPager.evaluateXPathForCurrentPage(mRequestContext, lContextUElem, lListDOM, "./ROW");
+    assertEquals("Recounted after row added after a full last page", 41, lPager.getRowCount());
+    assertEquals(20, lPage.getLength());
+  }
+}
@@ -0,0 +1,56 @@
+package net.foxopen.fox.dom.paging;
+
+import net.foxopen.fox.dom.DOM;
+import net.foxopen.fox.dom.DOMList;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class PageDataEncoderTest {
+
+  private static DOM createResultDOM(int pRowCount) {
+    DOM lResultDOM = DOM.createDocument("RESULTS", false);
+    for(int i = 1; i <= pRowCount; i++) {
+      DOM lRow = lResultDOM.addElem("ROW");
+      lRow.addElem("ID", Integer.toString(i));
+      lRow.addElem("NAME", "Name of row " + i + " & <escaped>");
+      lRow.addElem("STATUS", i % 2 == 0 ? "ACTIVE" : "INACTIVE");
+      lRow.addElem("EMPTY");
+      lRow.setAttr("type", "row");
+    }
+    return lResultDOM;
+  }
+
+  private static byte[] encodePage(DOMList pRows, int pFrom, int pTo) {
+    ByteArrayOutputStream lBAOS = new ByteArrayOutputStream();
+    PageDataEncoder lEncoder = new PageDataEncoder(lBAOS);
+    for(int i = pFrom; i < pTo; i++) {
+      lEncoder.writeRow(pRows.item(i));
+    }
+    lEncoder.close();
+    return lBAOS.toByteArray();
+  }
+
+  @Test
+  public void testRoundTrip() {
+    DOM lResultDOM = createResultDOM(25);
+    DOMList lRows = lResultDOM.getChildElements();
+
+    byte[] lPageData = encodePage(lRows, 0, lRows.getLength());
+    DOMList lDecodedRows = PageDataEncoder.decode(new ByteArrayInputStream(lPageData)).getChildElements();
+
+    assertEquals("All rows decoded", 25, lDecodedRows.getLength());
+    for(int i = 0; i < lRows.getLength(); i++) {
+      assertEquals("Row " + i + " decoded in order with identical content", lRows.item(i).outputNodeToString(), lDecodedRows.item(i).outputNodeToString());
+    }
+  }
+
+  @Test
+  public void testEmptyPage() {
+    byte[] lPageData = encodePage(new DOMList(), 0, 0);
+    assertEquals(0, PageDataEncoder.decode(new ByteArrayInputStream(lPageData)).getChildElements().getLength());
+  }
+}
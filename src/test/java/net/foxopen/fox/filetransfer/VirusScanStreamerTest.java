@@ -0,0 +1,228 @@
+package net.foxopen.fox.filetransfer;
+
+import net.foxopen.fox.ex.ExInternal;
+import net.foxopen.fox.ex.ExVirusScan;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class VirusScanStreamerTest {
+
+  private static final int UPLOAD_COUNT = 120;
+  private static final int CONCURRENT_UPLOADS = 24;
+  private static final int SCANNERS_PER_UPLOAD = 2;
+  private static final int UPLOAD_SIZE_BYTES = 2 * 1024 * 1024;
+
+  private static final AtomicInteger gRunningScans = new AtomicInteger();
+  private static final AtomicInteger gMaxRunningScans = new AtomicInteger();
+
+  /**
+   * Stub scanner which reads its whole input, optionally slowly, and records how many bytes it saw. Reports a virus if
+   * the input contains the byte sequence "VIRUS".
+   */
+  private static class StubVirusScanner
+  extends VirusScanner {
+
+    private final boolean mSlow;
+    private volatile long mBytesScanned = 0;
+    private volatile boolean mVirusFound = false;
+
+    StubVirusScanner(boolean pSlow) {
+      super("stub", 0, 60);
+      mSlow = pSlow;
+    }
+
+    @Override
+    public String getType() {
+      return "STUB";
+    }
+
+    @Override
+    public void scan(InputStream pInputStream)
+    throws ExVirusScan {
+      int lRunning = gRunningScans.incrementAndGet();
+      gMaxRunningScans.accumulateAndGet(lRunning, Math::max);
+      try {
+        byte[] lBuffer = new byte[8192];
+        int lRead;
+        int lReads = 0;
+        while((lRead = pInputStream.read(lBuffer)) != -1) {
+          mBytesScanned += lRead;
+          if(new String(lBuffer, 0, lRead, "US-ASCII").contains("VIRUS")) {
+            //Stop reading early, as a real scanner would when it finds a virus
+            mVirusFound = true;
+            return;
+          }
+          if(mSlow && ++lReads % 16 == 0) {
+            Thread.sleep(1);
+          }
+        }
+      }
+      catch (IOException | InterruptedException e) {
+        throw new ExVirusScan("Stub scan failed", e);
+      }
+      finally {
+        gRunningScans.decrementAndGet();
+      }
+    }
+
+    @Override
+    public String getScanResultString() {
+      return mVirusFound ? "VIRUS" : "OK";
+    }
+
+    @Override
+    public boolean isVirusFound() {
+      return mVirusFound;
+    }
+
+    @Override
+    public void initialiseVirusScanner() {
+    }
+  }
+
+  /**
+   * Writes the given data to the streamer in the same way as UploadWorkItem - backing off when the scanners cannot
+   * accept more data.
+   */
+  private static void streamUpload(VirusScanStreamer pStreamer, byte[] pData)
+  throws IOException, InterruptedException {
+    int lOffset = 0;
+    while(lOffset < pData.length) {
+      if(!pStreamer.canAcceptBytes()) {
+        Thread.sleep(1);
+        continue;
+      }
+      int lLength = Math.min(VirusScanStreamer.BUFFER_SIZE, pData.length - lOffset);
+      pStreamer.write(pData, lOffset, lLength);
+      lOffset += lLength;
+    }
+    pStreamer.closeAndAwaitCompletion();
+  }
+
+  private static int countScanThreads() {
+    int lCount = 0;
+    for(Thread lThread : Thread.getAllStackTraces().keySet()) {
+      if(lThread.getName().contains("Virus Scan")) {
+        lCount++;
+      }
+    }
+    return lCount;
+  }
+
+  @Test
+  public void testScanThreadCountStaysBoundedUnderLoad()
+  throws Exception {
+
+    final byte[] lUploadData = new byte[UPLOAD_SIZE_BYTES];
+    Arrays.fill(lUploadData, (byte) 'a');
+
+    final List<StubVirusScanner> lAllScanners = Collections.synchronizedList(new ArrayList<>());
+    final AtomicInteger lMaxScanThreads = new AtomicInteger();
+
+    ExecutorService lUploadExecutor = Executors.newFixedThreadPool(CONCURRENT_UPLOADS);
+    List<Future<?>> lUploads = new ArrayList<>();
+    for(int i = 0; i < UPLOAD_COUNT; i++) {
+      final boolean lSlow = i % 2 == 0;
+      lUploads.add(lUploadExecutor.submit(() -> {
+        List<VirusScanner> lScanners = new ArrayList<>();
+        for(int s = 0; s < SCANNERS_PER_UPLOAD; s++) {
+          StubVirusScanner lScanner = new StubVirusScanner(lSlow);
+          lScanners.add(lScanner);
+          lAllScanners.add(lScanner);
+        }
+
+        VirusScanStreamer lStreamer = new VirusScanStreamer(lScanners, "test upload");
+        lMaxScanThreads.accumulateAndGet(countScanThreads(), Math::max);
+        streamUpload(lStreamer, lUploadData);
+        return null;
+      }));
+    }
+
+    for(Future<?> lUpload : lUploads) {
+      lUpload.get(2, TimeUnit.MINUTES);
+    }
+    lUploadExecutor.shutdown();
+
+    assertEquals("Every scanner was run", UPLOAD_COUNT * SCANNERS_PER_UPLOAD, lAllScanners.size());
+    for(StubVirusScanner lScanner : lAllScanners) {
+      assertTrue("Scanner completed", lScanner.isComplete());
+      assertFalse("Scanner completed without error: " + lScanner.getErrorMessage(), lScanner.isError());
+      assertEquals("Scanner saw every byte of the upload", UPLOAD_SIZE_BYTES, lScanner.mBytesScanned);
+    }
+
+    assertTrue("Concurrent scans limited to pool size (was " + gMaxRunningScans.get() + ")", gMaxRunningScans.get() <= VirusScanStreamer.MAX_SCAN_THREADS);
+    assertTrue("Scan thread count limited to pool size (was " + lMaxScanThreads.get() + ")", lMaxScanThreads.get() <= VirusScanStreamer.MAX_SCAN_THREADS);
+  }
+
+  @Test
+  public void testVirusFoundBeforeEndOfUpload()
+  throws Exception {
+
+    byte[] lUploadData = new byte[UPLOAD_SIZE_BYTES];
+    Arrays.fill(lUploadData, (byte) 'a');
+    System.arraycopy("VIRUS".getBytes("US-ASCII"), 0, lUploadData, 1024, 5);
+
+    StubVirusScanner lScanner = new StubVirusScanner(false);
+    VirusScanStreamer lStreamer = new VirusScanStreamer(Collections.singletonList(lScanner), "test upload");
+
+    //Writes after the scanner has stopped reading are discarded rather than failing or blocking the upload
+    streamUpload(lStreamer, lUploadData);
+
+    assertTrue("Virus found", lScanner.isVirusFound());
+    assertFalse("Scanner did not read the whole upload", lScanner.mBytesScanned == UPLOAD_SIZE_BYTES);
+  }
+
+  @Test
+  public void testAbortReleasesWaitingScanner()
+  throws Exception {
+
+    StubVirusScanner lScanner = new StubVirusScanner(false);
+    VirusScanStreamer lStreamer = new VirusScanStreamer(Collections.singletonList(lScanner), "test upload");
+    lStreamer.write(new byte[100], 0, 100);
+
+    lStreamer.abort();
+
+    assertTrue("Scanner completed after abort", lScanner.awaitCompletion(10000));
+    assertTrue("Aborted scan reports an error", lScanner.isError());
+  }
+
+  @Test
+  public void testScannerFailureFailsUpload()
+  throws Exception {
+
+    StubVirusScanner lScanner = new StubVirusScanner(false) {
+      @Override
+      public void scan(InputStream pInputStream) {
+        throw new IllegalStateException("Scanner bug");
+      }
+    };
+    VirusScanStreamer lStreamer = new VirusScanStreamer(Collections.singletonList(lScanner), "test upload");
+    assertTrue("Scanner completed", lScanner.awaitCompletion(10000));
+    assertFalse("Scanner did not record an error", lScanner.isError());
+
+    byte[] lUploadData = new byte[UPLOAD_SIZE_BYTES];
+    try {
+      streamUpload(lStreamer, lUploadData);
+      fail("Upload should fail if a scanner dies");
+    }
+    catch (IOException | ExInternal e) {
+      //Expected - either a write or the final completion check fails
+    }
+  }
+}
@@ -0,0 +1,142 @@
+package net.foxopen.fox.io;
+
+import net.foxopen.fox.dom.DOM;
+import net.foxopen.fox.dom.DOMList;
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class XLSXStreamWriterTest {
+
+  /**
+   * Unzips an XLSX package into a map of part names to their XML content.
+   */
+  private static Map<String, String> unzip(byte[] pXLSX)
+  throws IOException {
+    Map<String, String> lParts = new HashMap<>();
+    try (ZipInputStream lZipInputStream = new ZipInputStream(new ByteArrayInputStream(pXLSX))) {
+      ZipEntry lEntry;
+      while ((lEntry = lZipInputStream.getNextEntry()) != null) {
+        lParts.put(lEntry.getName(), new String(IOUtils.toByteArray(lZipInputStream), StandardCharsets.UTF_8));
+      }
+    }
+    return lParts;
+  }
+
+  private static List<String> sheetNames(Map<String, String> pParts) {
+    List<String> lNames = new ArrayList<>();
+    DOMList lSheets = DOM.createDocumentFromXMLString(pParts.get("xl/workbook.xml")).getULByLocalName("sheets/sheet");
+    for (int i = 0; i < lSheets.getLength(); i++) {
+      lNames.add(lSheets.item(i).getAttr("name"));
+    }
+    return lNames;
+  }
+
+  private static void writeSheet(XLSXStreamWriter pWriter, String pSheetName, int pRowCount)
+  throws IOException {
+    pWriter.startSheet(pSheetName, new Integer[]{12, null});
+    for (int i = 1; i <= pRowCount; i++) {
+      pWriter.startRow();
+      pWriter.addStringCell("Row " + i);
+      pWriter.addNumberCell(i, "0.00");
+    }
+    pWriter.endSheet();
+  }
+
+  @Test
+  public void testSheetNamesAreUnique()
+  throws IOException {
+    ByteArrayOutputStream lOutput = new ByteArrayOutputStream();
+    XLSXStreamWriter lWriter = new XLSXStreamWriter(lOutput);
+    writeSheet(lWriter, "Results", 1);
+    writeSheet(lWriter, "RESULTS", 1);
+    writeSheet(lWriter, "", 1);
+    writeSheet(lWriter, "A sheet name which is far too long for Excel", 1);
+    writeSheet(lWriter, "A sheet name which is far too long for Excel", 1);
+    writeSheet(lWriter, "Invalid [chars]?", 1);
+    lWriter.finish();
+
+    Map<String, String> lParts = unzip(lOutput.toByteArray());
+    List<String> lNames = sheetNames(lParts);
+    assertEquals("Results", lNames.get(0));
+    assertEquals("Names are compared case insensitively", "RESULTS (2)", lNames.get(1));
+    assertEquals("Empty name replaced", "Sheet", lNames.get(2));
+    assertEquals("A sheet name which is far too l", lNames.get(3));
+    assertEquals("Suffix fits within 31 characters", "A sheet name which is far t (2)", lNames.get(4));
+    assertEquals("Invalid _chars__", lNames.get(5));
+
+    for (int i = 1; i <= lNames.size(); i++) {
+      assertTrue("Sheet part " + i + " written", lParts.containsKey("xl/worksheets/sheet" + i + ".xml"));
+    }
+  }
+
+  @Test
+  public void testSheetContent()
+  throws IOException {
+    ByteArrayOutputStream lOutput = new ByteArrayOutputStream();
+    XLSXStreamWriter lWriter = new XLSXStreamWriter(lOutput);
+    lWriter.startSheet("Data", new Integer[]{20});
+    lWriter.startRow();
+    lWriter.addStringCell("A & <B>");
+    lWriter.addStringCell(null);
+    lWriter.addNumberCell(1.5, "0.00");
+    lWriter.finish();
+
+    Map<String, String> lParts = unzip(lOutput.toByteArray());
+    DOM lSheet = DOM.createDocumentFromXMLString(lParts.get("xl/worksheets/sheet1.xml"));
+    assertEquals("20", lSheet.getULByLocalName("cols/col").item(0).getAttr("width"));
+
+    DOMList lCells = lSheet.getULByLocalName("sheetData/row").item(0).getChildElements();
+    assertEquals("Null cells are not written", 2, lCells.getLength());
+    assertEquals("A1", lCells.item(0).getAttr("r"));
+    assertEquals("A & <B>", lCells.item(0).getULByLocalName("is/t").item(0).value());
+    assertEquals("C1", lCells.item(1).getAttr("r"));
+    assertEquals("1", lCells.item(1).getAttr("s"));
+    assertEquals("1.5", lCells.item(1).getULByLocalName("v").item(0).value());
+
+    assertTrue(lParts.get("xl/styles.xml").contains("formatCode=\"0.00\""));
+  }
+
+  @Test
+  public void testRowLimitContinuesOnNewSheet()
+  throws IOException {
+    ByteArrayOutputStream lOutput = new ByteArrayOutputStream();
+    XLSXStreamWriter lWriter = new XLSXStreamWriter(lOutput, 3);
+    writeSheet(lWriter, "Data", 7);
+    lWriter.finish();
+
+    Map<String, String> lParts = unzip(lOutput.toByteArray());
+    List<String> lNames = sheetNames(lParts);
+    assertEquals("[Data, Data (2), Data (3)]", lNames.toString());
+
+    int[] lExpectedRowCounts = {3, 3, 1};
+    int lRowValue = 1;
+    for (int i = 0; i < lExpectedRowCounts.length; i++) {
+      DOM lSheet = DOM.createDocumentFromXMLString(lParts.get("xl/worksheets/sheet" + (i + 1) + ".xml"));
+      assertEquals("Column widths repeated on continuation sheets", "12", lSheet.getULByLocalName("cols/col").item(0).getAttr("width"));
+
+      DOMList lRows = lSheet.getULByLocalName("sheetData/row");
+      assertEquals("Sheet " + (i + 1) + " row count", lExpectedRowCounts[i], lRows.getLength());
+      for (int j = 0; j < lRows.getLength(); j++) {
+        assertEquals("Rows renumbered from 1 on each sheet", Integer.toString(j + 1), lRows.item(j).getAttr("r"));
+        assertEquals("Row " + lRowValue++, lRows.item(j).getULByLocalName("c/is/t").item(0).value());
+      }
+    }
+
+    assertTrue(lParts.get("[Content_Types].xml").contains("/xl/worksheets/sheet3.xml"));
+    assertTrue(lParts.get("xl/_rels/workbook.xml.rels").contains("worksheets/sheet3.xml"));
+  }
+}
@@ -0,0 +1,88 @@
+package net.foxopen.fox.module.fieldset;
+
+import net.foxopen.fox.ContextLabel;
+import net.foxopen.fox.ContextUElem;
+import net.foxopen.fox.dom.DOM;
+import net.foxopen.fox.dom.handler.DOMHandler;
+import net.foxopen.fox.module.fieldset.fieldinfo.TextValueFieldInfo;
+import net.foxopen.fox.module.fieldset.transformer.FieldTransformer;
+import net.foxopen.fox.thread.ActionRequestContext;
+import net.foxopen.fox.thread.devtoolbar.DevToolbarContext;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class FieldSetTest {
+
+  private static final FieldTransformer IDENTITY_TRANSFORMER = new FieldTransformer() {
+    @Override
+    public String applyOutboundTransform(DOM pSourceElement) {
+      return pSourceElement.value();
+    }
+
+    @Override
+    public String applyInboundTransform(String pPostedValue) {
+      return pPostedValue;
+    }
+  };
+
+  private ActionRequestContext mRequestContext;
+  private DOM mRootDOM;
+  private FieldSet mFieldSet;
+
+  @Before
+  public void setup() {
+    mRootDOM = DOM.createDocumentFromXMLString("<root><FIELD_1>value 1</FIELD_1><FIELD_2>value 2</FIELD_2><FIELD_3>value 3</FIELD_3></root>");
+
+    DOMHandler lDOMHandler = mock(DOMHandler.class);
+    when(lDOMHandler.getDOM()).thenReturn(mRootDOM);
+    when(lDOMHandler.getContextLabel()).thenReturn(ContextLabel.ROOT.asString());
+
+    ContextUElem lContextUElem = new ContextUElem();
+    lContextUElem.registerDOMHandler(lDOMHandler);
+    lContextUElem.loadUElem(ContextLabel.ROOT.asString());
+    lContextUElem.defineUElem(ContextLabel.ATTACH, mRootDOM);
+
+    mRequestContext = mock(ActionRequestContext.class);
+    when(mRequestContext.getContextUElem()).thenReturn(lContextUElem);
+    when(mRequestContext.getDevToolbarContext()).thenReturn(mock(DevToolbarContext.class));
+
+    mFieldSet = FieldSet.createNewFieldSet(mRequestContext);
+    for(int i = 1; i <= 3; i++) {
+      DOM lFieldDOM = mRootDOM.get1EOrNull("FIELD_" + i);
+      mFieldSet.addFieldInfo(new TextValueFieldInfo("f" + i, lFieldDOM.getRef(), lFieldDOM.value(), null, IDENTITY_TRANSFORMER), lFieldDOM, lContextUElem);
+    }
+  }
+
+  @Test
+  public void testAllFieldsPosted() {
+    Map<String, String[]> lPostedValues = new HashMap<>();
+    lPostedValues.put("f1", new String[]{"value 1"});
+    lPostedValues.put("f2", new String[]{"new value"});
+
+    mFieldSet.applyChangesToDOMs(mRequestContext, lPostedValues);
+
+    assertEquals("Unchanged field is not modified", "value 1", mRootDOM.get1SNoEx("FIELD_1"));
+    assertEquals("Changed field is modified", "new value", mRootDOM.get1SNoEx("FIELD_2"));
+    assertEquals("Field missing from a full post is cleared", "", mRootDOM.get1SNoEx("FIELD_3"));
+  }
+
+  @Test
+  public void testOnlyChangedFieldsPosted() {
+    Map<String, String[]> lPostedValues = new HashMap<>();
+    lPostedValues.put("f2", new String[]{"new value"});
+    lPostedValues.put("changed_fields", new String[]{"[\"f2\", \"f3\"]"});
+
+    mFieldSet.applyChangesToDOMs(mRequestContext, lPostedValues);
+
+    assertEquals("Field not posted is treated as unchanged", "value 1", mRootDOM.get1SNoEx("FIELD_1"));
+    assertEquals("Changed field is modified", "new value", mRootDOM.get1SNoEx("FIELD_2"));
+    assertEquals("Field marked as changed but not posted is cleared", "", mRootDOM.get1SNoEx("FIELD_3"));
+  }
+}
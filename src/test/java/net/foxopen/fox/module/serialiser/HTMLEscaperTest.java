@@ -0,0 +1,110 @@
+package net.foxopen.fox.module.serialiser;
+
+import org.apache.commons.lang3.StringEscapeUtils;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class HTMLEscaperTest {
+
+  /** Values typical of a form page - mostly plain text, with the occasional markup character. */
+  private static final String[] FORM_VALUES = {
+    "John Smith", "42", "2014-06-30", "01224 123456", "AB10 1XY", "john.smith@example.com", "Y", "N",
+    "Flat 3, 27 Union Street", "Aberdeen", "Well 15/21a-A3", "Smith & Sons Ltd", "Production licence P.1234",
+    "Value must be < 100", "The \"Forties\" field", "Comments about the application which may run to a sentence or two.",
+    "", "OPEN", "CLOSED", "12,345.67"
+  };
+
+  private static String writeEscaped(String pString)
+  throws IOException {
+    StringWriter lWriter = new StringWriter();
+    HTMLEscaper.writeEscaped(lWriter, pString);
+    return lWriter.toString();
+  }
+
+  @Test
+  public void testEscapeMatchesEscapeHtml4ForMarkupCharacters()
+  throws IOException {
+    String[] lValues = {"<script>alert('x')</script>", "a & b", "\"quoted\"", "&amp;", ">", "a<b>c&d\"e", "trailing <"};
+    for(String lValue : lValues) {
+      assertEquals(lValue, StringEscapeUtils.escapeHtml4(lValue), HTMLEscaper.escape(lValue));
+      assertEquals(lValue, StringEscapeUtils.escapeHtml4(lValue), writeEscaped(lValue));
+    }
+
+    for(String lValue : FORM_VALUES) {
+      assertEquals(lValue, StringEscapeUtils.escapeHtml4(lValue), writeEscaped(lValue));
+    }
+  }
+
+  @Test
+  public void testUnescapedValuesNotCopied()
+  throws IOException {
+    String lValue = "No markup characters here";
+    assertSame(lValue, HTMLEscaper.escape(lValue));
+    assertEquals(lValue, writeEscaped(lValue));
+
+    //Non-ASCII characters are left for the UTF-8 encoder rather than converted to named entities
+    String lAccented = "Caf\u00e9 \u00a9 \u2019";
+    assertSame(lAccented, HTMLEscaper.escape(lAccented));
+    assertEquals("Caf\u00e9 &amp; \u2019", writeEscaped("Caf\u00e9 & \u2019"));
+
+    assertNull(HTMLEscaper.escape(null));
+    assertEquals("", writeEscaped(null));
+  }
+
+  /**
+   * Benchmark comparing the time taken to write typical form values to a Writer using escapeHtml4 and using
+   * HTMLEscaper. Not run as part of the test suite. Arguments: timed rounds over the form values (default 1000000).
+   */
+  public static void main(String[] pArgs)
+  throws IOException {
+    int lRounds = pArgs.length > 0 ? Integer.parseInt(pArgs[0]) : 1000000;
+
+    //Warm up both paths before timing
+    long lSink = runEscapeHtml4(lRounds) + runHTMLEscaper(lRounds);
+
+    long lStart = System.nanoTime();
+    lSink += runEscapeHtml4(lRounds);
+    long lEscapeHtml4Nanos = System.nanoTime() - lStart;
+
+    lStart = System.nanoTime();
+    lSink += runHTMLEscaper(lRounds);
+    long lHTMLEscaperNanos = System.nanoTime() - lStart;
+
+    long lValueCount = (long) lRounds * FORM_VALUES.length;
+    //Print the total written length so the work cannot be optimised away
+    System.out.printf("%d values written per path (checksum %d)%n", lValueCount, lSink);
+    System.out.printf("escapeHtml4:  %.1f ns per value%n", (double) lEscapeHtml4Nanos / lValueCount);
+    System.out.printf("HTMLEscaper:  %.1f ns per value%n", (double) lHTMLEscaperNanos / lValueCount);
+  }
+
+  private static long runEscapeHtml4(int pRounds) {
+    long lLength = 0;
+    for(int i = 0; i < pRounds; i++) {
+      StringWriter lWriter = new StringWriter();
+      for(String lValue : FORM_VALUES) {
+        lWriter.append(StringEscapeUtils.escapeHtml4(lValue));
+      }
+      lLength += lWriter.getBuffer().length();
+    }
+    return lLength;
+  }
+
+  private static long runHTMLEscaper(int pRounds)
+  throws IOException {
+    long lLength = 0;
+    for(int i = 0; i < pRounds; i++) {
+      StringWriter lWriter = new StringWriter();
+      for(String lValue : FORM_VALUES) {
+        HTMLEscaper.writeEscaped(lWriter, lValue);
+      }
+      lLength += lWriter.getBuffer().length();
+    }
+    return lLength;
+  }
+}
@@ -0,0 +1,122 @@
+package net.foxopen.fox.thread.persistence;
+
+import com.esotericsoftware.minlog.Log;
+import net.foxopen.fox.auth.AuthenticationContext;
+import net.foxopen.fox.auth.SecurityScope;
+import net.foxopen.fox.auth.StandardAuthenticationContext;
+import net.foxopen.fox.thread.persistence.xstream.XStreamManager;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CharacterDataSerialiserTest {
+
+  private static <T> T roundTrip(T pObject) {
+    String lSerialised = CharacterDataSerialiser.serialise(pObject, "Test");
+    assertTrue("Serialised string has Kryo prefix", lSerialised.startsWith(CharacterDataSerialiser.KRYO_DATA_PREFIX));
+    return (T) CharacterDataSerialiser.deserialise(new StringReader(lSerialised), "Test");
+  }
+
+  @Test
+  public void testAuthenticationContextRoundTrip() {
+    StandardAuthenticationContext lDeserialised = roundTrip(new StandardAuthenticationContext("SESSION123"));
+    assertEquals("Session ID is retained", "SESSION123", lDeserialised.getSessionId());
+
+    lDeserialised = roundTrip(new StandardAuthenticationContext((String) null));
+    assertNull("Null session ID is retained", lDeserialised.getSessionId());
+  }
+
+  @Test
+  public void testSecurityScopeRoundTrip() {
+    assertSame("Default security scope deserialises to the singleton", SecurityScope.defaultInstance(), roundTrip(SecurityScope.defaultInstance()));
+
+    SecurityScope lDeserialised = roundTrip(new SecurityScope("PRIV1,PRIV2", "/*/UREF", "1,2", "OBJ_PRIV", "TYPE"));
+    assertEquals("PRIV1,PRIV2", lDeserialised.getCsvSystemPrivileges());
+    assertEquals("/*/UREF", lDeserialised.getUrefXpath());
+    assertEquals("1,2", lDeserialised.getCsvURefList());
+  }
+
+  @Test
+  public void testCollectionRoundTrip() {
+    List<String> lList = Arrays.asList("a", "b");
+    assertEquals("Arrays.asList list deserialised", lList, roundTrip(lList));
+    assertNull("Null deserialised as null", roundTrip(null));
+  }
+
+  @Test
+  public void testLegacyXStreamDataIsRead() {
+    Map<String, SecurityScope> lMap = new HashMap<>();
+    lMap.put("scope", new SecurityScope("PRIV", "", "", "", ""));
+    lMap.put("default", SecurityScope.defaultInstance());
+
+    String lXML = XStreamManager.serialiseObjectToXMLString(lMap);
+    Map<String, SecurityScope> lDeserialised = (Map<String, SecurityScope>) CharacterDataSerialiser.deserialise(lXML, "Test");
+
+    assertEquals("PRIV", lDeserialised.get("scope").getCsvSystemPrivileges());
+    assertSame("Legacy default security scope deserialises to the singleton", SecurityScope.defaultInstance(), lDeserialised.get("default"));
+
+    AuthenticationContext lAuthContext = (AuthenticationContext) CharacterDataSerialiser.deserialise(XStreamManager.serialiseObjectToXMLString(new StandardAuthenticationContext("S1")), "Test");
+    assertEquals("S1", ((StandardAuthenticationContext) lAuthContext).getSessionId());
+  }
+
+  /**
+   * Benchmark comparing the time taken to serialise and deserialise a representative set of character-stored thread
+   * state objects using XStream and Kryo. Not run as part of the test suite. Arguments: timed churns (default 2000).
+   */
+  public static void main(String[] pArgs) {
+    int lIterations = pArgs.length > 0 ? Integer.parseInt(pArgs[0]) : 2000;
+
+    //Match the engine's log4j config - Kryo debug logging is otherwise enabled when log4j is unconfigured, skewing the results
+    Log.WARN();
+
+    List<Object> lChurnObjects = new ArrayList<>();
+    lChurnObjects.add(new StandardAuthenticationContext("SESSION123"));
+    lChurnObjects.add(SecurityScope.defaultInstance());
+    lChurnObjects.add(new SecurityScope("PRIV1,PRIV2", "/*/UREF", "1,2,3", "OBJ_PRIV", "TYPE"));
+    Map<String, String> lLabels = new HashMap<>();
+    for(int i = 0; i < 20; i++) {
+      lLabels.put("label" + i, "ref" + i);
+    }
+    lChurnObjects.add(lLabels);
+
+    //Warm up both serialisers before timing
+    runXStreamChurns(lChurnObjects, lIterations);
+    runKryoChurns(lChurnObjects, lIterations);
+
+    long lXStreamNanos = runXStreamChurns(lChurnObjects, lIterations);
+    long lKryoNanos = runKryoChurns(lChurnObjects, lIterations);
+
+    System.out.printf("Character data serialise/deserialise per churn, mean of %d churns: XStream %.1f us, Kryo %.1f us%n",
+                      lIterations, lXStreamNanos / 1000.0 / lIterations, lKryoNanos / 1000.0 / lIterations);
+  }
+
+  private static long runXStreamChurns(List<Object> pObjects, int pIterations) {
+    long lStart = System.nanoTime();
+    for(int i = 0; i < pIterations; i++) {
+      for(Object lObject : pObjects) {
+        XStreamManager.getXStream().fromXML(XStreamManager.serialiseObjectToXMLString(lObject));
+      }
+    }
+    return System.nanoTime() - lStart;
+  }
+
+  private static long runKryoChurns(List<Object> pObjects, int pIterations) {
+    long lStart = System.nanoTime();
+    for(int i = 0; i < pIterations; i++) {
+      for(Object lObject : pObjects) {
+        CharacterDataSerialiser.deserialise(CharacterDataSerialiser.serialise(lObject, "Benchmark"), "Benchmark");
+      }
+    }
+    return System.nanoTime() - lStart;
+  }
+}
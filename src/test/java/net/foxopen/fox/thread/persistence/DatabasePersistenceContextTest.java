@@ -0,0 +1,214 @@
+package net.foxopen.fox.thread.persistence;
+
+import net.foxopen.fox.ContextUCon;
+import net.foxopen.fox.database.UCon;
+import net.foxopen.fox.job.FoxJobTask;
+import net.foxopen.fox.job.TaskCompletionMessage;
+import net.foxopen.fox.thread.RequestContext;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DatabasePersistenceContextTest {
+
+  private RequestContext mRequestContext;
+
+  @Before
+  public void setup() {
+    ContextUCon lContextUCon = mock(ContextUCon.class);
+    when(lContextUCon.getUCon(any(String.class))).thenReturn(mock(UCon.class));
+    when(lContextUCon.getPoolName()).thenReturn("TEST_POOL");
+
+    mRequestContext = mock(RequestContext.class);
+    when(mRequestContext.getContextUCon()).thenReturn(lContextUCon);
+  }
+
+  private static Persistable mockPersistable(PersistableType pType) {
+    Persistable lPersistable = mock(Persistable.class);
+    when(lPersistable.getPersistableType()).thenReturn(pType);
+    return lPersistable;
+  }
+
+  @Test
+  public void testNonCriticalUpdatesDeferred() {
+    DatabasePersistenceContext lContext = new DatabasePersistenceContext("THREAD1");
+    Persistable lThread = mockPersistable(PersistableType.THREAD);
+    Persistable lModuleCall = mockPersistable(PersistableType.MODULE_CALL);
+    Persistable lStateCall = mockPersistable(PersistableType.STATE_CALL);
+    Persistable lFacet = mockPersistable(PersistableType.MODULE_FACET);
+
+    lContext.allowWriteBehind();
+    lContext.requiresPersisting(lModuleCall, PersistenceMethod.UPDATE, PersistenceFacet.MODULE_CALL_XPATH_VARIABLES);
+    lContext.requiresPersisting(lThread, PersistenceMethod.UPDATE);
+    lContext.requiresPersisting(lStateCall, PersistenceMethod.UPDATE);
+    lContext.requiresPersisting(lFacet, PersistenceMethod.UPDATE);
+    lContext.endPersistenceCycle(mRequestContext);
+
+    verify(lThread).update(lContext);
+    verify(lModuleCall, never()).update(any(PersistenceContext.class));
+    verify(lStateCall, never()).update(any(PersistenceContext.class));
+    verify(lFacet, never()).update(any(PersistenceContext.class));
+    assertTrue(lContext.hasPendingWriteBehind());
+    assertFalse("Marked facets are cleared for the next cycle", lContext.isFacetMarked(PersistenceFacet.MODULE_CALL_XPATH_VARIABLES));
+  }
+
+  @Test
+  public void testStructuralCycleWrittenSynchronously() {
+    DatabasePersistenceContext lContext = new DatabasePersistenceContext("THREAD1");
+    Persistable lStateCall = mockPersistable(PersistableType.STATE_CALL);
+    Persistable lNewFacet = mockPersistable(PersistableType.MODULE_FACET);
+    Persistable lStateCallStack = mockPersistable(PersistableType.STATE_CALL_STACK);
+
+    //A created facet means the cycle is not read-only
+    lContext.allowWriteBehind();
+    lContext.requiresPersisting(lStateCall, PersistenceMethod.UPDATE);
+    lContext.requiresPersisting(lNewFacet, PersistenceMethod.CREATE);
+    lContext.endPersistenceCycle(mRequestContext);
+
+    verify(lStateCall).update(lContext);
+    verify(lNewFacet).create(lContext);
+    assertFalse(lContext.hasPendingWriteBehind());
+
+    //A call stack update may insert or delete calls
+    lContext.allowWriteBehind();
+    lContext.requiresPersisting(lStateCall, PersistenceMethod.UPDATE);
+    lContext.requiresPersisting(lStateCallStack, PersistenceMethod.UPDATE);
+    lContext.endPersistenceCycle(mRequestContext);
+
+    verify(lStateCallStack).update(lContext);
+    assertFalse(lContext.hasPendingWriteBehind());
+  }
+
+  @Test
+  public void testWriteBehindMustBeAllowed() {
+    DatabasePersistenceContext lContext = new DatabasePersistenceContext("THREAD1");
+    Persistable lStateCall = mockPersistable(PersistableType.STATE_CALL);
+
+    lContext.requiresPersisting(lStateCall, PersistenceMethod.UPDATE);
+    lContext.endPersistenceCycle(mRequestContext);
+
+    verify(lStateCall).update(lContext);
+    assertFalse(lContext.hasPendingWriteBehind());
+    assertFalse("Nothing to submit", lContext.submitWriteBehind((pContextUCon, pWriteSuccessful) -> {}));
+
+    //Allowing write-behind only applies to the next cycle
+    lContext.allowWriteBehind();
+    lContext.endPersistenceCycle(mRequestContext);
+    lContext.requiresPersisting(lStateCall, PersistenceMethod.UPDATE);
+    lContext.endPersistenceCycle(mRequestContext);
+    assertFalse(lContext.hasPendingWriteBehind());
+  }
+
+  @Test
+  public void testImplicatedUpdatesNotDeferred() {
+    DatabasePersistenceContext lContext = new DatabasePersistenceContext("THREAD1");
+    Persistable lStateCall = mockPersistable(PersistableType.STATE_CALL);
+    Persistable lThread = mockPersistable(PersistableType.THREAD);
+    when(lThread.update(lContext)).thenReturn(Collections.singleton(new PersistenceResult(lStateCall, PersistenceMethod.UPDATE)));
+
+    lContext.allowWriteBehind();
+    lContext.requiresPersisting(lThread, PersistenceMethod.UPDATE);
+    lContext.requiresPersisting(lStateCall, PersistenceMethod.UPDATE);
+    lContext.endPersistenceCycle(mRequestContext);
+
+    assertFalse("State call already written by thread update", lContext.hasPendingWriteBehind());
+  }
+
+  @Test
+  public void testQueueOrdersWritesPerThread()
+  throws InterruptedException {
+    final List<String> lWriteOrder = Collections.synchronizedList(new ArrayList<>());
+    final CountDownLatch lFirstWriteStarted = new CountDownLatch(1);
+    final CountDownLatch lReleaseFirstWrite = new CountDownLatch(1);
+
+    WriteBehindQueue.submit("QUEUE_THREAD", new TestWriteTask(() -> {
+      lFirstWriteStarted.countDown();
+      awaitQuietly(lReleaseFirstWrite);
+      lWriteOrder.add("A1");
+    }));
+    for(int i = 2; i <= 5; i++) {
+      String lWriteName = "A" + i;
+      WriteBehindQueue.submit("QUEUE_THREAD", new TestWriteTask(() -> lWriteOrder.add(lWriteName)));
+    }
+    //Writes for other threads are not held up
+    WriteBehindQueue.submit("OTHER_THREAD", new TestWriteTask(() -> lWriteOrder.add("B1")));
+
+    assertTrue(lFirstWriteStarted.await(10, TimeUnit.SECONDS));
+    assertTrue(WriteBehindQueue.awaitPendingWrites("OTHER_THREAD", 10000));
+    assertFalse("Writes still pending", WriteBehindQueue.awaitPendingWrites("QUEUE_THREAD", 50));
+
+    lReleaseFirstWrite.countDown();
+    assertTrue(WriteBehindQueue.awaitPendingWrites("QUEUE_THREAD", 10000));
+
+    assertEquals("[B1, A1, A2, A3, A4, A5]", lWriteOrder.toString());
+  }
+
+  @Test
+  public void testCallbackInvokedWhenConnectionUnavailable()
+  throws InterruptedException {
+    DatabasePersistenceContext lContext = new DatabasePersistenceContext("NO_CONNECTION_THREAD");
+    Persistable lStateCall = mockPersistable(PersistableType.STATE_CALL);
+
+    lContext.allowWriteBehind();
+    lContext.requiresPersisting(lStateCall, PersistenceMethod.UPDATE);
+    lContext.endPersistenceCycle(mRequestContext);
+    assertTrue(lContext.hasPendingWriteBehind());
+
+    //No connection pool exists for the write-behind to acquire a connection from
+    final CountDownLatch lCallbackInvoked = new CountDownLatch(1);
+    final List<Boolean> lWriteResults = Collections.synchronizedList(new ArrayList<>());
+    assertTrue(lContext.submitWriteBehind((pContextUCon, pWriteSuccessful) -> {
+      lWriteResults.add(pWriteSuccessful);
+      lCallbackInvoked.countDown();
+    }));
+
+    assertTrue("Callback invoked so the thread lock can be released", lCallbackInvoked.await(10, TimeUnit.SECONDS));
+    assertEquals("[false]", lWriteResults.toString());
+    assertTrue(WriteBehindQueue.awaitPendingWrites("NO_CONNECTION_THREAD", 10000));
+    verify(lStateCall, never()).update(any(PersistenceContext.class));
+  }
+
+  private static void awaitQuietly(CountDownLatch pLatch) {
+    try {
+      pLatch.await(10, TimeUnit.SECONDS);
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static class TestWriteTask
+  implements FoxJobTask {
+
+    private final Runnable mWrite;
+
+    private TestWriteTask(Runnable pWrite) {
+      mWrite = pWrite;
+    }
+
+    @Override
+    public String getTaskDescription() {
+      return "Test write";
+    }
+
+    @Override
+    public TaskCompletionMessage executeTask() {
+      mWrite.run();
+      return new TaskCompletionMessage(this, "Done");
+    }
+  }
+}
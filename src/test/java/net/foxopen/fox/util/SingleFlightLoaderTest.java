@@ -0,0 +1,105 @@
+package net.foxopen.fox.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class SingleFlightLoaderTest {
+
+  private static final int THREADS_PER_KEY = 25;
+  private static final String[] KEYS = {"MODULE_A", "MODULE_B", "MODULE_C"};
+
+  @Test
+  public void testSimultaneousRequestsLoadEachKeyOnce()
+  throws Exception {
+
+    SingleFlightLoader<String, Object> lLoader = new SingleFlightLoader<>();
+    Map<String, AtomicInteger> lLoadCounts = new ConcurrentHashMap<>();
+    for(String lKey : KEYS) {
+      lLoadCounts.put(lKey, new AtomicInteger());
+    }
+
+    int lThreadCount = THREADS_PER_KEY * KEYS.length;
+    CyclicBarrier lStartBarrier = new CyclicBarrier(lThreadCount);
+    //Hold the first load for each key open until every thread has made its request
+    CountDownLatch lAllRequested = new CountDownLatch(lThreadCount);
+
+    ExecutorService lExecutor = Executors.newFixedThreadPool(lThreadCount);
+    List<Future<Object>> lResults = new ArrayList<>();
+    for(int i = 0; i < lThreadCount; i++) {
+      String lKey = KEYS[i % KEYS.length];
+      lResults.add(lExecutor.submit(() -> {
+        lStartBarrier.await();
+        lAllRequested.countDown();
+        return lLoader.load(lKey, () -> {
+          lLoadCounts.get(lKey).incrementAndGet();
+          lAllRequested.await(10, TimeUnit.SECONDS);
+          //Simulate an expensive parse
+          Thread.sleep(50);
+          return new Object[]{lKey};
+        });
+      }));
+    }
+
+    Map<String, Object> lFirstResults = new ConcurrentHashMap<>();
+    for(int i = 0; i < lResults.size(); i++) {
+      Object lResult = lResults.get(i).get(30, TimeUnit.SECONDS);
+      String lKey = KEYS[i % KEYS.length];
+      lFirstResults.putIfAbsent(lKey, lResult);
+      assertSame("All requests for " + lKey + " receive the same loaded object", lFirstResults.get(lKey), lResult);
+    }
+    lExecutor.shutdown();
+
+    for(String lKey : KEYS) {
+      assertEquals("Exactly one load performed for " + lKey, 1, lLoadCounts.get(lKey).get());
+      assertFalse("Load no longer in progress for " + lKey, lLoader.isLoadInProgress(lKey));
+    }
+  }
+
+  @Test
+  public void testLoadFailureIsSharedAndNotRetained()
+  throws Exception {
+
+    SingleFlightLoader<String, Object> lLoader = new SingleFlightLoader<>();
+    IllegalStateException lFailure = new IllegalStateException("Module failed to validate");
+
+    try {
+      lLoader.load("MODULE_A", () -> { throw lFailure; });
+      fail("Loader exception should be propagated");
+    }
+    catch (ExecutionException e) {
+      assertSame("Original exception available as cause", lFailure, e.getCause());
+    }
+
+    //A subsequent request should attempt the load again
+    Object lResult = new Object();
+    assertSame("Failed load is not retained", lResult, lLoader.load("MODULE_A", () -> lResult));
+  }
+
+  @Test
+  public void testRecursiveLoadDoesNotDeadlock()
+  throws Exception {
+
+    SingleFlightLoader<String, String> lLoader = new SingleFlightLoader<>();
+    String lResult = lLoader.load("MODULE_A", () -> "outer+" + lLoader.load("MODULE_A", () -> "inner"));
+
+    assertEquals("outer+inner", lResult);
+    assertFalse("Nothing left in progress", lLoader.isLoadInProgress("MODULE_A"));
+  }
+}
@@ -0,0 +1,14 @@
+-- Upgrades fox_pagination_pages to hold one compressed chunk of rows per page, as written by CachingPaginatedResultDeliverer
+-- and read by CachingDatabasePager. This must be run against the FOX schema before deploying an engine which uses it.
+-- Replace ${schema.fox} with the FOX schema name (the engine's main database user) before running.
+-- Cached pages are only valid for the lifetime of a module call, so existing rows are discarded rather than converted.
+DELETE FROM ${schema.fox}.fox_pagination_pages;
+
+ALTER TABLE ${schema.fox}.fox_pagination_pages ADD (
+  last_row_number NUMBER
+, page_data BLOB
+);
+
+ALTER TABLE ${schema.fox}.fox_pagination_pages MODIFY (
+  page_xml NULL
+);